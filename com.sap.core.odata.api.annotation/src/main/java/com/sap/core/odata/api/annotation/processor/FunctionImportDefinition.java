@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.annotation.processor;
+
+import java.util.List;
+
+import com.sap.core.odata.api.annotation.edm.FunctionImport.Multiplicity;
+import com.sap.core.odata.api.annotation.edm.FunctionImport.ReturnType;
+import com.sap.core.odata.api.annotation.edmx.HttpMethod;
+
+/**
+ * Definition of a function import, i.e., of a method annotated with
+ * {@link com.sap.core.odata.api.annotation.edm.FunctionImport}.
+ * @author SAP AG
+ */
+public class FunctionImportDefinition {
+
+  private String name;
+  private String methodName;
+  private Class<?> declaringClass;
+  private ReturnType returnType;
+  private Multiplicity multiplicity;
+  private String entitySet;
+  private HttpMethod.Name httpMethod;
+  private Class<?> returnClass;
+  private Class<?> returnElementClass;
+  private Class<?>[] parameterTypes;
+  private List<ParameterDefinition> parameters;
+
+  /**
+   * @return the name of the function import
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the name of the Java method
+   */
+  public String getMethodName() {
+    return methodName;
+  }
+
+  /**
+   * @return the class declaring the Java method
+   */
+  public Class<?> getDeclaringClass() {
+    return declaringClass;
+  }
+
+  public ReturnType getReturnType() {
+    return returnType;
+  }
+
+  public Multiplicity getMultiplicity() {
+    return multiplicity;
+  }
+
+  public String getEntitySet() {
+    return entitySet;
+  }
+
+  public HttpMethod.Name getHttpMethod() {
+    return httpMethod;
+  }
+
+  /**
+   * @return the return type of the Java method
+   */
+  public Class<?> getReturnClass() {
+    return returnClass;
+  }
+
+  /**
+   * @return the type argument of a parameterized return type of the Java method,
+   *         e.g., the element type of a returned list, or the return type otherwise
+   */
+  public Class<?> getReturnElementClass() {
+    return returnElementClass;
+  }
+
+  /**
+   * @return the types of all parameters of the Java method
+   */
+  public Class<?>[] getParameterTypes() {
+    return parameterTypes;
+  }
+
+  /**
+   * @return the parameters of the function import, i.e., the annotated parameters of the Java method
+   */
+  public List<ParameterDefinition> getParameters() {
+    return parameters;
+  }
+
+  public FunctionImportDefinition setName(final String name) {
+    this.name = name;
+    return this;
+  }
+
+  public FunctionImportDefinition setMethodName(final String methodName) {
+    this.methodName = methodName;
+    return this;
+  }
+
+  public FunctionImportDefinition setDeclaringClass(final Class<?> declaringClass) {
+    this.declaringClass = declaringClass;
+    return this;
+  }
+
+  public FunctionImportDefinition setReturnType(final ReturnType returnType) {
+    this.returnType = returnType;
+    return this;
+  }
+
+  public FunctionImportDefinition setMultiplicity(final Multiplicity multiplicity) {
+    this.multiplicity = multiplicity;
+    return this;
+  }
+
+  public FunctionImportDefinition setEntitySet(final String entitySet) {
+    this.entitySet = entitySet;
+    return this;
+  }
+
+  public FunctionImportDefinition setHttpMethod(final HttpMethod.Name httpMethod) {
+    this.httpMethod = httpMethod;
+    return this;
+  }
+
+  public FunctionImportDefinition setReturnClass(final Class<?> returnClass) {
+    this.returnClass = returnClass;
+    return this;
+  }
+
+  public FunctionImportDefinition setReturnElementClass(final Class<?> returnElementClass) {
+    this.returnElementClass = returnElementClass;
+    return this;
+  }
+
+  public FunctionImportDefinition setParameterTypes(final Class<?>... parameterTypes) {
+    this.parameterTypes = parameterTypes;
+    return this;
+  }
+
+  public FunctionImportDefinition setParameters(final List<ParameterDefinition> parameters) {
+    this.parameters = parameters;
+    return this;
+  }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.annotation.processor;
+
+import java.util.List;
+
+/**
+ * Function imports of a class together with direct calls of their methods.
+ * <p>Implementations are generated at compile time by {@link FunctionImportProcessor}
+ * as class <code>&lt;class name&gt;_FunctionImports</code> in the package of the class;
+ * use {@link FunctionImportDispatchers#get(Class)} to obtain them.</p>
+ * @author SAP AG
+ */
+public interface FunctionImportDispatcher {
+
+  /** Suffix appended to the name of a class to get the name of its generated dispatcher. */
+  String CLASS_NAME_SUFFIX = "_FunctionImports";
+
+  /**
+   * @return the definitions of all function imports of the class, including
+   *         inherited ones, in declaration order
+   */
+  List<FunctionImportDefinition> getFunctionImports();
+
+  /**
+   * Creates an instance of the class with its public no-argument constructor.
+   * @return the new instance or <code>null</code> if the class has no such constructor
+   */
+  Object newInstance();
+
+  /**
+   * Calls the method of a function import.
+   * @param index the position of the function import in {@link #getFunctionImports()}
+   * @param target the object the method is called on; ignored for static methods
+   * @param arguments the arguments for all parameters of the Java method
+   * @return the result of the method or <code>null</code> for a <code>void</code> method
+   * @throws Exception any exception thrown by the method
+   */
+  Object invoke(int index, Object target, Object[] arguments) throws Exception;
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.annotation.processor;
+
+/**
+ * Access to the generated {@link FunctionImportDispatcher}s.
+ * @author SAP AG
+ */
+public final class FunctionImportDispatchers {
+
+  private FunctionImportDispatchers() {}
+
+  /**
+   * Returns the dispatcher generated for the given class.
+   * @param type a class with methods annotated as function imports
+   * @return the dispatcher or <code>null</code> if none has been generated,
+   *         e.g., because annotation processing was disabled for the class
+   */
+  public static FunctionImportDispatcher get(final Class<?> type) {
+    try {
+      final Class<?> dispatcherClass = Class.forName(type.getName() + FunctionImportDispatcher.CLASS_NAME_SUFFIX, true,
+          type.getClassLoader());
+      if (FunctionImportDispatcher.class.isAssignableFrom(dispatcherClass)) {
+        return (FunctionImportDispatcher) dispatcherClass.newInstance();
+      }
+    } catch (final ClassNotFoundException e) {
+      return null;
+    } catch (final InstantiationException e) {
+      return null;
+    } catch (final IllegalAccessException e) {
+      return null;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.annotation.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import com.sap.core.odata.api.annotation.edm.FunctionImport;
+import com.sap.core.odata.api.annotation.edm.FunctionImport.ReturnType;
+import com.sap.core.odata.api.annotation.edm.Parameter;
+
+/**
+ * Annotation processor generating a {@link FunctionImportDispatcher} for each class
+ * with methods annotated with {@link FunctionImport}.
+ * <p>The processor is registered as service and runs automatically when this
+ * library is on the class path of the compiler. The generated dispatcher makes
+ * the function imports available without scanning the class with reflection
+ * and calls their methods directly.</p>
+ * <p>Like the reflective evaluation of the annotations, the processor considers
+ * all public methods of a class, including inherited ones, with a return type
+ * other than {@link ReturnType#NONE}. Annotated methods that the runtime would
+ * reject are reported as warnings.</p>
+ * @author SAP AG
+ */
+@SupportedAnnotationTypes("com.sap.core.odata.api.annotation.edm.FunctionImport")
+public class FunctionImportProcessor extends AbstractProcessor {
+
+  private static final String PACKAGE = FunctionImportProcessor.class.getPackage().getName() + ".";
+
+  private final Set<String> generated = new HashSet<String>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+    for (final Element element : roundEnv.getElementsAnnotatedWith(FunctionImport.class)) {
+      if (element.getKind() == ElementKind.METHOD) {
+        types.add((TypeElement) element.getEnclosingElement());
+      }
+    }
+    for (final TypeElement type : types) {
+      try {
+        generate(type);
+      } catch (final IOException e) {
+        processingEnv.getMessager().printMessage(Kind.ERROR,
+            "Function imports of " + type.getQualifiedName() + " could not be generated: " + e.getMessage(), type);
+      }
+    }
+    return false;
+  }
+
+  private void generate(final TypeElement type) throws IOException {
+    final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+    if (!isAccessible(type, packageElement)) {
+      processingEnv.getMessager().printMessage(Kind.WARNING,
+          "Function imports of a private or local class are not generated.", type);
+      return;
+    }
+    final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+    final String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+        + FunctionImportDispatcher.CLASS_NAME_SUFFIX;
+    if (!generated.add(binaryName)) {
+      return;
+    }
+
+    List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+    for (final ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+      final FunctionImport annotation = method.getAnnotation(FunctionImport.class);
+      if (annotation == null || annotation.returnType() == ReturnType.NONE) {
+        continue;
+      }
+      final boolean declared = method.getEnclosingElement().equals(type);
+      if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+        if (declared) {
+          processingEnv.getMessager().printMessage(Kind.WARNING,
+              "Only public methods can be function imports; this method is ignored.", method);
+        }
+      } else if (isAccessible((TypeElement) method.getEnclosingElement(), packageElement)) {
+        if (declared) {
+          check(method, annotation);
+        }
+        methods.add(method);
+      }
+    }
+
+    PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+        packageName.isEmpty() ? className : packageName + "." + className, type).openWriter());
+    try {
+      write(out, packageName, className, type, methods);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void check(final ExecutableElement method, final FunctionImport annotation) {
+    if (annotation.returnType() == ReturnType.ENTITY_TYPE && annotation.entitySet().length() == 0) {
+      processingEnv.getMessager().printMessage(Kind.WARNING,
+          "A function import returning entities needs an entity set.", method);
+    }
+    if (method.getReturnType().getKind() == TypeKind.VOID) {
+      processingEnv.getMessager().printMessage(Kind.WARNING,
+          "A function import with return type " + annotation.returnType() + " must not return void.", method);
+    }
+    for (final VariableElement parameter : method.getParameters()) {
+      final Parameter parameterAnnotation = parameter.getAnnotation(Parameter.class);
+      if (parameterAnnotation != null && parameterAnnotation.name().length() == 0) {
+        processingEnv.getMessager().printMessage(Kind.WARNING,
+            "A function-import parameter needs a name.", parameter);
+      }
+    }
+  }
+
+  private void write(final PrintWriter out, final String packageName, final String className,
+      final TypeElement type, final List<ExecutableElement> methods) {
+    if (!packageName.isEmpty()) {
+      out.println("package " + packageName + ";");
+      out.println();
+    }
+    out.println("/**");
+    out.println(" * Function imports of {@link " + type.getQualifiedName() + "}.");
+    out.println(" * Generated by " + FunctionImportProcessor.class.getName() + ".");
+    out.println(" */");
+    out.println("public final class " + className + " implements " + PACKAGE + "FunctionImportDispatcher {");
+    out.println();
+    out.println("  private static final java.util.List<" + PACKAGE + "FunctionImportDefinition> FUNCTION_IMPORTS =");
+    out.println("      java.util.Collections.unmodifiableList(java.util.Arrays.<" + PACKAGE + "FunctionImportDefinition> asList(");
+    for (int i = 0; i < methods.size(); i++) {
+      writeDefinition(out, methods.get(i));
+      out.println(i < methods.size() - 1 ? "," : "));");
+    }
+    if (methods.isEmpty()) {
+      out.println("      ));");
+    }
+    out.println();
+    out.println("  @Override");
+    out.println("  public java.util.List<" + PACKAGE + "FunctionImportDefinition> getFunctionImports() {");
+    out.println("    return FUNCTION_IMPORTS;");
+    out.println("  }");
+    out.println();
+    out.println("  @Override");
+    out.println("  public Object newInstance() {");
+    out.println(hasPublicConstructor(type) ? "    return new " + type.getQualifiedName() + "();" : "    return null;");
+    out.println("  }");
+    out.println();
+    out.println("  @Override");
+    out.println("  @SuppressWarnings(\"unchecked\")");
+    out.println("  public Object invoke(final int index, final Object target, final Object[] arguments) throws Exception {");
+    out.println("    switch (index) {");
+    for (int i = 0; i < methods.size(); i++) {
+      out.println("    case " + i + ":");
+      writeCall(out, methods.get(i));
+    }
+    out.println("    default:");
+    out.println("      throw new IndexOutOfBoundsException(String.valueOf(index));");
+    out.println("    }");
+    out.println("  }");
+    out.println("}");
+  }
+
+  private void writeDefinition(final PrintWriter out, final ExecutableElement method) {
+    final FunctionImport annotation = method.getAnnotation(FunctionImport.class);
+    final String methodName = method.getSimpleName().toString();
+    out.println("      new " + PACKAGE + "FunctionImportDefinition()");
+    out.println("          .setName(" + literal(annotation.name().length() == 0 ? methodName : annotation.name()) + ")");
+    out.println("          .setMethodName(" + literal(methodName) + ")");
+    out.println("          .setDeclaringClass(" + classLiteral(method.getEnclosingElement().asType()) + ")");
+    out.println("          .setReturnType(" + enumLiteral(annotation.returnType()) + ")");
+    out.println("          .setMultiplicity(" + enumLiteral(annotation.multiplicity()) + ")");
+    out.println("          .setEntitySet(" + literal(annotation.entitySet()) + ")");
+    out.println("          .setHttpMethod(" + enumLiteral(annotation.httpMethod().name()) + ")");
+    out.println("          .setReturnClass(" + classLiteral(method.getReturnType()) + ")");
+    out.println("          .setReturnElementClass(" + classLiteral(getElementType(method.getReturnType())) + ")");
+    StringBuilder parameterTypes = new StringBuilder();
+    StringBuilder parameters = new StringBuilder();
+    int position = 0;
+    for (final VariableElement parameter : method.getParameters()) {
+      parameterTypes.append(parameterTypes.length() == 0 ? "" : ", ").append(classLiteral(parameter.asType()));
+      final Parameter annotationParameter = parameter.getAnnotation(Parameter.class);
+      if (annotationParameter != null) {
+        parameters.append(parameters.length() == 0 ? "\n" : ",\n")
+            .append("              new " + PACKAGE + "ParameterDefinition()")
+            .append(".setName(" + literal(annotationParameter.name()) + ")")
+            .append(".setMode(" + enumLiteral(annotationParameter.mode()) + ")")
+            .append(".setType(" + classLiteral(parameter.asType()) + ")")
+            .append(".setMaxLength(" + annotationParameter.facets().maxLength() + ")")
+            .append(".setScale(" + annotationParameter.facets().scale() + ")")
+            .append(".setPrecision(" + annotationParameter.facets().precision() + ")")
+            .append(".setNullable(" + annotationParameter.facets().nullable() + ")")
+            .append(".setPosition(" + position + ")");
+      }
+      position++;
+    }
+    out.println("          .setParameterTypes(" + parameterTypes + ")");
+    out.print("          .setParameters(java.util.Arrays.<" + PACKAGE + "ParameterDefinition> asList(" + parameters + "))");
+  }
+
+  private void writeCall(final PrintWriter out, final ExecutableElement method) {
+    final TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+    StringBuilder call = new StringBuilder();
+    if (method.getModifiers().contains(Modifier.STATIC)) {
+      call.append(declaringType.getQualifiedName());
+    } else {
+      call.append("((").append(erasure(declaringType.asType())).append(") target)");
+    }
+    call.append('.').append(method.getSimpleName()).append('(');
+    int index = 0;
+    for (final VariableElement parameter : method.getParameters()) {
+      final TypeMirror parameterType = parameter.asType();
+      final String castType = parameterType.getKind().isPrimitive() ?
+          processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(parameterType.getKind()))
+              .getQualifiedName().toString() :
+          erasure(parameterType);
+      call.append(index == 0 ? "" : ", ").append('(').append(castType).append(") arguments[").append(index++).append(']');
+    }
+    call.append(')');
+    if (method.getReturnType().getKind() == TypeKind.VOID) {
+      out.println("      " + call + ";");
+      out.println("      return null;");
+    } else {
+      out.println("      return " + call + ";");
+    }
+  }
+
+  /**
+   * Returns the type argument of a parameterized type the same way the reflective
+   * evaluation does, i.e., the first type argument if it is a class, otherwise the type itself.
+   */
+  private TypeMirror getElementType(final TypeMirror type) {
+    if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+      final TypeMirror argument = ((DeclaredType) type).getTypeArguments().get(0);
+      if (argument.getKind() == TypeKind.DECLARED && ((DeclaredType) argument).getTypeArguments().isEmpty()
+          || argument.getKind() == TypeKind.ARRAY) {
+        return argument;
+      }
+    }
+    return type;
+  }
+
+  private boolean hasPublicConstructor(final TypeElement type) {
+    if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+        || type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+      return false;
+    }
+    for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isAccessible(final TypeElement type, final PackageElement from) {
+    Element element = type;
+    while (element.getKind().isClass() || element.getKind().isInterface()) {
+      final TypeElement typeElement = (TypeElement) element;
+      if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS
+          || typeElement.getModifiers().contains(Modifier.PRIVATE)
+          || !typeElement.getModifiers().contains(Modifier.PUBLIC)
+              && !processingEnv.getElementUtils().getPackageOf(typeElement).equals(from)) {
+        return false;
+      }
+      element = element.getEnclosingElement();
+    }
+    return true;
+  }
+
+  private String erasure(final TypeMirror type) {
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  private String classLiteral(final TypeMirror type) {
+    return (type.getKind() == TypeKind.VOID || type.getKind().isPrimitive() ? type.toString() : erasure(type)) + ".class";
+  }
+
+  private static String enumLiteral(final Enum<?> value) {
+    return value.getDeclaringClass().getCanonicalName() + "." + value.name();
+  }
+
+  /**
+   * Returns the Java string literal for a value. Control characters are written
+   * as escape sequences, not as unicode escapes: the compiler translates unicode
+   * escapes before lexing, so an escaped line break would end the literal.
+   */
+  private static String literal(final String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c == '\n') {
+        literal.append("\\n");
+      } else if (c == '\r') {
+        literal.append("\\r");
+      } else if (c == '\t') {
+        literal.append("\\t");
+      } else if (c < ' ') {
+        literal.append(String.format("\\%03o", (int) c));
+      } else if (c > '~') {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.annotation.processor;
+
+import com.sap.core.odata.api.annotation.edm.Parameter.Mode;
+
+/**
+ * Definition of a function-import parameter, i.e., of a method parameter annotated with
+ * {@link com.sap.core.odata.api.annotation.edm.Parameter}; the facet values
+ * have the same meaning as in {@link com.sap.core.odata.api.annotation.edm.Facets}.
+ * @author SAP AG
+ */
+public class ParameterDefinition {
+
+  private String name;
+  private Mode mode;
+  private Class<?> type;
+  private int maxLength;
+  private int scale = -1;
+  private int precision;
+  private boolean nullable;
+  private int position;
+
+  public String getName() {
+    return name;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * @return the type of the Java method parameter
+   */
+  public Class<?> getType() {
+    return type;
+  }
+
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public boolean isNullable() {
+    return nullable;
+  }
+
+  /**
+   * @return the zero-based position of the parameter in the Java method
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  public ParameterDefinition setName(final String name) {
+    this.name = name;
+    return this;
+  }
+
+  public ParameterDefinition setMode(final Mode mode) {
+    this.mode = mode;
+    return this;
+  }
+
+  public ParameterDefinition setType(final Class<?> type) {
+    this.type = type;
+    return this;
+  }
+
+  public ParameterDefinition setMaxLength(final int maxLength) {
+    this.maxLength = maxLength;
+    return this;
+  }
+
+  public ParameterDefinition setScale(final int scale) {
+    this.scale = scale;
+    return this;
+  }
+
+  public ParameterDefinition setPrecision(final int precision) {
+    this.precision = precision;
+    return this;
+  }
+
+  public ParameterDefinition setNullable(final boolean nullable) {
+    this.nullable = nullable;
+    return this;
+  }
+
+  public ParameterDefinition setPosition(final int position) {
+    this.position = position;
+    return this;
+  }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.api.jpa.access;
+
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
+
+/**
+ * Extension of {@link JPAProcessor} for processors that execute the requests
+ * of a batch change set in one transaction. Processors not implementing this
+ * interface do not support change sets.
+ * 
+ * @author SAP AG
+ */
+public interface JPAChangeSetProcessor extends JPAProcessor {
+
+  /**
+   * Starts a change set. Until the change set is ended, all create, update,
+   * and delete requests are executed in one transaction; the changes are
+   * flushed to the database in chunks instead of being committed one by one.
+   * 
+   * @throws ODataJPARuntimeException
+   */
+  public void beginChangeSet() throws ODataJPARuntimeException;
+
+  /**
+   * Ends the change set started with {@link #beginChangeSet()}, either by
+   * committing or by rolling back all of its changes.
+   * 
+   * @param commit
+   *          <code>true</code> if the changes are committed,
+   *          <code>false</code> if they are rolled back
+   * 
+   * @throws ODataJPARuntimeException
+   *           if the changes could not be committed, e.g., because a request of
+   *           the change set has failed; they are rolled back then
+   */
+  public void endChangeSet(boolean commit) throws ODataJPARuntimeException;
+}
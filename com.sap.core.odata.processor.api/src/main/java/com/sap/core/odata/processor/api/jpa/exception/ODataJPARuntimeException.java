@@ -52,6 +52,8 @@ public class ODataJPARuntimeException extends ODataJPAException {
       ODataJPARuntimeException.class, "ERROR_JPQL_UPDATE_REQUEST");
   public static final MessageReference ERROR_JPQL_DELETE_REQUEST = createMessageReference(
       ODataJPARuntimeException.class, "ERROR_JPQL_DELETE_REQUEST");
+  public static final MessageReference ERROR_JPQL_CHANGE_SET = createMessageReference(
+      ODataJPARuntimeException.class, "ERROR_JPQL_CHANGE_SET");
   public static final MessageReference ERROR_JPQL_KEY_VALUE = createMessageReference(
       ODataJPARuntimeException.class, "ERROR_JPQL_KEY_VALUE");
   public static final MessageReference ERROR_JPQL_PARAM_VALUE = createMessageReference(
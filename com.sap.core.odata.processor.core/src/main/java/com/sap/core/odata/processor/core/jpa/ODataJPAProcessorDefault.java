@@ -16,9 +16,21 @@
 package com.sap.core.odata.processor.core.jpa;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Locale;
+
+import com.sap.core.odata.api.batch.BatchHandler;
+import com.sap.core.odata.api.batch.BatchRequestPart;
+import com.sap.core.odata.api.batch.BatchResponsePart;
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.ep.EntityProvider;
+import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataErrorContext;
+import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
@@ -32,7 +44,9 @@ import com.sap.core.odata.api.uri.info.PostUriInfo;
 import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
 import com.sap.core.odata.processor.api.jpa.ODataJPAContext;
 import com.sap.core.odata.processor.api.jpa.ODataJPAProcessor;
+import com.sap.core.odata.processor.api.jpa.access.JPAChangeSetProcessor;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPAException;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 
 public class ODataJPAProcessorDefault extends ODataJPAProcessor {
 
@@ -49,6 +63,9 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
       final String contentType) throws ODataException {
 
     List<?> jpaEntities = jpaProcessor.process(uriParserResultView);
+    if (getContext() != null && jpaEntities != null) {
+      getContext().setParameter(ODataContext.ROW_COUNT, jpaEntities.size());
+    }
 
     ODataResponse oDataResponse = ODataJPAResponseBuilder.build(
         jpaEntities, uriParserResultView, contentType, oDataJPAContext);
@@ -206,4 +223,66 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
     return ODataResponse.newBuilder().build();
   }
 
+
+  @Override
+  public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content)
+      throws ODataException {
+    List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
+    EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init()
+        .pathInfo(getContext().getPathInfo()).build();
+    List<BatchRequestPart> batchParts = EntityProvider.parseBatchRequest(contentType, content, batchProperties);
+    for (BatchRequestPart batchPart : batchParts) {
+      batchResponseParts.add(handler.handleBatchPart(batchPart));
+    }
+    return EntityProvider.writeBatchResponse(batchResponseParts);
+  }
+
+  /**
+   * Executes all requests of the change set in one transaction which is
+   * committed only if all requests succeed and is rolled back otherwise.
+   * Change sets are not supported if the JPA processor does not implement
+   * {@link JPAChangeSetProcessor}.
+   */
+  @Override
+  public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests)
+      throws ODataException {
+    if (!(jpaProcessor instanceof JPAChangeSetProcessor)) {
+      return super.executeChangeSet(handler, requests);
+    }
+    final JPAChangeSetProcessor changeSetProcessor = (JPAChangeSetProcessor) jpaProcessor;
+    List<ODataResponse> responses = new ArrayList<ODataResponse>();
+    boolean commit = false;
+    changeSetProcessor.beginChangeSet();
+    try {
+      for (ODataRequest request : requests) {
+        ODataResponse response = handler.handleRequest(request);
+        if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
+          List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+          errorResponses.add(response);
+          return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+        }
+        responses.add(response);
+      }
+      commit = true;
+    } finally {
+      if (!commit) {
+        changeSetProcessor.endChangeSet(false);
+      }
+    }
+
+    try {
+      changeSetProcessor.endChangeSet(true);
+    } catch (ODataJPARuntimeException e) {
+      ODataErrorContext errorContext = new ODataErrorContext();
+      errorContext.setContentType(HttpContentType.APPLICATION_XML);
+      errorContext.setHttpStatus(HttpStatusCodes.INTERNAL_SERVER_ERROR);
+      errorContext.setException(e);
+      errorContext.setMessage(e.getMessage());
+      errorContext.setLocale(Locale.ENGLISH);
+      List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+      errorResponses.add(EntityProvider.writeErrorDocument(errorContext));
+      return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+    }
+    return BatchResponsePart.responses(responses).changeSet(true).build();
+  }
 }
@@ -15,8 +15,10 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -334,7 +336,6 @@ public final class ODataJPAResponseBuilder {
       EdmType edmType = null;
       EdmFunctionImport functionImport = null;
       Map<String, Object> edmPropertyValueMap = null;
-      List<Map<String, Object>> edmEntityList = null;
       Object result = null;
       try {
         EntityProviderWriteProperties feedProperties = null;
@@ -350,14 +351,8 @@ public final class ODataJPAResponseBuilder {
             || edmType.getKind().equals(EdmTypeKind.COMPLEX)) {
           if (functionImport.getReturnType().getMultiplicity()
               .equals(EdmMultiplicity.MANY)) {
-            edmEntityList = new ArrayList<Map<String, Object>>();
-            for (Object jpaEntity : resultList) {
-              edmPropertyValueMap = jpaResultParser
-                  .parse2EdmPropertyValueMap(jpaEntity,
-                      (EdmStructuralType) edmType);
-              edmEntityList.add(edmPropertyValueMap);
-            }
-            result = edmEntityList;
+            result = new JPAResultView(resultList, jpaResultParser,
+                (EdmStructuralType) edmType);
           } else {
 
             Object resultObject = resultList.get(0);
@@ -372,18 +367,32 @@ public final class ODataJPAResponseBuilder {
           result = resultList.get(0);
         }
 
-        odataResponse = EntityProvider
-            .writeFunctionImport(contentType,
-                resultsView.getFunctionImport(), result,
-                feedProperties);
+        if (result instanceof JPAResultView
+            && edmType.getKind().equals(EdmTypeKind.ENTITY)) {
+          odataResponse = EntityProvider.writeFeed(contentType,
+              functionImport.getEntitySet(), (JPAResultView) result,
+              feedProperties);
+        } else {
+          odataResponse = EntityProvider
+              .writeFunctionImport(contentType,
+                  resultsView.getFunctionImport(), result,
+                  feedProperties);
+        }
         odataResponse = ODataResponse.fromResponse(odataResponse)
             .status(HttpStatusCodes.OK).build();
 
+      } catch (JPAResultView.ParseException e) {
+        throw e.getCause();
       } catch (EdmException e) {
         throw ODataJPARuntimeException.throwException(
             ODataJPARuntimeException.GENERAL.addContent(e
                 .getMessage()), e);
       } catch (EntityProviderException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+          if (cause instanceof JPAResultView.ParseException) {
+            throw ((JPAResultView.ParseException) cause).getCause();
+          }
+        }
         throw ODataJPARuntimeException.throwException(
             ODataJPARuntimeException.GENERAL.addContent(e
                 .getMessage()), e);
@@ -715,4 +724,75 @@ public final class ODataJPAResponseBuilder {
     return navigationPropertyList;
   }
 
+
+  /**
+   * Read-only view on the result of a function import which converts the JPA
+   * entities into property maps while the entity provider iterates over them,
+   * so that the result need not be copied before it is written.
+   */
+  private static final class JPAResultView extends AbstractList<Map<String, Object>> {
+
+    private final List<Object> jpaEntities;
+    private final JPAEntityParser parser;
+    private final EdmStructuralType type;
+
+    JPAResultView(final List<Object> jpaEntities, final JPAEntityParser parser, final EdmStructuralType type) {
+      this.jpaEntities = jpaEntities;
+      this.parser = parser;
+      this.type = type;
+    }
+
+    @Override
+    public Map<String, Object> get(final int index) {
+      return parse(jpaEntities.get(index));
+    }
+
+    @Override
+    public int size() {
+      return jpaEntities.size();
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+      final Iterator<Object> iterator = jpaEntities.iterator();
+      return new Iterator<Map<String, Object>>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+          return parse(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    private Map<String, Object> parse(final Object jpaEntity) {
+      try {
+        return parser.parse2EdmPropertyValueMap(jpaEntity, type);
+      } catch (final ODataJPARuntimeException e) {
+        throw new ParseException(e);
+      }
+    }
+
+    /** Carries a parser exception through the entity provider. */
+    private static final class ParseException extends RuntimeException {
+      private static final long serialVersionUID = 1L;
+
+      ParseException(final ODataJPARuntimeException cause) {
+        super(cause);
+      }
+
+      @Override
+      public synchronized ODataJPARuntimeException getCause() {
+        return (ODataJPARuntimeException) super.getCause();
+      }
+    }
+  }
 }
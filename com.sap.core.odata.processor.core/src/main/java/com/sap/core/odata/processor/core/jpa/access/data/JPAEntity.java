@@ -48,6 +48,10 @@ public class JPAEntity {
     this.accessModifiersWrite = accessModifiersWrite;
   }
 
+  public HashMap<String, Method> getAccessModifersWrite() {
+    return accessModifiersWrite;
+  }
+
   public Object getJPAEntity() {
     return jpaEntity;
   }
@@ -178,6 +178,12 @@ public class JPAFunctionContext extends JPAMethodContext {
         InvocationTargetException, NoSuchMethodException,
         SecurityException {
 
+      if (mapping.getObject() instanceof JPAFunctionInvoker) {
+        final Object enclosingObject = ((JPAFunctionInvoker) mapping.getObject()).newInstance();
+        if (enclosingObject != null) {
+          return enclosingObject;
+        }
+      }
       Class<?> type = ((JPAEdmMapping) mapping).getJPAType();
       Object[] params = null;
 
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.access.data;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.core.odata.api.annotation.processor.FunctionImportDispatcher;
+import com.sap.core.odata.api.edm.EdmFacets;
+import com.sap.core.odata.api.edm.EdmLiteral;
+import com.sap.core.odata.api.edm.EdmLiteralKind;
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeException;
+
+/**
+ * Calls the method of a function import. The invoker is created once while the
+ * EDM is built and is set as mapping object of the function import, so that the
+ * method, the conversion of the parameters, and the enclosing object need not be
+ * resolved again for every request.
+ * <p>The method is called either through the dispatcher generated at compile time
+ * or, if there is none, through the {@link Method} looked up while the EDM was built.
+ * The enclosing object is shared between calls if its class has no instance fields.</p>
+ */
+public class JPAFunctionInvoker {
+
+  private final Class<?> type;
+  private final FunctionImportDispatcher dispatcher;
+  private final int index;
+  private final Method method;
+  private final Constructor<?> constructor;
+  private final boolean stateless;
+  private final Object[] defaultArguments;
+  private final List<ParameterConverter> converters = new ArrayList<ParameterConverter>();
+  private volatile Object sharedInstance;
+
+  /**
+   * Creates an invoker calling the method with the given index of a generated dispatcher.
+   * @param dispatcher the generated dispatcher
+   * @param index the index of the function import within the dispatcher
+   * @param type the class declaring the method
+   * @param parameterTypes the types of all parameters of the method
+   */
+  public JPAFunctionInvoker(final FunctionImportDispatcher dispatcher, final int index, final Class<?> type,
+      final Class<?>[] parameterTypes) {
+    this.type = type;
+    this.dispatcher = dispatcher;
+    this.index = index;
+    method = null;
+    constructor = null;
+    stateless = isStateless(type);
+    defaultArguments = getDefaultArguments(parameterTypes);
+  }
+
+  /**
+   * Creates an invoker calling the given method with reflection.
+   * @param method the method of the function import
+   */
+  public JPAFunctionInvoker(final Method method) {
+    type = method.getDeclaringClass();
+    dispatcher = null;
+    index = -1;
+    this.method = method;
+    constructor = getConstructor(type);
+    stateless = isStateless(type);
+    defaultArguments = getDefaultArguments(method.getParameterTypes());
+    try {
+      method.setAccessible(true);
+    } catch (SecurityException e) {
+      // the access check is then done for every call
+    }
+  }
+
+  /**
+   * Registers the conversion of a function-import parameter into an argument of the method.
+   * @param name the name of the function-import parameter
+   * @param type the EDM type of the parameter
+   * @param facets the facets of the parameter
+   * @param targetType the type of the method parameter
+   * @param position the position of the method parameter
+   */
+  public void addParameter(final String name, final EdmSimpleType type, final EdmFacets facets,
+      final Class<?> targetType, final int position) {
+    converters.add(new ParameterConverter(name, type, facets, targetType, position));
+  }
+
+  /**
+   * Returns the object the method is called on, i.e., the shared instance if the
+   * class of the method has no state and a new instance otherwise.
+   * @return an instance of the class of the method or <code>null</code>
+   *         if the class has no public no-argument constructor
+   */
+  public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+    if (!stateless) {
+      return createInstance();
+    }
+    Object instance = sharedInstance;
+    if (instance == null) {
+      instance = createInstance();
+      sharedInstance = instance;
+    }
+    return instance;
+  }
+
+  private Object createInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+    if (dispatcher != null) {
+      return dispatcher.newInstance();
+    }
+    return constructor == null ? null : constructor.newInstance();
+  }
+
+  /**
+   * Calls the method of the function import.
+   * @param target the object the method is called on
+   * @param arguments the arguments of the method
+   * @return the result of the method
+   * @throws Exception any exception thrown by the method
+   */
+  public Object invoke(final Object target, final Object[] arguments) throws Exception {
+    if (dispatcher != null) {
+      return dispatcher.invoke(index, target, arguments);
+    }
+    try {
+      return method.invoke(target, arguments);
+    } catch (InvocationTargetException e) {
+      final Throwable cause = e.getTargetException();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Calls the method of the function import with the given parameter values
+   * on the {@link #newInstance() enclosing object}.
+   * @param parameters the values of the function-import parameters, as parsed from the URI
+   * @return the result of the method
+   * @throws Exception any exception thrown by the conversion of the parameters or by the method
+   */
+  public Object invoke(final Map<String, EdmLiteral> parameters) throws Exception {
+    final Object target = newInstance();
+    if (target == null) {
+      throw new InstantiationException(type.getName());
+    }
+    return invoke(target, getArguments(parameters));
+  }
+
+  /**
+   * Converts the values of the function-import parameters into the arguments of the method;
+   * method parameters without value get the default value of their type.
+   * @param parameters the values of the function-import parameters
+   * @return the arguments of the method
+   * @throws EdmSimpleTypeException if a value could not be converted
+   */
+  public Object[] getArguments(final Map<String, EdmLiteral> parameters) throws EdmSimpleTypeException {
+    Object[] arguments = defaultArguments.clone();
+    if (parameters != null) {
+      for (final ParameterConverter converter : converters) {
+        final EdmLiteral literal = parameters.get(converter.name);
+        if (literal != null) {
+          arguments[converter.position] = converter.convert(literal);
+        }
+      }
+    }
+    return arguments;
+  }
+
+  private static Constructor<?> getConstructor(final Class<?> clazz) {
+    try {
+      return clazz.getConstructor();
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static boolean isStateless(final Class<?> clazz) {
+    for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (final Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Object[] getDefaultArguments(final Class<?>[] parameterTypes) {
+    Object[] arguments = new Object[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      final Class<?> type = parameterTypes[i];
+      if (type == boolean.class) {
+        arguments[i] = Boolean.FALSE;
+      } else if (type == char.class) {
+        arguments[i] = Character.valueOf((char) 0);
+      } else if (type == byte.class) {
+        arguments[i] = Byte.valueOf((byte) 0);
+      } else if (type == short.class) {
+        arguments[i] = Short.valueOf((short) 0);
+      } else if (type == int.class) {
+        arguments[i] = Integer.valueOf(0);
+      } else if (type == long.class) {
+        arguments[i] = Long.valueOf(0);
+      } else if (type == float.class) {
+        arguments[i] = Float.valueOf(0);
+      } else if (type == double.class) {
+        arguments[i] = Double.valueOf(0);
+      }
+    }
+    return arguments;
+  }
+
+  private static Class<?> getObjectType(final Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    } else if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == char.class) {
+      return Character.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else {
+      return Double.class;
+    }
+  }
+
+  private static class ParameterConverter {
+    private final String name;
+    private final EdmSimpleType type;
+    private final EdmFacets facets;
+    private final Class<?> targetType;
+    private final int position;
+
+    ParameterConverter(final String name, final EdmSimpleType type, final EdmFacets facets,
+        final Class<?> targetType, final int position) {
+      this.name = name;
+      this.type = type;
+      this.facets = facets;
+      this.targetType = getObjectType(targetType);
+      this.position = position;
+    }
+
+    Object convert(final EdmLiteral literal) throws EdmSimpleTypeException {
+      return type.valueOfString(literal.getLiteral(), EdmLiteralKind.DEFAULT, facets, targetType);
+    }
+  }
+}
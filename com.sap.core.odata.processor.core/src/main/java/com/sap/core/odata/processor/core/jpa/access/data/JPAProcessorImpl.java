@@ -19,17 +19,23 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
 
 import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.edm.EdmEntityType;
 import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmFunctionImport;
+import com.sap.core.odata.api.edm.EdmMapping;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
+import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityLinkUriInfo;
@@ -41,9 +47,9 @@ import com.sap.core.odata.api.uri.info.GetFunctionImportUriInfo;
 import com.sap.core.odata.api.uri.info.PostUriInfo;
 import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
 import com.sap.core.odata.processor.api.jpa.ODataJPAContext;
+import com.sap.core.odata.processor.api.jpa.access.JPAChangeSetProcessor;
 import com.sap.core.odata.processor.api.jpa.access.JPAFunction;
 import com.sap.core.odata.processor.api.jpa.access.JPAMethodContext;
-import com.sap.core.odata.processor.api.jpa.access.JPAProcessor;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPAModelException;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext;
@@ -51,10 +57,16 @@ import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
 import com.sap.core.odata.processor.core.jpa.ODataEntityParser;
 
-public class JPAProcessorImpl implements JPAProcessor {
+public class JPAProcessorImpl implements JPAChangeSetProcessor {
+
+  /** Number of changes after which a change set is flushed to the database. */
+  static final int CHANGE_SET_FLUSH_SIZE = 100;
 
   ODataJPAContext oDataJPAContext;
   EntityManager em;
+  private boolean changeSetActive = false;
+  private int changeSetSize = 0;
+  private final Map<String, HashMap<String, Method>> accessModifiersWrite = new HashMap<String, HashMap<String, Method>>();
 
   public JPAProcessorImpl(final ODataJPAContext oDataJPAContext) {
     this.oDataJPAContext = oDataJPAContext;
@@ -67,28 +79,31 @@ public class JPAProcessorImpl implements JPAProcessor {
   public List<Object> process(final GetFunctionImportUriInfo uriParserResultView)
       throws ODataJPAModelException, ODataJPARuntimeException {
 
-    JPAMethodContext jpaMethodContext = JPAMethodContext.createBuilder(
-        JPQLContextType.FUNCTION, uriParserResultView).build();
-
     List<Object> resultObj = null;
 
     try {
 
-      JPAFunction jpaFunction = jpaMethodContext.getJPAFunctionList()
-          .get(0);
-      Method method = jpaFunction.getFunction();
-      Object[] args = jpaFunction.getArguments();
+      final EdmFunctionImport functionImport = uriParserResultView.getFunctionImport();
+      final EdmMapping mapping = functionImport.getMapping();
 
-      if (uriParserResultView.getFunctionImport().getReturnType()
-          .getMultiplicity().equals(EdmMultiplicity.MANY)) {
+      Object result;
+      if (mapping != null && mapping.getObject() instanceof JPAFunctionInvoker) {
+        result = ((JPAFunctionInvoker) mapping.getObject())
+            .invoke(uriParserResultView.getFunctionImportParameters());
+      } else {
+        JPAMethodContext jpaMethodContext = JPAMethodContext.createBuilder(
+            JPQLContextType.FUNCTION, uriParserResultView).build();
+        JPAFunction jpaFunction = jpaMethodContext.getJPAFunctionList()
+            .get(0);
+        Method method = jpaFunction.getFunction();
+        result = method.invoke(jpaMethodContext.getEnclosingObject(), jpaFunction.getArguments());
+      }
 
-        resultObj = (List<Object>) method.invoke(
-            jpaMethodContext.getEnclosingObject(), args);
+      if (functionImport.getReturnType()
+          .getMultiplicity().equals(EdmMultiplicity.MANY)) {
+        resultObj = (List<Object>) result;
       } else {
-        resultObj = new ArrayList<Object>();
-        Object result = method.invoke(
-            jpaMethodContext.getEnclosingObject(), args);
-        resultObj.add(result);
+        resultObj = Collections.singletonList(result);
       }
 
     } catch (EdmException e) {
@@ -107,6 +122,12 @@ public class JPAProcessorImpl implements JPAProcessor {
       throw ODataJPARuntimeException
           .throwException(ODataJPARuntimeException.GENERAL
               .addContent(e.getTargetException().getMessage()), e.getTargetException());
+    } catch (ODataJPARuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw ODataJPARuntimeException
+          .throwException(ODataJPARuntimeException.GENERAL
+              .addContent(e.getMessage()), e);
     }
 
     return resultObj;
@@ -156,7 +177,7 @@ public class JPAProcessorImpl implements JPAProcessor {
           query.setMaxResults(uriParserResultView.getTop());
         }
       }
-      return query.getResultList();
+      return (List<T>) executeQuery(query);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -215,7 +236,7 @@ public class JPAProcessorImpl implements JPAProcessor {
     try {
 
       query = em.createQuery(jpqlStatement.toString());
-      List<?> resultList = query.getResultList();
+      List<?> resultList = executeQuery(query);
       if (resultList != null && resultList.size() == 1) {
         return Long.valueOf(resultList.get(0).toString());
       }
@@ -252,7 +273,7 @@ public class JPAProcessorImpl implements JPAProcessor {
     try {
 
       query = em.createQuery(jpqlStatement.toString());
-      List<?> resultList = query.getResultList();
+      List<?> resultList = executeQuery(query);
       if (resultList != null && resultList.size() == 1) {
         return Long.valueOf(resultList.get(0).toString());
       }
@@ -298,7 +319,7 @@ public class JPAProcessorImpl implements JPAProcessor {
 
       final EdmEntitySet oDataEntitySet = createView.getTargetEntitySet();
       final EdmEntityType oDataEntityType = oDataEntitySet.getEntityType();
-      final JPAEntity virtualJPAEntity = new JPAEntity(oDataEntityType, oDataEntitySet);
+      final JPAEntity virtualJPAEntity = createJPAEntity(oDataEntityType, oDataEntitySet);
       final List<Object> createList = new ArrayList<Object>();
       Object jpaEntity = null;
 
@@ -316,20 +337,26 @@ public class JPAProcessorImpl implements JPAProcessor {
         return null;
       }
 
-      em.getTransaction().begin();
+      keepAccessModifiers(oDataEntityType, virtualJPAEntity);
+      if (!changeSetActive) {
+        em.getTransaction().begin();
+      }
       jpaEntity = virtualJPAEntity.getJPAEntity();
 
       em.persist(jpaEntity);
       if (em.contains(jpaEntity)) {
-        em.getTransaction().commit();
-
         createList.add(virtualJPAEntity.getJPAEntity());
         createList.add(virtualJPAEntity.getInlineJPAEntities());
+        if (changeSetActive) {
+          countChange();
+        } else {
+          em.getTransaction().commit();
+        }
 
         return (List<T>) createList;
       }
     } catch (Exception e) {
-      em.getTransaction().rollback();
+      rollback();
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_CREATE_REQUEST, e);
     }
@@ -342,7 +369,9 @@ public class JPAProcessorImpl implements JPAProcessor {
     JPQLContextType contextType = null;
     Object jpaEntity = null;
     try {
-      em.getTransaction().begin();
+      if (!changeSetActive) {
+        em.getTransaction().begin();
+      }
       if (updateView instanceof PutMergePatchUriInfo) {
         updateView = ((PutMergePatchUriInfo) updateView);
         if (!((PutMergePatchUriInfo) updateView).getStartEntitySet().getName()
@@ -362,7 +391,7 @@ public class JPAProcessorImpl implements JPAProcessor {
 
       final EdmEntitySet oDataEntitySet = updateView.getTargetEntitySet();
       final EdmEntityType oDataEntityType = oDataEntitySet.getEntityType();
-      final JPAEntity virtualJPAEntity = new JPAEntity(oDataEntityType, oDataEntitySet);
+      final JPAEntity virtualJPAEntity = createJPAEntity(oDataEntityType, oDataEntitySet);
       virtualJPAEntity.setJPAEntity(jpaEntity);
 
       if (content != null) {
@@ -375,10 +404,15 @@ public class JPAProcessorImpl implements JPAProcessor {
       } else {
         return null;
       }
-      em.flush();
-      em.getTransaction().commit();
+      keepAccessModifiers(oDataEntityType, virtualJPAEntity);
+      if (changeSetActive) {
+        countChange();
+      } else {
+        em.flush();
+        em.getTransaction().commit();
+      }
     } catch (Exception e) {
-      em.getTransaction().rollback();
+      rollback();
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_UPDATE_REQUEST, e);
     }
@@ -411,12 +445,17 @@ public class JPAProcessorImpl implements JPAProcessor {
     // Read operation done. This object would be passed on to entity manager for delete
     if (selectedObject != null) {
       try {
-        em.getTransaction().begin();
-        em.remove(selectedObject);
-        em.flush();
-        em.getTransaction().commit();
+        if (changeSetActive) {
+          em.remove(selectedObject);
+          countChange();
+        } else {
+          em.getTransaction().begin();
+          em.remove(selectedObject);
+          em.flush();
+          em.getTransaction().commit();
+        }
       } catch (Exception e) {
-        em.getTransaction().rollback();
+        rollback();
         throw ODataJPARuntimeException.throwException(
             ODataJPARuntimeException.ERROR_JPQL_DELETE_REQUEST, e);
       }
@@ -464,8 +503,9 @@ public class JPAProcessorImpl implements JPAProcessor {
       Query query = null;
       try {
         query = em.createQuery(selectJPQLStatement.toString());
-        if (!query.getResultList().isEmpty()) {
-          selectedObject = query.getResultList().get(0);
+        final List<?> resultList = executeQuery(query);
+        if (!resultList.isEmpty()) {
+          selectedObject = resultList.get(0);
         }
       } catch (IllegalArgumentException e) {
         throw ODataJPARuntimeException.throwException(
@@ -475,6 +515,20 @@ public class JPAProcessorImpl implements JPAProcessor {
     return selectedObject;
   }
 
+  /* Executes the query as a runtime measurement of the OData context */
+  private List<?> executeQuery(final Query query) {
+    final ODataContext context = oDataJPAContext.getODataContext();
+    if (context == null) {
+      return query.getResultList();
+    }
+    final int timingHandle = context.startRuntimeMeasurement("JPAProcessorImpl", "executeQuery");
+    try {
+      return query.getResultList();
+    } finally {
+      context.stopRuntimeMeasurement(timingHandle);
+    }
+  }
+
   @Override
   public void process(final PutMergePatchUriInfo putUriInfo,
       final InputStream content, final String requestContentType, final String contentType)
@@ -486,4 +540,80 @@ public class JPAProcessorImpl implements JPAProcessor {
 
   }
 
+
+  @Override
+  public void beginChangeSet() throws ODataJPARuntimeException {
+    if (changeSetActive) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL.addContent("change set already started"), null);
+    }
+    em.getTransaction().begin();
+    changeSetActive = true;
+    changeSetSize = 0;
+  }
+
+  @Override
+  public void endChangeSet(final boolean commit) throws ODataJPARuntimeException {
+    if (!changeSetActive) {
+      return;
+    }
+    changeSetActive = false;
+    final EntityTransaction transaction = em.getTransaction();
+    if (commit && !transaction.getRollbackOnly()) {
+      try {
+        transaction.commit();
+      } catch (RuntimeException e) {
+        if (transaction.isActive()) {
+          transaction.rollback();
+        }
+        em.clear();
+        throw ODataJPARuntimeException.throwException(
+            ODataJPARuntimeException.ERROR_JPQL_CHANGE_SET, e);
+      }
+    } else {
+      transaction.rollback();
+      // the managed entities still carry the changes which have been rolled back
+      em.clear();
+      if (commit) {
+        throw ODataJPARuntimeException.throwException(
+            ODataJPARuntimeException.ERROR_JPQL_CHANGE_SET, null);
+      }
+    }
+  }
+
+  /*
+   * Within a change set, the changes are written in chunks so that the JPA
+   * provider can batch the statements and the persistence context stays small.
+   */
+  private void countChange() {
+    if (++changeSetSize % CHANGE_SET_FLUSH_SIZE == 0) {
+      em.flush();
+      em.clear();
+    }
+  }
+
+  /*
+   * Outside of a change set, the transaction of the single request is rolled
+   * back; within a change set, the whole change set is rolled back at its end.
+   */
+  private void rollback() {
+    if (changeSetActive) {
+      em.getTransaction().setRollbackOnly();
+    } else {
+      em.getTransaction().rollback();
+    }
+  }
+
+  private JPAEntity createJPAEntity(final EdmEntityType oDataEntityType, final EdmEntitySet oDataEntitySet) throws EdmException {
+    final JPAEntity virtualJPAEntity = new JPAEntity(oDataEntityType, oDataEntitySet);
+    virtualJPAEntity.setAccessModifersWrite(accessModifiersWrite.get(oDataEntityType.getNamespace() + "." + oDataEntityType.getName()));
+    return virtualJPAEntity;
+  }
+
+  private void keepAccessModifiers(final EdmEntityType oDataEntityType, final JPAEntity virtualJPAEntity) throws EdmException {
+    if (virtualJPAEntity.getAccessModifersWrite() != null) {
+      accessModifiersWrite.put(oDataEntityType.getNamespace() + "." + oDataEntityType.getName(),
+          virtualJPAEntity.getAccessModifersWrite());
+    }
+  }
 }
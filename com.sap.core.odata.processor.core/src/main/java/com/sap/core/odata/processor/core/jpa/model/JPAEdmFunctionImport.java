@@ -26,6 +26,10 @@ import java.util.List;
 import com.sap.core.odata.api.annotation.edm.FunctionImport.Multiplicity;
 import com.sap.core.odata.api.annotation.edm.FunctionImport.ReturnType;
 import com.sap.core.odata.api.annotation.edm.Parameter;
+import com.sap.core.odata.api.annotation.processor.FunctionImportDefinition;
+import com.sap.core.odata.api.annotation.processor.FunctionImportDispatcher;
+import com.sap.core.odata.api.annotation.processor.FunctionImportDispatchers;
+import com.sap.core.odata.api.annotation.processor.ParameterDefinition;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.ComplexType;
@@ -42,6 +46,7 @@ import com.sap.core.odata.processor.api.jpa.model.JPAEdmEntityTypeView;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmFunctionImportView;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmMapping;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmSchemaView;
+import com.sap.core.odata.processor.core.jpa.access.data.JPAFunctionInvoker;
 import com.sap.core.odata.processor.core.jpa.access.model.JPAEdmNameBuilder;
 import com.sap.core.odata.processor.core.jpa.access.model.JPATypeConvertor;
 
@@ -91,6 +96,11 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
         for (Class<?> clazz : customOperations.keySet()) {
 
           String[] operationNames = customOperations.get(clazz);
+          FunctionImportDispatcher dispatcher = FunctionImportDispatchers.get(clazz);
+          if (dispatcher != null) {
+            buildFunctionImports(dispatcher, operationNames);
+            continue;
+          }
           Method[] methods = clazz.getMethods();
           Method method = null;
 
@@ -123,10 +133,10 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
                 method = methods[i];
               }
 
-              FunctionImport functionImport = buildFunctionImport(method);
-              if (functionImport != null) {
+              FunctionImportDefinition definition = buildDefinition(method);
+              if (definition != null) {
                 consistentFunctionImportList
-                    .add(functionImport);
+                    .add(buildFunctionImport(definition, new JPAFunctionInvoker(method)));
               }
 
             } catch (SecurityException e) {
@@ -138,90 +148,135 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
       }
     }
 
-    private FunctionImport buildFunctionImport(final Method method)
+    /**
+     * Builds the function imports from the definitions generated at compile time,
+     * without looking at the methods with reflection.
+     */
+    private void buildFunctionImports(final FunctionImportDispatcher dispatcher, final String[] operationNames)
         throws ODataJPAModelException {
+      final List<FunctionImportDefinition> definitions = dispatcher.getFunctionImports();
+      if (operationNames == null) {
+        for (int i = 0; i < definitions.size(); i++) {
+          consistentFunctionImportList.add(buildFunctionImport(definitions.get(i), createInvoker(dispatcher, i)));
+        }
+      } else {
+        for (String operationName : operationNames) {
+          for (int i = 0; i < definitions.size(); i++) {
+            if (definitions.get(i).getMethodName().equals(operationName)) {
+              consistentFunctionImportList.add(buildFunctionImport(definitions.get(i), createInvoker(dispatcher, i)));
+              break;
+            }
+          }
+        }
+      }
+    }
+
+    private JPAFunctionInvoker createInvoker(final FunctionImportDispatcher dispatcher, final int index) {
+      final FunctionImportDefinition definition = dispatcher.getFunctionImports().get(index);
+      return new JPAFunctionInvoker(dispatcher, index, definition.getDeclaringClass(), definition.getParameterTypes());
+    }
 
+    private FunctionImportDefinition buildDefinition(final Method method) {
       com.sap.core.odata.api.annotation.edm.FunctionImport annotation = method
           .getAnnotation(com.sap.core.odata.api.annotation.edm.FunctionImport.class);
-      if (annotation != null && annotation.returnType() != ReturnType.NONE) {
-        FunctionImport functionImport = new FunctionImport();
+      if (annotation == null || annotation.returnType() == ReturnType.NONE) {
+        return null;
+      }
 
-        if (annotation.name().equals("")) {
-          functionImport.setName(method.getName());
-        } else {
-          functionImport.setName(annotation.name());
+      List<ParameterDefinition> parameters = new ArrayList<ParameterDefinition>();
+      Annotation[][] annotations = method.getParameterAnnotations();
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      for (int i = 0; i < annotations.length; i++) {
+        for (Annotation element : annotations[i]) {
+          if (element instanceof Parameter) {
+            Parameter parameter = (Parameter) element;
+            parameters.add(new ParameterDefinition()
+                .setName(parameter.name())
+                .setMode(parameter.mode())
+                .setType(parameterTypes[i])
+                .setMaxLength(parameter.facets().maxLength())
+                .setScale(parameter.facets().scale())
+                .setPrecision(parameter.facets().precision())
+                .setNullable(parameter.facets().nullable())
+                .setPosition(i));
+          }
         }
+      }
+
+      return new FunctionImportDefinition()
+          .setName(annotation.name().equals("") ? method.getName() : annotation.name())
+          .setMethodName(method.getName())
+          .setDeclaringClass(method.getDeclaringClass())
+          .setReturnType(annotation.returnType())
+          .setMultiplicity(annotation.multiplicity())
+          .setEntitySet(annotation.entitySet())
+          .setHttpMethod(annotation.httpMethod().name())
+          .setReturnClass(method.getReturnType())
+          .setReturnElementClass(getReturnElementClass(method))
+          .setParameterTypes(parameterTypes)
+          .setParameters(parameters);
+    }
 
-        JPAEdmMapping mapping = new JPAEdmMappingImpl();
-        ((Mapping) mapping).setInternalName(method.getName());
-        mapping.setJPAType(method.getDeclaringClass());
-        functionImport.setMapping((Mapping) mapping);
+    private FunctionImport buildFunctionImport(final FunctionImportDefinition definition, final JPAFunctionInvoker invoker)
+        throws ODataJPAModelException {
+      FunctionImport functionImport = new FunctionImport();
+      functionImport.setName(definition.getName());
 
-        functionImport.setHttpMethod(annotation.httpMethod().name().toString());
+      JPAEdmMapping mapping = new JPAEdmMappingImpl();
+      ((Mapping) mapping).setInternalName(definition.getMethodName());
+      mapping.setJPAType(definition.getDeclaringClass());
+      ((Mapping) mapping).setObject(invoker);
+      functionImport.setMapping((Mapping) mapping);
 
-        buildReturnType(functionImport, method, annotation);
-        buildParameter(functionImport, method);
+      functionImport.setHttpMethod(definition.getHttpMethod().toString());
 
-        return functionImport;
-      }
-      return null;
+      buildReturnType(functionImport, definition);
+      buildParameter(functionImport, definition, invoker);
+
+      return functionImport;
     }
 
-    private void buildParameter(final FunctionImport functionImport, final Method method)
-        throws ODataJPAModelException {
+    private void buildParameter(final FunctionImport functionImport, final FunctionImportDefinition definition,
+        final JPAFunctionInvoker invoker) throws ODataJPAModelException {
 
-      Annotation[][] annotations = method.getParameterAnnotations();
-      Class<?>[] parameterTypes = method.getParameterTypes();
       List<FunctionImportParameter> funcImpList = new ArrayList<FunctionImportParameter>();
       JPAEdmMapping mapping = null;
-      int j = 0;
-      for (Annotation[] annotationArr : annotations) {
-        Class<?> parameterType = parameterTypes[j++];
-
-        for (Annotation element : annotationArr) {
-          if (element instanceof Parameter) {
-            Parameter annotation = (Parameter) element;
-            FunctionImportParameter functionImportParameter = new FunctionImportParameter();
-            if (annotation.name().equals("")) {
-              throw ODataJPAModelException.throwException(
-                  ODataJPAModelException.FUNC_PARAM_NAME_EXP
-                      .addContent(method
-                          .getDeclaringClass()
-                          .getName(), method
-                          .getName()), null);
-            } else {
-              functionImportParameter.setName(annotation.name());
-            }
-
-            functionImportParameter.setType(JPATypeConvertor
-                .convertToEdmSimpleType(parameterType, null));
-            functionImportParameter.setMode(annotation.mode()
-                .toString());
+      for (ParameterDefinition parameter : definition.getParameters()) {
+        FunctionImportParameter functionImportParameter = new FunctionImportParameter();
+        if (parameter.getName().equals("")) {
+          throw ODataJPAModelException.throwException(
+              ODataJPAModelException.FUNC_PARAM_NAME_EXP
+                  .addContent(definition.getDeclaringClass().getName(), definition.getMethodName()), null);
+        } else {
+          functionImportParameter.setName(parameter.getName());
+        }
 
-            Facets facets = new Facets();
-            if (annotation.facets().maxLength() > 0) {
-              facets.setMaxLength(annotation.facets().maxLength());
-            }
-            if (annotation.facets().nullable() == false) {
-              facets.setNullable(false);
-            } else {
-              facets.setNullable(true);
-            }
+        final EdmSimpleTypeKind kind = JPATypeConvertor
+            .convertToEdmSimpleType(parameter.getType(), null);
+        functionImportParameter.setType(kind);
+        functionImportParameter.setMode(parameter.getMode()
+            .toString());
 
-            if (annotation.facets().precision() > 0) {
-              facets.setPrecision(annotation.facets().precision());
-            }
-            if (annotation.facets().scale() >= 0) {
-              facets.setScale(annotation.facets().scale());
-            }
+        Facets facets = new Facets();
+        if (parameter.getMaxLength() > 0) {
+          facets.setMaxLength(parameter.getMaxLength());
+        }
+        facets.setNullable(parameter.isNullable());
 
-            functionImportParameter.setFacets(facets);
-            mapping = new JPAEdmMappingImpl();
-            mapping.setJPAType(parameterType);
-            functionImportParameter.setMapping((Mapping) mapping);
-            funcImpList.add(functionImportParameter);
-          }
+        if (parameter.getPrecision() > 0) {
+          facets.setPrecision(parameter.getPrecision());
+        }
+        if (parameter.getScale() >= 0) {
+          facets.setScale(parameter.getScale());
         }
+
+        functionImportParameter.setFacets(facets);
+        invoker.addParameter(parameter.getName(), kind.getEdmSimpleTypeInstance(), facets,
+            parameter.getType(), parameter.getPosition());
+        mapping = new JPAEdmMappingImpl();
+        mapping.setJPAType(parameter.getType());
+        functionImportParameter.setMapping((Mapping) mapping);
+        funcImpList.add(functionImportParameter);
       }
       if (!funcImpList.isEmpty()) {
         functionImport.setParameters(funcImpList);
@@ -229,15 +284,14 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
     }
 
     private void buildReturnType(final FunctionImport functionImport,
-        final Method method,
-        final com.sap.core.odata.api.annotation.edm.FunctionImport annotation)
+        final FunctionImportDefinition definition)
         throws ODataJPAModelException {
-      ReturnType returnType = annotation.returnType();
+      ReturnType returnType = definition.getReturnType();
       Multiplicity multiplicity = null;
 
       if (returnType != ReturnType.NONE) {
         com.sap.core.odata.api.edm.provider.ReturnType functionReturnType = new com.sap.core.odata.api.edm.provider.ReturnType();
-        multiplicity = annotation.multiplicity();
+        multiplicity = definition.getMultiplicity();
 
         if (multiplicity == Multiplicity.MANY) {
           functionReturnType.setMultiplicity(EdmMultiplicity.MANY);
@@ -246,7 +300,7 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
         }
 
         if (returnType == ReturnType.ENTITY_TYPE) {
-          String entitySet = annotation.entitySet();
+          String entitySet = definition.getEntitySet();
           if (entitySet.equals("")) {
             throw ODataJPAModelException
                 .throwException(
@@ -256,13 +310,13 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
           functionImport.setEntitySet(entitySet);
         }
 
-        Class<?> methodReturnType = method.getReturnType();
+        Class<?> methodReturnType = definition.getReturnClass();
         if (methodReturnType == null
             || methodReturnType.getName().equals("void")) {
           throw ODataJPAModelException.throwException(
               ODataJPAModelException.FUNC_RETURN_TYPE_EXP
-                  .addContent(method.getDeclaringClass(),
-                      method.getName()), null);
+                  .addContent(definition.getDeclaringClass(),
+                      definition.getMethodName()), null);
         }
         switch (returnType) {
         case ENTITY_TYPE:
@@ -273,7 +327,7 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
                     .getSimpleName());
           } else if (multiplicity == Multiplicity.MANY) {
             edmEntityType = jpaEdmEntityTypeView
-                .searchEdmEntityType(getReturnTypeSimpleName(method));
+                .searchEdmEntityType(definition.getReturnElementClass().getSimpleName());
           }
 
           if (edmEntityType == null) {
@@ -281,8 +335,8 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
                 .throwException(
                     ODataJPAModelException.FUNC_RETURN_TYPE_ENTITY_NOT_FOUND
                         .addContent(
-                            method.getDeclaringClass(),
-                            method.getName(),
+                            definition.getDeclaringClass(),
+                            definition.getMethodName(),
                             methodReturnType
                                 .getSimpleName()),
                     null);
@@ -306,15 +360,15 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
                     .getName());
           } else if (multiplicity == Multiplicity.MANY) {
             complexType = jpaEdmComplexTypeView
-                .searchEdmComplexType(getReturnTypeName(method));
+                .searchEdmComplexType(definition.getReturnElementClass().getName());
           }
           if (complexType == null) {
             throw ODataJPAModelException
                 .throwException(
                     ODataJPAModelException.FUNC_RETURN_TYPE_ENTITY_NOT_FOUND
                         .addContent(
-                            method.getDeclaringClass(),
-                            method.getName(),
+                            definition.getDeclaringClass(),
+                            definition.getMethodName(),
                             methodReturnType
                                 .getSimpleName()),
                     null);
@@ -329,25 +383,14 @@ public class JPAEdmFunctionImport extends JPAEdmBaseViewImpl implements
       }
     }
 
-    private String getReturnTypeName(final Method method) {
-      try {
-        ParameterizedType pt = (ParameterizedType) method
-            .getGenericReturnType();
-        Type t = pt.getActualTypeArguments()[0];
-        return ((Class<?>) t).getName();
-      } catch (ClassCastException e) {
-        return method.getReturnType().getName();
-      }
-    }
-
-    private String getReturnTypeSimpleName(final Method method) {
+    private Class<?> getReturnElementClass(final Method method) {
       try {
         ParameterizedType pt = (ParameterizedType) method
             .getGenericReturnType();
         Type t = pt.getActualTypeArguments()[0];
-        return ((Class<?>) t).getSimpleName();
+        return (Class<?>) t;
       } catch (ClassCastException e) {
-        return method.getReturnType().getSimpleName();
+        return method.getReturnType();
       }
     }
   }
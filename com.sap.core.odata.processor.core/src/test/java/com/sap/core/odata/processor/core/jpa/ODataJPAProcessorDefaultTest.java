@@ -39,7 +39,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sap.core.odata.api.batch.BatchHandler;
+import com.sap.core.odata.api.batch.BatchResponsePart;
 import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.commons.InlineCount;
 import com.sap.core.odata.api.edm.EdmConcurrencyMode;
 import com.sap.core.odata.api.edm.EdmEntityContainer;
@@ -54,6 +57,8 @@ import com.sap.core.odata.api.edm.EdmTypeKind;
 import com.sap.core.odata.api.edm.EdmTyped;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.KeyPredicate;
 import com.sap.core.odata.api.uri.NavigationSegment;
 import com.sap.core.odata.api.uri.PathInfo;
@@ -168,6 +173,75 @@ public class ODataJPAProcessorDefaultTest extends JPAEdmTestModelView {
     }
   }
 
+  @Test
+  public void testExecuteChangeSet() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.getRollbackOnly()).andReturn(false);
+    transaction.commit();
+    EasyMock.replay(transaction);
+    EntityManager em = getChangeSetEntityManager(transaction, false);
+    List<ODataRequest> requests = getChangeSetRequests();
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(requests.get(0))).andReturn(ODataResponse.status(HttpStatusCodes.CREATED).build());
+    EasyMock.expect(handler.handleRequest(requests.get(1))).andReturn(ODataResponse.status(HttpStatusCodes.NO_CONTENT).build());
+    EasyMock.replay(handler);
+
+    BatchResponsePart responsePart = new ODataJPAProcessorDefault(getChangeSetODataJPAContext(em)).executeChangeSet(handler, requests);
+
+    Assert.assertTrue(responsePart.isChangeSet());
+    Assert.assertEquals(2, responsePart.getResponses().size());
+    EasyMock.verify(transaction, em, handler);
+  }
+
+  @Test
+  public void testExecuteChangeSetWithFailedPart() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    transaction.rollback();
+    EasyMock.replay(transaction);
+    EntityManager em = getChangeSetEntityManager(transaction, true);
+    List<ODataRequest> requests = getChangeSetRequests();
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(requests.get(0))).andReturn(ODataResponse.status(HttpStatusCodes.NOT_FOUND).build());
+    EasyMock.replay(handler);
+
+    BatchResponsePart responsePart = new ODataJPAProcessorDefault(getChangeSetODataJPAContext(em)).executeChangeSet(handler, requests);
+
+    Assert.assertFalse(responsePart.isChangeSet());
+    Assert.assertEquals(1, responsePart.getResponses().size());
+    Assert.assertEquals(HttpStatusCodes.NOT_FOUND, responsePart.getResponses().get(0).getStatus());
+    // the second part is not executed, and the change set is rolled back
+    EasyMock.verify(transaction, em, handler);
+  }
+
+  private List<ODataRequest> getChangeSetRequests() {
+    List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    requests.add(EasyMock.createMock(ODataRequest.class));
+    requests.add(EasyMock.createMock(ODataRequest.class));
+    return requests;
+  }
+
+  private EntityManager getChangeSetEntityManager(final EntityTransaction transaction, final boolean clear) {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    if (clear) {
+      em.clear();
+    }
+    EasyMock.replay(em);
+    return em;
+  }
+
+  private ODataJPAContext getChangeSetODataJPAContext(final EntityManager em) {
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
+    EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory2());
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.replay(odataJPAContext);
+    return odataJPAContext;
+  }
+
   private PutMergePatchUriInfo getPutUriInfo() {
     return (PutMergePatchUriInfo) getDeletetUriInfo();
   }
@@ -537,6 +611,9 @@ public class ODataJPAProcessorDefaultTest extends JPAEdmTestModelView {
     ODataContext objODataContext = EasyMock.createMock(ODataContext.class);
     try {
       EasyMock.expect(objODataContext.getPathInfo()).andStubReturn(getLocalPathInfo());
+      EasyMock.expect(objODataContext.startRuntimeMeasurement(EasyMock.isA(String.class), EasyMock.isA(String.class))).andStubReturn(0);
+      objODataContext.stopRuntimeMeasurement(EasyMock.anyInt());
+      EasyMock.expectLastCall().anyTimes();
     } catch (ODataException e) {
       fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
           + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
@@ -20,11 +20,14 @@ import static org.junit.Assert.fail;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 import javax.persistence.metamodel.Metamodel;
 
@@ -57,10 +60,14 @@ import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntitySetCountUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntitySetUriInfo;
+import com.sap.core.odata.api.uri.info.PostUriInfo;
+import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
 import com.sap.core.odata.processor.api.jpa.ODataJPAContext;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPAModelException;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.core.jpa.common.ODataJPATestConstants;
+import com.sap.core.odata.processor.core.jpa.mock.data.EdmMockUtilV2;
+import com.sap.core.odata.processor.core.jpa.mock.data.JPATypeMock;
 
 public class JPAProcessorImplTest {
 
@@ -146,6 +153,192 @@ public class JPAProcessorImplTest {
     }
   }
 
+  @Test
+  public void testChangeSetCommit() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.getRollbackOnly()).andReturn(false);
+    transaction.commit();
+    EasyMock.replay(transaction);
+    EntityManager em = getChangeSetEntityManager(transaction, false);
+    JPAProcessorImpl processor = new JPAProcessorImpl(getChangeSetODataJPAContext(em));
+
+    processor.beginChangeSet();
+    Assert.assertNotNull(processor.process(getDeletetUriInfo(), "application/xml"));
+    Assert.assertNotNull(processor.process(getDeletetUriInfo(), "application/xml"));
+    processor.endChangeSet(true);
+
+    EasyMock.verify(transaction, em);
+  }
+
+  @Test
+  public void testChangeSetRollback() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    transaction.rollback();
+    EasyMock.replay(transaction);
+    EntityManager em = getChangeSetEntityManager(transaction, true);
+    JPAProcessorImpl processor = new JPAProcessorImpl(getChangeSetODataJPAContext(em));
+
+    processor.beginChangeSet();
+    Assert.assertNotNull(processor.process(getDeletetUriInfo(), "application/xml"));
+    Assert.assertNotNull(processor.process(getDeletetUriInfo(), "application/xml"));
+    processor.endChangeSet(false);
+
+    EasyMock.verify(transaction, em);
+  }
+
+  @Test
+  public void testChangeSetCreateAndUpdate() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.getRollbackOnly()).andReturn(false);
+    transaction.commit();
+    EasyMock.replay(transaction);
+    JPATypeMock existing = new JPATypeMock();
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    EasyMock.expect(em.createQuery(EasyMock.isA(String.class))).andStubReturn(getQuery(existing));
+    em.persist(EasyMock.isA(JPATypeMock.class));
+    EasyMock.expect(em.contains(EasyMock.isA(JPATypeMock.class))).andReturn(true);
+    EasyMock.replay(em);
+    JPAProcessorImpl processor = new JPAProcessorImpl(getChangeSetODataJPAContext(em));
+
+    processor.beginChangeSet();
+    List<Object> created = processor.process((PostUriInfo) getChangeSetUriInfo(), getProperties("created"));
+    Object updated = processor.process((PutMergePatchUriInfo) getChangeSetUriInfo(), getProperties("updated"));
+    processor.endChangeSet(true);
+
+    Assert.assertEquals("created", ((JPATypeMock) created.get(0)).getMString());
+    Assert.assertSame(existing, updated);
+    Assert.assertEquals("updated", existing.getMString());
+    // neither flushed nor committed per request
+    EasyMock.verify(transaction, em);
+  }
+
+  @Test
+  public void testChangeSetRollbackOnlyAfterFailure() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    transaction.setRollbackOnly();
+    EasyMock.expect(transaction.getRollbackOnly()).andReturn(true);
+    transaction.rollback();
+    EasyMock.replay(transaction);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    em.remove(new Address());
+    EasyMock.expectLastCall().andThrow(new PersistenceException());
+    em.clear();
+    EasyMock.replay(em);
+    JPAProcessorImpl processor = new JPAProcessorImpl(getChangeSetODataJPAContext(em));
+
+    processor.beginChangeSet();
+    try {
+      processor.process(getDeletetUriInfo(), "application/xml");
+      fail("failing change set part not detected");
+    } catch (ODataJPARuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof PersistenceException);
+    }
+    // the change set must not be committed even if its end is requested with commit
+    try {
+      processor.endChangeSet(true);
+      fail("commit of rolled-back change set not reported");
+    } catch (ODataJPARuntimeException e) {
+      Assert.assertEquals(ODataJPARuntimeException.ERROR_JPQL_CHANGE_SET.getKey(), e.getMessageReference().getKey());
+    }
+
+    EasyMock.verify(transaction, em);
+  }
+
+  @Test
+  public void testChangeSetFlush() throws Exception {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.getRollbackOnly()).andReturn(false);
+    transaction.commit();
+    EasyMock.replay(transaction);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    em.remove(new Address());
+    EasyMock.expectLastCall().times(JPAProcessorImpl.CHANGE_SET_FLUSH_SIZE + 1);
+    em.flush();
+    em.clear();
+    EasyMock.replay(em);
+    JPAProcessorImpl processor = new JPAProcessorImpl(getChangeSetODataJPAContext(em));
+
+    processor.beginChangeSet();
+    for (int i = 0; i <= JPAProcessorImpl.CHANGE_SET_FLUSH_SIZE; i++) {
+      processor.process(getDeletetUriInfo(), "application/xml");
+    }
+    processor.endChangeSet(true);
+
+    EasyMock.verify(transaction, em);
+  }
+
+  private UriInfo getChangeSetUriInfo() throws EdmException {
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(edmEntityType.getNamespace()).andStubReturn(SALESORDERPROCESSING_CONTAINER);
+    EasyMock.expect(edmEntityType.getName()).andStubReturn(JPATypeMock.ENTITY_NAME);
+    EasyMock.expect(edmEntityType.getKind()).andStubReturn(EdmTypeKind.ENTITY);
+    EasyMock.expect(edmEntityType.getMapping()).andStubReturn((EdmMapping) EdmMockUtilV2.mockEdmMapping(JPATypeMock.ENTITY_NAME, null, null));
+    List<String> keyPropertyNames = new ArrayList<String>();
+    keyPropertyNames.add(JPATypeMock.PROPERTY_NAME_MINT);
+    EasyMock.expect(edmEntityType.getKeyPropertyNames()).andStubReturn(keyPropertyNames);
+    EasyMock.expect(edmEntityType.getKeyProperties()).andStubReturn(new ArrayList<EdmProperty>());
+    List<String> propertyNames = new ArrayList<String>();
+    propertyNames.add(JPATypeMock.PROPERTY_NAME_MSTRING);
+    EasyMock.expect(edmEntityType.getPropertyNames()).andStubReturn(propertyNames);
+    EasyMock.expect(edmEntityType.getProperty(JPATypeMock.PROPERTY_NAME_MSTRING))
+        .andStubReturn(EdmMockUtilV2.mockEdmProperty(JPATypeMock.ENTITY_NAME, JPATypeMock.PROPERTY_NAME_MSTRING));
+    EasyMock.replay(edmEntityType);
+
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(edmEntitySet.getName()).andStubReturn(JPATypeMock.ENTITY_NAME);
+    EasyMock.expect(edmEntitySet.getEntityContainer()).andStubReturn(getLocalEdmEntityContainer());
+    EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+    EasyMock.replay(edmEntitySet);
+
+    UriInfo objUriInfo = EasyMock.createMock(UriInfo.class);
+    EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
+    EasyMock.expect(objUriInfo.getKeyPredicates()).andStubReturn(getKeyPredicates());
+    EasyMock.replay(objUriInfo);
+    return objUriInfo;
+  }
+
+  private Map<String, Object> getProperties(final String value) {
+    Map<String, Object> properties = new HashMap<String, Object>();
+    properties.put(JPATypeMock.PROPERTY_NAME_MSTRING, value);
+    return properties;
+  }
+
+  private EntityManager getChangeSetEntityManager(final EntityTransaction transaction, final boolean clear) {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    Address obj = new Address();
+    em.remove(obj);
+    em.remove(obj);
+    if (clear) {
+      em.clear();
+    }
+    EasyMock.replay(em);
+    return em;
+  }
+
+  private ODataJPAContext getChangeSetODataJPAContext(final EntityManager em) {
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
+    EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.replay(odataJPAContext);
+    return odataJPAContext;
+  }
+
   // ---------------------------- Common Code Start ---------------- TODO - common in ODataJPAProcessorDefaultTest as well 
 
   private DeleteUriInfo getDeletetUriInfo() {
@@ -322,6 +515,15 @@ public class JPAProcessorImplTest {
     return query;
   }
 
+  private Query getQuery(final Object result) {
+    List<Object> resultList = new ArrayList<Object>();
+    resultList.add(result);
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.getResultList()).andStubReturn(resultList);
+    EasyMock.replay(query);
+    return query;
+  }
+
   private Query getQueryForSelectCount() {
     Query query = EasyMock.createMock(Query.class);
     EasyMock.expect(query.getResultList()).andStubReturn(getResultListForSelectCount());
@@ -430,6 +632,9 @@ public class JPAProcessorImplTest {
     ODataContext objODataContext = EasyMock.createMock(ODataContext.class);
     try {
       EasyMock.expect(objODataContext.getPathInfo()).andStubReturn(getLocalPathInfo());
+      EasyMock.expect(objODataContext.startRuntimeMeasurement(EasyMock.isA(String.class), EasyMock.isA(String.class))).andStubReturn(0);
+      objODataContext.stopRuntimeMeasurement(EasyMock.anyInt());
+      EasyMock.expectLastCall().anyTimes();
     } catch (ODataException e) {
       fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
           + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
@@ -3,12 +3,12 @@ package com.sap.core.odata.processor.core.jpa.edm;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import org.junit.BeforeClass;
@@ -17,7 +17,6 @@ import org.junit.Test;
 import com.sap.core.odata.api.edm.FullQualifiedName;
 import com.sap.core.odata.api.edm.provider.Association;
 import com.sap.core.odata.api.edm.provider.AssociationSet;
-import com.sap.core.odata.api.edm.provider.ComplexType;
 import com.sap.core.odata.api.edm.provider.EntityContainerInfo;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.exception.ODataException;
@@ -264,175 +263,32 @@ public class ODataJPAEdmProviderTest {
   }
 
   @Test
-  public void testgetComplexTypeWithBuffer() {
-    HashMap<String, ComplexType> compTypes = new HashMap<String, ComplexType>();
-    ComplexType comp = new ComplexType();
-    comp.setName("Address");
-    compTypes.put("salesorderprocessing" + "." + "Address", comp);
-    ODataJPAEdmProvider jpaEdmProv = new ODataJPAEdmProvider();
-    Class<?> claz = jpaEdmProv.getClass();
-    Field f;
+  public void testLookupsAreIndexed() {
     try {
-      f = claz.getDeclaredField("complexTypes");
-      f.setAccessible(true);
-      f.set(jpaEdmProv, compTypes);
-    } catch (NoSuchFieldException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (SecurityException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalArgumentException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalAccessException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
-
-    try {
-      assertEquals(comp, jpaEdmProv.getComplexType(new FullQualifiedName(
-          "salesorderprocessing", "Address")));
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
-    try {
-      jpaEdmProv.getComplexType(new FullQualifiedName("salesorderessing",
-          "abc"));
-    } catch (ODataJPAModelException e) {
-      assertTrue(true);
+      FullQualifiedName typeName = new FullQualifiedName("salesorderprocessing", "SalesOrderHeader");
+      assertNotNull(edmProvider.getEntityType(typeName));
+      assertSame(edmProvider.getEntityType(typeName),
+          edmProvider.getEntityType(new FullQualifiedName("salesorderprocessing", "SalesOrderHeader")));
+      assertSame(edmProvider.getEntityContainerInfo(null),
+          edmProvider.getEntityContainerInfo("salesorderprocessingContainer"));
+      assertNull(edmProvider.getEntityType(new FullQualifiedName("salesorderprocessing", "abc")));
+      assertNull(edmProvider.getComplexType(new FullQualifiedName("salesorderessing", "abc")));
+      assertNull(edmProvider.getAssociation(new FullQualifiedName("salesorderprocessing", "abc")));
+      assertNull(edmProvider.getEntityContainerInfo("abc"));
     } catch (ODataException e) {
       fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
           + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
     }
   }
 
-  @Test
-  public void testGetEntityContainerInfoWithBuffer() {
-    HashMap<String, EntityContainerInfo> entityContainerInfos = new HashMap<String, EntityContainerInfo>();
-    EntityContainerInfo entityContainer = new EntityContainerInfo();
-    entityContainer.setName("salesorderprocessingContainer");
-    entityContainerInfos.put("salesorderprocessingContainer",
-        entityContainer);
-    ODataJPAEdmProvider jpaEdmProv = new ODataJPAEdmProvider();
-    Class<?> claz = jpaEdmProv.getClass();
-    try {
-      Field f = claz.getDeclaredField("entityContainerInfos");
-      f.setAccessible(true);
-      f.set(jpaEdmProv, entityContainerInfos);
-      assertEquals(
-          entityContainer,
-          jpaEdmProv
-              .getEntityContainerInfo("salesorderprocessingContainer"));
-      jpaEdmProv.getEntityContainerInfo("abc");
-    } catch (ODataJPAModelException e) {
-      assertTrue(true);
-    } catch (NoSuchFieldException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (SecurityException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalArgumentException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalAccessException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
+  @Test(expected = ODataJPAModelException.class)
+  public void testGetEntityTypeWithoutModel() throws ODataException {
+    new ODataJPAEdmProvider().getEntityType(new FullQualifiedName("salesorderprocessing", "SalesOrderHeader"));
   }
 
-  @Test
-  public void testGetEntityTypeWithBuffer() {
-    HashMap<String, com.sap.core.odata.api.edm.provider.EntityType> entityTypes = new HashMap<String, com.sap.core.odata.api.edm.provider.EntityType>();
-    com.sap.core.odata.api.edm.provider.EntityType entity = new com.sap.core.odata.api.edm.provider.EntityType();
-    entity.setName("SalesOrderHeader");
-    entityTypes.put("salesorderprocessing" + "." + "SalesorderHeader",
-        entity);
-    ODataJPAEdmProvider jpaEdmProv = new ODataJPAEdmProvider();
-    Class<?> claz = jpaEdmProv.getClass();
-    Field f;
-    try {
-      f = claz.getDeclaredField("entityTypes");
-      f.setAccessible(true);
-      f.set(jpaEdmProv, entityTypes);
-      assertEquals(entity,
-          jpaEdmProv.getEntityType(new FullQualifiedName(
-              "salesorderprocessing", "SalesorderHeader")));
-    } catch (NoSuchFieldException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (SecurityException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalArgumentException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalAccessException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
-    try {
-      jpaEdmProv.getEntityType(new FullQualifiedName("salesoprocessing",
-          "abc"));
-    } catch (ODataJPAModelException e) {
-      assertTrue(true);
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
-  }
-
-  @Test
-  public void testGetAssociationWithBuffer() {
-    HashMap<String, Association> associations = new HashMap<String, Association>();
-    Association association = new Association();
-    association.setName("SalesOrderHeader_SalesOrderItem");
-    associations.put("salesorderprocessing" + "."
-        + "SalesOrderHeader_SalesOrderItem", association);
-    ODataJPAEdmProvider jpaEdmProv = new ODataJPAEdmProvider();
-    Class<?> claz = jpaEdmProv.getClass();
-    Field f;
-    try {
-      f = claz.getDeclaredField("associations");
-      f.setAccessible(true);
-      f.set(jpaEdmProv, associations);
-      assertEquals(association,
-          jpaEdmProv.getAssociation(new FullQualifiedName(
-              "salesorderprocessing",
-              "SalesOrderHeader_SalesOrderItem")));
-    } catch (NoSuchFieldException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (SecurityException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalArgumentException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (IllegalAccessException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
-    try {
-      jpaEdmProv.getAssociation(new FullQualifiedName(
-          "salesorderprocessing", "abc"));
-    } catch (ODataJPAModelException e) {
-      assertTrue(true);
-    } catch (ODataException e) {
-      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
-          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
-    }
+  @Test(expected = ODataJPAModelException.class)
+  public void testGetEntityContainerInfoWithoutModel() throws ODataException {
+    new ODataJPAEdmProvider().getEntityContainerInfo("salesorderprocessingContainer");
   }
 
 }
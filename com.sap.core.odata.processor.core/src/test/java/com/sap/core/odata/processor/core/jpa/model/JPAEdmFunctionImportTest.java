@@ -18,16 +18,21 @@ package com.sap.core.odata.processor.core.jpa.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.sap.core.odata.api.annotation.edm.Parameter.Mode;
 import com.sap.core.odata.api.edm.EdmFacets;
+import com.sap.core.odata.api.edm.EdmLiteral;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.ComplexType;
@@ -44,6 +49,7 @@ import com.sap.core.odata.processor.api.jpa.model.JPAEdmEntityContainerView;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmEntitySetView;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmEntityTypeView;
 import com.sap.core.odata.processor.api.jpa.model.JPAEdmMapping;
+import com.sap.core.odata.processor.core.jpa.access.data.JPAFunctionInvoker;
 import com.sap.core.odata.processor.core.jpa.common.ODataJPATestConstants;
 import com.sap.core.odata.processor.core.jpa.mock.ODataJPAContextMock;
 import com.sap.core.odata.processor.core.jpa.mock.model.JPACustomProcessorMock;
@@ -478,6 +484,103 @@ public class JPAEdmFunctionImportTest extends JPAEdmTestModelView {
 
   }
 
+  /**
+   * Test Case - Function Imports from the dispatcher generated at compile time
+   */
+  @Test
+  public void testFunctionImportGeneratedDispatch() throws Exception {
+    VARIANT = 0;
+
+    build();
+
+    Mapping mapping = jpaEdmfunctionImport.getConsistentFunctionImportList().get(0).getMapping();
+    assertTrue(mapping.getObject() instanceof JPAFunctionInvoker);
+    JPAFunctionInvoker invoker = (JPAFunctionInvoker) mapping.getObject();
+    Object enclosingObject = invoker.newInstance();
+    assertTrue(enclosingObject instanceof JPACustomProcessorMock);
+    assertEquals(0, ((List<?>) invoker.invoke(enclosingObject, new Object[] { "a", 1, 2.5 })).size());
+  }
+
+  /**
+   * Test Case - The invoker of a function import converts the parameter values
+   * into the arguments of the method and re-uses the instance of a stateless class
+   */
+  @Test
+  public void testFunctionImportInvoker() throws Exception {
+    VARIANT = 0;
+    build();
+    VARIANT = 18;
+    JPAEdmFunctionImport reflective = new JPAEdmFunctionImport(this);
+    reflective.getBuilder().build();
+
+    for (List<FunctionImport> functionImports : Arrays.asList(
+        jpaEdmfunctionImport.getConsistentFunctionImportList(), reflective.getConsistentFunctionImportList())) {
+      FunctionImport functionImport = null;
+      for (FunctionImport candidate : functionImports) {
+        if (candidate.getName().equals("Method1")) {
+          functionImport = candidate;
+        }
+      }
+      assertNotNull(functionImport);
+      JPAFunctionInvoker invoker = (JPAFunctionInvoker) functionImport.getMapping().getObject();
+
+      Map<String, EdmLiteral> parameters = new HashMap<String, EdmLiteral>();
+      parameters.put("Param1", new EdmLiteral(EdmSimpleTypeKind.String.getEdmSimpleTypeInstance(), "ab"));
+      parameters.put("Param3", new EdmLiteral(EdmSimpleTypeKind.Double.getEdmSimpleTypeInstance(), "2.5"));
+      Object[] arguments = invoker.getArguments(parameters);
+      assertEquals(3, arguments.length);
+      assertEquals("ab", arguments[0]);
+      assertEquals(Integer.valueOf(0), arguments[1]);
+      assertEquals(Double.valueOf(2.5), arguments[2]);
+
+      assertEquals(0, ((List<?>) invoker.invoke(parameters)).size());
+      assertSame(invoker.newInstance(), invoker.newInstance());
+    }
+  }
+
+  /**
+   * Test Case - Function Imports of a class without generated dispatcher are
+   * found with reflection
+   */
+  @Test
+  public void testFunctionImportReflection() {
+    VARIANT = 2;
+    build();
+    List<FunctionImport> generated = jpaEdmfunctionImport.getConsistentFunctionImportList();
+
+    VARIANT = 18;
+    jpaEdmfunctionImport = new JPAEdmFunctionImport(this);
+    build();
+    List<FunctionImport> reflective = jpaEdmfunctionImport.getConsistentFunctionImportList();
+
+    assertEquals(METHOD_COUNT, reflective.size());
+    for (FunctionImport functionImport : reflective) {
+      assertTrue(functionImport.getMapping().getObject() instanceof JPAFunctionInvoker);
+      FunctionImport generatedFunctionImport = null;
+      for (FunctionImport candidate : generated) {
+        if (candidate.getName().equals(functionImport.getName())) {
+          generatedFunctionImport = candidate;
+        }
+      }
+      assertNotNull(generatedFunctionImport);
+      assertEquals(generatedFunctionImport.getEntitySet(), functionImport.getEntitySet());
+      assertEquals(generatedFunctionImport.getReturnType().getTypeName(), functionImport.getReturnType().getTypeName());
+      assertEquals(generatedFunctionImport.getReturnType().getMultiplicity(), functionImport.getReturnType().getMultiplicity());
+      assertEquals(((JPAEdmMapping) generatedFunctionImport.getMapping()).getJPAType(),
+          ((JPAEdmMapping) functionImport.getMapping()).getJPAType());
+      assertEquals(generatedFunctionImport.getParameters() == null, functionImport.getParameters() == null);
+      if (functionImport.getParameters() != null) {
+        assertEquals(generatedFunctionImport.getParameters().size(), functionImport.getParameters().size());
+        for (int i = 0; i < functionImport.getParameters().size(); i++) {
+          assertEquals(generatedFunctionImport.getParameters().get(i).getName(), functionImport.getParameters().get(i).getName());
+          assertEquals(generatedFunctionImport.getParameters().get(i).getType(), functionImport.getParameters().get(i).getType());
+          assertEquals(generatedFunctionImport.getParameters().get(i).getFacets().getMaxLength(),
+              functionImport.getParameters().get(i).getFacets().getMaxLength());
+        }
+      }
+    }
+  }
+
   @Test
   public void testNoFunctionImport() {
     VARIANT = 99;
@@ -560,6 +663,8 @@ public class JPAEdmFunctionImportTest extends JPAEdmTestModelView {
     } else if (VARIANT == 17) {
       customOperations.put(JPACustomProcessorNegativeMock.class,
           new String[] { "method17" });
+    } else if (VARIANT == 18) {
+      customOperations.put(JPACustomProcessorSubclassMock.class, null);
     } else {
       return null;
     }
@@ -610,6 +715,11 @@ public class JPAEdmFunctionImportTest extends JPAEdmTestModelView {
     return ODataJPAContextMock.PERSISTENCE_UNIT_NAME;
   }
 
+  /**
+   * Subclass without own function imports, so no dispatcher is generated for it.
+   */
+  public static class JPACustomProcessorSubclassMock extends JPACustomProcessorMock {}
+
   private void build() {
     try {
       jpaEdmfunctionImport.getBuilder().build();
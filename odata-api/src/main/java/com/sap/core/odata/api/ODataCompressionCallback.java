@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api;
+
+/**
+ * Configures the compression of response entities.
+ * <p>Response entities are compressed with <code>gzip</code> or <code>deflate</code>
+ * if the client has announced support for it in the <code>Accept-Encoding</code>
+ * request header. Without an implementation of this callback, entities of at least
+ * {@link #DEFAULT_THRESHOLD} bytes are compressed with the default level.</p>
+ * @author SAP AG
+ */
+public interface ODataCompressionCallback extends ODataCallback {
+
+  /** Minimum size in bytes of a response entity to be compressed, if not configured otherwise. */
+  int DEFAULT_THRESHOLD = 1024;
+
+  /**
+   * Determines the minimum size of a response entity to be compressed.
+   * Smaller entities are sent uncompressed.
+   * @return the minimum size in bytes or a negative number to switch compression off
+   */
+  int getCompressionThreshold();
+
+  /**
+   * Determines the compression level.
+   * @return a level from 1 (fastest) to 9 (best compression),
+   *         0 for no compression, or -1 for the default level
+   */
+  int getCompressionLevel();
+}
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api;
+
+/**
+ * Receives the runtime measurements of the OData library and of the
+ * processors (see {@link com.sap.core.odata.api.processor.ODataContext#startRuntimeMeasurement(String, String)}),
+ * e.g., to export them to a monitoring system.
+ * <p>Measurements are taken for every request, independent of the debug mode.
+ * Without an implementation of this callback, they are aggregated in histograms
+ * which are published via JMX.</p>
+ * @author SAP AG
+ */
+public interface ODataMetricsCallback extends ODataCallback {
+
+  /**
+   * Records one finished measurement. This method is called on the thread
+   * processing the request and therefore must be fast and thread safe.
+   * @param className the class name given when the measurement was started
+   * @param methodName the method name given when the measurement was started
+   * @param uriType the URI type of the request, or <code>null</code> if the request URI has not been parsed
+   * @param entitySetName the name of the target entity set of the request, or <code>null</code>
+   * @param durationNanos the duration in nanoseconds
+   */
+  void recordMeasurement(String className, String methodName, String uriType, String entitySetName, long durationNanos);
+}
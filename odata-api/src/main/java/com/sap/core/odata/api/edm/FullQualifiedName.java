@@ -50,7 +50,16 @@ public class FullQualifiedName {
 
   @Override
   public int hashCode() {
-    return toString().hashCode();
+    // the same value as toString().hashCode() but without building the string
+    return hash(hash(hash(0, namespace == null ? "null" : namespace), Edm.DELIMITER), name == null ? "null" : name);
+  }
+
+  private static int hash(final int hash, final String value) {
+    int result = hash;
+    for (int i = 0; i < value.length(); i++) {
+      result = 31 * result + value.charAt(i);
+    }
+    return result;
   }
 
   @Override
@@ -15,7 +15,14 @@
  ******************************************************************************/
 package com.sap.core.odata.api.edm.provider;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
 
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.rt.RuntimeDelegate;
@@ -36,4 +43,45 @@ public class EdmProviderFactory {
   public static EdmProvider getEdmProvider(final InputStream metadataXml, final boolean validate) throws EntityProviderException {
     return RuntimeDelegate.createEdmProvider(metadataXml, validate);
   }
+
+  /**
+   * Creates and returns an edm provider for a binary EDM snapshot
+   * as written by {@link #writeSnapshot(List, OutputStream)}.
+   * The elements of the metadata are decoded from the snapshot on first access.
+   * @param snapshot the snapshot content which must not be changed afterwards
+   * @return an instance of EdmProvider
+   */
+  public static EdmProvider getEdmProvider(final ByteBuffer snapshot) throws EntityProviderException {
+    return RuntimeDelegate.createEdmProvider(snapshot);
+  }
+
+  /**
+   * Creates and returns an edm provider for a binary EDM snapshot file;
+   * the file is memory-mapped.
+   * @param snapshot the snapshot file
+   * @return an instance of EdmProvider
+   */
+  public static EdmProvider getEdmProvider(final File snapshot) throws EntityProviderException {
+    try {
+      RandomAccessFile file = new RandomAccessFile(snapshot, "r");
+      try {
+        final FileChannel channel = file.getChannel();
+        return RuntimeDelegate.createEdmProvider(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      } finally {
+        file.close();
+      }
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Writes a binary EDM snapshot of the given schemas, e.g., as build artifact
+   * for a fast service start-up. Reading the snapshot results in the same metadata document.
+   * @param schemas the schemas of the metadata
+   * @param snapshot the output stream the snapshot is written to; it is not closed
+   */
+  public static void writeSnapshot(final List<Schema> schemas, final OutputStream snapshot) throws EntityProviderException {
+    RuntimeDelegate.writeEdmSnapshot(schemas, snapshot);
+  }
 }
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.edm.provider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.exception.ODataException;
+
+/**
+ * EDM Provider which answers all requests for single elements from hash indexes
+ * over the {@link Schema schemas} returned by {@link #getSchemas()}.
+ * <p>The indexes are built once, on the first request. A provider whose schemas
+ * change afterwards must call {@link #resetIndex()}.</p>
+ * <p>If an element is defined more than once, the first definition in
+ * schema order is returned.</p>
+ * @author SAP AG
+ */
+public abstract class IndexedEdmProvider extends EdmProvider {
+
+  private volatile SchemaIndex index;
+
+  /**
+   * This method must return a collection of all {@link Schema}; it is the source of the indexes
+   * @return List<{@link Schema}>
+   * @throws ODataException
+   */
+  @Override
+  public abstract List<Schema> getSchemas() throws ODataException;
+
+  /**
+   * Discards the indexes so that they are built again from {@link #getSchemas()} on the next request.
+   */
+  protected void resetIndex() {
+    index = null;
+  }
+
+  private SchemaIndex getIndex() throws ODataException {
+    SchemaIndex current = index;
+    if (current == null) {
+      current = new SchemaIndex(getSchemas());
+      index = current;
+    }
+    return current;
+  }
+
+  @Override
+  public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
+    final ContainerIndex container = getIndex().containers.get(name);
+    return container == null ? null : container.container;
+  }
+
+  @Override
+  public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+    return getIndex().entityTypes.get(edmFQName);
+  }
+
+  @Override
+  public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+    return getIndex().complexTypes.get(edmFQName);
+  }
+
+  @Override
+  public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+    return getIndex().associations.get(edmFQName);
+  }
+
+  @Override
+  public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
+    final ContainerIndex container = getIndex().containers.get(entityContainer);
+    return container == null ? null : container.entitySets.get(name);
+  }
+
+  @Override
+  public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association, final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
+    final ContainerIndex container = getIndex().containers.get(entityContainer);
+    return container == null ? null :
+        container.associationSets.get(new AssociationSetKey(association, sourceEntitySetName, sourceEntitySetRole));
+  }
+
+  @Override
+  public FunctionImport getFunctionImport(final String entityContainer, final String name) throws ODataException {
+    final ContainerIndex container = getIndex().containers.get(entityContainer);
+    return container == null ? null : container.functionImports.get(name);
+  }
+
+  /**
+   * Indexes of all schemas; the default entity container is also indexed with the name <code>null</code>.
+   */
+  private static final class SchemaIndex {
+    private final Map<FullQualifiedName, EntityType> entityTypes = new HashMap<FullQualifiedName, EntityType>();
+    private final Map<FullQualifiedName, ComplexType> complexTypes = new HashMap<FullQualifiedName, ComplexType>();
+    private final Map<FullQualifiedName, Association> associations = new HashMap<FullQualifiedName, Association>();
+    private final Map<String, ContainerIndex> containers = new HashMap<String, ContainerIndex>();
+
+    private SchemaIndex(final List<Schema> schemas) {
+      if (schemas == null) {
+        return;
+      }
+      for (final Schema schema : schemas) {
+        final String namespace = schema.getNamespace();
+        if (schema.getEntityTypes() != null) {
+          for (final EntityType entityType : schema.getEntityTypes()) {
+            putFirst(entityTypes, new FullQualifiedName(namespace, entityType.getName()), entityType);
+          }
+        }
+        if (schema.getComplexTypes() != null) {
+          for (final ComplexType complexType : schema.getComplexTypes()) {
+            putFirst(complexTypes, new FullQualifiedName(namespace, complexType.getName()), complexType);
+          }
+        }
+        if (schema.getAssociations() != null) {
+          for (final Association association : schema.getAssociations()) {
+            putFirst(associations, new FullQualifiedName(namespace, association.getName()), association);
+          }
+        }
+        if (schema.getEntityContainers() != null) {
+          for (final EntityContainer entityContainer : schema.getEntityContainers()) {
+            final ContainerIndex container = new ContainerIndex(entityContainer);
+            putFirst(containers, entityContainer.getName(), container);
+            if (entityContainer.isDefaultEntityContainer()) {
+              putFirst(containers, null, container);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Indexes of one entity container.
+   */
+  private static final class ContainerIndex {
+    private final EntityContainer container;
+    private final Map<String, EntitySet> entitySets = new HashMap<String, EntitySet>();
+    private final Map<String, FunctionImport> functionImports = new HashMap<String, FunctionImport>();
+    private final Map<AssociationSetKey, AssociationSet> associationSets = new HashMap<AssociationSetKey, AssociationSet>();
+
+    private ContainerIndex(final EntityContainer container) {
+      this.container = container;
+      if (container.getEntitySets() != null) {
+        for (final EntitySet entitySet : container.getEntitySets()) {
+          putFirst(entitySets, entitySet.getName(), entitySet);
+        }
+      }
+      if (container.getFunctionImports() != null) {
+        for (final FunctionImport functionImport : container.getFunctionImports()) {
+          putFirst(functionImports, functionImport.getName(), functionImport);
+        }
+      }
+      if (container.getAssociationSets() != null) {
+        for (final AssociationSet associationSet : container.getAssociationSets()) {
+          for (final AssociationSetEnd end : new AssociationSetEnd[] { associationSet.getEnd1(), associationSet.getEnd2() }) {
+            if (end != null) {
+              putFirst(associationSets, new AssociationSetKey(associationSet.getAssociation(), end.getEntitySet(), end.getRole()), associationSet);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Association, entity set, and role of one end of an association set.
+   */
+  private static final class AssociationSetKey {
+    private final FullQualifiedName association;
+    private final String entitySet;
+    private final String role;
+
+    private AssociationSetKey(final FullQualifiedName association, final String entitySet, final String role) {
+      this.association = association;
+      this.entitySet = entitySet;
+      this.role = role;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (association == null ? 0 : association.hashCode())
+          + (entitySet == null ? 0 : entitySet.hashCode()))
+          + (role == null ? 0 : role.hashCode());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof AssociationSetKey)) {
+        return false;
+      }
+      final AssociationSetKey other = (AssociationSetKey) obj;
+      return (association == null ? other.association == null : association.equals(other.association))
+          && (entitySet == null ? other.entitySet == null : entitySet.equals(other.entitySet))
+          && (role == null ? other.role == null : role.equals(other.role));
+    }
+  }
+
+  private static <K, V> void putFirst(final Map<K, V> map, final K key, final V value) {
+    if (!map.containsKey(key)) {
+      map.put(key, value);
+    }
+  }
+}
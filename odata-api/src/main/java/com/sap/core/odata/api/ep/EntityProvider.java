@@ -15,7 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.api.ep;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +33,7 @@ import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataErrorContext;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.rt.RuntimeDelegate;
@@ -218,6 +221,20 @@ public final class EntityProvider {
      */
     ODataFeed readFeed(String contentType, EdmEntitySet entitySet, InputStream content, EntityProviderReadProperties properties) throws EntityProviderException;
 
+    /**
+     * Create a reader which reads (de-serializes) a data feed from <code>content</code> (as {@link InputStream})
+     * in specified format (given as <code>contentType</code>) based on <code>entity data model</code>
+     * (given as {@link EdmEntitySet}) one {@link ODataEntry} at a time.
+     * 
+     * @param contentType format of content in the given input stream.
+     * @param entitySet entity data model for entity set to be read
+     * @param content feed data in form of an {@link InputStream} which contains the data in specified format
+     * @param properties additional properties necessary for reading content from {@link InputStream} into {@link Map}.
+     * @return an {@link ODataFeedReader} object which must be closed after use
+     * @throws EntityProviderException if reading of data (de-serialization) fails
+     */
+    ODataFeedReader createFeedReader(String contentType, EdmEntitySet entitySet, InputStream content, EntityProviderReadProperties properties) throws EntityProviderException;
+
     /**
      * Reads (de-serializes) data from <code>content</code> (as {@link InputStream})
      * in specified format (given as <code>contentType</code>) based on
@@ -368,6 +385,39 @@ public final class EntityProvider {
 
   }
 
+  /**
+   * (Internal) extension of the {@link EntityProviderInterface} with <b>read</b> and <b>write</b> methods
+   * for binary data which do not buffer the complete content.
+   * <p>
+   * Entity providers which do not implement this interface are still supported; the corresponding
+   * methods of the {@link EntityProvider} then fall back to the methods for byte arrays.
+   * </p>
+   */
+  public interface StreamingEntityProviderInterface extends EntityProviderInterface {
+
+    /**
+     * Write binary content with content type header set to given <code>mime type</code> parameter.
+     * The content is not buffered but streamed from <code>data</code> when the response is sent.
+     * 
+     * @param mimeType mime type which is written and used as content type header information.
+     * @param data stream with the binary content; it is closed after the response has been sent.
+     * @return response object resulting {@link ODataResponse} with the binary content.
+     * @throws EntityProviderException if writing of data (serialization) fails
+     */
+    ODataResponse writeBinaryStream(String mimeType, InputStream data) throws EntityProviderException;
+
+    /**
+     * Read (de-serialize) binary data from <code>content</code> (as {@link InputStream}) and copy it to <code>target</code>
+     * with a buffer of constant size.
+     * 
+     * @param content data in form of an {@link InputStream} which contains the binary data; it is closed afterwards
+     * @param target the {@link OutputStream} the binary data is written to; it is not closed
+     * @return number of copied bytes
+     * @throws EntityProviderException if reading of data (de-serialization) fails
+     */
+    long readBinary(InputStream content, OutputStream target) throws EntityProviderException;
+  }
+
   /**
    * Create an instance for the {@link EntityProviderInterface} over the {@link RuntimeDelegate}.
    * 
@@ -450,6 +500,23 @@ public final class EntityProvider {
     return createEntityProvider().writeBinary(mimeType, data);
   }
 
+  /**
+   * Write binary content with content type header set to given <code>mime type</code> parameter.
+   * The content is not buffered but streamed from <code>data</code> when the response is sent.
+   * 
+   * @param mimeType mime type which is written and used as content type header information.
+   * @param data stream with the binary content; it is closed after the response has been sent.
+   * @return response object resulting {@link ODataResponse} with the binary content.
+   * @throws EntityProviderException if writing of data (serialization) fails
+   */
+  public static ODataResponse writeBinaryStream(final String mimeType, final InputStream data) throws EntityProviderException {
+    final EntityProviderInterface entityProvider = createEntityProvider();
+    if (entityProvider instanceof StreamingEntityProviderInterface) {
+      return ((StreamingEntityProviderInterface) entityProvider).writeBinaryStream(mimeType, data);
+    }
+    return entityProvider.writeBinary(mimeType, data == null ? null : entityProvider.readBinary(data));
+  }
+
   /**
    * Write given <code>data</code> (which is given in form of a {@link List} with a {@link Map} for each entity. Such a {@link Map}
    * contains all properties [as <code>property name</code> to <code>property value</code> mapping] for the entry) in the specified
@@ -569,6 +636,24 @@ public final class EntityProvider {
     return createEntityProvider().readFeed(contentType, entitySet, content, properties);
   }
 
+  /**
+   * Create a reader which reads (de-serializes) a data feed from <code>content</code> (as {@link InputStream})
+   * in specified format (given as <code>contentType</code>) based on <code>entity data model</code>
+   * (given as {@link EdmEntitySet}) one {@link ODataEntry} at a time.
+   * In contrast to {@link #readFeed(String, EdmEntitySet, InputStream, EntityProviderReadProperties)},
+   * the entries are not collected, so the memory consumption is bounded by the size of one entry.
+   * 
+   * @param contentType format of content in the given input stream.
+   * @param entitySet entity data model for entity set to be read
+   * @param content feed data in form of an {@link InputStream} which contains the data in specified format
+   * @param properties additional properties necessary for reading content from {@link InputStream} into {@link Map}. Must not be null.
+   * @return an {@link ODataFeedReader} object which must be closed after use
+   * @throws EntityProviderException if reading of data (de-serialization) fails
+   */
+  public static ODataFeedReader createFeedReader(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return createEntityProvider().createFeedReader(contentType, entitySet, content, properties);
+  }
+
   /**
    * Read (de-serialize) data from <code>content</code> (as {@link InputStream}) in specified format (given as <code>contentType</code>)
    * based on <code>entity data model</code> (given as {@link EdmEntitySet}) and provide this data as {@link ODataEntry}.
@@ -670,6 +755,29 @@ public final class EntityProvider {
     return createEntityProvider().readBinary(content);
   }
 
+  /**
+   * Read (de-serialize) binary data from <code>content</code> (as {@link InputStream}) and copy it to <code>target</code>
+   * with a buffer of constant size.
+   * 
+   * @param content data in form of an {@link InputStream} which contains the binary data; it is closed afterwards
+   * @param target the {@link OutputStream} the binary data is written to; it is not closed
+   * @return number of copied bytes
+   * @throws EntityProviderException if reading of data (de-serialization) fails
+   */
+  public static long readBinary(final InputStream content, final OutputStream target) throws EntityProviderException {
+    final EntityProviderInterface entityProvider = createEntityProvider();
+    if (entityProvider instanceof StreamingEntityProviderInterface) {
+      return ((StreamingEntityProviderInterface) entityProvider).readBinary(content, target);
+    }
+    final byte[] data = entityProvider.readBinary(content);
+    try {
+      target.write(data);
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+    return data.length;
+  }
+
   /**
    * Read (de-serialize) data from metadata <code>inputStream</code> (as {@link InputStream}) and provide Edm as {@link Edm}
    * 
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.ep.feed;
+
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
+
+/**
+ * An {@link ODataFeedReader} reads the {@link ODataEntry}s of a feed one at a time
+ * from its underlying content, so that only the current entry is held in memory.
+ * <p>The {@link FeedMetadata} of the feed is filled while reading; depending on the
+ * position of inline count and next link in the content, it is complete only after
+ * {@link #hasNext()} has returned <code>false</code>.</p>
+ * <p>The reader must be {@link #close() closed} after use.</p>
+ * @author SAP AG
+ */
+public interface ODataFeedReader {
+
+  /**
+   * Reads ahead until the next entry or the end of the feed.
+   * @return <code>true</code> if the feed has a further entry
+   * @throws EntityProviderException if reading of data (de-serialization) fails
+   */
+  public boolean hasNext() throws EntityProviderException;
+
+  /**
+   * Returns the next entry of the feed.
+   * @return the next {@link ODataEntry}
+   * @throws EntityProviderException if reading of data (de-serialization) fails
+   * @throws java.util.NoSuchElementException if the feed has no further entry
+   */
+  public ODataEntry next() throws EntityProviderException;
+
+  /**
+   * @return {@link FeedMetadata} object with the metadata read so far
+   */
+  public FeedMetadata getFeedMetadata();
+
+  /**
+   * Releases the resources used for reading.
+   * @throws EntityProviderException if closing fails
+   */
+  public void close() throws EntityProviderException;
+}
@@ -31,6 +31,8 @@ public class ODataUnsupportedMediaTypeException extends ODataHttpException {
   public static final MessageReference NOT_SUPPORTED_CONTENT_TYPE = createMessageReference(ODataUnsupportedMediaTypeException.class, "NOT_SUPPORTED_CONTENT_TYPE");
   /** NOT_SUPPORTED_ACCEPT_HEADER requires 1 content value ('media type') */
   public static final MessageReference NOT_SUPPORTED_ACCEPT_HEADER = createMessageReference(ODataUnsupportedMediaTypeException.class, "NOT_SUPPORTED_ACCEPT_HEADER");
+  /** NOT_SUPPORTED_CONTENT_ENCODING requires 1 content value ('content encoding') */
+  public static final MessageReference NOT_SUPPORTED_CONTENT_ENCODING = createMessageReference(ODataUnsupportedMediaTypeException.class, "NOT_SUPPORTED_CONTENT_ENCODING");
 
   public ODataUnsupportedMediaTypeException(final MessageReference context) {
     super(context, HttpStatusCodes.UNSUPPORTED_MEDIA_TYPE);
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.processor;
+
+import java.io.File;
+
+/**
+ * <p>Response entity for content stored in a file, e.g., a media resource.</p>
+ * <p>The content is not read into memory by the library; the runtime hands the
+ * file region to the container which transfers it directly from the file
+ * (using <code>FileChannel.transferTo</code> where the container supports it).
+ * A region of the file is used for partial responses to range requests.</p>
+ * <pre>
+ * {@code
+ * ODataResponse response = ODataResponse.entity(new FileEntity(file)).contentHeader("image/jpeg").build();
+ * }
+ * </pre>
+ * @author SAP AG
+ */
+public final class FileEntity {
+
+  private final File file;
+  private final long position;
+  private final long count;
+
+  /**
+   * Creates an entity for the complete content of the given file.
+   * @param file the file; its length is determined now
+   */
+  public FileEntity(final File file) {
+    this(file, 0, file.length());
+  }
+
+  /**
+   * Creates an entity for a region of the given file.
+   * @param file the file
+   * @param position the position of the first byte of the region
+   * @param count the number of bytes of the region
+   */
+  public FileEntity(final File file, final long position, final long count) {
+    if (file == null || position < 0 || count < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.file = file;
+    this.position = position;
+    this.count = count;
+  }
+
+  /**
+   * @return the file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the position of the first byte of the content in the file
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * @return the number of bytes of the content
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns an entity for a part of this entity's content.
+   * @param offset the offset of the part relative to the start of this entity's content
+   * @param partCount the number of bytes of the part
+   * @return a new entity for the same file
+   */
+  public FileEntity getRegion(final long offset, final long partCount) {
+    if (offset < 0 || partCount < 0 || offset + partCount > count) {
+      throw new IllegalArgumentException();
+    }
+    return new FileEntity(file, position + offset, partCount);
+  }
+
+  @Override
+  public String toString() {
+    return file.getPath() + "[" + position + "+" + count + "]";
+  }
+}
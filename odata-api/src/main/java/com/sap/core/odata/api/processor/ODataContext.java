@@ -31,6 +31,13 @@ import com.sap.core.odata.api.uri.PathInfo;
  */
 public interface ODataContext {
 
+  /**
+   * Name of the {@link #setParameter(String, Object) parameter} a processor can set
+   * to the number of entities of type {@link Integer} it has returned; the number
+   * is reported together with the runtime measurements of slow requests.
+   */
+  String ROW_COUNT = "~rowCount";
+
   /**
    * Gets the OData service.
    * @return ODataService related for this context
@@ -205,28 +212,108 @@ public interface ODataContext {
      * Sets the start heap memory used.
      * @param usedHeap the start heap memory used in bytes
      * @see ManagementFactory#getMemoryMXBean()
+     * @deprecated The heap usage of the whole JVM is not meaningful for concurrent
+     *             requests and is no longer recorded by the library, so the getters
+     *             return 0 unless a value has been set explicitly. Use the per-thread values of
+     *             {@link ResourceMeasurement} instead.
      */
+    @Deprecated
     void setMemoryStarted(long usedHeap);
 
     /**
      * Sets the stop heap memory used.
      * @param usedHeap the stop heap memory used in bytes
      * @see ManagementFactory#getMemoryMXBean()
+     * @deprecated The heap usage of the whole JVM is not meaningful for concurrent
+     *             requests and is no longer recorded by the library, so the getters
+     *             return 0 unless a value has been set explicitly. Use the per-thread values of
+     *             {@link ResourceMeasurement} instead.
      */
+    @Deprecated
     void setMemoryStopped(long usedHeap);
 
     /**
      * Gets the start heap memory used.
      * @return start heap memory used or 0 if not set
      * @see ManagementFactory#getMemoryMXBean()
+     * @deprecated The heap usage of the whole JVM is not meaningful for concurrent
+     *             requests and is no longer recorded by the library, so the getters
+     *             return 0 unless a value has been set explicitly. Use the per-thread values of
+     *             {@link ResourceMeasurement} instead.
      */
+    @Deprecated
     long getMemoryStarted();
 
     /**
      * Gets the stop heap memory used.
      * @return stop heap memory used or 0 if not set
      * @see ManagementFactory#getMemoryMXBean()
+     * @deprecated The heap usage of the whole JVM is not meaningful for concurrent
+     *             requests and is no longer recorded by the library, so the getters
+     *             return 0 unless a value has been set explicitly. Use the per-thread values of
+     *             {@link ResourceMeasurement} instead.
      */
+    @Deprecated
     long getMemoryStopped();
   }
+
+  /**
+   * <p>Runtime measurement which also records the CPU time and the allocated
+   * bytes of the measuring thread.</p>
+   * <p>The measurements created by the library implement this interface;
+   * implementations of {@link RuntimeMeasurement} outside of the library
+   * do not have to.</p>
+   */
+  public interface ResourceMeasurement extends RuntimeMeasurement {
+
+    /**
+     * Sets the number of bytes allocated by the current thread at the start.
+     * @param allocatedBytes the number of bytes allocated so far by the current thread
+     */
+    void setAllocatedBytesStarted(long allocatedBytes);
+
+    /**
+     * Sets the number of bytes allocated by the current thread at the stop.
+     * @param allocatedBytes the number of bytes allocated so far by the current thread
+     */
+    void setAllocatedBytesStopped(long allocatedBytes);
+
+    /**
+     * Gets the number of bytes allocated by the measuring thread at the start.
+     * @return the number of allocated bytes or 0 if not set or not supported by the JVM
+     */
+    long getAllocatedBytesStarted();
+
+    /**
+     * Gets the number of bytes allocated by the measuring thread at the stop.
+     * @return the number of allocated bytes or 0 if not set or not supported by the JVM
+     */
+    long getAllocatedBytesStopped();
+
+    /**
+     * Sets the CPU time of the current thread at the start.
+     * @param cpuTime the CPU time in nanoseconds
+     * @see java.lang.management.ThreadMXBean#getCurrentThreadCpuTime()
+     */
+    void setCpuTimeStarted(long cpuTime);
+
+    /**
+     * Sets the CPU time of the current thread at the stop.
+     * @param cpuTime the CPU time in nanoseconds
+     * @see java.lang.management.ThreadMXBean#getCurrentThreadCpuTime()
+     */
+    void setCpuTimeStopped(long cpuTime);
+
+    /**
+     * Gets the CPU time of the measuring thread at the start.
+     * @return the CPU time in nanoseconds or 0 if not set or not supported by the JVM
+     */
+    long getCpuTimeStarted();
+
+    /**
+     * Gets the CPU time of the measuring thread at the stop.
+     * @return the CPU time in nanoseconds or 0 if not set or not supported by the JVM
+     */
+    long getCpuTimeStopped();
+  }
 }
@@ -16,6 +16,9 @@
 package com.sap.core.odata.api.rt;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.batch.BatchResponsePart.BatchResponsePartBuilder;
@@ -27,6 +30,7 @@ import com.sap.core.odata.api.edm.EdmSimpleType;
 import com.sap.core.odata.api.edm.EdmSimpleTypeFacade;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.processor.ODataRequest.ODataRequestBuilder;
@@ -92,6 +96,10 @@ public abstract class RuntimeDelegate {
 
     protected abstract EdmProvider createEdmProvider(InputStream metadataXml, boolean validate) throws EntityProviderException;
 
+    protected abstract EdmProvider createEdmProvider(ByteBuffer snapshot) throws EntityProviderException;
+
+    protected abstract void writeEdmSnapshot(List<Schema> schemas, OutputStream snapshot) throws EntityProviderException;
+
     protected abstract BatchResponsePartBuilder createBatchResponsePartBuilder();
 
     protected abstract ODataRequestBuilder createODataRequestBuilder();
@@ -175,6 +183,24 @@ public abstract class RuntimeDelegate {
     return RuntimeDelegate.getInstance().createEdmProvider(metadataXml, validate);
   }
 
+  /**
+   * Creates and returns an edm provider for a binary EDM snapshot.
+   * @param snapshot the snapshot content, e.g., a memory-mapped snapshot file
+   * @return an instance of EdmProvider
+   */
+  public static EdmProvider createEdmProvider(final ByteBuffer snapshot) throws EntityProviderException {
+    return RuntimeDelegate.getInstance().createEdmProvider(snapshot);
+  }
+
+  /**
+   * Writes a binary EDM snapshot of the given schemas.
+   * @param schemas the schemas of the metadata
+   * @param snapshot the output stream the snapshot is written to
+   */
+  public static void writeEdmSnapshot(final List<Schema> schemas, final OutputStream snapshot) throws EntityProviderException {
+    RuntimeDelegate.getInstance().writeEdmSnapshot(schemas, snapshot);
+  }
+
   private static class RuntimeDelegateException extends RuntimeException {
 
     private static final long serialVersionUID = 1L;
@@ -16,13 +16,15 @@
 package com.sap.core.odata.core;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotAcceptableException;
+import com.sap.core.odata.core.commons.ContentEncoding;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.commons.ContentType.ODataFormat;
 import com.sap.core.odata.core.uri.UriInfoImpl;
@@ -37,7 +39,35 @@ public class ContentNegotiator {
   private static final String URI_INFO_FORMAT_XML = "xml";
   static final String DEFAULT_CHARSET = "utf-8";
 
+  private static final int MAX_CACHED_NEGOTIATIONS = 1000;
+  private static final ConcurrentMap<NegotiationKey, String> NEGOTIATIONS = new ConcurrentHashMap<NegotiationKey, String>();
+
+  /**
+   * Determines the content type of the response.
+   * <p>Successful negotiations are remembered per combination of <code>$format</code>
+   * value, URI type, accept-header values, and supported content types, so that
+   * the header values are parsed and matched only once.</p>
+   * @param uriInfo information about the request URI
+   * @param acceptHeaderContentTypes the values of the <code>Accept</code> request header; may be <code>null</code>
+   * @param supportedContentTypes the content types the processor supports
+   * @return the content type of the response
+   * @throws ODataException if no acceptable content type is supported
+   */
   public String doContentNegotiation(final UriInfoImpl uriInfo, final List<String> acceptHeaderContentTypes, final List<String> supportedContentTypes) throws ODataException {
+    final NegotiationKey key = new NegotiationKey(uriInfo, acceptHeaderContentTypes, supportedContentTypes);
+    String contentType = NEGOTIATIONS.get(key);
+    if (contentType == null) {
+      contentType = negotiate(uriInfo, acceptHeaderContentTypes, supportedContentTypes);
+      // The keys come from request headers; rather start over than grow without limit.
+      if (NEGOTIATIONS.size() >= MAX_CACHED_NEGOTIATIONS) {
+        NEGOTIATIONS.clear();
+      }
+      NEGOTIATIONS.putIfAbsent(key.copy(), contentType);
+    }
+    return contentType;
+  }
+
+  private String negotiate(final UriInfoImpl uriInfo, final List<String> acceptHeaderContentTypes, final List<String> supportedContentTypes) throws ODataException {
     ContentType contentType;
     if (uriInfo.getFormat() == null) {
       contentType = doContentNegotiationForAcceptHeader(acceptHeaderContentTypes, ContentType.create(supportedContentTypes));
@@ -51,6 +81,62 @@ public class ContentNegotiator {
     return contentType.toContentTypeString();
   }
 
+  /**
+   * Determines the content coding of the response from the values of the
+   * <code>Accept-Encoding</code> request header (RFC 2616, 14.3).
+   * Malformed elements are ignored.
+   * @param acceptEncodingHeaderValues the header values; may be <code>null</code>
+   * @return {@link ContentEncoding#GZIP}, {@link ContentEncoding#DEFLATE},
+   *         or <code>null</code> if the response should not be compressed
+   */
+  public String doContentEncodingNegotiation(final List<String> acceptEncodingHeaderValues) {
+    if (acceptEncodingHeaderValues == null) {
+      return null;
+    }
+    double gzip = -1;
+    double deflate = -1;
+    double any = -1;
+    for (final String headerValue : acceptEncodingHeaderValues) {
+      for (final String element : headerValue.split(",")) {
+        final String[] parts = element.split(";");
+        final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+        double quality = 1;
+        for (int i = 1; i < parts.length; i++) {
+          final String parameter = parts[i].trim();
+          if (parameter.startsWith("q=")) {
+            try {
+              quality = Double.parseDouble(parameter.substring(2));
+            } catch (final NumberFormatException e) {
+              quality = -1;
+            }
+          }
+        }
+        if (quality < 0 || quality > 1) {
+          continue;
+        } else if (ContentEncoding.GZIP.equals(coding) || "x-gzip".equals(coding)) {
+          gzip = Math.max(gzip, quality);
+        } else if (ContentEncoding.DEFLATE.equals(coding)) {
+          deflate = Math.max(deflate, quality);
+        } else if ("*".equals(coding)) {
+          any = Math.max(any, quality);
+        }
+      }
+    }
+    if (gzip < 0) {
+      gzip = any;
+    }
+    if (deflate < 0) {
+      deflate = any;
+    }
+    if (gzip > 0 && gzip >= deflate) {
+      return ContentEncoding.GZIP;
+    } else if (deflate > 0) {
+      return ContentEncoding.DEFLATE;
+    } else {
+      return null;
+    }
+  }
+
   private ContentType doContentNegotiationForFormat(final UriInfoImpl uriInfo, final List<ContentType> supportedContentTypes) throws ODataException {
     validateFormatQuery(uriInfo);
     ContentType formatContentType = mapFormat(uriInfo);
@@ -116,10 +202,8 @@ public class ContentNegotiator {
   }
 
   ContentType contentNegotiation(final List<ContentType> acceptedContentTypes, final List<ContentType> supportedContentTypes) throws ODataException {
-    final Set<ContentType> setSupported = new HashSet<ContentType>(supportedContentTypes);
-
     if (acceptedContentTypes.isEmpty()) {
-      if (!setSupported.isEmpty()) {
+      if (!supportedContentTypes.isEmpty()) {
         return supportedContentTypes.get(0);
       }
     } else {
@@ -135,4 +219,64 @@ public class ContentNegotiator {
     throw new ODataNotAcceptableException(ODataNotAcceptableException.NOT_SUPPORTED_ACCEPT_HEADER.addContent(acceptedContentTypes.toString()));
   }
 
+  /**
+   * Everything the negotiated content type depends on.
+   */
+  private static final class NegotiationKey {
+    private final String format;
+    private final UriType uriType;
+    private final boolean value;
+    private final List<String> acceptHeaderContentTypes;
+    private final List<String> supportedContentTypes;
+    private final int hashCode;
+
+    private NegotiationKey(final UriInfoImpl uriInfo, final List<String> acceptHeaderContentTypes, final List<String> supportedContentTypes) {
+      this(uriInfo.getFormat(), uriInfo.getUriType(), uriInfo.isValue(), acceptHeaderContentTypes, supportedContentTypes);
+    }
+
+    private NegotiationKey(final String format, final UriType uriType, final boolean value,
+        final List<String> acceptHeaderContentTypes, final List<String> supportedContentTypes) {
+      this.format = format;
+      this.uriType = uriType;
+      this.value = value;
+      this.acceptHeaderContentTypes = acceptHeaderContentTypes;
+      this.supportedContentTypes = supportedContentTypes;
+      int hash = format == null ? 0 : format.hashCode();
+      hash = 31 * hash + (uriType == null ? 0 : uriType.hashCode());
+      hash = 31 * hash + (value ? 1 : 0);
+      hash = 31 * hash + (acceptHeaderContentTypes == null ? 0 : acceptHeaderContentTypes.hashCode());
+      hashCode = 31 * hash + (supportedContentTypes == null ? 0 : supportedContentTypes.hashCode());
+    }
+
+    /**
+     * Returns a key with copies of the lists, which the caller could modify later.
+     */
+    private NegotiationKey copy() {
+      return new NegotiationKey(format, uriType, value,
+          acceptHeaderContentTypes == null ? null : new ArrayList<String>(acceptHeaderContentTypes),
+          supportedContentTypes == null ? null : new ArrayList<String>(supportedContentTypes));
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof NegotiationKey)) {
+        return false;
+      }
+      final NegotiationKey other = (NegotiationKey) obj;
+      return hashCode == other.hashCode
+          && value == other.value
+          && uriType == other.uriType
+          && (format == null ? other.format == null : format.equals(other.format))
+          && (acceptHeaderContentTypes == null ? other.acceptHeaderContentTypes == null : acceptHeaderContentTypes.equals(other.acceptHeaderContentTypes))
+          && (supportedContentTypes == null ? other.supportedContentTypes == null : supportedContentTypes.equals(other.supportedContentTypes));
+    }
+  }
 }
@@ -15,8 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.core;
 
-import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -24,6 +24,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import com.sap.core.odata.api.ODataDebugCallback;
+import com.sap.core.odata.api.ODataMetricsCallback;
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.ODataServiceFactory;
 import com.sap.core.odata.api.exception.ODataException;
@@ -31,6 +32,9 @@ import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.uri.PathInfo;
 import com.sap.core.odata.core.debug.ODataDebugResponseWrapper;
+import com.sap.core.odata.core.debug.ThreadResourceMeter;
+import com.sap.core.odata.core.metrics.MetricsRegistry;
+import com.sap.core.odata.core.metrics.SlowRequestSample;
 
 /**
  * @author SAP AG
@@ -45,11 +49,28 @@ public class ODataContextImpl implements ODataContext {
   private static final String PATH_INFO = "~pathInfo";
   private static final String RUNTIME_MEASUREMENTS = "~runtimeMeasurements";
   private static final String HTTP_METHOD = "~httpMethod";
+  /** Name of the parameter holding the URI type recorded with the runtime measurements. */
+  static final String METRICS_URI_TYPE = "~metricsUriType";
+  /** Name of the parameter holding the entity-set name recorded with the runtime measurements. */
+  static final String METRICS_ENTITY_SET = "~metricsEntitySet";
+  private static final int INITIAL_MEASUREMENT_CAPACITY = 16;
+  private static final List<Locale> ANY_LANGUAGE = Collections.singletonList(new Locale("*"));
 
   private Map<String, Object> parameterTable = new HashMap<String, Object>();
 
   private List<Locale> acceptableLanguages;
 
+  // Runtime measurements are taken for every request and kept in parallel arrays
+  // indexed by the measurement handle; only in debug mode they are also collected
+  // as ResourceMeasurement objects, together with CPU time and allocated bytes.
+  private String[] measurementClassNames = new String[INITIAL_MEASUREMENT_CAPACITY];
+  private String[] measurementMethodNames = new String[INITIAL_MEASUREMENT_CAPACITY];
+  private long[] measurementStarted = new long[INITIAL_MEASUREMENT_CAPACITY];
+  private long[] measurementDurations = new long[INITIAL_MEASUREMENT_CAPACITY];
+  private ResourceMeasurement[] debugMeasurements = new ResourceMeasurement[INITIAL_MEASUREMENT_CAPACITY];
+  private int measurementCount;
+  private ODataMetricsCallback metricsCallback;
+
   public ODataContextImpl(final ODataRequest request, final ODataServiceFactory factory) {
     setServiceFactory(factory);
     setRequest(request);
@@ -115,44 +136,108 @@ public class ODataContextImpl implements ODataContext {
 
   @Override
   public int startRuntimeMeasurement(final String className, final String methodName) {
-    if (isInDebugMode()) {
-      List<RuntimeMeasurement> runtimeMeasurements = getRuntimeMeasurements();
-      int handleId = runtimeMeasurements.size();
+    final int handle = measurementCount;
+    if (handle == measurementStarted.length) {
+      final int newLength = handle * 2;
+      measurementClassNames = Arrays.copyOf(measurementClassNames, newLength);
+      measurementMethodNames = Arrays.copyOf(measurementMethodNames, newLength);
+      measurementStarted = Arrays.copyOf(measurementStarted, newLength);
+      measurementDurations = Arrays.copyOf(measurementDurations, newLength);
+      debugMeasurements = Arrays.copyOf(debugMeasurements, newLength);
+    }
+    measurementClassNames[handle] = className;
+    measurementMethodNames[handle] = methodName;
+    measurementDurations[handle] = -1;
+    measurementCount++;
 
-      final RuntimeMeasurement measurement = new RuntimeMeasurementImpl();
-      measurement.setTimeStarted(System.nanoTime());
+    if (isInDebugMode()) {
+      final ResourceMeasurement measurement = new RuntimeMeasurementImpl();
       measurement.setClassName(className);
       measurement.setMethodName(methodName);
-      measurement.setMemoryStarted(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
-
-      runtimeMeasurements.add(measurement);
+      measurement.setAllocatedBytesStarted(ThreadResourceMeter.getAllocatedBytes());
+      measurement.setCpuTimeStarted(ThreadResourceMeter.getCpuTime());
+      getRuntimeMeasurements().add(measurement);
+      debugMeasurements[handle] = measurement;
+    }
 
-      return handleId;
-    } else {
-      return 0;
+    final long timeStarted = System.nanoTime();
+    measurementStarted[handle] = timeStarted;
+    if (debugMeasurements[handle] != null) {
+      debugMeasurements[handle].setTimeStarted(timeStarted);
     }
+    return handle;
   }
 
   @Override
   public void stopRuntimeMeasurement(final int handle) {
-    if (isInDebugMode()) {
-      long stopTime = System.nanoTime();
-      long stopMemory = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    final long timeStopped = System.nanoTime();
+    // A measurement is recorded only once, even if it is stopped repeatedly.
+    if (handle < 0 || handle >= measurementCount || measurementDurations[handle] >= 0) {
+      return;
+    }
+
+    measurementDurations[handle] = timeStopped - measurementStarted[handle];
+    getMetricsCallback().recordMeasurement(measurementClassNames[handle], measurementMethodNames[handle],
+        (String) getParameter(METRICS_URI_TYPE), (String) getParameter(METRICS_ENTITY_SET),
+        measurementDurations[handle]);
+
+    final ResourceMeasurement runtimeMeasurement = debugMeasurements[handle];
+    if (runtimeMeasurement != null) {
+      runtimeMeasurement.setTimeStopped(timeStopped);
+      runtimeMeasurement.setCpuTimeStopped(ThreadResourceMeter.getCpuTime());
+      runtimeMeasurement.setAllocatedBytesStopped(ThreadResourceMeter.getAllocatedBytes());
+    }
+  }
+
+  /**
+   * Returns the duration of a stopped runtime measurement.
+   * @param handle the handle of the measurement
+   * @return the duration in nanoseconds or -1 if the measurement has not been stopped
+   */
+  long getMeasuredDuration(final int handle) {
+    return handle >= 0 && handle < measurementCount ? measurementDurations[handle] : -1;
+  }
 
-      RuntimeMeasurement runtimeMeasurement = getRuntimeMeasurement(handle);
-      if (runtimeMeasurement != null) {
-        runtimeMeasurement.setTimeStopped(stopTime);
-        runtimeMeasurement.setMemoryStopped(stopMemory);
+  /**
+   * Summarizes the stopped runtime measurements per class and method.
+   * @return the phases in the order of their first measurement
+   */
+  List<SlowRequestSample.Phase> getMeasuredPhases() {
+    Map<String, Integer> indexes = new HashMap<String, Integer>();
+    List<String[]> names = new ArrayList<String[]>();
+    List<long[]> totals = new ArrayList<long[]>();
+    for (int handle = 0; handle < measurementCount; handle++) {
+      if (measurementDurations[handle] >= 0) {
+        final String key = measurementClassNames[handle] + '.' + measurementMethodNames[handle];
+        Integer index = indexes.get(key);
+        if (index == null) {
+          index = names.size();
+          indexes.put(key, index);
+          names.add(new String[] { measurementClassNames[handle], measurementMethodNames[handle] });
+          totals.add(new long[2]);
+        }
+        totals.get(index)[0]++;
+        totals.get(index)[1] += measurementDurations[handle];
       }
     }
+    List<SlowRequestSample.Phase> phases = new ArrayList<SlowRequestSample.Phase>(names.size());
+    for (int i = 0; i < names.size(); i++) {
+      phases.add(new SlowRequestSample.Phase(names.get(i)[0], names.get(i)[1], (int) totals.get(i)[0], totals.get(i)[1]));
+    }
+    return phases;
   }
 
-  private RuntimeMeasurement getRuntimeMeasurement(final int handle) {
-    List<RuntimeMeasurement> runtimeMeasurements = getRuntimeMeasurements();
-    if (handle >= 0 && handle < runtimeMeasurements.size()) {
-      return runtimeMeasurements.get(handle);
+  private ODataMetricsCallback getMetricsCallback() {
+    if (metricsCallback == null) {
+      final ODataServiceFactory serviceFactory = getServiceFactory();
+      if (serviceFactory != null) {
+        metricsCallback = serviceFactory.getCallback(ODataMetricsCallback.class);
+      }
+      if (metricsCallback == null) {
+        metricsCallback = MetricsRegistry.getDefault();
+      }
     }
-    return null;
+    return metricsCallback;
   }
 
   @SuppressWarnings("unchecked")
@@ -166,13 +251,17 @@ public class ODataContextImpl implements ODataContext {
     return runtimeMeasurements;
   }
 
-  protected class RuntimeMeasurementImpl implements RuntimeMeasurement {
+  protected class RuntimeMeasurementImpl implements ResourceMeasurement {
     private String className;
     private String methodName;
     private long timeStarted;
     private long timeStopped;
     private long memoryStarted;
     private long memoryStopped;
+    private long allocatedBytesStarted;
+    private long allocatedBytesStopped;
+    private long cpuTimeStarted;
+    private long cpuTimeStopped;
 
     @Override
     public void setClassName(final String className) {
@@ -216,7 +305,9 @@ public class ODataContextImpl implements ODataContext {
 
     @Override
     public String toString() {
-      return className + "." + methodName + ": duration: " + (timeStopped - timeStarted) + ", memory: " + (memoryStopped - memoryStarted);
+      return className + "." + methodName + ": duration: " + (timeStopped - timeStarted)
+          + ", CPU time: " + (cpuTimeStopped - cpuTimeStarted)
+          + ", allocated: " + (allocatedBytesStopped - allocatedBytesStarted);
     }
 
     @Override
@@ -238,6 +329,46 @@ public class ODataContextImpl implements ODataContext {
     public long getMemoryStopped() {
       return memoryStopped;
     }
+
+    @Override
+    public void setAllocatedBytesStarted(final long allocatedBytes) {
+      allocatedBytesStarted = allocatedBytes;
+    }
+
+    @Override
+    public void setAllocatedBytesStopped(final long allocatedBytes) {
+      allocatedBytesStopped = allocatedBytes;
+    }
+
+    @Override
+    public long getAllocatedBytesStarted() {
+      return allocatedBytesStarted;
+    }
+
+    @Override
+    public long getAllocatedBytesStopped() {
+      return allocatedBytesStopped;
+    }
+
+    @Override
+    public void setCpuTimeStarted(final long cpuTime) {
+      cpuTimeStarted = cpuTime;
+    }
+
+    @Override
+    public void setCpuTimeStopped(final long cpuTime) {
+      cpuTimeStopped = cpuTime;
+    }
+
+    @Override
+    public long getCpuTimeStarted() {
+      return cpuTimeStarted;
+    }
+
+    @Override
+    public long getCpuTimeStopped() {
+      return cpuTimeStopped;
+    }
   }
 
   @Override
@@ -258,12 +389,8 @@ public class ODataContextImpl implements ODataContext {
   }
 
   public void setAcceptableLanguages(final List<Locale> acceptableLanguages) {
-    this.acceptableLanguages = acceptableLanguages;
-
-    if (this.acceptableLanguages.isEmpty()) {
-      final Locale wildcard = new Locale("*");
-      this.acceptableLanguages.add(wildcard);
-    }
+    // The given list belongs to the request and is not changed.
+    this.acceptableLanguages = acceptableLanguages.isEmpty() ? ANY_LANGUAGE : acceptableLanguages;
   }
 
   public void setHttpMethod(final String httpMethod) {
@@ -15,16 +15,25 @@
  ******************************************************************************/
 package com.sap.core.odata.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
+import com.sap.core.odata.api.ODataCompressionCallback;
+import com.sap.core.odata.api.ODataDebugCallback;
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.ODataServiceFactory;
 import com.sap.core.odata.api.ODataServiceVersion;
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
 import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.commons.ODataHttpHeaders;
 import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
@@ -32,6 +41,7 @@ import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataMethodNotAllowedException;
 import com.sap.core.odata.api.exception.ODataUnsupportedMediaTypeException;
+import com.sap.core.odata.api.processor.FileEntity;
 import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.processor.ODataProcessor;
 import com.sap.core.odata.api.processor.ODataRequest;
@@ -48,10 +58,18 @@ import com.sap.core.odata.api.processor.part.FunctionImportValueProcessor;
 import com.sap.core.odata.api.uri.PathSegment;
 import com.sap.core.odata.api.uri.UriInfo;
 import com.sap.core.odata.api.uri.UriParser;
+import com.sap.core.odata.core.commons.ByteRange;
+import com.sap.core.odata.core.commons.ContentEncoding;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.commons.ContentType.ODataFormat;
 import com.sap.core.odata.core.debug.ODataDebugResponseWrapper;
+import com.sap.core.odata.core.ep.util.BufferedUtf8Writer;
+import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
+import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
+import com.sap.core.odata.core.metrics.ResponseSizeInputStream;
+import com.sap.core.odata.core.metrics.SlowRequestSample;
+import com.sap.core.odata.core.metrics.SlowRequestSampler;
 import com.sap.core.odata.core.uri.UriInfoImpl;
 import com.sap.core.odata.core.uri.UriParserImpl;
 import com.sap.core.odata.core.uri.UriType;
@@ -61,6 +79,8 @@ import com.sap.core.odata.core.uri.UriType;
  */
 public class ODataRequestHandler {
 
+  private static final ContentNegotiator CONTENT_NEGOTIATOR = new ContentNegotiator();
+
   private final ODataServiceFactory serviceFactory;
   private final ODataService service;
   private final ODataContext context;
@@ -79,6 +99,10 @@ public class ODataRequestHandler {
    * @return the corresponding result
    */
   public ODataResponse handle(final ODataRequest request) {
+    if (isSlowRequestsResource(request)) {
+      return createSlowRequestsResponse(SlowRequestSampler.getInstance(serviceFactory.getClass()));
+    }
+
     UriInfoImpl uriInfo = null;
     Exception exception = null;
     ODataResponse odataResponse;
@@ -94,6 +118,7 @@ public class ODataRequestHandler {
       final List<PathSegment> pathSegments = context.getPathInfo().getODataSegments();
       int timingHandle2 = context.startRuntimeMeasurement("UriParserImpl", "parse");
       uriInfo = (UriInfoImpl) uriParser.parse(pathSegments, request.getQueryParameters());
+      setMetricsDimensions(uriInfo);
       context.stopRuntimeMeasurement(timingHandle2);
 
       final ODataHttpMethod method = request.getMethod();
@@ -104,7 +129,7 @@ public class ODataRequestHandler {
         checkRequestContentType(uriInfo, request.getContentType());
       }
 
-      final String acceptContentType = new ContentNegotiator().doContentNegotiation(uriInfo, request.getAcceptHeaders(), getSupportedContentTypes(uriInfo));
+      final String acceptContentType = CONTENT_NEGOTIATOR.doContentNegotiation(uriInfo, request.getAcceptHeaders(), getSupportedContentTypes(uriInfo));
 
       timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
       odataResponse = dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType);
@@ -113,21 +138,133 @@ public class ODataRequestHandler {
       final String location = (method == ODataHttpMethod.POST && (uriType == UriType.URI1 || uriType == UriType.URI6B)) ? odataResponse.getIdLiteral() : null;
       final HttpStatusCodes s = odataResponse.getStatus() == null ? method == ODataHttpMethod.POST ? uriType == UriType.URI9 ? HttpStatusCodes.OK : uriType == UriType.URI7B ? HttpStatusCodes.NO_CONTENT : HttpStatusCodes.CREATED : method == ODataHttpMethod.PUT || method == ODataHttpMethod.PATCH || method == ODataHttpMethod.MERGE || method == ODataHttpMethod.DELETE ? HttpStatusCodes.NO_CONTENT : HttpStatusCodes.OK : odataResponse.getStatus();
 
-      ODataResponseBuilder extendedResponse = ODataResponse.fromResponse(odataResponse);
-      if (!odataResponse.containsHeader(ODataHttpHeaders.DATASERVICEVERSION)) {
-        extendedResponse = extendedResponse.header(ODataHttpHeaders.DATASERVICEVERSION, serverDataServiceVersion);
+      final boolean hasDataServiceVersion = odataResponse.containsHeader(ODataHttpHeaders.DATASERVICEVERSION);
+      // Re-build the response only if something has to be changed.
+      if (!hasDataServiceVersion || s != odataResponse.getStatus()
+          || (location == null ? odataResponse.getIdLiteral() != null : !location.equals(odataResponse.getIdLiteral()))) {
+        ODataResponseBuilder extendedResponse = ODataResponse.fromResponse(odataResponse);
+        if (!hasDataServiceVersion) {
+          extendedResponse = extendedResponse.header(ODataHttpHeaders.DATASERVICEVERSION, serverDataServiceVersion);
+        }
+        extendedResponse = extendedResponse.idLiteral(location).status(s);
+        odataResponse = extendedResponse.build();
+      }
+
+      if (method == ODataHttpMethod.GET && uriType == UriType.URI17 && !context.isInBatchMode()) {
+        odataResponse = ByteRange.apply(odataResponse,
+            request.getRequestHeaderValue(HttpHeaders.RANGE),
+            request.getRequestHeaderValue(HttpHeaders.IF_RANGE),
+            request.getRequestHeaderValue(HttpHeaders.IF_NONE_MATCH));
       }
-      extendedResponse = extendedResponse.idLiteral(location).status(s);
-      odataResponse = extendedResponse.build();
 
     } catch (final Exception e) {
       exception = e;
       odataResponse = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders()).wrapInExceptionResponse(e);
     }
     context.stopRuntimeMeasurement(timingHandle);
+    if (context instanceof ODataContextImpl && !context.isInBatchMode()) {
+      odataResponse = sampleRequest((ODataContextImpl) context, timingHandle, request, odataResponse);
+    }
+
+    final ODataCompressionCallback compression = serviceFactory.getCallback(ODataCompressionCallback.class);
+    final int threshold = compression == null ? ODataCompressionCallback.DEFAULT_THRESHOLD : compression.getCompressionThreshold();
+    final String contentEncoding = threshold < 0 || context.isInBatchMode() ? null
+        : CONTENT_NEGOTIATOR.doContentEncodingNegotiation(getAcceptEncodingHeaderValues(request));
 
     final String debugValue = getDebugValue(context, request.getQueryParameters());
-    return debugValue == null ? odataResponse : new ODataDebugResponseWrapper(context, odataResponse, uriInfo, exception, debugValue).wrapResponse();
+    if (debugValue != null) {
+      odataResponse = new ODataDebugResponseWrapper(context, odataResponse, uriInfo, exception, debugValue, contentEncoding).wrapResponse();
+    }
+    if (contentEncoding == null || odataResponse.getStatus() == HttpStatusCodes.PARTIAL_CONTENT) {
+      // The positions in the Content-Range header refer to the uncompressed entity.
+      return odataResponse;
+    }
+    try {
+      return ContentEncoding.compress(odataResponse, contentEncoding, threshold,
+          compression == null ? Deflater.DEFAULT_COMPRESSION : compression.getCompressionLevel());
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  /**
+   * Adds the request to the slow-request samples if it is among the slowest
+   * ones. The body size of streamed responses is counted while streaming.
+   */
+  private ODataResponse sampleRequest(final ODataContextImpl contextImpl, final int timingHandle, final ODataRequest request,
+      final ODataResponse response) {
+    final SlowRequestSampler sampler = SlowRequestSampler.getInstance(serviceFactory.getClass());
+    final long duration = contextImpl.getMeasuredDuration(timingHandle);
+    if (!sampler.isCandidate(duration)) {
+      return response;
+    }
+
+    final Object entity = response.getEntity();
+    long responseSize = -1;
+    if (entity instanceof byte[]) {
+      responseSize = ((byte[]) entity).length;
+    } else if (entity instanceof FileEntity) {
+      responseSize = ((FileEntity) entity).getCount();
+    } else if (entity instanceof String) {
+      try {
+        responseSize = ((String) entity).getBytes("UTF-8").length;
+      } catch (final UnsupportedEncodingException e) {
+        throw new ODataRuntimeException(e);
+      }
+    }
+    final Object rowCount = contextImpl.getParameter(ODataContext.ROW_COUNT);
+    final SlowRequestSample sample = new SlowRequestSample(System.currentTimeMillis(),
+        request.getMethod() == null ? null : request.getMethod().name(),
+        request.getPathInfo() == null || request.getPathInfo().getRequestUri() == null ? null : request.getPathInfo().getRequestUri().toString(),
+        (String) contextImpl.getParameter(ODataContextImpl.METRICS_URI_TYPE),
+        (String) contextImpl.getParameter(ODataContextImpl.METRICS_ENTITY_SET),
+        duration,
+        response.getStatus() == null ? 0 : response.getStatus().getStatusCode(),
+        responseSize,
+        rowCount instanceof Integer ? (Integer) rowCount : null,
+        contextImpl.getMeasuredPhases());
+
+    if (sampler.add(sample) && entity instanceof InputStream) {
+      return ODataResponse.fromResponse(response).entity(new ResponseSizeInputStream((InputStream) entity, sample)).build();
+    }
+    return response;
+  }
+
+  /**
+   * The slow-request samples are shown only to users allowed to debug the service.
+   */
+  private boolean isSlowRequestsResource(final ODataRequest request) {
+    if (request.getMethod() != ODataHttpMethod.GET || context.isInBatchMode() || request.getPathInfo() == null) {
+      return false;
+    }
+    final List<PathSegment> pathSegments = request.getPathInfo().getODataSegments();
+    if (pathSegments == null || pathSegments.size() != 1
+        || !SlowRequestSampler.RESOURCE.equals(pathSegments.get(0).getPath())) {
+      return false;
+    }
+    final ODataDebugCallback callback = serviceFactory.getCallback(ODataDebugCallback.class);
+    return callback != null && callback.isDebugEnabled();
+  }
+
+  private static ODataResponse createSlowRequestsResponse(final SlowRequestSampler sampler) {
+    try {
+      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      BufferedUtf8Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
+      sampler.appendJson(new JsonStreamWriter(writer));
+      writer.flush();
+      buffer.closeWrite();
+      return ODataResponse.status(HttpStatusCodes.OK)
+          .contentHeader(HttpContentType.APPLICATION_JSON)
+          .entity(buffer.getInputStream())
+          .build();
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  private static List<String> getAcceptEncodingHeaderValues(final ODataRequest request) {
+    final Map<String, List<String>> requestHeaders = request.getRequestHeaders();
+    return requestHeaders == null ? null : requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
   }
 
   private String getServerDataServiceVersion() throws ODataException {
@@ -147,6 +284,12 @@ public class ODataRequestHandler {
     }
   }
 
+  private void setMetricsDimensions(final UriInfoImpl uriInfo) throws EdmException {
+    context.setParameter(ODataContextImpl.METRICS_URI_TYPE, uriInfo.getUriType().name());
+    final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
+    context.setParameter(ODataContextImpl.METRICS_ENTITY_SET, entitySet == null ? null : entitySet.getName());
+  }
+
   private static void validateMethodAndUri(final ODataHttpMethod method, final UriInfoImpl uriInfo) throws ODataException {
     validateUriMethod(method, uriInfo);
     checkFunctionImport(method, uriInfo);
@@ -34,7 +34,7 @@ import com.sap.core.odata.core.commons.ContentType;
 public class ODataRequestImpl extends ODataRequest {
 
   private ODataHttpMethod method;
-  private Map<String, List<String>> requestHeaders = new HashMap<String, List<String>>();
+  private Map<String, List<String>> requestHeaders = Collections.emptyMap();
   private InputStream body;
   private PathInfo pathInfo;
   private Map<String, String> queryParameters;
@@ -70,7 +70,7 @@ public class ODataRequestImpl extends ODataRequest {
 
   @Override
   public Map<String, List<String>> getRequestHeaders() {
-    return Collections.unmodifiableMap(requestHeaders);
+    return requestHeaders;
   }
 
   @Override
@@ -90,7 +90,7 @@ public class ODataRequestImpl extends ODataRequest {
 
   public class ODataRequestBuilderImpl extends ODataRequestBuilder {
     private ODataHttpMethod method;
-    private Map<String, List<String>> requestHeaders = new HashMap<String, List<String>>();
+    private Map<String, List<String>> requestHeaders = Collections.emptyMap();
     private InputStream body;
     private PathInfo pathInfo;
     private Map<String, String> queryParameters;
@@ -101,7 +101,8 @@ public class ODataRequestImpl extends ODataRequest {
     @Override
     public ODataRequest build() {
       ODataRequestImpl.this.method = method;
-      ODataRequestImpl.this.requestHeaders = requestHeaders;
+      // a read-only view, not a copy, of the headers
+      ODataRequestImpl.this.requestHeaders = requestHeaders == null ? null : Collections.unmodifiableMap(requestHeaders);
       ODataRequestImpl.this.body = body;
       ODataRequestImpl.this.pathInfo = pathInfo;
       ODataRequestImpl.this.queryParameters = queryParameters;
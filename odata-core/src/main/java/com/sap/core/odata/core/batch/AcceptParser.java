@@ -21,6 +21,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Pattern;
 
@@ -42,7 +44,31 @@ public class AcceptParser {
 
   private static final double QUALITY_PARAM_FACTOR = 0.001;
 
+  private static final int MAX_CACHED_HEADER_VALUES = 1000;
+  private static final ConcurrentMap<String, List<String>> PARSED_ACCEPT_HEADERS = new ConcurrentHashMap<String, List<String>>();
+  private static final ConcurrentMap<String, List<String>> PARSED_ACCEPT_LANGUAGES = new ConcurrentHashMap<String, List<String>>();
+
+  /**
+   * Parses the value of an <code>Accept</code> header and sorts the media ranges by quality.
+   * The result for a header value is computed only once.
+   * @param headerValue the header value
+   * @return a new list of the media ranges, the most acceptable first
+   * @throws BatchException if the header value is malformed
+   */
   public static List<String> parseAcceptHeaders(final String headerValue) throws BatchException {
+    List<String> acceptHeaders = PARSED_ACCEPT_HEADERS.get(headerValue);
+    if (acceptHeaders == null) {
+      acceptHeaders = parseAcceptHeaderValue(headerValue);
+      // The header values are unbounded; rather start over than grow without limit.
+      if (PARSED_ACCEPT_HEADERS.size() >= MAX_CACHED_HEADER_VALUES) {
+        PARSED_ACCEPT_HEADERS.clear();
+      }
+      PARSED_ACCEPT_HEADERS.putIfAbsent(headerValue, acceptHeaders);
+    }
+    return new ArrayList<String>(acceptHeaders);
+  }
+
+  private static List<String> parseAcceptHeaderValue(final String headerValue) throws BatchException {
     TreeSet<Accept> acceptTree = getAcceptTree();
     List<String> acceptHeaders = new ArrayList<String>();
     Scanner acceptHeaderScanner = new Scanner(headerValue).useDelimiter(",\\s?");
@@ -98,7 +124,26 @@ public class AcceptParser {
     return qualityFactor;
   }
 
+  /**
+   * Parses the value of an <code>Accept-Language</code> header and sorts the language ranges by quality.
+   * The result for a header value is computed only once.
+   * @param headerValue the header value
+   * @return a new list of the language ranges, the most acceptable first
+   * @throws BatchException if the header value is malformed
+   */
   public static List<String> parseAcceptableLanguages(final String headerValue) throws BatchException {
+    List<String> acceptLanguages = PARSED_ACCEPT_LANGUAGES.get(headerValue);
+    if (acceptLanguages == null) {
+      acceptLanguages = parseAcceptLanguageValue(headerValue);
+      if (PARSED_ACCEPT_LANGUAGES.size() >= MAX_CACHED_HEADER_VALUES) {
+        PARSED_ACCEPT_LANGUAGES.clear();
+      }
+      PARSED_ACCEPT_LANGUAGES.putIfAbsent(headerValue, acceptLanguages);
+    }
+    return new LinkedList<String>(acceptLanguages);
+  }
+
+  private static List<String> parseAcceptLanguageValue(final String headerValue) throws BatchException {
     List<String> acceptLanguages = new LinkedList<String>();
     TreeSet<Accept> acceptTree = getAcceptTree();
     Scanner acceptLanguageScanner = new Scanner(headerValue).useDelimiter(",\\s?");
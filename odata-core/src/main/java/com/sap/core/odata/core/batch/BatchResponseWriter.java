@@ -25,7 +25,9 @@ import com.sap.core.odata.api.commons.HttpContentType;
 import com.sap.core.odata.api.commons.HttpHeaders;
 import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.exception.ODataMessageException;
+import com.sap.core.odata.api.processor.FileEntity;
 import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.core.commons.FileTransfer;
 
 public class BatchResponseWriter {
   private static final String COLON = ":";
@@ -85,6 +87,12 @@ public class BatchResponseWriter {
       if (response.getEntity() instanceof InputStream) {
         InputStream in = (InputStream) response.getEntity();
         body = readBody(in);
+      } else if (response.getEntity() instanceof FileEntity) {
+        try {
+          body = readBody(FileTransfer.openStream((FileEntity) response.getEntity()));
+        } catch (IOException e) {
+          throw new BatchException(ODataMessageException.COMMON, e);
+        }
       } else {
         body = response.getEntity().toString();
       }
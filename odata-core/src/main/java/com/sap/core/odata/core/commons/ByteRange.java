@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.processor.FileEntity;
+import com.sap.core.odata.api.processor.ODataResponse;
+
+/**
+ * Byte ranges of HTTP message bodies (RFC 2616, 14.35): partial responses
+ * for the <code>Range</code> and <code>If-Range</code> request headers and
+ * conditional responses for the <code>If-None-Match</code> request header.
+ * <p>Only a single range is supported; requests for several ranges are
+ * answered with the complete entity, as RFC 2616 allows.</p>
+ * @author SAP AG
+ */
+public final class ByteRange {
+
+  public static final String BYTES = "bytes";
+
+  private static final String BYTES_PREFIX = BYTES + "=";
+  private static final String WEAK_PREFIX = "W/";
+
+  /** Result of {@link #parse} for ranges which cannot be satisfied. */
+  public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+  private final long first;
+  private final long last;
+
+  private ByteRange(final long first, final long last) {
+    this.first = first;
+    this.last = last;
+  }
+
+  /**
+   * @return the position of the first byte of the range
+   */
+  public long getFirst() {
+    return first;
+  }
+
+  /**
+   * @return the position of the last byte of the range (inclusive)
+   */
+  public long getLast() {
+    return last;
+  }
+
+  /**
+   * Parses the value of a <code>Range</code> header.
+   * @param range the header value
+   * @param length the length of the complete entity in bytes or <code>-1</code> if unknown
+   * @return the range, {@link #UNSATISFIABLE} if the range starts behind the end of the entity,
+   *         or <code>null</code> if the header is invalid, contains several ranges,
+   *         or cannot be resolved without the unknown length
+   */
+  public static ByteRange parse(final String range, final long length) {
+    if (range == null || !range.trim().toLowerCase(Locale.ROOT).startsWith(BYTES_PREFIX)) {
+      return null;
+    }
+    final String spec = range.trim().substring(BYTES_PREFIX.length()).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0 || spec.indexOf(',') >= 0) {
+      return null;
+    }
+    final long start = parseNumber(spec.substring(0, dash).trim());
+    final long end = parseNumber(spec.substring(dash + 1).trim());
+    if (start == -1 && end == -1 || start == -2 || end == -2 || end != -1 && start > end) {
+      return null;
+    }
+
+    if (start == -1) {
+      // suffix range with the number of bytes at the end of the entity
+      if (length < 0) {
+        return null;
+      }
+      return end == 0 || length == 0 ? UNSATISFIABLE : new ByteRange(Math.max(0, length - end), length - 1);
+    } else if (length < 0) {
+      return end == -1 ? null : new ByteRange(start, end);
+    } else if (start >= length) {
+      return UNSATISFIABLE;
+    } else {
+      return new ByteRange(start, end == -1 ? length - 1 : Math.min(end, length - 1));
+    }
+  }
+
+  /**
+   * Returns <code>-1</code> for an empty string, <code>-2</code> for an invalid number.
+   */
+  private static long parseNumber(final String number) {
+    if (number.length() == 0) {
+      return -1;
+    }
+    for (int i = 0; i < number.length(); i++) {
+      if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+        return -2;
+      }
+    }
+    try {
+      return Long.parseLong(number);
+    } catch (final NumberFormatException e) {
+      return -2;
+    }
+  }
+
+  /**
+   * Applies the conditional and range headers of a GET request to a successful response.
+   * <p>If <code>If-None-Match</code> matches the entity tag of the response, the result has status
+   * <code>304 Not Modified</code>. Otherwise, if a range is requested and <code>If-Range</code> is absent
+   * or matches the entity tag or the last-modification date of the response, the result has status
+   * <code>206 Partial Content</code> and contains the requested range only, or it has status
+   * <code>416 Requested Range Not Satisfiable</code>.
+   * Streamed entities are not read here; the range is cut out while the entity is streamed.
+   * Only if the length of a streamed entity is unknown, it is read up to the start of the range
+   * to find out whether the range can be satisfied.
+   * For {@link FileEntity file entities}, the result contains the corresponding region of the file.</p>
+   * @param response the complete response
+   * @param range the value of the <code>Range</code> header or <code>null</code>
+   * @param ifRange the value of the <code>If-Range</code> header or <code>null</code>
+   * @param ifNoneMatch the value of the <code>If-None-Match</code> header or <code>null</code>
+   * @return the original response with an <code>Accept-Ranges</code> header or a new response
+   * @throws IOException if the entity could not be inspected or closed
+   */
+  public static ODataResponse apply(final ODataResponse response, final String range, final String ifRange, final String ifNoneMatch)
+      throws IOException {
+    final Object entity = response.getEntity();
+    if (response.getStatus() != HttpStatusCodes.OK
+        || !(entity instanceof InputStream || entity instanceof byte[] || entity instanceof FileEntity)) {
+      return response;
+    }
+
+    final String eTag = response.getETag();
+    if (ifNoneMatch != null && eTag != null && matchesAny(ifNoneMatch, eTag)) {
+      response.close();
+      return ODataResponse.fromResponse(response).status(HttpStatusCodes.NOT_MODIFIED)
+          .entity(null).contentHeader(null).header(HttpHeaders.CONTENT_LENGTH, null).build();
+    }
+
+    if (range == null || ifRange != null && !isCurrent(ifRange, eTag, response.getHeader(HttpHeaders.LAST_MODIFIED))) {
+      return ODataResponse.fromResponse(response).header(HttpHeaders.ACCEPT_RANGES, BYTES).build();
+    }
+
+    final long length = getLength(response);
+    final ByteRange byteRange = parse(range, length);
+    if (byteRange == null) {
+      return ODataResponse.fromResponse(response).header(HttpHeaders.ACCEPT_RANGES, BYTES).build();
+    }
+
+    final long count = byteRange.last - byteRange.first + 1;
+    final Object content = byteRange == UNSATISFIABLE ? null : entity instanceof FileEntity ?
+        ((FileEntity) entity).getRegion(byteRange.first, count) : entity instanceof byte[] ?
+            new ByteArrayInputStream((byte[]) entity, (int) byteRange.first, (int) count) : length < 0 ?
+                skipToRange((InputStream) entity, byteRange.first, count) :
+                new RangeInputStream((InputStream) entity, byteRange.first, count);
+    if (content == null) {
+      response.close();
+      return ODataResponse.fromResponse(response).status(HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .entity(null).contentHeader(null).header(HttpHeaders.CONTENT_LENGTH, null)
+          .header(HttpHeaders.ACCEPT_RANGES, BYTES)
+          .header(HttpHeaders.CONTENT_RANGE, length < 0 ? null : BYTES + " */" + length)
+          .build();
+    }
+    return ODataResponse.fromResponse(response).status(HttpStatusCodes.PARTIAL_CONTENT)
+        .entity(content)
+        .header(HttpHeaders.CONTENT_LENGTH, null)
+        .header(HttpHeaders.ACCEPT_RANGES, BYTES)
+        .header(HttpHeaders.CONTENT_RANGE, BYTES + " " + byteRange.first + "-" + byteRange.last + "/" + (length < 0 ? "*" : length))
+        .build();
+  }
+
+  /**
+   * Skips to the start of the range in a stream of unknown length.
+   * @return a stream of the range or <code>null</code> if the stream ends before the range starts
+   */
+  private static InputStream skipToRange(final InputStream stream, final long first, final long count) throws IOException {
+    long toSkip = first;
+    while (toSkip > 0) {
+      final long skipped = stream.skip(toSkip);
+      if (skipped > 0) {
+        toSkip -= skipped;
+      } else if (stream.read() < 0) {
+        return null;
+      } else {
+        toSkip--;
+      }
+    }
+    PushbackInputStream pushbackStream = new PushbackInputStream(stream, 1);
+    final int nextByte = pushbackStream.read();
+    if (nextByte < 0) {
+      return null;
+    }
+    pushbackStream.unread(nextByte);
+    return new RangeInputStream(pushbackStream, 0, count);
+  }
+
+  /**
+   * Determines whether the value of an <code>If-Range</code> header fits to the
+   * current entity; entity tags must match strongly, dates exactly.
+   */
+  private static boolean isCurrent(final String ifRange, final String eTag, final String lastModified) {
+    final String value = ifRange.trim();
+    if (value.startsWith("\"") || value.startsWith(WEAK_PREFIX)) {
+      return eTag != null && !eTag.startsWith(WEAK_PREFIX) && value.equals(eTag);
+    } else {
+      return value.equals(lastModified);
+    }
+  }
+
+  /**
+   * Determines whether a list of entity tags contains the given entity tag,
+   * with weak comparison as required for <code>If-None-Match</code>.
+   */
+  private static boolean matchesAny(final String eTags, final String eTag) {
+    final String opaqueTag = eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+    for (final String candidate : eTags.split(",")) {
+      final String tag = candidate.trim();
+      if ("*".equals(tag)
+          || opaqueTag.equals(tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the length of the complete entity in bytes or <code>-1</code>
+   * if it cannot be determined without reading the entity.
+   */
+  private static long getLength(final ODataResponse response) throws IOException {
+    final Object entity = response.getEntity();
+    if (entity instanceof byte[]) {
+      return ((byte[]) entity).length;
+    } else if (entity instanceof FileEntity) {
+      return ((FileEntity) entity).getCount();
+    }
+    final String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength != null) {
+      final long length = parseNumber(contentLength.trim());
+      if (length >= 0) {
+        return length;
+      }
+    }
+    if (entity instanceof ByteArrayInputStream) {
+      return ((ByteArrayInputStream) entity).available();
+    } else if (entity instanceof FileInputStream) {
+      final FileInputStream stream = (FileInputStream) entity;
+      return stream.getChannel().size() - stream.getChannel().position();
+    } else {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * Input stream delivering the compressed content of another input stream,
+ * in <code>gzip</code> (RFC 1952) or <code>deflate</code> (RFC 1950) format.
+ * <p>The content is compressed while it is read, so that the source is
+ * never held in memory completely.</p>
+ * @author SAP AG
+ */
+class CompressingInputStream extends InputStream {
+
+  private static final byte[] GZIP_HEADER = new byte[] {
+      (byte) 0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF };
+  private static final byte[] EMPTY = new byte[0];
+
+  private final boolean gzip;
+  private final Deflater deflater;
+  private final CRC32 checksum;
+  private final InputStream deflated;
+  private byte[] pending;
+  private int pendingPosition;
+  private boolean deflatedFinished;
+  private final byte[] single = new byte[1];
+
+  CompressingInputStream(final InputStream source, final boolean gzip, final int level) {
+    this.gzip = gzip;
+    deflater = new Deflater(level, gzip);
+    if (gzip) {
+      checksum = new CRC32();
+      deflated = new DeflaterInputStream(new CheckedInputStream(source, checksum), deflater);
+      pending = GZIP_HEADER;
+    } else {
+      checksum = null;
+      deflated = new DeflaterInputStream(source, deflater);
+      pending = EMPTY;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int count = read(single, 0, 1);
+    return count == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    while (true) {
+      if (pendingPosition < pending.length) {
+        final int count = Math.min(length, pending.length - pendingPosition);
+        System.arraycopy(pending, pendingPosition, buffer, offset, count);
+        pendingPosition += count;
+        return count;
+      }
+      if (deflatedFinished) {
+        return -1;
+      }
+      final int count = deflated.read(buffer, offset, length);
+      if (count >= 0) {
+        return count;
+      }
+      deflatedFinished = true;
+      pending = gzip ? createTrailer() : EMPTY;
+      pendingPosition = 0;
+    }
+  }
+
+  private byte[] createTrailer() {
+    final long crc = checksum.getValue();
+    final long size = deflater.getBytesRead();
+    return new byte[] {
+        (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24),
+        (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24) };
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      deflated.close();
+    } finally {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.processor.ODataResponse;
+
+/**
+ * Content codings of HTTP message bodies (RFC 2616, 3.5): decompression
+ * of request bodies and compression of response entities.
+ * @author SAP AG
+ */
+public final class ContentEncoding {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  public static final String IDENTITY = "identity";
+
+  private static final String X_GZIP = "x-gzip";
+  private static final String CHARSET = "charset=";
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private ContentEncoding() {}
+
+  /**
+   * Returns the decoded content of a request body.
+   * @param contentEncoding the value of the <code>Content-Encoding</code> header; may be <code>null</code>
+   * @param content the encoded content
+   * @return the decoded content
+   * @throws IllegalArgumentException if the content coding is not supported
+   * @throws IOException if the content is not in the announced format
+   */
+  public static InputStream decode(final String contentEncoding, final InputStream content) throws IOException {
+    if (contentEncoding == null) {
+      return content;
+    }
+    final String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+    if (coding.length() == 0 || IDENTITY.equals(coding)) {
+      return content;
+    } else if (GZIP.equals(coding) || X_GZIP.equals(coding)) {
+      return new GZIPInputStream(content);
+    } else if (DEFLATE.equals(coding)) {
+      return new InflaterInputStream(content);
+    } else {
+      throw new IllegalArgumentException(contentEncoding);
+    }
+  }
+
+  /**
+   * Compresses the entity of a response if it is at least as big as the given
+   * threshold. The entity can be an input stream, a String, or a byte array;
+   * input streams are compressed while they are read.
+   * <p>Entities of media types which are compressed already, e.g., images,
+   * and responses with a <code>Content-Encoding</code> header are not changed.</p>
+   * @param response the response
+   * @param contentEncoding {@link #GZIP}, {@link #DEFLATE}, or <code>null</code> for no compression
+   * @param threshold the minimum size of entities to be compressed in bytes
+   * @param level the compression level as used by {@link java.util.zip.Deflater}
+   * @return the response with compressed entity or the original response
+   * @throws IOException if the entity stream could not be read
+   */
+  public static ODataResponse compress(final ODataResponse response, final String contentEncoding, final int threshold, final int level)
+      throws IOException {
+    final Object entity = response.getEntity();
+    if (contentEncoding == null || threshold < 0 || entity == null
+        || response.containsHeader(HttpHeaders.CONTENT_ENCODING)
+        || !isCompressible(response.getContentHeader())) {
+      return response;
+    }
+
+    InputStream content;
+    if (entity instanceof InputStream) {
+      final InputStream stream = (InputStream) entity;
+      // The buffer grows with the content read, so that a large threshold
+      // does not cost a large buffer for small entities.
+      byte[] start = new byte[Math.min(threshold, INITIAL_BUFFER_SIZE)];
+      int length = 0;
+      int count = 0;
+      while (length < threshold) {
+        if (length == start.length) {
+          final byte[] larger = new byte[(int) Math.min(threshold, 2L * start.length)];
+          System.arraycopy(start, 0, larger, 0, length);
+          start = larger;
+        }
+        count = stream.read(start, length, start.length - length);
+        if (count < 0) {
+          break;
+        }
+        length += count;
+      }
+      if (count < 0) {
+        // The complete entity has been read and is smaller than the threshold.
+        stream.close();
+        return ODataResponse.fromResponse(response).entity(new ByteArrayInputStream(start, 0, length)).build();
+      }
+      content = new SequenceInputStream(new ByteArrayInputStream(start, 0, length), stream);
+    } else {
+      final byte[] bytes;
+      if (entity instanceof byte[]) {
+        bytes = (byte[]) entity;
+      } else if (entity instanceof String) {
+        bytes = ((String) entity).getBytes(getCharset(response.getContentHeader()));
+      } else {
+        return response;
+      }
+      if (bytes.length < threshold) {
+        return response;
+      }
+      content = new ByteArrayInputStream(bytes);
+    }
+
+    return ODataResponse.fromResponse(response)
+        .entity(new CompressingInputStream(content, GZIP.equals(contentEncoding), level))
+        .header(HttpHeaders.CONTENT_ENCODING, contentEncoding)
+        .header(HttpHeaders.CONTENT_LENGTH, null)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .build();
+  }
+
+  private static boolean isCompressible(final String contentType) {
+    if (contentType == null) {
+      return true;
+    }
+    final String type = contentType.toLowerCase(Locale.ROOT);
+    return !(type.startsWith("image/") || type.startsWith("audio/") || type.startsWith("video/")
+        || type.contains("zip") || type.contains("compressed"));
+  }
+
+  private static String getCharset(final String contentType) {
+    final int index = contentType == null ? -1 : contentType.toLowerCase(Locale.ROOT).indexOf(CHARSET);
+    if (index < 0) {
+      return ContentType.CHARSET_UTF_8;
+    }
+    final int start = index + CHARSET.length();
+    int end = start;
+    while (end < contentType.length() && contentType.charAt(end) != ';' && contentType.charAt(end) != ' ') {
+      end++;
+    }
+    return contentType.substring(start, end).replace("\"", "");
+  }
+}
@@ -28,6 +28,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Internally used {@link ContentType} for OData library.
@@ -66,6 +68,8 @@ import java.util.TreeMap;
  * </pre>
  * 
  * Once created a {@link ContentType} is <b>IMMUTABLE</b>.
+ * Therefore {@link #create(String)} returns the same instance for the same
+ * input string (as long as not too many different strings have been parsed).
  * 
  * @author SAP AG
  */
@@ -90,6 +94,9 @@ public class ContentType {
   private static final String MEDIA_TYPE_WILDCARD = "*";
   private static final String VERBOSE = "verbose";
 
+  private static final int MAX_CACHED_FORMATS = 1000;
+  private static final ConcurrentMap<String, ContentType> PARSED_FORMATS = new ConcurrentHashMap<String, ContentType>();
+
   public static final String PARAMETER_CHARSET = "charset";
   public static final String PARAMETER_ODATA = "odata";
   public static final String PARAMETER_Q = "q";
@@ -115,10 +122,10 @@ public class ContentType {
   public static final ContentType TEXT_PLAIN_CS_UTF_8 = ContentType.create(TEXT_PLAIN, PARAMETER_CHARSET, CHARSET_UTF_8);
   public static final ContentType MULTIPART_MIXED = new ContentType("multipart", "mixed");
 
-  private String type;
-  private String subtype;
-  private Map<String, String> parameters;
-  private ODataFormat odataFormat;
+  private final String type;
+  private final String subtype;
+  private final Map<String, String> parameters;
+  private final ODataFormat odataFormat;
 
   private ContentType(final String type, final String subtype) {
     this(type, subtype, ODataFormat.CUSTOM, null);
@@ -218,7 +225,7 @@ public class ContentType {
    * <code>HTTP Content-Type HEADER</code> format as defined in <code>RFC 2616 chapter 14.17</code>
    * 
    * @param format a string in format as defined in <code>RFC 2616 section 3.7</code>
-   * @return a new <code>ContentType</code> object
+   * @return a <code>ContentType</code> object, shared between all callers with the same <code>format</code>
    * @throws IllegalArgumentException if input string is not parseable
    */
   public static ContentType create(final String format) {
@@ -226,6 +233,19 @@ public class ContentType {
       throw new IllegalArgumentException("Parameter format MUST NOT be NULL.");
     }
 
+    ContentType contentType = PARSED_FORMATS.get(format);
+    if (contentType == null) {
+      contentType = parseFormat(format);
+      // The formats come from request headers; rather start over than grow without limit.
+      if (PARSED_FORMATS.size() >= MAX_CACHED_FORMATS) {
+        PARSED_FORMATS.clear();
+      }
+      PARSED_FORMATS.putIfAbsent(format, contentType);
+    }
+    return contentType;
+  }
+
+  private static ContentType parseFormat(final String format) {
     // split 'types' and 'parameters'
     String[] typesAndParameters = format.split(PARAMETER_SEPARATOR, 2);
     String types = typesAndParameters[0];
@@ -24,11 +24,26 @@ import java.io.UnsupportedEncodingException;
  */
 public class Decoder {
 
+  /** values of hexadecimal digits, indexed by ASCII character; -1 for other characters */
+  private static final byte[] HEX_VALUES = new byte[Byte.MAX_VALUE + 1];
+  static {
+    for (int i = 0; i < HEX_VALUES.length; i++) {
+      HEX_VALUES[i] = -1;
+    }
+    for (byte i = 0; i < 10; i++) {
+      HEX_VALUES['0' + i] = i;
+    }
+    for (byte i = 0; i < 6; i++) {
+      HEX_VALUES['A' + i] = (byte) (10 + i);
+      HEX_VALUES['a' + i] = (byte) (10 + i);
+    }
+  }
+
   /**
    * Decodes a percent-encoded UTF-8 String value into a Java String
    * (in its internal UTF-16 encoding).
    * @param value the encoded String
-   * @return the Java String
+   * @return the Java String; the input itself if it does not contain percent-encoded characters
    * @throws IllegalArgumentException if value contains characters not representing UTF-8 bytes
    *                                  or ends with an unfinished percent-encoded character
    * @throws NumberFormatException    if the two characters after a percent character
@@ -39,16 +54,34 @@ public class Decoder {
       return value;
     }
 
+    // Values without percent characters are returned as they are.
+    final int length = value.length();
+    int start = 0;
+    while (start < length && value.charAt(start) != '%') {
+      if (value.charAt(start) > Byte.MAX_VALUE) {
+        throw new IllegalArgumentException();
+      }
+      start++;
+    }
+    if (start == length) {
+      return value;
+    }
+
     // Use a tiny finite-state machine to handle decoding on byte level.
     // There are only three states:
     //   -2: normal bytes
     //   -1: a byte representing the percent character has been read
     // >= 0: a byte representing the first half-byte of a percent-encoded byte has been read
     // The variable holding the state is also used to store the value of the first half-byte.
-    byte[] result = new byte[value.length()];
+    byte[] result = new byte[length];
     int position = 0;
+    while (position < start) {
+      result[position] = (byte) value.charAt(position);
+      position++;
+    }
     byte encodedPart = -2;
-    for (final char c : value.toCharArray()) {
+    for (int index = start; index < length; index++) {
+      final char c = value.charAt(index);
       if (c <= Byte.MAX_VALUE) {
         if (c == '%') {
           if (encodedPart == -2) {
@@ -59,9 +92,10 @@ public class Decoder {
         } else if (encodedPart == -1) {
           encodedPart = (byte) c;
         } else if (encodedPart >= 0) {
-          final int i = Integer.parseInt(String.valueOf(new char[] { (char) encodedPart, c }), 16);
-          if (i >= 0) {
-            result[position++] = (byte) i;
+          final int high = HEX_VALUES[encodedPart];
+          final int low = HEX_VALUES[c];
+          if (high >= 0 && low >= 0) {
+            result[position++] = (byte) (high << 4 | low);
           } else {
             throw new NumberFormatException();
           }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.sap.core.odata.api.processor.FileEntity;
+
+/**
+ * Transfer of {@link FileEntity file entities} without copying
+ * the content through buffers on the Java heap where possible.
+ * @author SAP AG
+ */
+public final class FileTransfer {
+
+  private FileTransfer() {}
+
+  /**
+   * Transfers the content of a file entity to an output stream with
+   * {@link FileChannel#transferTo}; the operating system can send the
+   * content directly from the file if the stream is backed by a channel
+   * the platform supports.
+   * <p>The entity's count may already have been sent as content length, so a file
+   * which has become shorter in the meantime is an error, not a short response.</p>
+   * @param entity the file entity
+   * @param out the output stream; it is flushed but not closed
+   * @return the number of transferred bytes, i.e., the entity's count
+   * @throws EOFException if the file ends before the entity's count has been transferred
+   * @throws IOException if the file could not be read or the stream not be written
+   */
+  public static long transferTo(final FileEntity entity, final OutputStream out) throws IOException {
+    final FileInputStream in = new FileInputStream(entity.getFile());
+    try {
+      final FileChannel channel = in.getChannel();
+      final WritableByteChannel target = out instanceof FileOutputStream ?
+          ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+      long position = entity.getPosition();
+      long remaining = entity.getCount();
+      while (remaining > 0 && position < channel.size()) {
+        final long transferred = channel.transferTo(position, remaining, target);
+        position += transferred;
+        remaining -= transferred;
+      }
+      out.flush();
+      if (remaining > 0) {
+        throw new EOFException("File " + entity.getFile() + " ended " + remaining + " bytes before the end of " + entity);
+      }
+      return entity.getCount();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Opens a stream on the content of a file entity, for consumers which
+   * need the content as stream, e.g., the writer of batch responses.
+   * @param entity the file entity
+   * @return the stream; the caller must close it
+   * @throws IOException if the file could not be opened
+   */
+  public static InputStream openStream(final FileEntity entity) throws IOException {
+    return new RangeInputStream(new FileInputStream(entity.getFile()), entity.getPosition(), entity.getCount());
+  }
+}
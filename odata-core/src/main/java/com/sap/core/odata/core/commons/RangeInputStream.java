@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream which skips to the start of a range on the first read
+ * and ends at the end of the range.
+ * @author SAP AG
+ */
+class RangeInputStream extends FilterInputStream {
+  private long toSkip;
+  private long remaining;
+
+  RangeInputStream(final InputStream in, final long first, final long count) {
+    super(in);
+    toSkip = first;
+    remaining = count;
+  }
+
+  private void skipToRange() throws IOException {
+    while (toSkip > 0) {
+      final long skipped = in.skip(toSkip);
+      if (skipped > 0) {
+        toSkip -= skipped;
+      } else if (in.read() < 0) {
+        toSkip = 0;
+        remaining = 0;
+      } else {
+        toSkip--;
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    skipToRange();
+    if (remaining <= 0) {
+      return -1;
+    }
+    final int b = in.read();
+    if (b >= 0) {
+      remaining--;
+    }
+    return b;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    skipToRange();
+    if (remaining <= 0) {
+      return -1;
+    }
+    final int count = in.read(b, off, (int) Math.min(len, remaining));
+    if (count > 0) {
+      remaining -= count;
+    }
+    return count;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    skipToRange();
+    final long skipped = in.skip(Math.min(n, remaining));
+    remaining -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return toSkip > 0 ? 0 : (int) Math.min(in.available(), remaining);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+}
@@ -22,7 +22,9 @@ import org.apache.commons.codec.binary.Base64;
 
 import com.sap.core.odata.api.commons.HttpContentType;
 import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.processor.FileEntity;
 import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.core.commons.FileTransfer;
 import com.sap.core.odata.core.ep.BasicEntityProvider;
 import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 
@@ -46,8 +48,8 @@ public class DebugInfoBody implements DebugInfo {
   public void appendJson(final JsonStreamWriter jsonStreamWriter) throws IOException {
     final String contentType = response.getContentHeader();
     if (contentType.startsWith("image/")) {
-      if (response.getEntity() instanceof InputStream) {
-        jsonStreamWriter.stringValueRaw(Base64.encodeBase64String(getBinaryFromInputStream((InputStream) response.getEntity())));
+      if (response.getEntity() instanceof InputStream || response.getEntity() instanceof FileEntity) {
+        jsonStreamWriter.stringValueRaw(Base64.encodeBase64String(getBinaryFromInputStream(getEntityStream())));
       } else if (response.getEntity() instanceof String) {
         jsonStreamWriter.stringValueRaw(getContentString());
       } else {
@@ -60,18 +62,23 @@ public class DebugInfoBody implements DebugInfo {
     }
   }
 
-  private String getContentString() {
+  private String getContentString() throws IOException {
     String content;
     if (response.getEntity() instanceof String) {
       content = (String) response.getEntity();
-    } else if (response.getEntity() instanceof InputStream) {
-      content = getStringFromInputStream((InputStream) response.getEntity());
+    } else if (response.getEntity() instanceof InputStream || response.getEntity() instanceof FileEntity) {
+      content = getStringFromInputStream(getEntityStream());
     } else {
       throw new ClassCastException("Unsupported content entity class: " + response.getEntity().getClass().getName());
     }
     return content;
   }
 
+  private InputStream getEntityStream() throws IOException {
+    return response.getEntity() instanceof FileEntity ?
+        FileTransfer.openStream((FileEntity) response.getEntity()) : (InputStream) response.getEntity();
+  }
+
   private static byte[] getBinaryFromInputStream(final InputStream inputStream) {
     try {
       return new BasicEntityProvider().readBinary(inputStream);
@@ -28,10 +28,22 @@ public class DebugInfoResponse implements DebugInfo {
 
   private final HttpStatusCodes status;
   private final Map<String, String> headers;
+  private final String contentEncoding;
 
   public DebugInfoResponse(final HttpStatusCodes status, final Map<String, String> headers) {
+    this(status, headers, null);
+  }
+
+  /**
+   * @param status the status of the response
+   * @param headers the headers of the response
+   * @param contentEncoding the negotiated content coding the response is
+   *                        compressed with, or <code>null</code>
+   */
+  public DebugInfoResponse(final HttpStatusCodes status, final Map<String, String> headers, final String contentEncoding) {
     this.status = status;
     this.headers = headers;
+    this.contentEncoding = contentEncoding;
   }
 
   @Override
@@ -69,6 +81,13 @@ public class DebugInfoResponse implements DebugInfo {
       jsonStreamWriter.endObject();
     }
 
+    if (contentEncoding != null) {
+      if (status != null || !headers.isEmpty()) {
+        jsonStreamWriter.separator();
+      }
+      jsonStreamWriter.namedStringValueRaw("contentEncoding", contentEncoding);
+    }
+
     jsonStreamWriter.endObject();
   }
 }
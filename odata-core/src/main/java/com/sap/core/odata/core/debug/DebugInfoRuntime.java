@@ -17,9 +17,14 @@ package com.sap.core.odata.core.debug;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.sap.core.odata.api.processor.ODataContext.ResourceMeasurement;
 import com.sap.core.odata.api.processor.ODataContext.RuntimeMeasurement;
 import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 
@@ -28,20 +33,24 @@ import com.sap.core.odata.core.ep.util.JsonStreamWriter;
  */
 public class DebugInfoRuntime implements DebugInfo {
 
+  /** Maximum number of phases in the {@link #getAllocationSummary() allocation summary}. */
+  static final int ALLOCATION_SUMMARY_SIZE = 10;
+
   private class RuntimeNode {
     protected String className;
     protected String methodName;
     protected long timeStarted;
     protected long timeStopped;
     protected List<RuntimeNode> children = new ArrayList<RuntimeNode>();
-    public long memoryStarted;
-    public long memoryStopped;
+    protected int count;
+    protected long allocatedBytesStarted;
+    protected long allocatedBytesStopped;
+    protected long cpuTimeStarted;
+    protected long cpuTimeStopped;
 
     protected RuntimeNode() {
       timeStarted = 0;
       timeStopped = Long.MAX_VALUE;
-      memoryStarted = 0;
-      memoryStopped = 0;
     }
 
     private RuntimeNode(final RuntimeMeasurement runtimeMeasurement) {
@@ -49,8 +58,14 @@ public class DebugInfoRuntime implements DebugInfo {
       methodName = runtimeMeasurement.getMethodName();
       timeStarted = runtimeMeasurement.getTimeStarted();
       timeStopped = runtimeMeasurement.getTimeStopped();
-      memoryStarted = runtimeMeasurement.getMemoryStarted();
-      memoryStopped = runtimeMeasurement.getMemoryStopped();
+      count = 1;
+      if (runtimeMeasurement instanceof ResourceMeasurement) {
+        final ResourceMeasurement resourceMeasurement = (ResourceMeasurement) runtimeMeasurement;
+        allocatedBytesStarted = resourceMeasurement.getAllocatedBytesStarted();
+        allocatedBytesStopped = resourceMeasurement.getAllocatedBytesStopped();
+        cpuTimeStarted = resourceMeasurement.getCpuTimeStarted();
+        cpuTimeStopped = resourceMeasurement.getCpuTimeStopped();
+      }
     }
 
     protected boolean add(final RuntimeMeasurement runtimeMeasurement) {
@@ -86,8 +101,11 @@ public class DebugInfoRuntime implements DebugInfo {
           preceding.timeStarted = child.timeStarted - (preceding.timeStopped - preceding.timeStarted);
           preceding.timeStopped = child.timeStopped;
 
-          preceding.memoryStarted = child.memoryStarted - (preceding.memoryStopped - preceding.memoryStarted);
-          preceding.memoryStopped = child.memoryStopped;
+          preceding.allocatedBytesStarted = child.allocatedBytesStarted - preceding.getAllocatedBytes();
+          preceding.allocatedBytesStopped = child.allocatedBytesStopped;
+          preceding.cpuTimeStarted = child.cpuTimeStarted - preceding.getCpuTime();
+          preceding.cpuTimeStopped = child.cpuTimeStopped;
+          preceding.count += child.count;
 
           iterator.remove();
         } else {
@@ -96,6 +114,28 @@ public class DebugInfoRuntime implements DebugInfo {
         }
       }
     }
+
+    protected long getAllocatedBytes() {
+      return allocatedBytesStopped == 0 ? 0 : allocatedBytesStopped - allocatedBytesStarted;
+    }
+
+    protected long getCpuTime() {
+      return cpuTimeStopped == 0 ? 0 : cpuTimeStopped - cpuTimeStarted;
+    }
+  }
+
+  /** Resources used by one phase, i.e., class and method, excluding its measured sub-phases. */
+  private static class Phase {
+    private final String className;
+    private final String methodName;
+    private int count;
+    private long allocatedBytes;
+    private long cpuTime;
+
+    private Phase(final String className, final String methodName) {
+      this.className = className;
+      this.methodName = methodName;
+    }
   }
 
   private final RuntimeNode rootNode;
@@ -126,9 +166,11 @@ public class DebugInfoRuntime implements DebugInfo {
         .unquotedValue(node.timeStopped == 0 ? null :
             Long.toString((node.timeStopped - node.timeStarted) / 1000))
         .separator()
-        .name("memory")
-        .unquotedValue(node.memoryStopped == 0 ? null :
-            Long.toString((node.memoryStopped - node.memoryStarted) / 1000))
+        .name("cpuTime")
+        .unquotedValue(node.cpuTimeStopped == 0 ? null : Long.toString(node.getCpuTime() / 1000))
+        .separator()
+        .name("allocated")
+        .unquotedValue(node.allocatedBytesStopped == 0 ? null : Long.toString(node.getAllocatedBytes()))
         .separator()
         .name("children");
     appendJsonChildren(jsonStreamWriter, node);
@@ -147,4 +189,80 @@ public class DebugInfoRuntime implements DebugInfo {
     }
     jsonStreamWriter.endArray();
   }
+
+  /**
+   * Returns a summary of the phases, i.e., combinations of class and method,
+   * which allocated the most memory, without the allocations of their measured
+   * sub-phases, together with their CPU time.
+   * @return the summary or <code>null</code> if no allocations have been measured
+   */
+  public DebugInfo getAllocationSummary() {
+    Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+    collectPhases(rootNode, phases);
+    List<Phase> allocatingPhases = new ArrayList<Phase>();
+    for (final Phase phase : phases.values()) {
+      if (phase.allocatedBytes > 0) {
+        allocatingPhases.add(phase);
+      }
+    }
+    if (allocatingPhases.isEmpty()) {
+      return null;
+    }
+    Collections.sort(allocatingPhases, new Comparator<Phase>() {
+      @Override
+      public int compare(final Phase phase1, final Phase phase2) {
+        return phase1.allocatedBytes < phase2.allocatedBytes ? 1 : phase1.allocatedBytes > phase2.allocatedBytes ? -1 : 0;
+      }
+    });
+    final List<Phase> topPhases = allocatingPhases.size() > ALLOCATION_SUMMARY_SIZE ?
+        allocatingPhases.subList(0, ALLOCATION_SUMMARY_SIZE) : allocatingPhases;
+
+    return new DebugInfo() {
+      @Override
+      public String getName() {
+        return "Allocations";
+      }
+
+      @Override
+      public void appendJson(final JsonStreamWriter jsonStreamWriter) throws IOException {
+        jsonStreamWriter.beginArray();
+        boolean first = true;
+        for (final Phase phase : topPhases) {
+          if (!first) {
+            jsonStreamWriter.separator();
+          }
+          first = false;
+          jsonStreamWriter.beginObject()
+              .namedStringValueRaw("class", phase.className).separator()
+              .namedStringValueRaw("method", phase.methodName).separator()
+              .name("count").unquotedValue(Integer.toString(phase.count)).separator()
+              .name("allocated").unquotedValue(Long.toString(phase.allocatedBytes)).separator()
+              .name("cpuTime").unquotedValue(Long.toString(phase.cpuTime / 1000))
+              .endObject();
+        }
+        jsonStreamWriter.endArray();
+      }
+    };
+  }
+
+  private static void collectPhases(final RuntimeNode node, final Map<String, Phase> phases) {
+    for (final RuntimeNode child : node.children) {
+      long allocatedBytes = child.getAllocatedBytes();
+      long cpuTime = child.getCpuTime();
+      for (final RuntimeNode grandChild : child.children) {
+        allocatedBytes -= grandChild.getAllocatedBytes();
+        cpuTime -= grandChild.getCpuTime();
+      }
+      final String key = child.className + '.' + child.methodName;
+      Phase phase = phases.get(key);
+      if (phase == null) {
+        phase = new Phase(child.className, child.methodName);
+        phases.put(key, phase);
+      }
+      phase.count += child.count;
+      phase.allocatedBytes += Math.max(allocatedBytes, 0);
+      phase.cpuTime += Math.max(cpuTime, 0);
+      collectPhases(child, phases);
+    }
+  }
 }
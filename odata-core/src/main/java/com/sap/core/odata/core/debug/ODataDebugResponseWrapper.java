@@ -51,13 +51,24 @@ public class ODataDebugResponseWrapper {
   private final UriInfo uriInfo;
   private final Exception exception;
   private final boolean isJson;
+  private final String contentEncoding;
 
   public ODataDebugResponseWrapper(final ODataContext context, final ODataResponse response, final UriInfo uriInfo, final Exception exception, final String debugValue) {
+    this(context, response, uriInfo, exception, debugValue, null);
+  }
+
+  /**
+   * @param contentEncoding the negotiated content coding the response is compressed with,
+   *                        or <code>null</code> if it is not compressed
+   */
+  public ODataDebugResponseWrapper(final ODataContext context, final ODataResponse response, final UriInfo uriInfo, final Exception exception, final String debugValue,
+      final String contentEncoding) {
     this.context = context;
     this.response = response;
     this.uriInfo = uriInfo;
     this.exception = exception;
     isJson = ODATA_DEBUG_JSON.equals(debugValue);
+    this.contentEncoding = contentEncoding;
   }
 
   public ODataResponse wrapResponse() {
@@ -91,7 +102,7 @@ public class ODataDebugResponseWrapper {
     for (final String name : response.getHeaderNames()) {
       responseHeaders.put(name, response.getHeader(name));
     }
-    parts.add(new DebugInfoResponse(response.getStatus(), responseHeaders));
+    parts.add(new DebugInfoResponse(response.getStatus(), responseHeaders, contentEncoding));
 
     // URI
     if (uriInfo != null
@@ -102,7 +113,12 @@ public class ODataDebugResponseWrapper {
 
     // runtime measurements
     if (context.getRuntimeMeasurements() != null) {
-      parts.add(new DebugInfoRuntime(context.getRuntimeMeasurements()));
+      final DebugInfoRuntime runtime = new DebugInfoRuntime(context.getRuntimeMeasurements());
+      parts.add(runtime);
+      final DebugInfo allocations = runtime.getAllocationSummary();
+      if (allocations != null) {
+        parts.add(allocations);
+      }
     }
 
     // exceptions
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.debug;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Reads the CPU time and the number of allocated bytes of the current thread.
+ * <p>The allocation counter is an extension of the HotSpot JVM
+ * (<code>com.sun.management.ThreadMXBean</code>); it is accessed via reflection
+ * so that the library still runs on other JVMs, where 0 is returned.</p>
+ * @author SAP AG
+ */
+public final class ThreadResourceMeter {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+  private static final Method ALLOCATED_BYTES_METHOD = getAllocatedBytesMethod();
+
+  private ThreadResourceMeter() {}
+
+  private static Method getAllocatedBytesMethod() {
+    try {
+      final Class<?> extendedInterface = Class.forName("com.sun.management.ThreadMXBean");
+      if (extendedInterface.isInstance(THREAD_MX_BEAN)
+          && (Boolean) extendedInterface.getMethod("isThreadAllocatedMemorySupported").invoke(THREAD_MX_BEAN)) {
+        return extendedInterface.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    } catch (final Exception e) {
+      // The JVM does not count allocations per thread.
+    }
+    return null;
+  }
+
+  /**
+   * @return whether {@link #getAllocatedBytes()} returns meaningful values
+   */
+  public static boolean isAllocatedBytesSupported() {
+    return ALLOCATED_BYTES_METHOD != null;
+  }
+
+  /**
+   * Returns the CPU time of the current thread.
+   * @return the CPU time in nanoseconds or 0 if not supported or disabled
+   */
+  public static long getCpuTime() {
+    if (CPU_TIME_SUPPORTED) {
+      final long cpuTime = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+      return cpuTime < 0 ? 0 : cpuTime;
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far.
+   * @return the number of bytes or 0 if not supported or disabled
+   */
+  public static long getAllocatedBytes() {
+    if (ALLOCATED_BYTES_METHOD != null) {
+      try {
+        final long allocatedBytes = (Long) ALLOCATED_BYTES_METHOD.invoke(THREAD_MX_BEAN, Thread.currentThread().getId());
+        return allocatedBytes < 0 ? 0 : allocatedBytes;
+      } catch (final Exception e) {
+        return 0;
+      }
+    }
+    return 0;
+  }
+}
@@ -18,8 +18,6 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -31,10 +29,22 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmDateTime extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(\\p{Digit}{1,4})-(\\p{Digit}{1,2})-(\\p{Digit}{1,2})"
-          + "T(\\p{Digit}{1,2}):(\\p{Digit}{1,2})(?::(\\p{Digit}{1,2})(\\.(\\p{Digit}{0,3}?)0*)?)?");
-  private static final Pattern JSON_PATTERN = Pattern.compile("/Date\\((-?\\p{Digit}+)\\)/");
+  private static final String JSON_PREFIX = "/Date(";
+  private static final String JSON_SUFFIX = ")/";
+
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+  static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+  /**
+   * Start of the Gregorian calendar in {@link java.util.GregorianCalendar},
+   * 1582-10-15T00:00:00Z; earlier dates are handled in the Julian calendar.
+   */
+  private static final long GREGORIAN_CUTOVER = -12219292800000L;
+  /** 10000-01-01T00:00:00Z, the first instant with a five-digit year */
+  private static final long YEAR_10000 = 253402300800000L;
+  /** the first year handled completely in the Gregorian calendar */
+  private static final int FIRST_GREGORIAN_YEAR = 1583;
+
   private static final EdmDateTime instance = new EdmDateTime();
 
   public static EdmDateTime getInstance() {
@@ -49,100 +59,216 @@ public class EdmDateTime extends AbstractSimpleType {
   @Override
   protected <T> T internalValueOfString(final String value, final EdmLiteralKind literalKind, final EdmFacets facets, final Class<T> returnType) throws EdmSimpleTypeException {
     // In JSON, we allow also the XML literal form, so there is on purpose
-    // no exception if the JSON pattern does not match.
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        long millis;
-        try {
-          millis = Long.parseLong(matcher.group(1));
-        } catch (final NumberFormatException e) {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
-        }
-        if (returnType.isAssignableFrom(Long.class)) {
-          return returnType.cast(millis);
-        } else if (returnType.isAssignableFrom(Date.class)) {
-          return returnType.cast(new Date(millis));
-        } else if (returnType.isAssignableFrom(Calendar.class)) {
-          Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-          dateTimeValue.clear();
-          dateTimeValue.setTimeInMillis(millis);
-          return returnType.cast(dateTimeValue);
-        } else {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
-        }
+    // no exception if the JSON form does not match.
+    if (literalKind == EdmLiteralKind.JSON && isJsonLiteral(value)
+        && isSignedNumber(value, JSON_PREFIX.length(), value.length() - JSON_SUFFIX.length())) {
+      long millis;
+      try {
+        millis = Long.parseLong(value.substring(JSON_PREFIX.length(), value.length() - JSON_SUFFIX.length()));
+      } catch (final NumberFormatException e) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
+      }
+      if (returnType.isAssignableFrom(Long.class)) {
+        return returnType.cast(millis);
+      } else if (returnType.isAssignableFrom(Date.class)) {
+        return returnType.cast(new Date(millis));
+      } else if (returnType.isAssignableFrom(Calendar.class)) {
+        return returnType.cast(createCalendar(millis, null));
+      } else {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
       }
     }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.clear();
-
+    long millis;
     if (literalKind == EdmLiteralKind.URI) {
       if (value.length() > 10 && value.startsWith("datetime'") && value.endsWith("'")) {
-        parseLiteral(value.substring(9, value.length() - 1), facets, dateTimeValue);
+        millis = parseLiteral(value, 9, value.length() - 1, facets);
       } else {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
     } else {
-      parseLiteral(value, facets, dateTimeValue);
+      millis = parseLiteral(value, 0, value.length(), facets);
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
-      return returnType.cast(dateTimeValue);
+      return returnType.cast(createCalendar(millis, null));
     } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(dateTimeValue.getTimeInMillis());
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(dateTimeValue.getTime());
+      return returnType.cast(new Date(millis));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
   /**
-   * Parses a formatted date/time value and sets the values of a
-   * {@link Calendar} object accordingly. 
-   * @param value         the formatted date/time value as String
-   * @param facets        additional constraints for parsing (optional)
-   * @param dateTimeValue the Calendar object to be set to the parsed value
-   * @throws EdmSimpleTypeException
+   * Creates a {@link Calendar} for the given point in time.
+   * @param millis milliseconds since 1970-01-01T00:00:00Z
+   * @param timeZone a time zone which is not shared with other calendars,
+   *                 or <code>null</code> for GMT
+   * @return a new calendar
    */
-  protected static void parseLiteral(final String value, final EdmFacets facets, final Calendar dateTimeValue) throws EdmSimpleTypeException {
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
-      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-    }
-
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
-
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 8) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+  static Calendar createCalendar(final long millis, final TimeZone timeZone) {
+    Calendar calendar = Calendar.getInstance(timeZone == null ? (TimeZone) GMT.clone() : timeZone);
+    calendar.clear();
+    calendar.setTimeInMillis(millis);
+    return calendar;
+  }
+
+  static boolean isJsonLiteral(final String value) {
+    return value.length() > JSON_PREFIX.length() + JSON_SUFFIX.length()
+        && value.startsWith(JSON_PREFIX) && value.endsWith(JSON_SUFFIX);
+  }
+
+  /**
+   * Checks whether the given part of a String consists of an optional minus
+   * sign and at least one digit.
+   */
+  static boolean isSignedNumber(final String value, final int start, final int end) {
+    final int digitsStart = start < end && value.charAt(start) == '-' ? start + 1 : start;
+    return digitsStart < end && digitsEnd(value, digitsStart, end, Integer.MAX_VALUE) == end;
+  }
+
+  /**
+   * Returns the end index of the run of at most <code>maxDigits</code> decimal digits
+   * starting at the given index.
+   */
+  static int digitsEnd(final String value, final int start, final int end, final int maxDigits) {
+    int index = start;
+    while (index < end && index - start < maxDigits) {
+      final char c = value.charAt(index);
+      if (c < '0' || c > '9') {
+        break;
       }
-      final String decimals = matcher.group(8);
-      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals.length()) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the value of the decimal digits between the given indexes,
+   * which must not be more than nine.
+   */
+  static int parseDigits(final String value, final int start, final int end) {
+    int result = 0;
+    for (int index = start; index < end; index++) {
+      result = result * 10 + value.charAt(index) - '0';
+    }
+    return result;
+  }
+
+  /**
+   * Parses a formatted date/time value.
+   * @param value  a String containing the formatted date/time value
+   * @param start  the start index of the value
+   * @param end    the end index (exclusive) of the value
+   * @param facets additional constraints for parsing (optional)
+   * @return the number of milliseconds since 1970-01-01T00:00:00 in the
+   *         (unknown) time zone of the value
+   * @throws EdmSimpleTypeException if the value is not valid
+   */
+  protected static long parseLiteral(final String value, final int start, final int end, final EdmFacets facets) throws EdmSimpleTypeException {
+    final int[] limits = { 4, 2, 2, 2, 2 };
+    final char[] separators = { '-', '-', 'T', ':', 0 };
+    int[] fields = new int[6];
+    int index = start;
+    for (int field = 0; field < limits.length; field++) {
+      final int fieldEnd = digitsEnd(value, index, end, limits[field]);
+      if (fieldEnd == index
+          || separators[field] != 0 && (fieldEnd == end || value.charAt(fieldEnd) != separators[field])) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
       }
-      final String milliSeconds = decimals + "000".substring(decimals.length());
-      dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
+      fields[field] = parseDigits(value, index, fieldEnd);
+      index = separators[field] == 0 ? fieldEnd : fieldEnd + 1;
     }
 
+    int milliseconds = 0;
+    if (index < end) {
+      final int secondsEnd = value.charAt(index) == ':' ? digitsEnd(value, index + 1, end, 2) : index;
+      if (secondsEnd == index || secondsEnd == index + 1
+          || secondsEnd < end && value.charAt(secondsEnd) != '.') {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+      }
+      fields[5] = parseDigits(value, index + 1, secondsEnd);
+
+      if (secondsEnd < end) {
+        final int decimalsStart = secondsEnd + 1;
+        if (digitsEnd(value, decimalsStart, end, Integer.MAX_VALUE) != end
+            || end == decimalsStart || end - decimalsStart > 7) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+        }
+        int decimalsEnd = end;
+        while (decimalsEnd > decimalsStart && value.charAt(decimalsEnd - 1) == '0') {
+          decimalsEnd--;
+        }
+        final int decimals = decimalsEnd - decimalsStart;
+        if (decimals > 3) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+        }
+        if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value.substring(start, end), facets));
+        }
+        milliseconds = parseDigits(value, decimalsStart, decimalsEnd) * (decimals == 1 ? 100 : decimals == 2 ? 10 : 1);
+      }
+    }
+
+    final int year = fields[0];
+    final int month = fields[1];
+    final int day = fields[2];
+    if (year < FIRST_GREGORIAN_YEAR) {
+      return parseJulianLiteral(value.substring(start, end), fields, milliseconds);
+    }
+    if (month < 1 || month > 12 || day < 1 || day > getDaysOfMonth(year, month)
+        || fields[3] > 23 || fields[4] > 59 || fields[5] > 59) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+    }
+
+    return getDays(year, month, day) * MILLIS_PER_DAY
+        + ((fields[3] * 60L + fields[4]) * 60 + fields[5]) * 1000 + milliseconds;
+  }
+
+  /**
+   * Computes the point in time of a date before the start of the Gregorian calendar
+   * with the help of {@link Calendar}, which handles the Julian calendar.
+   */
+  private static long parseJulianLiteral(final String value, final int[] fields, final int milliseconds) throws EdmSimpleTypeException {
+    Calendar dateTimeValue = Calendar.getInstance((TimeZone) GMT.clone());
+    dateTimeValue.clear();
+    dateTimeValue.set(fields[0], fields[1] - 1, fields[2], fields[3], fields[4], fields[5]); // month is zero-based
+    dateTimeValue.set(Calendar.MILLISECOND, milliseconds);
     // The Calendar class does not check any values until a get method is called,
     // so we do just that to validate the fields set above, not because we want
     // to return something else.  For strict checks, the lenient mode is switched
-    // off temporarily.
+    // off.
     dateTimeValue.setLenient(false);
     try {
       dateTimeValue.get(Calendar.MILLISECOND);
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
     }
-    dateTimeValue.setLenient(true);
+    return dateTimeValue.getTimeInMillis();
+  }
+
+  private static boolean isLeapYear(final int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int getDaysOfMonth(final int year, final int month) {
+    return month == 2 ? isLeapYear(year) ? 29 : 28 : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Returns the number of days since 1970-01-01 of the given date
+   * in the proleptic Gregorian calendar.
+   */
+  private static long getDays(final int year, final int month, final int day) {
+    // Count years from March 1st so that the leap day is the last day of a year.
+    final int y = month <= 2 ? year - 1 : year;
+    final int era = (y >= 0 ? y : y - 399) / 400;
+    final int yearOfEra = y - era * 400;
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
   }
 
   @Override
@@ -159,29 +285,15 @@ public class EdmDateTime extends AbstractSimpleType {
     }
 
     if (literalKind == EdmLiteralKind.JSON) {
-      return "/Date(" + timeInMillis + ")/";
+      return JSON_PREFIX + timeInMillis + JSON_SUFFIX;
     }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.setTimeInMillis(timeInMillis);
-
     StringBuilder result = new StringBuilder(23); // 23 characters are enough for millisecond precision.
-    final int year = dateTimeValue.get(Calendar.YEAR);
-    appendTwoDigits(result, year / 100);
-    appendTwoDigits(result, year % 100);
-    result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MONTH) + 1); // month is zero-based
-    result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.DAY_OF_MONTH));
-    result.append('T');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.HOUR_OF_DAY));
-    result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MINUTE));
-    result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.SECOND));
+    appendDateTime(result, timeInMillis);
 
     try {
-      appendMilliseconds(result, timeInMillis, facets);
+      // The remainder of a negative number is negative, so it is corrected for dates before 1970.
+      appendMilliseconds(result, (timeInMillis % 1000 + 1000) % 1000, facets);
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED.addContent(value, facets), e);
     }
@@ -189,17 +301,68 @@ public class EdmDateTime extends AbstractSimpleType {
     return result.toString();
   }
 
+  /**
+   * Appends date and time, up to the seconds, of the given point in time in GMT.
+   * @param result    a {@link StringBuilder}
+   * @param timeInMillis milliseconds since 1970-01-01T00:00:00Z
+   */
+  private static void appendDateTime(final StringBuilder result, final long timeInMillis) {
+    int year;
+    int month;
+    int day;
+    int hour;
+    int minute;
+    int second;
+    if (timeInMillis >= GREGORIAN_CUTOVER && timeInMillis < YEAR_10000) {
+      final long days = timeInMillis >= 0 ? timeInMillis / MILLIS_PER_DAY : (timeInMillis + 1) / MILLIS_PER_DAY - 1;
+      final int millisOfDay = (int) (timeInMillis - days * MILLIS_PER_DAY);
+      // Count years from March 1st so that the leap day is the last day of a year.
+      final long shiftedDays = days + 719468;
+      final long era = (shiftedDays >= 0 ? shiftedDays : shiftedDays - 146096) / 146097;
+      final int dayOfEra = (int) (shiftedDays - era * 146097);
+      final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+      day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+      month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+      year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+      hour = millisOfDay / (60 * 60 * 1000);
+      minute = millisOfDay / (60 * 1000) % 60;
+      second = millisOfDay / 1000 % 60;
+    } else {
+      Calendar dateTimeValue = createCalendar(timeInMillis, null);
+      year = dateTimeValue.get(Calendar.YEAR);
+      month = dateTimeValue.get(Calendar.MONTH) + 1; // month is zero-based
+      day = dateTimeValue.get(Calendar.DAY_OF_MONTH);
+      hour = dateTimeValue.get(Calendar.HOUR_OF_DAY);
+      minute = dateTimeValue.get(Calendar.MINUTE);
+      second = dateTimeValue.get(Calendar.SECOND);
+    }
+
+    appendTwoDigits(result, year / 100);
+    appendTwoDigits(result, year % 100);
+    result.append('-');
+    appendTwoDigits(result, month);
+    result.append('-');
+    appendTwoDigits(result, day);
+    result.append('T');
+    appendTwoDigits(result, hour);
+    result.append(':');
+    appendTwoDigits(result, minute);
+    result.append(':');
+    appendTwoDigits(result, second);
+  }
+
   /**
    * Appends the given number to the given string builder,
    * assuming that the number has at most two digits, performance-optimized.
    * @param result a {@link StringBuilder}
    * @param number an integer that must satisfy <code>0 <= number <= 99</code>
    */
-  private static void appendTwoDigits(final StringBuilder result, final int number) {
+  static void appendTwoDigits(final StringBuilder result, final int number) {
     result.append((char) ('0' + number / 10));
     result.append((char) ('0' + number % 10));
   }
-
   protected static void appendMilliseconds(final StringBuilder result, final long milliseconds, final EdmFacets facets) throws IllegalArgumentException {
     final int digits = milliseconds % 1000 == 0 ? 0 : milliseconds % 100 == 0 ? 1 : milliseconds % 10 == 0 ? 2 : 3;
     if (digits > 0) {
@@ -18,8 +18,8 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -34,12 +34,13 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmDateTimeOffset extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "\\p{Digit}{1,4}-\\p{Digit}{1,2}-\\p{Digit}{1,2}"
-          + "T\\p{Digit}{1,2}:\\p{Digit}{1,2}(?::\\p{Digit}{1,2}(?:\\.\\p{Digit}{1,7})?)?"
-          + "(Z|([-+]\\p{Digit}{1,2}:\\p{Digit}{2}))?");
-  private static final Pattern JSON_PATTERN = Pattern.compile(
-      "/Date\\((-?\\p{Digit}+)(?:(\\+|-)(\\p{Digit}{1,4}))?\\)/");
+  private static final String JSON_PREFIX = "/Date(";
+  private static final String JSON_SUFFIX = ")/";
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  /** time zones with fixed offsets, indexed by offset in minutes, to be cloned before use */
+  private static final ConcurrentMap<Integer, TimeZone> TIME_ZONES = new ConcurrentHashMap<Integer, TimeZone>();
+
   private static final EdmDateTimeOffset instance = new EdmDateTimeOffset();
 
   public static EdmDateTimeOffset getInstance() {
@@ -61,78 +62,135 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       }
     }
 
-    Calendar dateTimeValue = null;
-
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        long millis;
+    long millis = 0;
+    int offsetInMinutes = 0;
+    boolean parsed = false;
+
+    if (literalKind == EdmLiteralKind.JSON && EdmDateTime.isJsonLiteral(value)) {
+      final int end = value.length() - JSON_SUFFIX.length();
+      // The time-zone offset consists of a sign and one to four digits at the end.
+      int offsetStart = EdmDateTime.digitsEnd(value, JSON_PREFIX.length() + 1, end, Integer.MAX_VALUE);
+      final boolean hasOffset = offsetStart < end
+          && (value.charAt(offsetStart) == '+' || value.charAt(offsetStart) == '-')
+          && end - offsetStart >= 2 && end - offsetStart <= 5
+          && EdmDateTime.digitsEnd(value, offsetStart + 1, end, 4) == end;
+      if (!hasOffset) {
+        offsetStart = end;
+      }
+      if (EdmDateTime.isSignedNumber(value, JSON_PREFIX.length(), offsetStart)) {
         try {
-          millis = Long.parseLong(matcher.group(1));
+          millis = Long.parseLong(value.substring(JSON_PREFIX.length(), offsetStart));
         } catch (final NumberFormatException e) {
           throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
         }
-        String timeZone = "GMT";
-        if (matcher.group(2) != null) {
-          final int offsetInMinutes = Integer.parseInt(matcher.group(3));
-          if (offsetInMinutes >= 24 * 60) {
+        if (hasOffset) {
+          offsetInMinutes = EdmDateTime.parseDigits(value, offsetStart + 1, end);
+          if (offsetInMinutes >= MINUTES_PER_DAY) {
             throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
           }
-          if (offsetInMinutes != 0) {
-            timeZone += matcher.group(2) + String.valueOf(offsetInMinutes / 60)
-                + ":" + String.format("%02d", offsetInMinutes % 60);
-            // Convert the local-time milliseconds to UTC.
-            millis -= (matcher.group(2).equals("+") ? 1 : -1) * offsetInMinutes * 60 * 1000;
+          if (value.charAt(offsetStart) == '-') {
+            offsetInMinutes = -offsetInMinutes;
           }
+          // Convert the local-time milliseconds to UTC.
+          millis -= offsetInMinutes * 60 * 1000;
         }
-        dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone(timeZone));
-        dateTimeValue.clear();
-        dateTimeValue.setTimeInMillis(millis);
+        parsed = true;
       }
     }
 
-    if (dateTimeValue == null) {
-      final Matcher matcher = PATTERN.matcher(value);
-      if (!matcher.matches()) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-      }
-
-      final String timeZoneOffset = matcher.group(1) != null && matcher.group(2) != null && !matcher.group(2).matches("[-+]0+:0+") ? matcher.group(2) : null;
-      dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-      if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && timeZoneOffset != null) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+    if (!parsed) {
+      int end = value.length();
+      final int timeStart = value.indexOf('T');
+      if (end > 0 && value.charAt(end - 1) == 'Z') {
+        end--;
+      } else if (timeStart >= 0) {
+        int signIndex = timeStart;
+        while (signIndex < end && value.charAt(signIndex) != '+' && value.charAt(signIndex) != '-') {
+          signIndex++;
+        }
+        if (signIndex < end) {
+          offsetInMinutes = parseOffset(value, signIndex);
+          end = signIndex;
+        }
       }
-      dateTimeValue.clear();
-      EdmDateTime.parseLiteral(value.substring(0, matcher.group(1) == null ? value.length() : matcher.start(1)), facets, dateTimeValue);
+      millis = EdmDateTime.parseLiteral(value, 0, end, facets) - offsetInMinutes * 60 * 1000L;
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
-      return returnType.cast(dateTimeValue);
+      return returnType.cast(EdmDateTime.createCalendar(millis, offsetInMinutes == 0 ? null : getTimeZone(offsetInMinutes)));
     } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(dateTimeValue.getTimeInMillis());
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(dateTimeValue.getTime());
+      return returnType.cast(new Date(millis));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
+  /**
+   * Parses a time-zone offset of the form <code>[-+]h{1,2}:mm</code> at the end of the value.
+   * @param value     the complete literal
+   * @param signIndex the index of the sign of the offset
+   * @return the offset in minutes
+   * @throws EdmSimpleTypeException if the offset is not valid
+   */
+  private static int parseOffset(final String value, final int signIndex) throws EdmSimpleTypeException {
+    final int hoursEnd = EdmDateTime.digitsEnd(value, signIndex + 1, value.length(), 2);
+    if (hoursEnd == signIndex + 1
+        || hoursEnd + 3 != value.length() || value.charAt(hoursEnd) != ':'
+        || EdmDateTime.digitsEnd(value, hoursEnd + 1, value.length(), 2) != value.length()) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+    }
+    final int hours = EdmDateTime.parseDigits(value, signIndex + 1, hoursEnd);
+    final int minutes = EdmDateTime.parseDigits(value, hoursEnd + 1, value.length());
+    if (hours > 23 || minutes > 59) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+    }
+    return (value.charAt(signIndex) == '-' ? -1 : 1) * (hours * 60 + minutes);
+  }
+
+  /**
+   * Returns a new time-zone object for the given offset from GMT.
+   * @param offsetInMinutes the offset in minutes, must be in the range of one day
+   * @return a time zone not shared with anyone else
+   */
+  private static TimeZone getTimeZone(final int offsetInMinutes) {
+    final Integer key = offsetInMinutes;
+    TimeZone timeZone = TIME_ZONES.get(key);
+    if (timeZone == null) {
+      StringBuilder id = new StringBuilder("GMT");
+      appendOffset(id, offsetInMinutes);
+      timeZone = TimeZone.getTimeZone(id.toString());
+      TIME_ZONES.putIfAbsent(key, timeZone);
+    }
+    return (TimeZone) timeZone.clone();
+  }
+
+  /**
+   * Appends the given offset from GMT in the form <code>[-+]hh:mm</code>.
+   */
+  private static void appendOffset(final StringBuilder result, final int offsetInMinutes) {
+    final int absoluteOffset = Math.abs(offsetInMinutes);
+    result.append(offsetInMinutes < 0 ? '-' : '+');
+    EdmDateTime.appendTwoDigits(result, absoluteOffset / 60);
+    result.append(':');
+    EdmDateTime.appendTwoDigits(result, absoluteOffset % 60);
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets) throws EdmSimpleTypeException {
-    Long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
+    long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
     int offset; // offset in milliseconds from GMT to the requested time zone
     if (value instanceof Date) {
       milliSeconds = ((Date) value).getTime();
       // Although java.util.Date, as stated in its documentation,
       // "is intended to reflect coordinated universal time (UTC)",
       // its toString() method uses the default time zone. And so do we.
-      Calendar dateTimeValue = Calendar.getInstance();
-      dateTimeValue.setTime((Date) value);
-      offset = dateTimeValue.get(Calendar.ZONE_OFFSET) + dateTimeValue.get(Calendar.DST_OFFSET);
+      offset = TimeZone.getDefault().getOffset(milliSeconds);
     } else if (value instanceof Calendar) {
       final Calendar dateTimeValue = (Calendar) ((Calendar) value).clone();
       milliSeconds = dateTimeValue.getTimeInMillis();
-      offset = dateTimeValue.get(Calendar.ZONE_OFFSET) + dateTimeValue.get(Calendar.DST_OFFSET);
+      offset = dateTimeValue.getTimeZone().getOffset(milliSeconds);
     } else if (value instanceof Long) {
       milliSeconds = (Long) value;
       offset = 0;
@@ -144,15 +202,24 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
     final int offsetInMinutes = offset / 60 / 1000;
 
     if (literalKind == EdmLiteralKind.JSON) {
-      return "/Date(" + milliSeconds + (offset == 0 ? "" : String.format("%+05d", offsetInMinutes)) + ")/";
+      StringBuilder result = new StringBuilder(32);
+      result.append(JSON_PREFIX).append(milliSeconds);
+      if (offset != 0) {
+        final int absoluteOffset = Math.abs(offsetInMinutes);
+        result.append(offsetInMinutes < 0 ? '-' : '+');
+        EdmDateTime.appendTwoDigits(result, absoluteOffset / 100);
+        EdmDateTime.appendTwoDigits(result, absoluteOffset % 100);
+      }
+      return result.append(JSON_SUFFIX).toString();
 
     } else {
-      final String localTimeString = EdmDateTime.getInstance().valueToString(milliSeconds, EdmLiteralKind.DEFAULT, facets);
-      final int offsetHours = offsetInMinutes / 60;
-      final int offsetMinutes = Math.abs(offsetInMinutes % 60);
-      final String offsetString = offset == 0 ? "Z" : String.format("%+03d:%02d", offsetHours, offsetMinutes);
-
-      return localTimeString + offsetString;
+      StringBuilder result = new StringBuilder(EdmDateTime.getInstance().valueToString(milliSeconds, EdmLiteralKind.DEFAULT, facets));
+      if (offset == 0) {
+        result.append('Z');
+      } else {
+        appendOffset(result, offsetInMinutes);
+      }
+      return result.toString();
     }
   }
 
@@ -17,8 +17,6 @@ package com.sap.core.odata.core.edm;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -34,7 +32,6 @@ public class EdmDecimal extends AbstractSimpleType {
   // value-range limitation according to the CSDL document
   private static final int MAX_DIGITS = 29;
 
-  private static final Pattern PATTERN = Pattern.compile("(?:\\+|-)?(?:0*(\\p{Digit}{1,29}?))(?:\\.(\\p{Digit}{1,29}?)0*)?(M|m)?");
   private static final EdmDecimal instance = new EdmDecimal();
 
   public static EdmDecimal getInstance() {
@@ -70,39 +67,52 @@ public class EdmDecimal extends AbstractSimpleType {
       return false;
     }
 
-    return validateLiteral(value, literalKind) && validatePrecisionAndScale(value, facets);
+    final long digits = NumericLiteral.scanDecimal(value, MAX_DIGITS, literalKind == EdmLiteralKind.URI);
+    return digits >= 0 && validatePrecisionAndScale(digits, facets);
   }
 
-  private static boolean validateLiteral(final String value, final EdmLiteralKind literalKind) {
-    final Matcher matcher = PATTERN.matcher(value);
-    return matcher.matches()
-        && (literalKind == EdmLiteralKind.URI) != (matcher.group(3) == null);
-  }
-
-  private static final boolean validatePrecisionAndScale(final String value, final EdmFacets facets) {
+  private static final boolean validatePrecisionAndScale(final long digits, final EdmFacets facets) {
     if (facets == null || facets.getPrecision() == null && facets.getScale() == null) {
       return true;
     }
 
-    final Matcher matcher = PATTERN.matcher(value);
-    matcher.matches();
-    final int significantIntegerDigits = matcher.group(1).equals("0") ? 0 : matcher.group(1).length();
-    final int decimals = matcher.group(2) == null ? 0 : matcher.group(2).length();
+    final int significantIntegerDigits = NumericLiteral.getIntegerDigits(digits);
+    final int decimals = NumericLiteral.getDecimals(digits);
     return (facets.getPrecision() == null || facets.getPrecision() >= significantIntegerDigits + decimals)
         && (facets.getScale() == null || facets.getScale() >= decimals);
   }
 
   @Override
   protected <T> T internalValueOfString(final String value, final EdmLiteralKind literalKind, final EdmFacets facets, final Class<T> returnType) throws EdmSimpleTypeException {
-    if (!validateLiteral(value, literalKind)) {
+    final long digits = NumericLiteral.scanDecimal(value, MAX_DIGITS, literalKind == EdmLiteralKind.URI);
+    if (digits < 0) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
     }
-    if (!validatePrecisionAndScale(value, facets)) {
+    if (!validatePrecisionAndScale(digits, facets)) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
     }
 
+    final int end = literalKind == EdmLiteralKind.URI ? value.length() - 1 : value.length();
+
+    // Integral values requested as integral types are parsed directly
+    // as long as they fit into a long, without the detour via BigDecimal.
+    if ((returnType == Long.class || returnType == Integer.class || returnType == Short.class || returnType == Byte.class)
+        && NumericLiteral.getIntegerDigits(digits) <= 18
+        && (NumericLiteral.getDecimals(digits) == 0 || isZeroFraction(value, end))) {
+      final int integerEnd = NumericLiteral.getDecimals(digits) == 0 ? end : value.indexOf('.');
+      if (returnType == Long.class) {
+        return returnType.cast(NumericLiteral.parseLong(value, 0, integerEnd, Long.MIN_VALUE, Long.MAX_VALUE));
+      } else if (returnType == Integer.class) {
+        return returnType.cast((int) parseIntegral(value, integerEnd, Integer.MIN_VALUE, Integer.MAX_VALUE, returnType));
+      } else if (returnType == Short.class) {
+        return returnType.cast((short) parseIntegral(value, integerEnd, Short.MIN_VALUE, Short.MAX_VALUE, returnType));
+      } else {
+        return returnType.cast((byte) parseIntegral(value, integerEnd, Byte.MIN_VALUE, Byte.MAX_VALUE, returnType));
+      }
+    }
+
     final BigDecimal valueBigDecimal = new BigDecimal(
-        literalKind == EdmLiteralKind.URI ? value.substring(0, value.length() - 1) : value);
+        literalKind == EdmLiteralKind.URI ? value.substring(0, end) : value);
 
     if (returnType.isAssignableFrom(BigDecimal.class)) {
       return returnType.cast(valueBigDecimal);
@@ -139,6 +149,25 @@ public class EdmDecimal extends AbstractSimpleType {
     }
   }
 
+  /**
+   * Checks whether all decimals of the literal ending at the given index are zero.
+   */
+  private static boolean isZeroFraction(final String value, final int end) {
+    int index = end - 1;
+    while (value.charAt(index) == '0') {
+      index--;
+    }
+    return value.charAt(index) == '.';
+  }
+
+  private static long parseIntegral(final String value, final int end, final long min, final long max, final Class<?> returnType) throws EdmSimpleTypeException {
+    try {
+      return NumericLiteral.parseLong(value, 0, end, min, max);
+    } catch (final NumberFormatException e) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_UNCONVERTIBLE_TO_VALUE_TYPE.addContent(value, returnType), e);
+    }
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets) throws EdmSimpleTypeException {
     String result;
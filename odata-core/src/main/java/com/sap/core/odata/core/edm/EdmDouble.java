@@ -17,8 +17,6 @@ package com.sap.core.odata.core.edm;
 
 import java.math.BigDecimal;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -35,8 +33,6 @@ public class EdmDouble extends AbstractSimpleType {
   private static final int MAX_PRECISION = 15;
   private static final int MAX_SCALE = 308;
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(?:\\+|-)?\\p{Digit}{1,15}(?:\\.\\p{Digit}{1,15})?(?:(?:E|e)(?:\\+|-)?\\p{Digit}{1,3})?(D|d)?");
   private static final EdmDouble instance = new EdmDouble();
 
   public static EdmDouble getInstance() {
@@ -74,9 +70,7 @@ public class EdmDouble extends AbstractSimpleType {
       result = Double.NaN;
     } else {
       // Now only "normal" numbers remain.
-      final Matcher matcher = PATTERN.matcher(value);
-      if (!matcher.matches()
-          || (literalKind == EdmLiteralKind.URI) == (matcher.group(1) == null)) {
+      if (!NumericLiteral.isFloatingPoint(value, MAX_PRECISION, 3, 'D', literalKind == EdmLiteralKind.URI)) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
 
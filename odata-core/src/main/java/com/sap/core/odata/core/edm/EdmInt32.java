@@ -51,7 +51,7 @@ public class EdmInt32 extends AbstractSimpleType {
   protected <T> T internalValueOfString(final String value, final EdmLiteralKind literalKind, final EdmFacets facets, final Class<T> returnType) throws EdmSimpleTypeException {
     Integer valueInteger;
     try {
-      valueInteger = Integer.parseInt(value);
+      valueInteger = (int) NumericLiteral.parseLong(value, 0, value.length(), Integer.MIN_VALUE, Integer.MAX_VALUE);
     } catch (final NumberFormatException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
     }
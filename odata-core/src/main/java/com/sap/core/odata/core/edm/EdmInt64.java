@@ -56,12 +56,12 @@ public class EdmInt64 extends AbstractSimpleType {
     try {
       if (literalKind == EdmLiteralKind.URI) {
         if (value.endsWith("L") || value.endsWith("l")) {
-          valueLong = Long.parseLong(value.substring(0, value.length() - 1));
+          valueLong = NumericLiteral.parseLong(value, 0, value.length() - 1, Long.MIN_VALUE, Long.MAX_VALUE);
         } else {
           throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
         }
       } else {
-        valueLong = Long.parseLong(value);
+        valueLong = NumericLiteral.parseLong(value, 0, value.length(), Long.MIN_VALUE, Long.MAX_VALUE);
       }
     } catch (final NumberFormatException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
@@ -18,8 +18,6 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -35,8 +33,6 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmTime extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "PT(?:(\\p{Digit}{1,2})H)?(?:(\\p{Digit}{1,4})M)?(?:(\\p{Digit}{1,5})(?:\\.(\\p{Digit}+?)0*)?S)?");
   private static final EdmTime instance = new EdmTime();
 
   public static EdmTime getInstance() {
@@ -50,93 +46,136 @@ public class EdmTime extends AbstractSimpleType {
 
   @Override
   protected <T> T internalValueOfString(final String value, final EdmLiteralKind literalKind, final EdmFacets facets, final Class<T> returnType) throws EdmSimpleTypeException {
-    Calendar valueCalendar;
+    int[] fields;
     if (literalKind == EdmLiteralKind.URI) {
       if (value.length() > 6 && value.startsWith("time'") && value.endsWith("'")) {
-        valueCalendar = parseLiteral(value.substring(5, value.length() - 1), facets);
+        fields = parseLiteral(value, 5, value.length() - 1, facets);
       } else {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
     } else {
-      valueCalendar = parseLiteral(value, facets);
+      fields = parseLiteral(value, 0, value.length(), facets);
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
-      return returnType.cast(valueCalendar);
-    } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(valueCalendar.getTimeInMillis());
+      Calendar dateTimeValue = Calendar.getInstance();
+      dateTimeValue.clear();
+      dateTimeValue.set(Calendar.HOUR_OF_DAY, fields[0]);
+      dateTimeValue.set(Calendar.MINUTE, fields[1]);
+      dateTimeValue.set(Calendar.SECOND, fields[2]);
+      dateTimeValue.set(Calendar.MILLISECOND, fields[3]);
+      return returnType.cast(dateTimeValue);
+    }
+
+    // The time value is local time on 1970-01-01; convert it to UTC.
+    final long localTime = getMillisOfDay(fields);
+    final TimeZone timeZone = TimeZone.getDefault();
+    final long millis = localTime - timeZone.getOffset(localTime - timeZone.getOffset(localTime));
+    if (returnType.isAssignableFrom(Long.class)) {
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(valueCalendar.getTime());
+      return returnType.cast(new Date(millis));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
-  private Calendar parseLiteral(final String literal, final EdmFacets facets) throws EdmSimpleTypeException {
-    final Matcher matcher = PATTERN.matcher(literal);
-    if (!matcher.matches()
-        || (matcher.group(1) == null && matcher.group(2) == null && matcher.group(3) == null)) {
-      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
+  private static long getMillisOfDay(final int[] fields) {
+    return ((fields[0] * 60L + fields[1]) * 60 + fields[2]) * 1000 + fields[3];
+  }
+
+  /**
+   * Parses a time literal of the form <code>PT[hH][mM][s[.f]S]</code>.
+   * @return hours, minutes, seconds, and milliseconds
+   */
+  private static int[] parseLiteral(final String value, final int start, final int end, final EdmFacets facets) throws EdmSimpleTypeException {
+    if (end - start < 3 || value.charAt(start) != 'P' || value.charAt(start + 1) != 'T') {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
     }
 
-    Calendar dateTimeValue = Calendar.getInstance();
-    dateTimeValue.clear();
-
-    dateTimeValue.set(Calendar.HOUR_OF_DAY,
-        matcher.group(1) == null ? 0 : Integer.parseInt(matcher.group(1)));
-    dateTimeValue.set(Calendar.MINUTE,
-        matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2)));
-    dateTimeValue.set(Calendar.SECOND,
-        matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3)));
-
-    if (matcher.group(4) != null) {
-      if (facets == null || facets.getPrecision() == null || facets.getPrecision() >= matcher.group(4).length()) {
-        if (matcher.group(4).length() <= 3) {
-          dateTimeValue.set(Calendar.MILLISECOND,
-              Short.parseShort(matcher.group(4) + "000".substring(0, 3 - matcher.group(4).length())));
-        } else {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
+    int[] fields = new int[4];
+    // The designators must appear in this order, each at most once;
+    // the maximum number of digits is given for each of them.
+    final char[] designators = { 'H', 'M', 'S' };
+    final int[] maxDigits = { 2, 4, 5 };
+    int designator = 0;
+    int index = start + 2;
+    while (index < end) {
+      final int digitsEnd = EdmDateTime.digitsEnd(value, index, end, Integer.MAX_VALUE);
+      if (digitsEnd == index || digitsEnd == end) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+      }
+      final char c = value.charAt(digitsEnd);
+      while (designator < designators.length && designators[designator] != (c == '.' ? 'S' : c)) {
+        designator++;
+      }
+      if (designator == designators.length || digitsEnd - index > maxDigits[designator]) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+      }
+      fields[designator] = EdmDateTime.parseDigits(value, index, digitsEnd);
+
+      if (c == '.') {
+        final int decimalsStart = digitsEnd + 1;
+        final int decimalsEnd = EdmDateTime.digitsEnd(value, decimalsStart, end, Integer.MAX_VALUE);
+        if (decimalsEnd == decimalsStart || decimalsEnd != end - 1 || value.charAt(decimalsEnd) != 'S') {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
+        }
+        // Trailing zeroes are not significant, but at least one digit is.
+        int significantEnd = decimalsEnd;
+        while (significantEnd > decimalsStart + 1 && value.charAt(significantEnd - 1) == '0') {
+          significantEnd--;
+        }
+        final int decimals = significantEnd - decimalsStart;
+        if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value.substring(start, end), facets));
+        }
+        if (decimals > 3) {
+          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
         }
+        fields[3] = EdmDateTime.parseDigits(value, decimalsStart, significantEnd) * (decimals == 1 ? 100 : decimals == 2 ? 10 : 1);
+        index = end;
       } else {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(literal, facets));
+        index = digitsEnd + 1;
       }
+      designator++;
     }
 
-    if (dateTimeValue.get(Calendar.DAY_OF_YEAR) == 1) {
-      return dateTimeValue;
-    } else {
-      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
+    if (getMillisOfDay(fields) >= EdmDateTime.MILLIS_PER_DAY) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value.substring(start, end)));
     }
+    return fields;
   }
 
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets) throws EdmSimpleTypeException {
-    Calendar dateTimeValue;
+    long localTime;
     if (value instanceof Date) {
-      dateTimeValue = Calendar.getInstance();
-      dateTimeValue.clear();
-      dateTimeValue.setTime((Date) value);
+      final long millis = ((Date) value).getTime();
+      localTime = millis + TimeZone.getDefault().getOffset(millis);
     } else if (value instanceof Calendar) {
-      dateTimeValue = (Calendar) ((Calendar) value).clone();
+      final Calendar dateTimeValue = (Calendar) ((Calendar) value).clone();
+      final long millis = dateTimeValue.getTimeInMillis();
+      localTime = millis + dateTimeValue.getTimeZone().getOffset(millis);
     } else if (value instanceof Long) {
-      dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-      dateTimeValue.clear();
-      dateTimeValue.setTimeInMillis((Long) value);
+      localTime = (Long) value;
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
     }
 
+    final int millisOfDay = (int) (localTime % EdmDateTime.MILLIS_PER_DAY
+        + (localTime < 0 ? EdmDateTime.MILLIS_PER_DAY : 0)) % (int) EdmDateTime.MILLIS_PER_DAY;
+
     StringBuilder result = new StringBuilder(15); // 15 characters are enough for millisecond precision.
     result.append('P');
     result.append('T');
-    result.append(dateTimeValue.get(Calendar.HOUR_OF_DAY));
+    result.append(millisOfDay / (60 * 60 * 1000));
     result.append('H');
-    result.append(dateTimeValue.get(Calendar.MINUTE));
+    result.append(millisOfDay / (60 * 1000) % 60);
     result.append('M');
-    result.append(dateTimeValue.get(Calendar.SECOND));
+    result.append(millisOfDay / 1000 % 60);
 
     try {
-      EdmDateTime.appendMilliseconds(result, dateTimeValue.get(Calendar.MILLISECOND), facets);
+      EdmDateTime.appendMilliseconds(result, millisOfDay % 1000, facets);
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED.addContent(value, facets), e);
     }
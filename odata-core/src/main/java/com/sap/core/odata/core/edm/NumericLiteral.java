@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm;
+
+/**
+ * Hand-written scanners for numeric literals, used instead of regular expressions.
+ * @author SAP AG
+ */
+final class NumericLiteral {
+
+  private NumericLiteral() {}
+
+  /**
+   * Checks whether the value has the form
+   * <code>[+-]?d{1,maxDigits}(.d{1,maxDigits})?([Ee][+-]?d{1,maxExponentDigits})?</code>
+   * followed by the suffix character in upper or lower case if requested.
+   * @param value             the literal
+   * @param maxDigits         the maximum number of digits before and after the decimal point
+   * @param maxExponentDigits the maximum number of exponent digits
+   * @param suffix            the upper-case suffix character
+   * @param withSuffix        whether the suffix is required (or else forbidden)
+   * @return <code>true</code> if the value has the expected form
+   */
+  static boolean isFloatingPoint(final String value, final int maxDigits, final int maxExponentDigits, final char suffix, final boolean withSuffix) {
+    int end = value.length();
+    if (withSuffix) {
+      if (end == 0 || Character.toUpperCase(value.charAt(end - 1)) != suffix) {
+        return false;
+      }
+      end--;
+    }
+    int index = skipSign(value, 0, end);
+    int next = skipDigits(value, index, end);
+    if (next == index || next - index > maxDigits) {
+      return false;
+    }
+    index = next;
+    if (index < end && value.charAt(index) == '.') {
+      next = skipDigits(value, index + 1, end);
+      if (next == index + 1 || next - index - 1 > maxDigits) {
+        return false;
+      }
+      index = next;
+    }
+    if (index < end && (value.charAt(index) == 'E' || value.charAt(index) == 'e')) {
+      index = skipSign(value, index + 1, end);
+      next = skipDigits(value, index, end);
+      if (next == index || next - index > maxExponentDigits) {
+        return false;
+      }
+      index = next;
+    }
+    return index == end;
+  }
+
+  /**
+   * Scans a decimal literal of the form <code>[+-]?d+(.d+)?</code>,
+   * followed by the suffix <code>M</code> in upper or lower case if requested,
+   * with at most <code>maxDigits</code> digits before and after the decimal
+   * point, not counting leading and trailing zeroes, respectively.
+   * @param value      the literal
+   * @param maxDigits  the maximum number of significant digits before and after the decimal point
+   * @param withSuffix whether the suffix is required (or else forbidden)
+   * @return -1 if the literal is not valid; otherwise the number of significant
+   *         integer digits in the upper and the number of decimals in the lower half
+   *         (see {@link #getIntegerDigits(long)} and {@link #getDecimals(long)})
+   */
+  static long scanDecimal(final String value, final int maxDigits, final boolean withSuffix) {
+    int end = value.length();
+    if (withSuffix) {
+      if (end == 0 || value.charAt(end - 1) != 'M' && value.charAt(end - 1) != 'm') {
+        return -1;
+      }
+      end--;
+    }
+    final int start = skipSign(value, 0, end);
+    final int integerEnd = skipDigits(value, start, end);
+    if (integerEnd == start) {
+      return -1;
+    }
+    int significantStart = start;
+    while (significantStart < integerEnd && value.charAt(significantStart) == '0') {
+      significantStart++;
+    }
+    final int integerDigits = integerEnd - significantStart;
+    if (integerDigits > maxDigits) {
+      return -1;
+    }
+
+    int decimals = 0;
+    if (integerEnd < end) {
+      if (value.charAt(integerEnd) != '.') {
+        return -1;
+      }
+      final int decimalsStart = integerEnd + 1;
+      if (skipDigits(value, decimalsStart, end) != end || end == decimalsStart) {
+        return -1;
+      }
+      int significantEnd = end;
+      while (significantEnd > decimalsStart && value.charAt(significantEnd - 1) == '0') {
+        significantEnd--;
+      }
+      // A decimal point is always followed by at least one decimal.
+      decimals = Math.max(significantEnd - decimalsStart, 1);
+      if (decimals > maxDigits) {
+        return -1;
+      }
+    }
+
+    return (long) integerDigits << 32 | decimals;
+  }
+
+  static int getIntegerDigits(final long scanResult) {
+    return (int) (scanResult >>> 32);
+  }
+
+  static int getDecimals(final long scanResult) {
+    return (int) scanResult;
+  }
+
+  /**
+   * Parses the integer between the given indexes, consisting of an optional
+   * sign and decimal digits.
+   * @param value the String containing the integer
+   * @param start the start index
+   * @param end   the end index (exclusive)
+   * @param min   the minimum allowed value
+   * @param max   the maximum allowed value
+   * @return the value of the integer
+   * @throws NumberFormatException if the value does not have the expected form
+   *                               or is out of range
+   */
+  static long parseLong(final String value, final int start, final int end, final long min, final long max) throws NumberFormatException {
+    final int digitsStart = skipSign(value, start, end);
+    if (digitsStart == end || skipDigits(value, digitsStart, end) != end) {
+      throw new NumberFormatException(value);
+    }
+    final boolean negative = value.charAt(start) == '-';
+    // Accumulate negatively to cover Long.MIN_VALUE.
+    final long limit = negative ? min : -max;
+    long result = 0;
+    for (int index = digitsStart; index < end; index++) {
+      final int digit = value.charAt(index) - '0';
+      if (result < (limit + digit) / 10) {
+        throw new NumberFormatException(value);
+      }
+      result = result * 10 - digit;
+    }
+    return negative ? result : -result;
+  }
+
+  private static int skipSign(final String value, final int start, final int end) {
+    return start < end && (value.charAt(start) == '+' || value.charAt(start) == '-') ? start + 1 : start;
+  }
+
+  private static int skipDigits(final String value, final int start, final int end) {
+    int index = start;
+    while (index < end && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+      index++;
+    }
+    return index;
+  }
+}
@@ -109,6 +109,49 @@ public class EdmParser {
 
   }
 
+  /**
+   * Reads a single element of a schema, e.g., an entity type, or of an entity container,
+   * e.g., an entity set; the reader must be positioned at the start tag of the element.
+   * <p>This is used to materialize the elements indexed by {@link EdmxIndex} on demand;
+   * no validation takes place.</p>
+   * @param reader the reader
+   * @param namespace the namespace of the schema the element belongs to
+   * @return the element, e.g., an {@link EntityType}
+   * @throws EntityProviderException if the element could not be read
+   */
+  Object readElement(final XMLStreamReader reader, final String namespace) throws EntityProviderException {
+    try {
+      initialize();
+      currentNamespace = namespace;
+      inscopeMap.put(namespace, new HashSet<String>());
+      extractNamespaces(reader);
+      currentHandledStartTagName = reader.getLocalName();
+      if (EdmParserConstants.EDM_SCHEMA.equals(currentHandledStartTagName)) {
+        return readSchema(reader);
+      } else if (EdmParserConstants.EDM_USING.equals(currentHandledStartTagName)) {
+        return readUsing(reader, namespace);
+      } else if (EdmParserConstants.EDM_ENTITY_TYPE.equals(currentHandledStartTagName)) {
+        return readEntityType(reader);
+      } else if (EdmParserConstants.EDM_COMPLEX_TYPE.equals(currentHandledStartTagName)) {
+        return readComplexType(reader);
+      } else if (EdmParserConstants.EDM_ASSOCIATION.equals(currentHandledStartTagName)) {
+        return readAssociation(reader);
+      } else if (EdmParserConstants.EDM_ENTITY_CONTAINER.equals(currentHandledStartTagName)) {
+        return readEntityContainer(reader);
+      } else if (EdmParserConstants.EDM_ENTITY_SET.equals(currentHandledStartTagName)) {
+        return readEntitySet(reader);
+      } else if (EdmParserConstants.EDM_ASSOCIATION_SET.equals(currentHandledStartTagName)) {
+        return readAssociationSet(reader);
+      } else if (EdmParserConstants.EDM_FUNCTION_IMPORT.equals(currentHandledStartTagName)) {
+        return readFunctionImport(reader);
+      } else {
+        return readAnnotationElement(reader);
+      }
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
   private Schema readSchema(final XMLStreamReader reader) throws XMLStreamException, EntityProviderException {
     reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_EDM_2008_09, EdmParserConstants.EDM_SCHEMA);
 
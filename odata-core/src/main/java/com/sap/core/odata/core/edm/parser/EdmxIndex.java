@@ -0,0 +1,665 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.edm.provider.AnnotationElement;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationEnd;
+import com.sap.core.odata.api.edm.provider.AssociationSet;
+import com.sap.core.odata.api.edm.provider.AssociationSetEnd;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.EntityContainer;
+import com.sap.core.odata.api.edm.provider.EntityContainerInfo;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.NavigationProperty;
+import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.edm.provider.Using;
+import com.sap.core.odata.api.ep.EntityProviderException;
+
+/**
+ * Index of the elements of a metadata document, built in one streaming pass
+ * without building the model.
+ * <p>Every entity type, complex type, association, and every element of an
+ * entity container is kept as a compact, self-contained XML fragment. An element is
+ * read with the {@link EdmParser} only when it is requested for the first time
+ * and then cached; if validation is requested, the checks of the eager
+ * parser concerning this element are done at this time.</p>
+ * <p>The fragments are copied during the indexing pass because the input stream
+ * cannot be read again and because StAX implementations differ in the
+ * character offsets they report.</p>
+ * @author SAP AG
+ */
+final class EdmxIndex {
+
+  private static final String IS_DEFAULT_ENTITY_CONTAINER = "IsDefaultEntityContainer";
+
+  private final boolean validate;
+  private final XMLInputFactory inputFactory;
+  private final List<SchemaEntry> schemas = new ArrayList<SchemaEntry>();
+  private final Map<String, String> aliasNamespaceMap = new HashMap<String, String>();
+  private final Map<FullQualifiedName, Fragment> entityTypeFragments = new HashMap<FullQualifiedName, Fragment>();
+  private final Map<FullQualifiedName, Fragment> complexTypeFragments = new HashMap<FullQualifiedName, Fragment>();
+  private final Map<FullQualifiedName, Fragment> associationFragments = new HashMap<FullQualifiedName, Fragment>();
+  private final Map<String, ContainerEntry> containers = new HashMap<String, ContainerEntry>();
+
+  private final ConcurrentMap<FullQualifiedName, EntityType> entityTypes = new ConcurrentHashMap<FullQualifiedName, EntityType>();
+  private final ConcurrentMap<FullQualifiedName, ComplexType> complexTypes = new ConcurrentHashMap<FullQualifiedName, ComplexType>();
+  private final ConcurrentMap<FullQualifiedName, Association> associations = new ConcurrentHashMap<FullQualifiedName, Association>();
+  private volatile List<Schema> materializedSchemas;
+
+  private EdmxIndex(final boolean validate, final XMLInputFactory inputFactory) {
+    this.validate = validate;
+    this.inputFactory = inputFactory;
+  }
+
+  /**
+   * Builds the index in one pass over the metadata document.
+   * @param reader the reader of the metadata document; it is closed afterwards
+   * @param validate whether the elements should be validated when they are read
+   * @param inputFactory the factory for the readers of the indexed fragments
+   * @return the index
+   * @throws EntityProviderException if the document could not be read
+   */
+  static EdmxIndex build(final XMLStreamReader reader, final boolean validate, final XMLInputFactory inputFactory) throws EntityProviderException {
+    EdmxIndex index = new EdmxIndex(validate, inputFactory);
+    try {
+      new Indexer(index, reader).run();
+      reader.close();
+    } catch (final XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+    return index;
+  }
+
+  EntityType getEntityType(final FullQualifiedName name) throws EntityProviderException {
+    EntityType entityType = entityTypes.get(name);
+    if (entityType == null) {
+      final Fragment fragment = entityTypeFragments.get(name);
+      if (fragment == null) {
+        return null;
+      }
+      entityType = (EntityType) fragment.read();
+      if (validate) {
+        validateEntityType(entityType);
+      }
+      entityType = putIfAbsent(entityTypes, name, entityType);
+    }
+    return entityType;
+  }
+
+  ComplexType getComplexType(final FullQualifiedName name) throws EntityProviderException {
+    ComplexType complexType = complexTypes.get(name);
+    if (complexType == null) {
+      final Fragment fragment = complexTypeFragments.get(name);
+      if (fragment == null) {
+        return null;
+      }
+      complexType = (ComplexType) fragment.read();
+      if (validate && complexType.getBaseType() != null
+          && resolve(complexTypeFragments, complexType.getBaseType()) == null) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid BaseType").addContent(complexType.getBaseType()));
+      }
+      complexType = putIfAbsent(complexTypes, name, complexType);
+    }
+    return complexType;
+  }
+
+  Association getAssociation(final FullQualifiedName name) throws EntityProviderException {
+    Association association = associations.get(name);
+    if (association == null) {
+      final Fragment fragment = associationFragments.get(name);
+      if (fragment == null) {
+        return null;
+      }
+      association = putIfAbsent(associations, name, (Association) fragment.read());
+    }
+    return association;
+  }
+
+  EntityContainerInfo getEntityContainerInfo(final String name) throws EntityProviderException {
+    final ContainerEntry container = containers.get(name);
+    return container == null ? null : container.getContainer();
+  }
+
+  EntitySet getEntitySet(final String containerName, final String name) throws EntityProviderException {
+    final ContainerEntry container = containers.get(containerName);
+    return container == null ? null : container.getEntitySet(name);
+  }
+
+  FunctionImport getFunctionImport(final String containerName, final String name) throws EntityProviderException {
+    final ContainerEntry container = containers.get(containerName);
+    return container == null ? null : container.getFunctionImport(name);
+  }
+
+  AssociationSet getAssociationSet(final String containerName, final FullQualifiedName association,
+      final String sourceEntitySetName, final String sourceEntitySetRole) throws EntityProviderException {
+    final ContainerEntry container = containers.get(containerName);
+    if (container == null) {
+      return null;
+    }
+    for (final AssociationSet associationSet : container.getAssociationSets()) {
+      if (association.equals(associationSet.getAssociation())
+          && (matches(associationSet.getEnd1(), sourceEntitySetName, sourceEntitySetRole)
+          || matches(associationSet.getEnd2(), sourceEntitySetName, sourceEntitySetRole))) {
+        return associationSet;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads all indexed elements and assembles them to schemas.
+   * @return the schemas in document order
+   * @throws EntityProviderException if an element could not be read or is invalid
+   */
+  List<Schema> getSchemas() throws EntityProviderException {
+    List<Schema> result = materializedSchemas;
+    if (result == null) {
+      result = new ArrayList<Schema>(schemas.size());
+      for (final SchemaEntry entry : schemas) {
+        result.add(entry.getSchema());
+      }
+      materializedSchemas = result;
+    }
+    return result;
+  }
+
+  private void validateEntityType(final EntityType entityType) throws EntityProviderException {
+    if (entityType.getBaseType() != null) {
+      final FullQualifiedName baseTypeName = resolve(entityTypeFragments, entityType.getBaseType());
+      if (baseTypeName == null) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid Type"));
+      }
+      // The base type is read without validation to avoid endless recursion for cyclic inheritance.
+      EntityType baseType = entityTypes.get(baseTypeName);
+      if (baseType == null) {
+        baseType = (EntityType) entityTypeFragments.get(baseTypeName).read();
+      }
+      if (baseType.getKey() == null) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Missing key for EntityType " + baseType.getName()));
+      }
+    } else if (entityType.getKey() == null) {
+      throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Missing key for EntityType " + entityType.getName()));
+    }
+
+    if (entityType.getNavigationProperties() != null) {
+      for (final NavigationProperty navigationProperty : entityType.getNavigationProperties()) {
+        final FullQualifiedName associationName = resolve(associationFragments, navigationProperty.getRelationship());
+        if (associationName == null) {
+          throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid Relationship"));
+        }
+        final Association association = getAssociation(associationName);
+        final AssociationEnd end1 = association.getEnd1();
+        final AssociationEnd end2 = association.getEnd2();
+        if (!(end1.getRole().equals(navigationProperty.getFromRole()) ^ end1.getRole().equals(navigationProperty.getToRole())
+        && (end2.getRole().equals(navigationProperty.getFromRole()) ^ end2.getRole().equals(navigationProperty.getToRole())))) {
+          throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid end of association"));
+        }
+        if (resolve(entityTypeFragments, end1.getType()) == null || resolve(entityTypeFragments, end2.getType()) == null) {
+          throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid Type"));
+        }
+      }
+    }
+  }
+
+  private void validateAssociationSet(final AssociationSet associationSet, final ContainerEntry container) throws EntityProviderException {
+    final FullQualifiedName associationName = resolve(associationFragments, associationSet.getAssociation());
+    if (associationName == null
+        || !container.entitySetFragments.containsKey(associationSet.getEnd1().getEntitySet())
+        || !container.entitySetFragments.containsKey(associationSet.getEnd2().getEntitySet())) {
+      throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid AssociationSet"));
+    }
+    final Association association = getAssociation(associationName);
+    for (final AssociationSetEnd end : new AssociationSetEnd[] { associationSet.getEnd1(), associationSet.getEnd2() }) {
+      if (!(association.getEnd1().getRole().equals(end.getRole()) ^ association.getEnd2().getRole().equals(end.getRole()))) {
+        throw new EntityProviderException(EntityProviderException.COMMON.addContent("Invalid Association"));
+      }
+    }
+  }
+
+  /**
+   * Returns the namespace-qualified name of an indexed element given by its
+   * namespace- or alias-qualified name.
+   */
+  private FullQualifiedName resolve(final Map<FullQualifiedName, Fragment> fragments, final FullQualifiedName name) {
+    if (name == null) {
+      return null;
+    } else if (fragments.containsKey(name)) {
+      return name;
+    } else {
+      final String namespace = aliasNamespaceMap.get(name.getNamespace());
+      final FullQualifiedName resolvedName = namespace == null ? null : new FullQualifiedName(namespace, name.getName());
+      return resolvedName != null && fragments.containsKey(resolvedName) ? resolvedName : null;
+    }
+  }
+
+  private static boolean matches(final AssociationSetEnd end, final String entitySetName, final String role) {
+    return end != null
+        && (entitySetName == null ? end.getEntitySet() == null : entitySetName.equals(end.getEntitySet()))
+        && (role == null ? end.getRole() == null : role.equals(end.getRole()));
+  }
+
+  private static <K, V> V putIfAbsent(final ConcurrentMap<K, V> map, final K key, final V value) {
+    final V previous = map.putIfAbsent(key, value);
+    return previous == null ? value : previous;
+  }
+
+  private static <K, V> void putFirst(final Map<K, V> map, final K key, final V value) {
+    if (!map.containsKey(key)) {
+      map.put(key, value);
+    }
+  }
+
+  /**
+   * Serialized element of a schema together with the namespace of the schema.
+   */
+  private final class Fragment {
+    private final String namespace;
+    private final byte[] xml;
+
+    private Fragment(final String namespace, final byte[] xml) {
+      this.namespace = namespace;
+      this.xml = xml;
+    }
+
+    private Object read() throws EntityProviderException {
+      try {
+        XMLStreamReader reader;
+        synchronized (inputFactory) {
+          reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(xml), "UTF-8");
+        }
+        reader.nextTag();
+        final Object element = new EdmParser().readElement(reader, namespace);
+        reader.close();
+        return element;
+      } catch (final XMLStreamException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+    }
+  }
+
+  /**
+   * Indexed content of a schema; the schema element itself is kept without its children.
+   */
+  private final class SchemaEntry {
+    private final Fragment schema;
+    private final List<Fragment> usings = new ArrayList<Fragment>();
+    private final List<FullQualifiedName> entityTypeNames = new ArrayList<FullQualifiedName>();
+    private final List<FullQualifiedName> complexTypeNames = new ArrayList<FullQualifiedName>();
+    private final List<FullQualifiedName> associationNames = new ArrayList<FullQualifiedName>();
+    private final List<ContainerEntry> entityContainers = new ArrayList<ContainerEntry>();
+    private final List<Fragment> annotationElements = new ArrayList<Fragment>();
+
+    private SchemaEntry(final Fragment schema) {
+      this.schema = schema;
+    }
+
+    private Schema getSchema() throws EntityProviderException {
+      Schema result = (Schema) schema.read();
+      List<Using> usingList = new ArrayList<Using>(usings.size());
+      for (final Fragment fragment : usings) {
+        usingList.add((Using) fragment.read());
+      }
+      List<EntityType> entityTypeList = new ArrayList<EntityType>(entityTypeNames.size());
+      for (final FullQualifiedName name : entityTypeNames) {
+        entityTypeList.add(getEntityType(name));
+      }
+      List<ComplexType> complexTypeList = new ArrayList<ComplexType>(complexTypeNames.size());
+      for (final FullQualifiedName name : complexTypeNames) {
+        complexTypeList.add(getComplexType(name));
+      }
+      List<Association> associationList = new ArrayList<Association>(associationNames.size());
+      for (final FullQualifiedName name : associationNames) {
+        associationList.add(getAssociation(name));
+      }
+      List<EntityContainer> containerList = new ArrayList<EntityContainer>(entityContainers.size());
+      for (final ContainerEntry container : entityContainers) {
+        containerList.add(container.getCompleteContainer());
+      }
+      return result.setUsings(usingList).setEntityTypes(entityTypeList).setComplexTypes(complexTypeList)
+          .setAssociations(associationList).setEntityContainers(containerList)
+          .setAnnotationElements(readAnnotationElements(annotationElements));
+    }
+  }
+
+  /**
+   * Indexed content of an entity container; the container element itself is kept without its children.
+   */
+  private final class ContainerEntry {
+    private final Fragment container;
+    private final Map<String, Fragment> entitySetFragments = new LinkedHashMap<String, Fragment>();
+    private final Map<String, Fragment> functionImportFragments = new LinkedHashMap<String, Fragment>();
+    private final List<Fragment> associationSetFragments = new ArrayList<Fragment>();
+    private final List<Fragment> annotationElements = new ArrayList<Fragment>();
+
+    private final ConcurrentMap<String, EntitySet> entitySets = new ConcurrentHashMap<String, EntitySet>();
+    private final ConcurrentMap<String, FunctionImport> functionImports = new ConcurrentHashMap<String, FunctionImport>();
+    private volatile EntityContainer entityContainer;
+    private volatile List<AssociationSet> associationSets;
+
+    private ContainerEntry(final Fragment container) {
+      this.container = container;
+    }
+
+    private EntityContainer getContainer() throws EntityProviderException {
+      EntityContainer result = entityContainer;
+      if (result == null) {
+        result = (EntityContainer) container.read();
+        entityContainer = result;
+      }
+      return result;
+    }
+
+    private EntitySet getEntitySet(final String name) throws EntityProviderException {
+      EntitySet entitySet = entitySets.get(name);
+      if (entitySet == null) {
+        final Fragment fragment = entitySetFragments.get(name);
+        if (fragment == null) {
+          return null;
+        }
+        entitySet = (EntitySet) fragment.read();
+        if (validate && resolve(entityTypeFragments, entitySet.getEntityType()) == null) {
+          throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Invalid Type"));
+        }
+        entitySet = putIfAbsent(entitySets, name, entitySet);
+      }
+      return entitySet;
+    }
+
+    private FunctionImport getFunctionImport(final String name) throws EntityProviderException {
+      FunctionImport functionImport = functionImports.get(name);
+      if (functionImport == null) {
+        final Fragment fragment = functionImportFragments.get(name);
+        if (fragment == null) {
+          return null;
+        }
+        functionImport = putIfAbsent(functionImports, name, (FunctionImport) fragment.read());
+      }
+      return functionImport;
+    }
+
+    private List<AssociationSet> getAssociationSets() throws EntityProviderException {
+      List<AssociationSet> result = associationSets;
+      if (result == null) {
+        result = new ArrayList<AssociationSet>(associationSetFragments.size());
+        for (final Fragment fragment : associationSetFragments) {
+          final AssociationSet associationSet = (AssociationSet) fragment.read();
+          if (validate) {
+            validateAssociationSet(associationSet, this);
+          }
+          result.add(associationSet);
+        }
+        associationSets = result;
+      }
+      return result;
+    }
+
+    private EntityContainer getCompleteContainer() throws EntityProviderException {
+      List<EntitySet> entitySetList = new ArrayList<EntitySet>(entitySetFragments.size());
+      for (final String name : entitySetFragments.keySet()) {
+        entitySetList.add(getEntitySet(name));
+      }
+      List<FunctionImport> functionImportList = new ArrayList<FunctionImport>(functionImportFragments.size());
+      for (final String name : functionImportFragments.keySet()) {
+        functionImportList.add(getFunctionImport(name));
+      }
+      EntityContainer result = getContainer();
+      result.setEntitySets(entitySetList).setAssociationSets(getAssociationSets())
+          .setFunctionImports(functionImportList).setAnnotationElements(readAnnotationElements(annotationElements));
+      return result;
+    }
+  }
+
+  private static List<AnnotationElement> readAnnotationElements(final List<Fragment> fragments) throws EntityProviderException {
+    List<AnnotationElement> annotationElements = new ArrayList<AnnotationElement>(fragments.size());
+    for (final Fragment fragment : fragments) {
+      annotationElements.add((AnnotationElement) fragment.read());
+    }
+    return annotationElements;
+  }
+
+  /**
+   * The indexing pass over the metadata document.
+   */
+  private static final class Indexer {
+    private final EdmxIndex index;
+    private final XMLStreamReader reader;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final Set<String> namespaceUris = new HashSet<String>();
+
+    private Indexer(final EdmxIndex index, final XMLStreamReader reader) {
+      this.index = index;
+      this.reader = reader;
+    }
+
+    private void run() throws XMLStreamException, EntityProviderException {
+      final Map<String, String> namespaces = new HashMap<String, String>();
+      while (reader.hasNext()
+          && !(reader.isEndElement() && Edm.NAMESPACE_EDMX_2007_06.equals(reader.getNamespaceURI()) && EdmParserConstants.EDM_DATA_SERVICES.equals(reader.getLocalName()))) {
+        reader.next();
+        if (reader.isStartElement()) {
+          if (EdmParserConstants.EDM_SCHEMA.equals(reader.getLocalName())) {
+            indexSchema(new HashMap<String, String>(namespaces));
+          } else {
+            addNamespaces(namespaces);
+          }
+        }
+      }
+      if (index.validate) {
+        for (final String namespace : new String[] { Edm.NAMESPACE_EDMX_2007_06, Edm.NAMESPACE_M_2007_08, Edm.NAMESPACE_EDM_2008_09 }) {
+          if (!namespaceUris.contains(namespace)) {
+            throw new EntityProviderException(EntityProviderException.INVALID_NAMESPACE.addContent(namespace));
+          }
+        }
+      }
+    }
+
+    private void indexSchema(final Map<String, String> namespaces) throws XMLStreamException, EntityProviderException {
+      final String namespace = reader.getAttributeValue(null, EdmParserConstants.EDM_SCHEMA_NAMESPACE);
+      final String alias = reader.getAttributeValue(null, EdmParserConstants.EDM_SCHEMA_ALIAS);
+      SchemaEntry schema = index.new SchemaEntry(index.new Fragment(namespace, copyStartElement(namespaces)));
+      index.schemas.add(schema);
+      while (reader.hasNext() && !(reader.isEndElement() && Edm.NAMESPACE_EDM_2008_09.equals(reader.getNamespaceURI()) && EdmParserConstants.EDM_SCHEMA.equals(reader.getLocalName()))) {
+        reader.next();
+        if (reader.isStartElement()) {
+          final String localName = reader.getLocalName();
+          final String name = reader.getAttributeValue(null, EdmParserConstants.EDM_NAME);
+          if (EdmParserConstants.EDM_USING.equals(localName)) {
+            final String usingAlias = reader.getAttributeValue(null, EdmParserConstants.EDM_SCHEMA_ALIAS);
+            if (usingAlias != null) {
+              index.aliasNamespaceMap.put(usingAlias, reader.getAttributeValue(null, EdmParserConstants.EDM_SCHEMA_NAMESPACE));
+            }
+            schema.usings.add(index.new Fragment(namespace, copyElement(namespaces)));
+          } else if (EdmParserConstants.EDM_ENTITY_TYPE.equals(localName)) {
+            final FullQualifiedName fqName = getName(namespace, name);
+            putFirst(index.entityTypeFragments, fqName, index.new Fragment(namespace, copyElement(namespaces)));
+            schema.entityTypeNames.add(fqName);
+          } else if (EdmParserConstants.EDM_COMPLEX_TYPE.equals(localName)) {
+            final FullQualifiedName fqName = getName(namespace, name);
+            putFirst(index.complexTypeFragments, fqName, index.new Fragment(namespace, copyElement(namespaces)));
+            schema.complexTypeNames.add(fqName);
+          } else if (EdmParserConstants.EDM_ASSOCIATION.equals(localName)) {
+            final FullQualifiedName fqName = getName(namespace, name);
+            putFirst(index.associationFragments, fqName, index.new Fragment(namespace, copyElement(namespaces)));
+            schema.associationNames.add(fqName);
+          } else if (EdmParserConstants.EDM_ENTITY_CONTAINER.equals(localName)) {
+            schema.entityContainers.add(indexContainer(namespace, new HashMap<String, String>(namespaces)));
+          } else {
+            schema.annotationElements.add(index.new Fragment(namespace, copyElement(namespaces)));
+          }
+        }
+      }
+      if (alias != null) {
+        index.aliasNamespaceMap.put(alias, namespace);
+      }
+    }
+
+    private ContainerEntry indexContainer(final String namespace, final Map<String, String> namespaces) throws XMLStreamException {
+      final String containerName = reader.getAttributeValue(null, EdmParserConstants.EDM_NAME);
+      final boolean isDefault = "true".equalsIgnoreCase(reader.getAttributeValue(Edm.NAMESPACE_M_2007_08, IS_DEFAULT_ENTITY_CONTAINER));
+      ContainerEntry container = index.new ContainerEntry(index.new Fragment(namespace, copyStartElement(namespaces)));
+      putFirst(index.containers, containerName, container);
+      if (isDefault) {
+        putFirst(index.containers, null, container);
+      }
+      while (reader.hasNext() && !(reader.isEndElement() && Edm.NAMESPACE_EDM_2008_09.equals(reader.getNamespaceURI()) && EdmParserConstants.EDM_ENTITY_CONTAINER.equals(reader.getLocalName()))) {
+        reader.next();
+        if (reader.isStartElement()) {
+          final String localName = reader.getLocalName();
+          final String name = reader.getAttributeValue(null, EdmParserConstants.EDM_NAME);
+          if (EdmParserConstants.EDM_ENTITY_SET.equals(localName)) {
+            putFirst(container.entitySetFragments, name, index.new Fragment(namespace, copyElement(namespaces)));
+          } else if (EdmParserConstants.EDM_FUNCTION_IMPORT.equals(localName)) {
+            putFirst(container.functionImportFragments, name, index.new Fragment(namespace, copyElement(namespaces)));
+          } else if (EdmParserConstants.EDM_ASSOCIATION_SET.equals(localName)) {
+            container.associationSetFragments.add(index.new Fragment(namespace, copyElement(namespaces)));
+          } else {
+            container.annotationElements.add(index.new Fragment(namespace, copyElement(namespaces)));
+          }
+        }
+      }
+      return container;
+    }
+
+    private FullQualifiedName getName(final String namespace, final String name) throws EntityProviderException {
+      if (name == null) {
+        throw new EntityProviderException(EntityProviderException.MISSING_ATTRIBUTE.addContent("Name"));
+      }
+      return new FullQualifiedName(namespace, name);
+    }
+
+    /**
+     * Adds the namespace declarations of the current element to the given
+     * prefix-to-URI map of the namespaces in scope.
+     */
+    private void addNamespaces(final Map<String, String> namespaces) {
+      for (int i = 0; i < reader.getNamespaceCount(); i++) {
+        final String prefix = reader.getNamespacePrefix(i);
+        namespaces.put(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+        namespaceUris.add(reader.getNamespaceURI(i));
+      }
+    }
+
+    /**
+     * Copies the current start element, without its children, into a fragment.
+     * The namespace declarations of the current element are added to the given map.
+     */
+    private byte[] copyStartElement(final Map<String, String> namespaces) throws XMLStreamException {
+      addNamespaces(namespaces);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+      writeStartElement(writer, namespaces);
+      writer.writeEndElement();
+      writer.close();
+      return out.toByteArray();
+    }
+
+    /**
+     * Copies the current element and its content into a fragment which declares
+     * all namespaces in scope; the reader is positioned at the end tag afterwards.
+     */
+    private byte[] copyElement(final Map<String, String> namespaces) throws XMLStreamException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+      Map<String, String> inScope = new HashMap<String, String>(namespaces);
+      for (int i = 0; i < reader.getNamespaceCount(); i++) {
+        final String prefix = reader.getNamespacePrefix(i);
+        inScope.put(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+      }
+      writeStartElement(writer, inScope);
+      int depth = 1;
+      while (depth > 0) {
+        switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          writeStartElement(writer, null);
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          writer.writeEndElement();
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          break;
+        default:
+          break;
+        }
+      }
+      writer.close();
+      return out.toByteArray();
+    }
+
+    /**
+     * Writes the current start element with its attributes; the namespace declarations
+     * are taken from the given map or, if it is <code>null</code>, from the element itself.
+     */
+    private void writeStartElement(final XMLStreamWriter writer, final Map<String, String> namespaces) throws XMLStreamException {
+      final String prefix = reader.getPrefix();
+      final String namespaceUri = reader.getNamespaceURI();
+      writer.writeStartElement(prefix == null ? "" : prefix, reader.getLocalName(), namespaceUri == null ? "" : namespaceUri);
+      if (namespaces == null) {
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+          writeNamespace(writer, reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+        }
+      } else {
+        for (final Map.Entry<String, String> namespace : namespaces.entrySet()) {
+          writeNamespace(writer, namespace.getKey(), namespace.getValue());
+        }
+      }
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+        final String attributeNamespace = reader.getAttributeNamespace(i);
+        if (attributeNamespace == null || attributeNamespace.length() == 0) {
+          writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        } else {
+          writer.writeAttribute(reader.getAttributePrefix(i), attributeNamespace, reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+      }
+    }
+
+    private void writeNamespace(final XMLStreamWriter writer, final String prefix, final String namespaceUri) throws XMLStreamException {
+      if (prefix == null || prefix.length() == 0) {
+        writer.writeDefaultNamespace(namespaceUri);
+      } else {
+        writer.writeNamespace(prefix, namespaceUri);
+      }
+    }
+  }
+}
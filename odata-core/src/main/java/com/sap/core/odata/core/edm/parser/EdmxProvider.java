@@ -27,150 +27,102 @@ import com.sap.core.odata.api.edm.provider.Association;
 import com.sap.core.odata.api.edm.provider.AssociationSet;
 import com.sap.core.odata.api.edm.provider.ComplexType;
 import com.sap.core.odata.api.edm.provider.DataServices;
-import com.sap.core.odata.api.edm.provider.EdmProvider;
-import com.sap.core.odata.api.edm.provider.EntityContainer;
 import com.sap.core.odata.api.edm.provider.EntityContainerInfo;
 import com.sap.core.odata.api.edm.provider.EntitySet;
 import com.sap.core.odata.api.edm.provider.EntityType;
 import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.IndexedEdmProvider;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.exception.ODataException;
 
-public class EdmxProvider extends EdmProvider {
+/**
+ * EDM provider for a metadata document.
+ * <p>The document is either parsed completely, see {@link #parse(InputStream, boolean)},
+ * or only indexed, see {@link #parseLazily(InputStream, boolean)}.</p>
+ * @author SAP AG
+ */
+public class EdmxProvider extends IndexedEdmProvider {
   private DataServices dataServices;
+  private EdmxIndex elementIndex;
 
   public EdmxProvider parse(final InputStream in, final boolean validate) throws EntityProviderException {
     EdmParser parser = new EdmParser();
-    XMLStreamReader streamReader = createStreamReader(in);
+    XMLStreamReader streamReader = createStreamReader(createInputFactory(), in);
     dataServices = parser.readMetadata(streamReader, validate);
+    elementIndex = null;
+    resetIndex();
     return this;
   }
 
+  /**
+   * Indexes the metadata document in one streaming pass without building the model.
+   * Each element of a schema or of an entity container is read, and validated if requested,
+   * when it is requested for the first time; this saves time and memory for huge
+   * documents of which only a few elements are used.
+   * @param in the metadata document
+   * @param validate whether the elements should be validated when they are read
+   * @return this provider
+   * @throws EntityProviderException if the document could not be read
+   */
+  public EdmxProvider parseLazily(final InputStream in, final boolean validate) throws EntityProviderException {
+    final XMLInputFactory factory = createInputFactory();
+    elementIndex = EdmxIndex.build(createStreamReader(factory, in), validate, factory);
+    dataServices = null;
+    resetIndex();
+    return this;
+  }
+
+  @Override
+  public List<Schema> getSchemas() throws ODataException {
+    return elementIndex == null ? dataServices.getSchemas() : elementIndex.getSchemas();
+  }
+
   @Override
   public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
-    if (name != null) {
-      for (Schema schema : dataServices.getSchemas()) {
-        for (EntityContainer container : schema.getEntityContainers()) {
-          if (container.getName().equals(name)) {
-            return container;
-          }
-        }
-      }
-    } else {
-      for (Schema schema : dataServices.getSchemas()) {
-        for (EntityContainer container : schema.getEntityContainers()) {
-          if (container.isDefaultEntityContainer()) {
-            return container;
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getEntityContainerInfo(name) : elementIndex.getEntityContainerInfo(name);
   }
 
   @Override
   public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
-        for (EntityType entityType : schema.getEntityTypes()) {
-          if (entityType.getName().equals(edmFQName.getName())) {
-            return entityType;
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getEntityType(edmFQName) : elementIndex.getEntityType(edmFQName);
   }
 
   @Override
   public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
-        for (ComplexType complexType : schema.getComplexTypes()) {
-          if (complexType.getName().equals(edmFQName.getName())) {
-            return complexType;
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getComplexType(edmFQName) : elementIndex.getComplexType(edmFQName);
   }
 
   @Override
   public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      if (schema.getNamespace().equals(edmFQName.getNamespace())) {
-        for (Association association : schema.getAssociations()) {
-          if (association.getName().equals(edmFQName.getName())) {
-            return association;
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getAssociation(edmFQName) : elementIndex.getAssociation(edmFQName);
   }
 
   @Override
   public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (EntitySet entitySet : container.getEntitySets()) {
-            if (entitySet.getName().equals(name)) {
-              return entitySet;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getEntitySet(entityContainer, name) : elementIndex.getEntitySet(entityContainer, name);
   }
 
   @Override
   public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association, final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (AssociationSet associationSet : container.getAssociationSets()) {
-            if (associationSet.getAssociation().equals(association)
-                && ((associationSet.getEnd1().getEntitySet().equals(sourceEntitySetName) && associationSet.getEnd1().getRole().equals(sourceEntitySetRole))
-                || (associationSet.getEnd2().getEntitySet().equals(sourceEntitySetName) && associationSet.getEnd2().getRole().equals(sourceEntitySetRole)))) {
-              return associationSet;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ?
+        super.getAssociationSet(entityContainer, association, sourceEntitySetName, sourceEntitySetRole) :
+        elementIndex.getAssociationSet(entityContainer, association, sourceEntitySetName, sourceEntitySetRole);
   }
 
   @Override
   public FunctionImport getFunctionImport(final String entityContainer, final String name) throws ODataException {
-    for (Schema schema : dataServices.getSchemas()) {
-      for (EntityContainer container : schema.getEntityContainers()) {
-        if (container.getName().equals(entityContainer)) {
-          for (FunctionImport function : container.getFunctionImports()) {
-            if (function.getName().equals(name)) {
-              return function;
-            }
-          }
-        }
-      }
-    }
-    return null;
+    return elementIndex == null ? super.getFunctionImport(entityContainer, name) : elementIndex.getFunctionImport(entityContainer, name);
   }
 
-  @Override
-  public List<Schema> getSchemas() throws ODataException {
-    return dataServices.getSchemas();
-  }
-
-  private XMLStreamReader createStreamReader(final InputStream in) throws EntityProviderException {
+  private XMLInputFactory createInputFactory() {
     XMLInputFactory factory = XMLInputFactory.newInstance();
     factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
     factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    return factory;
+  }
 
+  private XMLStreamReader createStreamReader(final XMLInputFactory factory, final InputStream in) throws EntityProviderException {
     XMLStreamReader streamReader;
     try {
       streamReader = factory.createXMLStreamReader(in);
@@ -0,0 +1,805 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.provider;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sap.core.odata.api.edm.EdmAction;
+import com.sap.core.odata.api.edm.EdmConcurrencyMode;
+import com.sap.core.odata.api.edm.EdmContentKind;
+import com.sap.core.odata.api.edm.EdmMultiplicity;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.edm.provider.AnnotationAttribute;
+import com.sap.core.odata.api.edm.provider.AnnotationElement;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationEnd;
+import com.sap.core.odata.api.edm.provider.AssociationSet;
+import com.sap.core.odata.api.edm.provider.AssociationSetEnd;
+import com.sap.core.odata.api.edm.provider.ComplexProperty;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.CustomizableFeedMappings;
+import com.sap.core.odata.api.edm.provider.Documentation;
+import com.sap.core.odata.api.edm.provider.EntityContainer;
+import com.sap.core.odata.api.edm.provider.EntityContainerInfo;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.edm.provider.Facets;
+import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.FunctionImportParameter;
+import com.sap.core.odata.api.edm.provider.IndexedEdmProvider;
+import com.sap.core.odata.api.edm.provider.Key;
+import com.sap.core.odata.api.edm.provider.Mapping;
+import com.sap.core.odata.api.edm.provider.NavigationProperty;
+import com.sap.core.odata.api.edm.provider.OnDelete;
+import com.sap.core.odata.api.edm.provider.Property;
+import com.sap.core.odata.api.edm.provider.PropertyRef;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraint;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraintRole;
+import com.sap.core.odata.api.edm.provider.ReturnType;
+import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.edm.provider.SimpleProperty;
+import com.sap.core.odata.api.edm.provider.Using;
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.exception.ODataException;
+
+/**
+ * EDM provider for a snapshot written by {@link EdmSnapshotWriter}.
+ * <p>Loading a snapshot reads only its directory; each element is decoded
+ * from the snapshot buffer when it is requested for the first time and then cached.
+ * The buffer is typically a memory-mapped snapshot file.</p>
+ * @author SAP AG
+ */
+public class EdmSnapshotProvider extends IndexedEdmProvider {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+  private final int stringOffsets;
+  private final int stringData;
+  private final String[] strings;
+  private final int data;
+
+  private final List<SchemaEntry> schemas = new ArrayList<SchemaEntry>();
+  private final Map<FullQualifiedName, Integer> entityTypeOffsets = new HashMap<FullQualifiedName, Integer>();
+  private final Map<FullQualifiedName, Integer> complexTypeOffsets = new HashMap<FullQualifiedName, Integer>();
+  private final Map<FullQualifiedName, Integer> associationOffsets = new HashMap<FullQualifiedName, Integer>();
+  private final Map<String, ContainerEntry> containers = new HashMap<String, ContainerEntry>();
+
+  private final ConcurrentMap<FullQualifiedName, EntityType> entityTypes = new ConcurrentHashMap<FullQualifiedName, EntityType>();
+  private final ConcurrentMap<FullQualifiedName, ComplexType> complexTypes = new ConcurrentHashMap<FullQualifiedName, ComplexType>();
+  private final ConcurrentMap<FullQualifiedName, Association> associations = new ConcurrentHashMap<FullQualifiedName, Association>();
+  private volatile List<Schema> materializedSchemas;
+
+  /**
+   * Creates a provider for the snapshot in the given buffer.
+   * @param snapshot the buffer; its content from the current position on is the snapshot
+   *                 and must not be changed afterwards
+   * @throws EntityProviderException if the buffer does not contain a snapshot
+   */
+  public EdmSnapshotProvider(final ByteBuffer snapshot) throws EntityProviderException {
+    buffer = snapshot.slice();
+    try {
+      if (buffer.getInt(0) != EdmSnapshotWriter.MAGIC || buffer.getInt(4) != EdmSnapshotWriter.VERSION) {
+        throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Unsupported EDM snapshot"));
+      }
+      final int stringCount = buffer.getInt(8);
+      strings = new String[stringCount];
+      stringOffsets = 12;
+      stringData = stringOffsets + 4 * (stringCount + 1);
+      final int directory = stringData + buffer.getInt(stringOffsets + 4 * stringCount);
+      data = directory + 4 + buffer.getInt(directory) + 4;
+      readDirectory(new Cursor(directory + 4));
+    } catch (final IndexOutOfBoundsException e) {
+      throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT.addContent("Unsupported EDM snapshot"), e);
+    }
+  }
+
+  private void readDirectory(final Cursor directory) {
+    final int schemaCount = directory.readInt();
+    for (int i = 0; i < schemaCount; i++) {
+      SchemaEntry schema = new SchemaEntry(directory.readInt());
+      schemas.add(schema);
+      final String namespace = new Cursor(data + schema.offset).readString();
+      schema.entityTypeNames = readNames(directory, namespace, entityTypeOffsets);
+      schema.complexTypeNames = readNames(directory, namespace, complexTypeOffsets);
+      schema.associationNames = readNames(directory, namespace, associationOffsets);
+      final int containerCount = directory.readInt();
+      if (containerCount >= 0) {
+        schema.entityContainers = new ArrayList<ContainerEntry>(containerCount);
+        for (int j = 0; j < containerCount; j++) {
+          final String name = directory.readString();
+          final boolean isDefault = directory.readBoolean();
+          ContainerEntry container = new ContainerEntry(directory.readInt());
+          container.entitySetOffsets = readNames(directory);
+          final int associationSetCount = directory.readInt();
+          if (associationSetCount >= 0) {
+            container.associationSetOffsets = new int[associationSetCount];
+            for (int k = 0; k < associationSetCount; k++) {
+              container.associationSetOffsets[k] = directory.readInt();
+            }
+          }
+          container.functionImportOffsets = readNames(directory);
+          schema.entityContainers.add(container);
+          putFirst(containers, name, container);
+          if (isDefault) {
+            putFirst(containers, null, container);
+          }
+        }
+      }
+    }
+  }
+
+  private List<FullQualifiedName> readNames(final Cursor directory, final String namespace, final Map<FullQualifiedName, Integer> offsets) {
+    final int count = directory.readInt();
+    if (count < 0) {
+      return null;
+    }
+    List<FullQualifiedName> names = new ArrayList<FullQualifiedName>(count);
+    for (int i = 0; i < count; i++) {
+      final FullQualifiedName name = new FullQualifiedName(namespace, directory.readString());
+      putFirst(offsets, name, directory.readInt());
+      names.add(name);
+    }
+    return names;
+  }
+
+  private Map<String, Integer> readNames(final Cursor directory) {
+    final int count = directory.readInt();
+    if (count < 0) {
+      return null;
+    }
+    Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+    for (int i = 0; i < count; i++) {
+      putFirst(offsets, directory.readString(), directory.readInt());
+    }
+    return offsets;
+  }
+
+  @Override
+  public List<Schema> getSchemas() throws ODataException {
+    List<Schema> result = materializedSchemas;
+    if (result == null) {
+      result = new ArrayList<Schema>(schemas.size());
+      for (final SchemaEntry entry : schemas) {
+        result.add(entry.getSchema());
+      }
+      materializedSchemas = result;
+    }
+    return result;
+  }
+
+  @Override
+  public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+    EntityType entityType = entityTypes.get(edmFQName);
+    if (entityType == null) {
+      final Integer offset = entityTypeOffsets.get(edmFQName);
+      if (offset == null) {
+        return null;
+      }
+      entityType = putIfAbsent(entityTypes, edmFQName, new Cursor(data + offset).readEntityType());
+    }
+    return entityType;
+  }
+
+  @Override
+  public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+    ComplexType complexType = complexTypes.get(edmFQName);
+    if (complexType == null) {
+      final Integer offset = complexTypeOffsets.get(edmFQName);
+      if (offset == null) {
+        return null;
+      }
+      Cursor cursor = new Cursor(data + offset);
+      complexType = putIfAbsent(complexTypes, edmFQName, cursor.readComplexType(new ComplexType()));
+    }
+    return complexType;
+  }
+
+  @Override
+  public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+    Association association = associations.get(edmFQName);
+    if (association == null) {
+      final Integer offset = associationOffsets.get(edmFQName);
+      if (offset == null) {
+        return null;
+      }
+      association = putIfAbsent(associations, edmFQName, new Cursor(data + offset).readAssociation());
+    }
+    return association;
+  }
+
+  @Override
+  public EntityContainerInfo getEntityContainerInfo(final String name) throws ODataException {
+    final ContainerEntry container = containers.get(name);
+    return container == null ? null : container.getContainer();
+  }
+
+  @Override
+  public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
+    final ContainerEntry container = containers.get(entityContainer);
+    return container == null ? null : container.getEntitySet(name);
+  }
+
+  @Override
+  public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association, final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
+    final ContainerEntry container = containers.get(entityContainer);
+    if (container == null || container.getAssociationSets() == null) {
+      return null;
+    }
+    for (final AssociationSet associationSet : container.getAssociationSets()) {
+      if (association.equals(associationSet.getAssociation())
+          && (matches(associationSet.getEnd1(), sourceEntitySetName, sourceEntitySetRole)
+          || matches(associationSet.getEnd2(), sourceEntitySetName, sourceEntitySetRole))) {
+        return associationSet;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public FunctionImport getFunctionImport(final String entityContainer, final String name) throws ODataException {
+    final ContainerEntry container = containers.get(entityContainer);
+    return container == null ? null : container.getFunctionImport(name);
+  }
+
+  private static boolean matches(final AssociationSetEnd end, final String entitySetName, final String role) {
+    return end != null
+        && (entitySetName == null ? end.getEntitySet() == null : entitySetName.equals(end.getEntitySet()))
+        && (role == null ? end.getRole() == null : role.equals(end.getRole()));
+  }
+
+  private static <K, V> V putIfAbsent(final ConcurrentMap<K, V> map, final K key, final V value) {
+    final V previous = map.putIfAbsent(key, value);
+    return previous == null ? value : previous;
+  }
+
+  private static <K, V> void putFirst(final Map<K, V> map, final K key, final V value) {
+    if (!map.containsKey(key)) {
+      map.put(key, value);
+    }
+  }
+
+  private String getString(final int index) {
+    if (index < 0) {
+      return null;
+    }
+    String string = strings[index];
+    if (string == null) {
+      final int start = buffer.getInt(stringOffsets + 4 * index);
+      byte[] bytes = new byte[buffer.getInt(stringOffsets + 4 * (index + 1)) - start];
+      ByteBuffer source = buffer.duplicate();
+      source.position(stringData + start);
+      source.get(bytes);
+      string = new String(bytes, UTF_8);
+      // Strings are immutable, so a concurrent decoding of the same string is harmless.
+      strings[index] = string;
+    }
+    return string;
+  }
+
+  /**
+   * Directory entry of a schema.
+   */
+  private final class SchemaEntry {
+    private final int offset;
+    private List<FullQualifiedName> entityTypeNames;
+    private List<FullQualifiedName> complexTypeNames;
+    private List<FullQualifiedName> associationNames;
+    private List<ContainerEntry> entityContainers;
+
+    private SchemaEntry(final int offset) {
+      this.offset = offset;
+    }
+
+    private Schema getSchema() throws ODataException {
+      Cursor cursor = new Cursor(data + offset);
+      Schema schema = new Schema();
+      schema.setNamespace(cursor.readString());
+      schema.setAlias(cursor.readString());
+      final int usingCount = cursor.readInt();
+      if (usingCount >= 0) {
+        List<Using> usings = new ArrayList<Using>(usingCount);
+        for (int i = 0; i < usingCount; i++) {
+          Using using = new Using();
+          using.setNamespace(cursor.readString());
+          using.setAlias(cursor.readString());
+          using.setDocumentation(cursor.readDocumentation());
+          using.setAnnotationAttributes(cursor.readAnnotationAttributes());
+          using.setAnnotationElements(cursor.readAnnotationElements());
+          usings.add(using);
+        }
+        schema.setUsings(usings);
+      }
+      schema.setAnnotationAttributes(cursor.readAnnotationAttributes());
+      schema.setAnnotationElements(cursor.readAnnotationElements());
+
+      if (entityTypeNames != null) {
+        List<EntityType> entityTypeList = new ArrayList<EntityType>(entityTypeNames.size());
+        for (final FullQualifiedName name : entityTypeNames) {
+          entityTypeList.add(getEntityType(name));
+        }
+        schema.setEntityTypes(entityTypeList);
+      }
+      if (complexTypeNames != null) {
+        List<ComplexType> complexTypeList = new ArrayList<ComplexType>(complexTypeNames.size());
+        for (final FullQualifiedName name : complexTypeNames) {
+          complexTypeList.add(getComplexType(name));
+        }
+        schema.setComplexTypes(complexTypeList);
+      }
+      if (associationNames != null) {
+        List<Association> associationList = new ArrayList<Association>(associationNames.size());
+        for (final FullQualifiedName name : associationNames) {
+          associationList.add(getAssociation(name));
+        }
+        schema.setAssociations(associationList);
+      }
+      if (entityContainers != null) {
+        List<EntityContainer> containerList = new ArrayList<EntityContainer>(entityContainers.size());
+        for (final ContainerEntry container : entityContainers) {
+          containerList.add(container.getCompleteContainer());
+        }
+        schema.setEntityContainers(containerList);
+      }
+      return schema;
+    }
+  }
+
+  /**
+   * Directory entry of an entity container.
+   */
+  private final class ContainerEntry {
+    private final int offset;
+    private Map<String, Integer> entitySetOffsets;
+    private int[] associationSetOffsets;
+    private Map<String, Integer> functionImportOffsets;
+
+    private final ConcurrentMap<String, EntitySet> entitySets = new ConcurrentHashMap<String, EntitySet>();
+    private final ConcurrentMap<String, FunctionImport> functionImports = new ConcurrentHashMap<String, FunctionImport>();
+    private volatile EntityContainer entityContainer;
+    private volatile List<AssociationSet> associationSets;
+
+    private ContainerEntry(final int offset) {
+      this.offset = offset;
+    }
+
+    private EntityContainer getContainer() {
+      EntityContainer result = entityContainer;
+      if (result == null) {
+        Cursor cursor = new Cursor(data + offset);
+        result = new EntityContainer();
+        result.setName(cursor.readString());
+        result.setExtendz(cursor.readString());
+        result.setDefaultEntityContainer(cursor.readBoolean());
+        result.setDocumentation(cursor.readDocumentation());
+        result.setAnnotationAttributes(cursor.readAnnotationAttributes());
+        result.setAnnotationElements(cursor.readAnnotationElements());
+        entityContainer = result;
+      }
+      return result;
+    }
+
+    private EntitySet getEntitySet(final String name) {
+      EntitySet entitySet = entitySets.get(name);
+      if (entitySet == null) {
+        final Integer entitySetOffset = entitySetOffsets == null ? null : entitySetOffsets.get(name);
+        if (entitySetOffset == null) {
+          return null;
+        }
+        Cursor cursor = new Cursor(data + entitySetOffset);
+        entitySet = new EntitySet();
+        entitySet.setName(cursor.readString());
+        entitySet.setEntityType(cursor.readName());
+        entitySet.setMapping(cursor.readMapping());
+        entitySet.setDocumentation(cursor.readDocumentation());
+        entitySet.setAnnotationAttributes(cursor.readAnnotationAttributes());
+        entitySet.setAnnotationElements(cursor.readAnnotationElements());
+        entitySet = putIfAbsent(entitySets, name, entitySet);
+      }
+      return entitySet;
+    }
+
+    private FunctionImport getFunctionImport(final String name) {
+      FunctionImport functionImport = functionImports.get(name);
+      if (functionImport == null) {
+        final Integer functionImportOffset = functionImportOffsets == null ? null : functionImportOffsets.get(name);
+        if (functionImportOffset == null) {
+          return null;
+        }
+        functionImport = putIfAbsent(functionImports, name, new Cursor(data + functionImportOffset).readFunctionImport());
+      }
+      return functionImport;
+    }
+
+    private List<AssociationSet> getAssociationSets() {
+      List<AssociationSet> result = associationSets;
+      if (result == null && associationSetOffsets != null) {
+        result = new ArrayList<AssociationSet>(associationSetOffsets.length);
+        for (final int associationSetOffset : associationSetOffsets) {
+          Cursor cursor = new Cursor(data + associationSetOffset);
+          AssociationSet associationSet = new AssociationSet();
+          associationSet.setName(cursor.readString());
+          associationSet.setAssociation(cursor.readName());
+          associationSet.setEnd1(cursor.readAssociationSetEnd());
+          associationSet.setEnd2(cursor.readAssociationSetEnd());
+          associationSet.setDocumentation(cursor.readDocumentation());
+          associationSet.setAnnotationAttributes(cursor.readAnnotationAttributes());
+          associationSet.setAnnotationElements(cursor.readAnnotationElements());
+          result.add(associationSet);
+        }
+        associationSets = result;
+      }
+      return result;
+    }
+
+    private EntityContainer getCompleteContainer() {
+      EntityContainer result = getContainer();
+      if (entitySetOffsets != null) {
+        List<EntitySet> entitySetList = new ArrayList<EntitySet>(entitySetOffsets.size());
+        for (final String name : entitySetOffsets.keySet()) {
+          entitySetList.add(getEntitySet(name));
+        }
+        result.setEntitySets(entitySetList);
+      }
+      result.setAssociationSets(getAssociationSets());
+      if (functionImportOffsets != null) {
+        List<FunctionImport> functionImportList = new ArrayList<FunctionImport>(functionImportOffsets.size());
+        for (final String name : functionImportOffsets.keySet()) {
+          functionImportList.add(getFunctionImport(name));
+        }
+        result.setFunctionImports(functionImportList);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Reading position in the snapshot buffer; the buffer is only accessed
+   * with absolute reads so that cursors can be used concurrently.
+   */
+  private final class Cursor {
+    private int position;
+
+    private Cursor(final int position) {
+      this.position = position;
+    }
+
+    private int readInt() {
+      final int value = buffer.getInt(position);
+      position += 4;
+      return value;
+    }
+
+    private byte readByte() {
+      return buffer.get(position++);
+    }
+
+    private boolean readBoolean() {
+      return readByte() != 0;
+    }
+
+    private String readString() {
+      return getString(readInt());
+    }
+
+    private Boolean readNullableBoolean() {
+      final byte value = readByte();
+      return value == 0 ? null : Boolean.valueOf(value == 2);
+    }
+
+    private Integer readInteger() {
+      return readBoolean() ? Integer.valueOf(readInt()) : null;
+    }
+
+    private <T extends Enum<T>> T readEnum(final Class<T> enumType) {
+      final String name = readString();
+      return name == null ? null : Enum.valueOf(enumType, name);
+    }
+
+    private FullQualifiedName readName() {
+      if (readBoolean()) {
+        final String namespace = readString();
+        return new FullQualifiedName(namespace, readString());
+      }
+      return null;
+    }
+
+    private ComplexType readComplexType(final ComplexType complexType) {
+      complexType.setName(readString());
+      complexType.setBaseType(readName());
+      complexType.setAbstract(readBoolean());
+      final int propertyCount = readInt();
+      if (propertyCount >= 0) {
+        List<Property> properties = new ArrayList<Property>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+          properties.add(readProperty());
+        }
+        complexType.setProperties(properties);
+      }
+      complexType.setMapping(readMapping());
+      complexType.setDocumentation(readDocumentation());
+      complexType.setAnnotationAttributes(readAnnotationAttributes());
+      complexType.setAnnotationElements(readAnnotationElements());
+      return complexType;
+    }
+
+    private EntityType readEntityType() {
+      EntityType entityType = new EntityType();
+      readComplexType(entityType);
+      entityType.setHasStream(readBoolean());
+      entityType.setCustomizableFeedMappings(readCustomizableFeedMappings());
+      if (readBoolean()) {
+        Key key = new Key();
+        key.setKeys(readPropertyRefs());
+        key.setAnnotationAttributes(readAnnotationAttributes());
+        key.setAnnotationElements(readAnnotationElements());
+        entityType.setKey(key);
+      }
+      final int navigationPropertyCount = readInt();
+      if (navigationPropertyCount >= 0) {
+        List<NavigationProperty> navigationProperties = new ArrayList<NavigationProperty>(navigationPropertyCount);
+        for (int i = 0; i < navigationPropertyCount; i++) {
+          NavigationProperty navigationProperty = new NavigationProperty();
+          navigationProperty.setName(readString());
+          navigationProperty.setRelationship(readName());
+          navigationProperty.setFromRole(readString());
+          navigationProperty.setToRole(readString());
+          navigationProperty.setDocumentation(readDocumentation());
+          navigationProperty.setMapping(readMapping());
+          navigationProperty.setAnnotationAttributes(readAnnotationAttributes());
+          navigationProperty.setAnnotationElements(readAnnotationElements());
+          navigationProperties.add(navigationProperty);
+        }
+        entityType.setNavigationProperties(navigationProperties);
+      }
+      return entityType;
+    }
+
+    private Property readProperty() {
+      Property property;
+      if (readByte() == EdmSnapshotWriter.SIMPLE_PROPERTY) {
+        property = new SimpleProperty().setType(readEnum(EdmSimpleTypeKind.class));
+      } else {
+        property = new ComplexProperty().setType(readName());
+      }
+      property.setName(readString());
+      property.setFacets(readFacets());
+      property.setCustomizableFeedMappings(readCustomizableFeedMappings());
+      property.setMimeType(readString());
+      property.setMapping(readMapping());
+      property.setDocumentation(readDocumentation());
+      property.setAnnotationAttributes(readAnnotationAttributes());
+      property.setAnnotationElements(readAnnotationElements());
+      return property;
+    }
+
+    private Association readAssociation() {
+      Association association = new Association();
+      association.setName(readString());
+      association.setEnd1(readAssociationEnd());
+      association.setEnd2(readAssociationEnd());
+      if (readBoolean()) {
+        ReferentialConstraint constraint = new ReferentialConstraint();
+        constraint.setPrincipal(readReferentialConstraintRole());
+        constraint.setDependent(readReferentialConstraintRole());
+        constraint.setDocumentation(readDocumentation());
+        constraint.setAnnotationAttributes(readAnnotationAttributes());
+        constraint.setAnnotationElements(readAnnotationElements());
+        association.setReferentialConstraint(constraint);
+      }
+      association.setDocumentation(readDocumentation());
+      association.setAnnotationAttributes(readAnnotationAttributes());
+      association.setAnnotationElements(readAnnotationElements());
+      return association;
+    }
+
+    private AssociationEnd readAssociationEnd() {
+      if (!readBoolean()) {
+        return null;
+      }
+      AssociationEnd end = new AssociationEnd();
+      end.setType(readName());
+      end.setRole(readString());
+      end.setMultiplicity(readEnum(EdmMultiplicity.class));
+      if (readBoolean()) {
+        OnDelete onDelete = new OnDelete();
+        onDelete.setAction(readEnum(EdmAction.class));
+        onDelete.setDocumentation(readDocumentation());
+        onDelete.setAnnotationAttributes(readAnnotationAttributes());
+        onDelete.setAnnotationElements(readAnnotationElements());
+        end.setOnDelete(onDelete);
+      }
+      end.setDocumentation(readDocumentation());
+      end.setAnnotationAttributes(readAnnotationAttributes());
+      end.setAnnotationElements(readAnnotationElements());
+      return end;
+    }
+
+    private ReferentialConstraintRole readReferentialConstraintRole() {
+      if (!readBoolean()) {
+        return null;
+      }
+      ReferentialConstraintRole role = new ReferentialConstraintRole();
+      role.setRole(readString());
+      role.setPropertyRefs(readPropertyRefs());
+      role.setAnnotationAttributes(readAnnotationAttributes());
+      role.setAnnotationElements(readAnnotationElements());
+      return role;
+    }
+
+    private List<PropertyRef> readPropertyRefs() {
+      final int count = readInt();
+      if (count < 0) {
+        return null;
+      }
+      List<PropertyRef> propertyRefs = new ArrayList<PropertyRef>(count);
+      for (int i = 0; i < count; i++) {
+        PropertyRef propertyRef = new PropertyRef();
+        propertyRef.setName(readString());
+        propertyRef.setAnnotationAttributes(readAnnotationAttributes());
+        propertyRef.setAnnotationElements(readAnnotationElements());
+        propertyRefs.add(propertyRef);
+      }
+      return propertyRefs;
+    }
+
+    private AssociationSetEnd readAssociationSetEnd() {
+      if (!readBoolean()) {
+        return null;
+      }
+      AssociationSetEnd end = new AssociationSetEnd();
+      end.setRole(readString());
+      end.setEntitySet(readString());
+      end.setDocumentation(readDocumentation());
+      end.setAnnotationAttributes(readAnnotationAttributes());
+      end.setAnnotationElements(readAnnotationElements());
+      return end;
+    }
+
+    private FunctionImport readFunctionImport() {
+      FunctionImport functionImport = new FunctionImport();
+      functionImport.setName(readString());
+      if (readBoolean()) {
+        ReturnType returnType = new ReturnType();
+        returnType.setTypeName(readName());
+        returnType.setMultiplicity(readEnum(EdmMultiplicity.class));
+        functionImport.setReturnType(returnType);
+      }
+      functionImport.setEntitySet(readString());
+      functionImport.setHttpMethod(readString());
+      final int parameterCount = readInt();
+      if (parameterCount >= 0) {
+        List<FunctionImportParameter> parameters = new ArrayList<FunctionImportParameter>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+          FunctionImportParameter parameter = new FunctionImportParameter();
+          parameter.setName(readString());
+          parameter.setMode(readString());
+          parameter.setType(readEnum(EdmSimpleTypeKind.class));
+          parameter.setFacets(readFacets());
+          parameter.setMapping(readMapping());
+          parameter.setDocumentation(readDocumentation());
+          parameter.setAnnotationAttributes(readAnnotationAttributes());
+          parameter.setAnnotationElements(readAnnotationElements());
+          parameters.add(parameter);
+        }
+        functionImport.setParameters(parameters);
+      }
+      functionImport.setMapping(readMapping());
+      functionImport.setDocumentation(readDocumentation());
+      functionImport.setAnnotationAttributes(readAnnotationAttributes());
+      functionImport.setAnnotationElements(readAnnotationElements());
+      return functionImport;
+    }
+
+    private Facets readFacets() {
+      if (!readBoolean()) {
+        return null;
+      }
+      Facets facets = new Facets();
+      facets.setNullable(readNullableBoolean());
+      facets.setDefaultValue(readString());
+      facets.setMaxLength(readInteger());
+      facets.setFixedLength(readNullableBoolean());
+      facets.setPrecision(readInteger());
+      facets.setScale(readInteger());
+      facets.setUnicode(readNullableBoolean());
+      facets.setCollation(readString());
+      facets.setConcurrencyMode(readEnum(EdmConcurrencyMode.class));
+      return facets;
+    }
+
+    private CustomizableFeedMappings readCustomizableFeedMappings() {
+      if (!readBoolean()) {
+        return null;
+      }
+      CustomizableFeedMappings mappings = new CustomizableFeedMappings();
+      mappings.setFcKeepInContent(readNullableBoolean());
+      mappings.setFcContentKind(readEnum(EdmContentKind.class));
+      mappings.setFcNsPrefix(readString());
+      mappings.setFcNsUri(readString());
+      mappings.setFcSourcePath(readString());
+      mappings.setFcTargetPath(readString());
+      return mappings;
+    }
+
+    private Mapping readMapping() {
+      if (!readBoolean()) {
+        return null;
+      }
+      Mapping mapping = new Mapping();
+      mapping.setInternalName(readString());
+      mapping.setMimeType(readString());
+      return mapping;
+    }
+
+    private Documentation readDocumentation() {
+      if (!readBoolean()) {
+        return null;
+      }
+      Documentation documentation = new Documentation();
+      documentation.setSummary(readString());
+      documentation.setLongDescription(readString());
+      documentation.setAnnotationAttributes(readAnnotationAttributes());
+      documentation.setAnnotationElements(readAnnotationElements());
+      return documentation;
+    }
+
+    private List<AnnotationAttribute> readAnnotationAttributes() {
+      final int count = readInt();
+      if (count < 0) {
+        return null;
+      }
+      List<AnnotationAttribute> attributes = new ArrayList<AnnotationAttribute>(count);
+      for (int i = 0; i < count; i++) {
+        AnnotationAttribute attribute = new AnnotationAttribute();
+        attribute.setNamespace(readString());
+        attribute.setPrefix(readString());
+        attribute.setName(readString());
+        attribute.setText(readString());
+        attributes.add(attribute);
+      }
+      return attributes;
+    }
+
+    private List<AnnotationElement> readAnnotationElements() {
+      final int count = readInt();
+      if (count < 0) {
+        return null;
+      }
+      List<AnnotationElement> elements = new ArrayList<AnnotationElement>(count);
+      for (int i = 0; i < count; i++) {
+        AnnotationElement element = new AnnotationElement();
+        element.setNamespace(readString());
+        element.setPrefix(readString());
+        element.setName(readString());
+        element.setText(readString());
+        element.setChildElements(readAnnotationElements());
+        element.setAttributes(readAnnotationAttributes());
+        elements.add(element);
+      }
+      return elements;
+    }
+  }
+}
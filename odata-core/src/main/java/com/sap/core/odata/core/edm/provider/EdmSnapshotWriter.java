@@ -0,0 +1,532 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.core.odata.api.edm.EdmFacets;
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.edm.provider.AnnotationAttribute;
+import com.sap.core.odata.api.edm.provider.AnnotationElement;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationEnd;
+import com.sap.core.odata.api.edm.provider.AssociationSet;
+import com.sap.core.odata.api.edm.provider.AssociationSetEnd;
+import com.sap.core.odata.api.edm.provider.ComplexProperty;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.CustomizableFeedMappings;
+import com.sap.core.odata.api.edm.provider.Documentation;
+import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.edm.provider.EntityContainer;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.FunctionImportParameter;
+import com.sap.core.odata.api.edm.provider.Key;
+import com.sap.core.odata.api.edm.provider.Mapping;
+import com.sap.core.odata.api.edm.provider.NavigationProperty;
+import com.sap.core.odata.api.edm.provider.OnDelete;
+import com.sap.core.odata.api.edm.provider.Property;
+import com.sap.core.odata.api.edm.provider.PropertyRef;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraint;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraintRole;
+import com.sap.core.odata.api.edm.provider.ReturnType;
+import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.edm.provider.SimpleProperty;
+import com.sap.core.odata.api.edm.provider.Using;
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.core.edm.parser.EdmxProvider;
+
+/**
+ * Writer of EDM snapshots, a compact binary form of the schemas of an
+ * {@link EdmProvider} which is read by {@link EdmSnapshotProvider}.
+ * <p>A snapshot consists of
+ * <ul>
+ * <li>a header with a magic number and the format version,</li>
+ * <li>a table of all distinct strings, referenced by their index,</li>
+ * <li>a directory with the names and data offsets of all elements of the schemas
+ * and of the entity containers and</li>
+ * <li>the data of the elements.</li>
+ * </ul>
+ * The directory allows the reader to decode each element on its first request.
+ * The <code>object</code> of a {@link Mapping} is not part of a snapshot.</p>
+ * <p>A snapshot can be created during the build with {@link #main(String[])}.</p>
+ * @author SAP AG
+ */
+public class EdmSnapshotWriter {
+
+  static final int MAGIC = 0x45444D53;
+  static final int VERSION = 1;
+
+  static final byte SIMPLE_PROPERTY = 1;
+  static final byte COMPLEX_PROPERTY = 2;
+
+  private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+  private final List<String> strings = new ArrayList<String>();
+  private final ByteArrayOutputStream dataBuffer = new ByteArrayOutputStream();
+  private final DataOutputStream data = new DataOutputStream(dataBuffer);
+  private final ByteArrayOutputStream directoryBuffer = new ByteArrayOutputStream();
+  private final DataOutputStream directory = new DataOutputStream(directoryBuffer);
+
+  private EdmSnapshotWriter() {}
+
+  /**
+   * Writes a snapshot of the given schemas.
+   * @param schemas the schemas, e.g., from {@link EdmProvider#getSchemas()}
+   * @param out the output stream; it is flushed but not closed
+   * @throws EntityProviderException if the snapshot could not be written
+   */
+  public static void write(final List<Schema> schemas, final OutputStream out) throws EntityProviderException {
+    try {
+      new EdmSnapshotWriter().writeSnapshot(schemas, out);
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Creates a snapshot file, e.g., as build artifact.
+   * <p>Usage: <code>EdmSnapshotWriter &lt;source&gt; &lt;snapshot file&gt;</code>,
+   * where the source is either a metadata document or the fully qualified name of an
+   * {@link EdmProvider} class with a public default constructor.</p>
+   * @param args source and target
+   * @throws Exception if the schemas could not be read or the snapshot not be written
+   */
+  public static void main(final String[] args) throws Exception {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Usage: EdmSnapshotWriter <metadata document | EdmProvider class> <snapshot file>");
+    }
+    List<Schema> schemas;
+    final File source = new File(args[0]);
+    if (source.isFile()) {
+      final InputStream in = new FileInputStream(source);
+      try {
+        schemas = new EdmxProvider().parse(in, true).getSchemas();
+      } finally {
+        in.close();
+      }
+    } else {
+      schemas = ((EdmProvider) Class.forName(args[0]).newInstance()).getSchemas();
+    }
+    final OutputStream out = new FileOutputStream(args[1]);
+    try {
+      write(schemas, out);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeSnapshot(final List<Schema> schemas, final OutputStream out) throws IOException {
+    writeDirectory(schemas);
+
+    DataOutputStream snapshot = new DataOutputStream(out);
+    snapshot.writeInt(MAGIC);
+    snapshot.writeInt(VERSION);
+
+    List<byte[]> encodedStrings = new ArrayList<byte[]>(strings.size());
+    for (final String string : strings) {
+      encodedStrings.add(string.getBytes("UTF-8"));
+    }
+    snapshot.writeInt(strings.size());
+    int offset = 0;
+    for (final byte[] encodedString : encodedStrings) {
+      snapshot.writeInt(offset);
+      offset += encodedString.length;
+    }
+    snapshot.writeInt(offset);
+    for (final byte[] encodedString : encodedStrings) {
+      snapshot.write(encodedString);
+    }
+
+    snapshot.writeInt(directory.size());
+    directoryBuffer.writeTo(snapshot);
+    snapshot.writeInt(data.size());
+    dataBuffer.writeTo(snapshot);
+    snapshot.flush();
+  }
+
+  private void writeDirectory(final List<Schema> schemas) throws IOException {
+    if (schemas == null) {
+      directory.writeInt(-1);
+      return;
+    }
+    directory.writeInt(schemas.size());
+    for (final Schema schema : schemas) {
+      directory.writeInt(data.size());
+      writeString(data, schema.getNamespace());
+      writeString(data, schema.getAlias());
+      writeListSize(data, schema.getUsings());
+      if (schema.getUsings() != null) {
+        for (final Using using : schema.getUsings()) {
+          writeString(data, using.getNamespace());
+          writeString(data, using.getAlias());
+          writeDocumentation(using.getDocumentation());
+          writeAnnotations(using.getAnnotationAttributes(), using.getAnnotationElements());
+        }
+      }
+      writeAnnotations(schema.getAnnotationAttributes(), schema.getAnnotationElements());
+
+      writeListSize(directory, schema.getEntityTypes());
+      if (schema.getEntityTypes() != null) {
+        for (final EntityType entityType : schema.getEntityTypes()) {
+          writeString(directory, entityType.getName());
+          directory.writeInt(data.size());
+          writeEntityType(entityType);
+        }
+      }
+      writeListSize(directory, schema.getComplexTypes());
+      if (schema.getComplexTypes() != null) {
+        for (final ComplexType complexType : schema.getComplexTypes()) {
+          writeString(directory, complexType.getName());
+          directory.writeInt(data.size());
+          writeComplexType(complexType);
+        }
+      }
+      writeListSize(directory, schema.getAssociations());
+      if (schema.getAssociations() != null) {
+        for (final Association association : schema.getAssociations()) {
+          writeString(directory, association.getName());
+          directory.writeInt(data.size());
+          writeAssociation(association);
+        }
+      }
+      writeListSize(directory, schema.getEntityContainers());
+      if (schema.getEntityContainers() != null) {
+        for (final EntityContainer entityContainer : schema.getEntityContainers()) {
+          writeEntityContainer(entityContainer);
+        }
+      }
+    }
+  }
+
+  private void writeEntityContainer(final EntityContainer entityContainer) throws IOException {
+    writeString(directory, entityContainer.getName());
+    directory.writeBoolean(entityContainer.isDefaultEntityContainer());
+    directory.writeInt(data.size());
+    writeString(data, entityContainer.getName());
+    writeString(data, entityContainer.getExtendz());
+    data.writeBoolean(entityContainer.isDefaultEntityContainer());
+    writeDocumentation(entityContainer.getDocumentation());
+    writeAnnotations(entityContainer.getAnnotationAttributes(), entityContainer.getAnnotationElements());
+
+    writeListSize(directory, entityContainer.getEntitySets());
+    if (entityContainer.getEntitySets() != null) {
+      for (final EntitySet entitySet : entityContainer.getEntitySets()) {
+        writeString(directory, entitySet.getName());
+        directory.writeInt(data.size());
+        writeString(data, entitySet.getName());
+        writeName(entitySet.getEntityType());
+        writeMapping(entitySet.getMapping());
+        writeDocumentation(entitySet.getDocumentation());
+        writeAnnotations(entitySet.getAnnotationAttributes(), entitySet.getAnnotationElements());
+      }
+    }
+    writeListSize(directory, entityContainer.getAssociationSets());
+    if (entityContainer.getAssociationSets() != null) {
+      for (final AssociationSet associationSet : entityContainer.getAssociationSets()) {
+        directory.writeInt(data.size());
+        writeString(data, associationSet.getName());
+        writeName(associationSet.getAssociation());
+        writeAssociationSetEnd(associationSet.getEnd1());
+        writeAssociationSetEnd(associationSet.getEnd2());
+        writeDocumentation(associationSet.getDocumentation());
+        writeAnnotations(associationSet.getAnnotationAttributes(), associationSet.getAnnotationElements());
+      }
+    }
+    writeListSize(directory, entityContainer.getFunctionImports());
+    if (entityContainer.getFunctionImports() != null) {
+      for (final FunctionImport functionImport : entityContainer.getFunctionImports()) {
+        writeString(directory, functionImport.getName());
+        directory.writeInt(data.size());
+        writeFunctionImport(functionImport);
+      }
+    }
+  }
+
+  private void writeComplexType(final ComplexType complexType) throws IOException {
+    writeString(data, complexType.getName());
+    writeName(complexType.getBaseType());
+    data.writeBoolean(complexType.isAbstract());
+    writeListSize(data, complexType.getProperties());
+    if (complexType.getProperties() != null) {
+      for (final Property property : complexType.getProperties()) {
+        writeProperty(property);
+      }
+    }
+    writeMapping(complexType.getMapping());
+    writeDocumentation(complexType.getDocumentation());
+    writeAnnotations(complexType.getAnnotationAttributes(), complexType.getAnnotationElements());
+  }
+
+  private void writeEntityType(final EntityType entityType) throws IOException {
+    writeComplexType(entityType);
+    data.writeBoolean(entityType.isHasStream());
+    writeCustomizableFeedMappings(entityType.getCustomizableFeedMappings());
+    final Key key = entityType.getKey();
+    data.writeBoolean(key != null);
+    if (key != null) {
+      writePropertyRefs(key.getKeys());
+      writeAnnotations(key.getAnnotationAttributes(), key.getAnnotationElements());
+    }
+    writeListSize(data, entityType.getNavigationProperties());
+    if (entityType.getNavigationProperties() != null) {
+      for (final NavigationProperty navigationProperty : entityType.getNavigationProperties()) {
+        writeString(data, navigationProperty.getName());
+        writeName(navigationProperty.getRelationship());
+        writeString(data, navigationProperty.getFromRole());
+        writeString(data, navigationProperty.getToRole());
+        writeDocumentation(navigationProperty.getDocumentation());
+        writeMapping(navigationProperty.getMapping());
+        writeAnnotations(navigationProperty.getAnnotationAttributes(), navigationProperty.getAnnotationElements());
+      }
+    }
+  }
+
+  private void writeProperty(final Property property) throws IOException {
+    if (property instanceof SimpleProperty) {
+      data.writeByte(SIMPLE_PROPERTY);
+      writeEnum(((SimpleProperty) property).getType());
+    } else {
+      data.writeByte(COMPLEX_PROPERTY);
+      writeName(((ComplexProperty) property).getType());
+    }
+    writeString(data, property.getName());
+    writeFacets(property.getFacets());
+    writeCustomizableFeedMappings(property.getCustomizableFeedMappings());
+    writeString(data, property.getMimeType());
+    writeMapping(property.getMapping());
+    writeDocumentation(property.getDocumentation());
+    writeAnnotations(property.getAnnotationAttributes(), property.getAnnotationElements());
+  }
+
+  private void writeAssociation(final Association association) throws IOException {
+    writeString(data, association.getName());
+    writeAssociationEnd(association.getEnd1());
+    writeAssociationEnd(association.getEnd2());
+    final ReferentialConstraint constraint = association.getReferentialConstraint();
+    data.writeBoolean(constraint != null);
+    if (constraint != null) {
+      writeReferentialConstraintRole(constraint.getPrincipal());
+      writeReferentialConstraintRole(constraint.getDependent());
+      writeDocumentation(constraint.getDocumentation());
+      writeAnnotations(constraint.getAnnotationAttributes(), constraint.getAnnotationElements());
+    }
+    writeDocumentation(association.getDocumentation());
+    writeAnnotations(association.getAnnotationAttributes(), association.getAnnotationElements());
+  }
+
+  private void writeAssociationEnd(final AssociationEnd end) throws IOException {
+    data.writeBoolean(end != null);
+    if (end != null) {
+      writeName(end.getType());
+      writeString(data, end.getRole());
+      writeEnum(end.getMultiplicity());
+      final OnDelete onDelete = end.getOnDelete();
+      data.writeBoolean(onDelete != null);
+      if (onDelete != null) {
+        writeEnum(onDelete.getAction());
+        writeDocumentation(onDelete.getDocumentation());
+        writeAnnotations(onDelete.getAnnotationAttributes(), onDelete.getAnnotationElements());
+      }
+      writeDocumentation(end.getDocumentation());
+      writeAnnotations(end.getAnnotationAttributes(), end.getAnnotationElements());
+    }
+  }
+
+  private void writeReferentialConstraintRole(final ReferentialConstraintRole role) throws IOException {
+    data.writeBoolean(role != null);
+    if (role != null) {
+      writeString(data, role.getRole());
+      writePropertyRefs(role.getPropertyRefs());
+      writeAnnotations(role.getAnnotationAttributes(), role.getAnnotationElements());
+    }
+  }
+
+  private void writePropertyRefs(final List<PropertyRef> propertyRefs) throws IOException {
+    writeListSize(data, propertyRefs);
+    if (propertyRefs != null) {
+      for (final PropertyRef propertyRef : propertyRefs) {
+        writeString(data, propertyRef.getName());
+        writeAnnotations(propertyRef.getAnnotationAttributes(), propertyRef.getAnnotationElements());
+      }
+    }
+  }
+
+  private void writeAssociationSetEnd(final AssociationSetEnd end) throws IOException {
+    data.writeBoolean(end != null);
+    if (end != null) {
+      writeString(data, end.getRole());
+      writeString(data, end.getEntitySet());
+      writeDocumentation(end.getDocumentation());
+      writeAnnotations(end.getAnnotationAttributes(), end.getAnnotationElements());
+    }
+  }
+
+  private void writeFunctionImport(final FunctionImport functionImport) throws IOException {
+    writeString(data, functionImport.getName());
+    final ReturnType returnType = functionImport.getReturnType();
+    data.writeBoolean(returnType != null);
+    if (returnType != null) {
+      writeName(returnType.getTypeName());
+      writeEnum(returnType.getMultiplicity());
+    }
+    writeString(data, functionImport.getEntitySet());
+    writeString(data, functionImport.getHttpMethod());
+    writeListSize(data, functionImport.getParameters());
+    if (functionImport.getParameters() != null) {
+      for (final FunctionImportParameter parameter : functionImport.getParameters()) {
+        writeString(data, parameter.getName());
+        writeString(data, parameter.getMode());
+        writeEnum(parameter.getType());
+        writeFacets(parameter.getFacets());
+        writeMapping(parameter.getMapping());
+        writeDocumentation(parameter.getDocumentation());
+        writeAnnotations(parameter.getAnnotationAttributes(), parameter.getAnnotationElements());
+      }
+    }
+    writeMapping(functionImport.getMapping());
+    writeDocumentation(functionImport.getDocumentation());
+    writeAnnotations(functionImport.getAnnotationAttributes(), functionImport.getAnnotationElements());
+  }
+
+  private void writeFacets(final EdmFacets facets) throws IOException {
+    data.writeBoolean(facets != null);
+    if (facets != null) {
+      writeBoolean(facets.isNullable());
+      writeString(data, facets.getDefaultValue());
+      writeInteger(facets.getMaxLength());
+      writeBoolean(facets.isFixedLength());
+      writeInteger(facets.getPrecision());
+      writeInteger(facets.getScale());
+      writeBoolean(facets.isUnicode());
+      writeString(data, facets.getCollation());
+      writeEnum(facets.getConcurrencyMode());
+    }
+  }
+
+  private void writeCustomizableFeedMappings(final CustomizableFeedMappings mappings) throws IOException {
+    data.writeBoolean(mappings != null);
+    if (mappings != null) {
+      writeBoolean(mappings.isFcKeepInContent());
+      writeEnum(mappings.getFcContentKind());
+      writeString(data, mappings.getFcNsPrefix());
+      writeString(data, mappings.getFcNsUri());
+      writeString(data, mappings.getFcSourcePath());
+      writeString(data, mappings.getFcTargetPath());
+    }
+  }
+
+  private void writeMapping(final Mapping mapping) throws IOException {
+    data.writeBoolean(mapping != null);
+    if (mapping != null) {
+      writeString(data, mapping.getInternalName());
+      writeString(data, mapping.getMimeType());
+    }
+  }
+
+  private void writeDocumentation(final Documentation documentation) throws IOException {
+    data.writeBoolean(documentation != null);
+    if (documentation != null) {
+      writeString(data, documentation.getSummary());
+      writeString(data, documentation.getLongDescription());
+      writeAnnotations(documentation.getAnnotationAttributes(), documentation.getAnnotationElements());
+    }
+  }
+
+  private void writeAnnotations(final Collection<AnnotationAttribute> attributes, final Collection<AnnotationElement> elements) throws IOException {
+    writeAnnotationAttributes(attributes);
+    writeAnnotationElements(elements);
+  }
+
+  private void writeAnnotationAttributes(final Collection<AnnotationAttribute> attributes) throws IOException {
+    writeListSize(data, attributes);
+    if (attributes != null) {
+      for (final AnnotationAttribute attribute : attributes) {
+        writeString(data, attribute.getNamespace());
+        writeString(data, attribute.getPrefix());
+        writeString(data, attribute.getName());
+        writeString(data, attribute.getText());
+      }
+    }
+  }
+
+  private void writeAnnotationElements(final Collection<AnnotationElement> elements) throws IOException {
+    writeListSize(data, elements);
+    if (elements != null) {
+      for (final AnnotationElement element : elements) {
+        writeString(data, element.getNamespace());
+        writeString(data, element.getPrefix());
+        writeString(data, element.getName());
+        writeString(data, element.getText());
+        writeAnnotationElements(element.getChildElements());
+        writeAnnotationAttributes(element.getAttributes());
+      }
+    }
+  }
+
+  private void writeName(final FullQualifiedName name) throws IOException {
+    data.writeBoolean(name != null);
+    if (name != null) {
+      writeString(data, name.getNamespace());
+      writeString(data, name.getName());
+    }
+  }
+
+  private void writeEnum(final Enum<?> value) throws IOException {
+    writeString(data, value == null ? null : value.name());
+  }
+
+  private void writeBoolean(final Boolean value) throws IOException {
+    data.writeByte(value == null ? 0 : value.booleanValue() ? 2 : 1);
+  }
+
+  private void writeInteger(final Integer value) throws IOException {
+    data.writeBoolean(value != null);
+    if (value != null) {
+      data.writeInt(value.intValue());
+    }
+  }
+
+  private static void writeListSize(final DataOutputStream out, final Collection<?> list) throws IOException {
+    out.writeInt(list == null ? -1 : list.size());
+  }
+
+  private void writeString(final DataOutputStream out, final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      Integer index = stringIndex.get(value);
+      if (index == null) {
+        index = strings.size();
+        strings.add(value);
+        stringIndex.put(value, index);
+      }
+      out.writeInt(index.intValue());
+    }
+  }
+}
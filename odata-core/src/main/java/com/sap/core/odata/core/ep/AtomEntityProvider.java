@@ -42,6 +42,7 @@ import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.servicedocument.ServiceDocument;
@@ -359,6 +360,11 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
     return xec.readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader createFeedReader(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return new XmlEntityConsumer().createFeedReader(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     XmlEntityConsumer xec = new XmlEntityConsumer();
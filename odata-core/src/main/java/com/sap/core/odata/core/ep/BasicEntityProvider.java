@@ -21,6 +21,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
@@ -62,6 +63,9 @@ public class BasicEntityProvider {
   /** Default used charset for writer and response content header */
   private static final String DEFAULT_CHARSET = "UTF-8";
 
+  /** Size of the buffer used to copy binary data */
+  private static final int COPY_BUFFER_SIZE = 8192;
+
   /**
    * Reads binary data from an input stream.
    * @param content the content input stream
@@ -70,15 +74,30 @@ public class BasicEntityProvider {
    */
   public byte[] readBinary(final InputStream content) throws EntityProviderException {
     ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-    byte[] value = new byte[Short.MAX_VALUE];
+    readBinary(content, buffer);
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Copies binary data from an input stream to an output stream
+   * with a buffer of constant size.
+   * @param content the content input stream; it is closed afterwards
+   * @param target the output stream; it is not closed
+   * @return the number of copied bytes
+   * @throws EntityProviderException
+   */
+  public long readBinary(final InputStream content, final OutputStream target) throws EntityProviderException {
+    byte[] value = new byte[COPY_BUFFER_SIZE];
+    long total = 0;
     int count;
     try {
-      while ((count = content.read(value)) > 0) {
-        buffer.write(value, 0, count);
+      while ((count = content.read(value)) >= 0) {
+        target.write(value, 0, count);
+        total += count;
       }
       content.close();
-      buffer.flush();
-      return buffer.toByteArray();
+      target.flush();
+      return total;
     } catch (IOException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     }
@@ -215,6 +234,25 @@ public class BasicEntityProvider {
     return builder.build();
   }
 
+  /**
+   * Write binary content with content type header set to given <code>mime type</code> parameter.
+   * The content is streamed, not buffered.
+   * @param mimeType MIME type which is written and used as content type header information
+   * @param data stream with the data which is written to {@link ODataResponse}
+   * @return resulting {@link ODataResponse} with the binary content
+   * @throws EntityProviderException
+   */
+  public ODataResponse writeBinaryStream(final String mimeType, final InputStream data) throws EntityProviderException {
+    ODataResponseBuilder builder = ODataResponse.newBuilder();
+    if (data != null) {
+      builder.contentHeader(mimeType);
+      builder.entity(data);
+    } else {
+      builder.status(HttpStatusCodes.NO_CONTENT);
+    }
+    return builder.build();
+  }
+
   /**
    * Writes the metadata in XML format. Predefined namespaces is of type Map{@literal <}prefix,namespace{@literal >} and may be null or an empty Map.
    * @param schemas
@@ -15,10 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.core.ep;
 
-import java.io.BufferedWriter;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -40,6 +39,7 @@ import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.servicedocument.ServiceDocument;
@@ -55,6 +55,7 @@ import com.sap.core.odata.core.ep.producer.JsonLinkEntityProducer;
 import com.sap.core.odata.core.ep.producer.JsonLinksEntityProducer;
 import com.sap.core.odata.core.ep.producer.JsonPropertyEntityProducer;
 import com.sap.core.odata.core.ep.producer.JsonServiceDocumentProducer;
+import com.sap.core.odata.core.ep.util.BufferedUtf8Writer;
 import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
 
@@ -63,8 +64,6 @@ import com.sap.core.odata.core.exception.ODataRuntimeException;
  */
 public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
-  private static final String DEFAULT_CHARSET = "UTF-8";
-
   /**
    * <p>Serializes an error message according to the OData standard.</p>
    * <p>In case an error occurs, it is logged.
@@ -82,7 +81,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       new JsonErrorDocumentProducer().writeErrorDocument(writer, errorCode, message, locale, innerError);
       writer.flush();
       buffer.closeWrite();
@@ -110,7 +109,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       JsonServiceDocumentProducer.writeServiceDocument(writer, edm);
       writer.flush();
       buffer.closeWrite();
@@ -131,7 +130,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       JsonEntryEntityProducer producer = new JsonEntryEntityProducer(properties);
       producer.append(writer, entityInfo, data, true);
       writer.flush();
@@ -161,7 +160,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = buffer.getOutputStream();
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outStream, DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(outStream);
       new JsonPropertyEntityProducer().append(writer, propertyInfo, value);
       writer.flush();
       buffer.closeWrite();
@@ -185,7 +184,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       new JsonFeedEntityProducer(properties).append(writer, entityInfo, data, true);
       writer.flush();
       buffer.closeWrite();
@@ -206,7 +205,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       new JsonLinkEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -230,7 +229,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       new JsonLinksEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -253,7 +252,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new BufferedUtf8Writer(buffer.getOutputStream());
       new JsonCollectionEntityProducer().append(writer, propertyInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -293,6 +292,11 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     return new JsonEntityConsumer().readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader createFeedReader(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return new JsonEntityConsumer().createFeedReader(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     return new JsonEntityConsumer().readEntry(entitySet, content, properties);
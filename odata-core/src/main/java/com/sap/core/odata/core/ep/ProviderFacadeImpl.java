@@ -16,6 +16,7 @@
 package com.sap.core.odata.core.ep;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -30,13 +31,14 @@ import com.sap.core.odata.api.edm.EdmFunctionImport;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
 import com.sap.core.odata.api.edm.provider.Schema;
-import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
+import com.sap.core.odata.api.ep.EntityProvider.StreamingEntityProviderInterface;
 import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.exception.ODataNotAcceptableException;
 import com.sap.core.odata.api.processor.ODataErrorContext;
 import com.sap.core.odata.api.processor.ODataResponse;
@@ -53,7 +55,7 @@ import com.sap.core.odata.core.exception.ODataRuntimeException;
 /**
  * @author SAP AG
  */
-public class ProviderFacadeImpl implements EntityProviderInterface {
+public class ProviderFacadeImpl implements StreamingEntityProviderInterface {
 
   private static BasicEntityProvider create() throws EntityProviderException {
     return new BasicEntityProvider();
@@ -108,6 +110,11 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create().writeBinary(mimeType, data);
   }
 
+  @Override
+  public ODataResponse writeBinaryStream(final String mimeType, final InputStream data) throws EntityProviderException {
+    return create().writeBinaryStream(mimeType, data);
+  }
+
   @Override
   public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet, final List<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
     return create(contentType).writeFeed(entitySet, data, properties);
@@ -143,6 +150,11 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create(contentType).readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader createFeedReader(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return create(contentType).createFeedReader(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     return create(contentType).readEntry(entitySet, content, properties);
@@ -173,6 +185,11 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create().readBinary(content);
   }
 
+  @Override
+  public long readBinary(final InputStream content, final OutputStream target) throws EntityProviderException {
+    return create().readBinary(content, target);
+  }
+
   @Override
   public ODataResponse writeMetadata(final List<Schema> schemas, final Map<String, String> predefinedNamespaces) throws EntityProviderException {
     return create().writeMetadata(schemas, predefinedNamespaces);
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmComplexType;
 import com.sap.core.odata.api.edm.EdmConcurrencyMode;
 import com.sap.core.odata.api.edm.EdmCustomizableFeedMappings;
@@ -41,6 +42,8 @@ import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.edm.EdmTypeKind;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
+import com.sap.core.odata.core.commons.Encoder;
+import com.sap.core.odata.core.ep.entry.EntryPropertyIndex;
 
 /**
  * Aggregator to get easy and fast access to all for serialization and de-serialization necessary {@link EdmEntitySet} informations.
@@ -66,6 +69,9 @@ public class EntityInfoAggregator {
   private Map<String, EntityPropertyInfo> propertyInfo = new HashMap<String, EntityPropertyInfo>();
   private Map<String, NavigationPropertyInfo> navigationPropertyInfos = new HashMap<String, NavigationPropertyInfo>();
   private List<EntityPropertyInfo> keyPropertyInfos;
+  private EntityPropertyInfo[] keyProperties;
+  private String[] encodedKeyNames;
+  private String encodedEntitySetPath;
 
   /*
    * list with all property names in the order based on order in {@link EdmProperty} (normally [key, entity,
@@ -87,6 +93,7 @@ public class EntityInfoAggregator {
 
   private EdmEntityType entityType;
   private EdmEntitySet entitySet;
+  private EntryPropertyIndex entryPropertyIndex;
 
   /**
    * Constructor is private to force creation over {@link #create(EdmEntitySet)} method.
@@ -262,6 +269,19 @@ public class EntityInfoAggregator {
     return Collections.unmodifiableList(selectedNavigationPropertyNames);
   }
 
+  /**
+   * @return the positions of all properties and navigation properties,
+   *         used for the compact storage of read entries
+   */
+  public EntryPropertyIndex getEntryPropertyIndex() {
+    if (entryPropertyIndex == null) {
+      entryPropertyIndex = new EntryPropertyIndex(
+          propertyNames == null ? Collections.<String> emptyList() : propertyNames,
+          navigationPropertyNames == null ? Collections.<String> emptyList() : navigationPropertyNames);
+    }
+    return entryPropertyIndex;
+  }
+
   public Collection<EntityPropertyInfo> getPropertyInfos() {
     return Collections.unmodifiableCollection(propertyInfo.values());
   }
@@ -298,6 +318,44 @@ public class EntityInfoAggregator {
     return keyPropertyInfos;
   }
 
+  /**
+   * @return all key property infos as array, computed once
+   * @throws EntityProviderException
+   */
+  public EntityPropertyInfo[] getKeyProperties() throws EntityProviderException {
+    if (keyProperties == null) {
+      final List<EntityPropertyInfo> infos = getKeyPropertyInfos();
+      final String[] names = new String[infos.size()];
+      for (int i = 0; i < names.length; i++) {
+        names[i] = Encoder.encode(infos.get(i).getName());
+      }
+      encodedKeyNames = names;
+      keyProperties = infos.toArray(new EntityPropertyInfo[names.length]);
+    }
+    return keyProperties;
+  }
+
+  /**
+   * @return the percent-encoded names of the {@link #getKeyProperties() key properties}
+   * @throws EntityProviderException
+   */
+  public String[] getEncodedKeyNames() throws EntityProviderException {
+    getKeyProperties();
+    return encodedKeyNames;
+  }
+
+  /**
+   * @return the percent-encoded path of the entity set, including the entity-container name
+   *         if the container is not the default one
+   */
+  public String getEncodedEntitySetPath() {
+    if (encodedEntitySetPath == null) {
+      encodedEntitySetPath = (isDefaultEntityContainer ? "" : Encoder.encode(entityContainerName) + Edm.DELIMITER)
+          + Encoder.encode(entitySetName);
+    }
+    return encodedEntitySetPath;
+  }
+
   public NavigationPropertyInfo getNavigationPropertyInfo(final String name) {
     return navigationPropertyInfos.get(name);
   }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.consumer;
+
+import java.util.NoSuchElementException;
+
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
+import com.sap.core.odata.api.ep.feed.FeedMetadata;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
+import com.sap.core.odata.core.ep.feed.FeedMetadataImpl;
+
+/**
+ * Base class for feed readers which read one entry ahead.
+ * @author SAP AG
+ */
+abstract class AbstractFeedReader implements ODataFeedReader {
+
+  private ODataEntry nextEntry;
+  private boolean finished;
+
+  /**
+   * Reads the next entry from the content.
+   * @return the next entry or <code>null</code> at the end of the feed
+   * @throws EntityProviderException if reading of data (de-serialization) fails
+   */
+  protected abstract ODataEntry readNextEntry() throws EntityProviderException;
+
+  protected abstract FeedMetadataImpl getMetadata();
+
+  @Override
+  public boolean hasNext() throws EntityProviderException {
+    if (nextEntry == null && !finished) {
+      nextEntry = readNextEntry();
+      finished = nextEntry == null;
+    }
+    return nextEntry != null;
+  }
+
+  @Override
+  public ODataEntry next() throws EntityProviderException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final ODataEntry entry = nextEntry;
+    nextEntry = null;
+    return entry;
+  }
+
+  @Override
+  public FeedMetadata getFeedMetadata() {
+    return getMetadata();
+  }
+}
@@ -29,6 +29,7 @@ import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 
 /**
@@ -96,6 +97,28 @@ public class JsonEntityConsumer {
     }
   }
 
+  public ODataFeedReader createFeedReader(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties readProperties) throws EntityProviderException {
+    JsonReader reader = null;
+
+    try {
+      EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+      reader = createJsonReader(content);
+      final ODataFeedReader feedReader = new JsonFeedReader(reader, eia, readProperties);
+      reader = null; // The feed reader is responsible for closing now.
+      return feedReader;
+    } catch (UnsupportedEncodingException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // The original exception is more interesting.
+        }
+      }
+    }
+  }
+
   public Map<String, Object> readProperty(final EdmProperty property, final InputStream content, final EntityProviderReadProperties readProperties) throws EntityProviderException {
     JsonReader reader = null;
     EntityProviderException cachedException = null;
@@ -16,7 +16,6 @@
 package com.sap.core.odata.core.ep.consumer;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +38,7 @@ import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
 import com.sap.core.odata.core.ep.aggregator.NavigationPropertyInfo;
 import com.sap.core.odata.core.ep.entry.EntryMetadataImpl;
+import com.sap.core.odata.core.ep.entry.EntryProperties;
 import com.sap.core.odata.core.ep.entry.MediaMetadataImpl;
 import com.sap.core.odata.core.ep.entry.ODataEntryImpl;
 import com.sap.core.odata.core.ep.util.FormatJson;
@@ -49,7 +49,7 @@ import com.sap.core.odata.core.uri.ExpandSelectTreeNodeImpl;
  */
 public class JsonEntryConsumer {
 
-  private final Map<String, Object> properties = new HashMap<String, Object>();
+  private final Map<String, Object> properties;
   private final MediaMetadataImpl mediaMetadata = new MediaMetadataImpl();
   private final EntryMetadataImpl entryMetadata = new EntryMetadataImpl();
   private final ExpandSelectTreeNodeImpl expandSelectTree = new ExpandSelectTreeNodeImpl();
@@ -64,6 +64,7 @@ public class JsonEntryConsumer {
     this.eia = eia;
     this.readProperties = readProperties;
     this.reader = reader;
+    properties = new EntryProperties(eia.getEntryPropertyIndex());
     entryResult = new ODataEntryImpl(properties, mediaMetadata, entryMetadata, expandSelectTree);
   }
 
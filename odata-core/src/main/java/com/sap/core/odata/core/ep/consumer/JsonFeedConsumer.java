@@ -42,6 +42,11 @@ public class JsonFeedConsumer {
   private List<ODataEntry> entries = new ArrayList<ODataEntry>();
   private FeedMetadataImpl feedMetadata = new FeedMetadataImpl();
   private boolean resultsArrayPresent = false;
+  // state for reading a stand-alone feed one entry at a time
+  private boolean resultsArrayRequired = false;
+  private boolean inResultsArray = false;
+  private int openObjects = 0;
+  private boolean feedFinished = false;
 
   public JsonFeedConsumer(final JsonReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) {
     this.reader = reader;
@@ -50,14 +55,73 @@ public class JsonFeedConsumer {
   }
 
   public ODataFeed readFeedStandalone() throws EntityProviderException {
-    try {
-      readFeed();
-
-      if (reader.peek() != JsonToken.END_DOCUMENT) {
+    startFeedStandalone();
+    ODataEntry entry;
+    while ((entry = readNextEntryStandalone()) != null) {
+      entries.add(entry);
+    }
+    return new ODataFeedImpl(entries, feedMetadata);
+  }
 
-        throw new EntityProviderException(EntityProviderException.END_DOCUMENT_EXPECTED.addContent(reader.peek().toString()));
+  /**
+   * Reads the start of a stand-alone feed up to its first entry,
+   * for reading the entries one at a time with {@link #readNextEntryStandalone()}.
+   * @throws EntityProviderException
+   */
+  protected void startFeedStandalone() throws EntityProviderException {
+    try {
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        inResultsArray = true;
+      } else {
+        reader.beginObject();
+        openObjects = 1;
+        final String nextName = reader.nextName();
+        if (FormatJson.D.equals(nextName)) {
+          if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            inResultsArray = true;
+          } else {
+            reader.beginObject();
+            openObjects = 2;
+            resultsArrayRequired = true;
+          }
+        } else {
+          resultsArrayRequired = true;
+          handleNameStreaming(nextName);
+        }
       }
+    } catch (IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } catch (EdmException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } catch (IllegalStateException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
 
+  /**
+   * Reads the next entry of a stand-alone feed started with {@link #startFeedStandalone()};
+   * at the end of the feed, the end of the document is checked.
+   * @return the next entry or <code>null</code> at the end of the feed
+   * @throws EntityProviderException
+   */
+  protected ODataEntry readNextEntryStandalone() throws EntityProviderException {
+    try {
+      while (!feedFinished) {
+        if (inResultsArray) {
+          if (reader.hasNext()) {
+            return new JsonEntryConsumer(reader, eia, readProperties).readFeedEntry();
+          }
+          reader.endArray();
+          inResultsArray = false;
+        } else if (resultsArrayRequired && reader.hasNext()) {
+          handleNameStreaming(reader.nextName());
+        } else {
+          finishFeedStandalone();
+        }
+      }
+      return null;
     } catch (IOException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     } catch (EdmException e) {
@@ -65,7 +129,33 @@ public class JsonFeedConsumer {
     } catch (IllegalStateException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     }
-    return new ODataFeedImpl(entries, feedMetadata);
+  }
+
+  private void handleNameStreaming(final String nextName) throws IOException, EdmException, EntityProviderException {
+    if (FormatJson.RESULTS.equals(nextName)) {
+      resultsArrayPresent = true;
+      reader.beginArray();
+      inResultsArray = true;
+    } else {
+      handleName(nextName);
+    }
+  }
+
+  private void finishFeedStandalone() throws IOException, EntityProviderException {
+    if (resultsArrayRequired && !resultsArrayPresent) {
+      throw new EntityProviderException(EntityProviderException.MISSING_RESULTS_ARRAY);
+    }
+    for (; openObjects > 0; openObjects--) {
+      reader.endObject();
+    }
+    if (reader.peek() != JsonToken.END_DOCUMENT) {
+      throw new EntityProviderException(EntityProviderException.END_DOCUMENT_EXPECTED.addContent(reader.peek().toString()));
+    }
+    feedFinished = true;
+  }
+
+  protected FeedMetadataImpl getFeedMetadata() {
+    return feedMetadata;
   }
 
   private void readFeed() throws IOException, EdmException, EntityProviderException {
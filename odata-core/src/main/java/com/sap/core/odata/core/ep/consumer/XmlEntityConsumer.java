@@ -32,6 +32,7 @@ import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties.EntityProviderReadPropertiesBuilder;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 
 /**
@@ -79,6 +80,28 @@ public class XmlEntityConsumer {
     }
   }
 
+  public ODataFeedReader createFeedReader(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    XMLStreamReader reader = null;
+
+    try {
+      reader = createStaxReader(content);
+      EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+      final ODataFeedReader feedReader = new XmlFeedReader(reader, eia, properties);
+      reader = null; // The feed reader is responsible for closing now.
+      return feedReader;
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // The original exception is more interesting.
+        }
+      }
+    }
+  }
+
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     XMLStreamReader reader = null;
     EntityProviderException cachedException = null;
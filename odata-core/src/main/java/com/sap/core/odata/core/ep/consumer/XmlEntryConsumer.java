@@ -46,6 +46,7 @@ import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
 import com.sap.core.odata.core.ep.aggregator.EntityTypeMapping;
 import com.sap.core.odata.core.ep.entry.EntryMetadataImpl;
+import com.sap.core.odata.core.ep.entry.EntryProperties;
 import com.sap.core.odata.core.ep.entry.MediaMetadataImpl;
 import com.sap.core.odata.core.ep.entry.ODataEntryImpl;
 import com.sap.core.odata.core.ep.feed.FeedMetadataImpl;
@@ -73,7 +74,7 @@ public class XmlEntryConsumer {
 
   public ODataEntry readEntry(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
     try {
-      initialize(readProperties);
+      initialize(eia, readProperties);
 
       while (reader.hasNext() && !isEntryEndTag(reader)) {
         reader.nextTag();
@@ -98,11 +99,12 @@ public class XmlEntryConsumer {
 
   /**
    * Initializes the {@link XmlEntryConsumer} to be ready for reading an entry.
+   * @param eia
    * @param readProperties
    * @throws EntityProviderException
    */
-  private void initialize(final EntityProviderReadProperties readProperties) throws EntityProviderException {
-    properties = new HashMap<String, Object>();
+  private void initialize(final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
+    properties = new EntryProperties(eia.getEntryPropertyIndex());
     mediaMetadata = new MediaMetadataImpl();
     entryMetadata = new EntryMetadataImpl();
     expandSelectTree = new ExpandSelectTreeNodeImpl();
@@ -54,44 +54,63 @@ public class XmlFeedConsumer {
    */
   public ODataFeed readFeed(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
     try {
-      // read xml tag
-      reader.require(XMLStreamConstants.START_DOCUMENT, null, null);
-      reader.nextTag();
-
-      // read feed tag
-      reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_ATOM_2005, FormatXml.ATOM_FEED);
-      Map<String, String> foundPrefix2NamespaceUri = extractNamespacesFromTag(reader);
-      foundPrefix2NamespaceUri.putAll(readProperties.getValidatedPrefixNamespaceUris());
-      checkAllMandatoryNamespacesAvailable(foundPrefix2NamespaceUri);
-      EntityProviderReadProperties entryReadProperties =
-          EntityProviderReadProperties.initFrom(readProperties).addValidatedPrefixes(foundPrefix2NamespaceUri).build();
+      final EntityProviderReadProperties entryReadProperties = readFeedStart(reader, readProperties);
 
       // read feed data (metadata and entries)
-      return readFeedData(reader, eia, entryReadProperties);
+      FeedMetadataImpl metadata = new FeedMetadataImpl();
+      XmlEntryConsumer xec = new XmlEntryConsumer();
+      List<ODataEntry> results = new ArrayList<ODataEntry>();
+      ODataEntry entry;
+      while ((entry = readNextEntry(reader, eia, entryReadProperties, xec, metadata)) != null) {
+        results.add(entry);
+      }
+      return new ODataFeedImpl(results, metadata);
     } catch (XMLStreamException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     }
   }
 
   /**
-   * Read all feed specific data (like <code>inline count</code> and <code>next link</code>) as well as all feed entries (<code>entry</code>).
+   * Reads the start of the feed, i.e., the <code>feed</code> tag with its namespaces.
+   * 
+   * @param reader
+   * @param readProperties
+   * @return the read properties for the entries of the feed
+   * @throws XMLStreamException
+   * @throws EntityProviderException
+   */
+  EntityProviderReadProperties readFeedStart(final XMLStreamReader reader, final EntityProviderReadProperties readProperties) throws XMLStreamException, EntityProviderException {
+    // read xml tag
+    reader.require(XMLStreamConstants.START_DOCUMENT, null, null);
+    reader.nextTag();
+
+    // read feed tag
+    reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_ATOM_2005, FormatXml.ATOM_FEED);
+    Map<String, String> foundPrefix2NamespaceUri = extractNamespacesFromTag(reader);
+    foundPrefix2NamespaceUri.putAll(readProperties.getValidatedPrefixNamespaceUris());
+    checkAllMandatoryNamespacesAvailable(foundPrefix2NamespaceUri);
+    return EntityProviderReadProperties.initFrom(readProperties).addValidatedPrefixes(foundPrefix2NamespaceUri).build();
+  }
+
+  /**
+   * Read feed specific data (like <code>inline count</code> and <code>next link</code>)
+   * up to and including the next feed entry (<code>entry</code>).
    * 
    * @param reader
    * @param eia
    * @param entryReadProperties
-   * @return
+   * @param xec consumer for the entries
+   * @param metadata feed metadata to be filled
+   * @return the next entry or <code>null</code> at the end of the feed
    * @throws XMLStreamException
    * @throws EntityProviderException
    */
-  private ODataFeed readFeedData(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties entryReadProperties) throws XMLStreamException, EntityProviderException {
-    FeedMetadataImpl metadata = new FeedMetadataImpl();
-    XmlEntryConsumer xec = new XmlEntryConsumer();
-    List<ODataEntry> results = new ArrayList<ODataEntry>();
-
+  ODataEntry readNextEntry(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties entryReadProperties,
+      final XmlEntryConsumer xec, final FeedMetadataImpl metadata) throws XMLStreamException, EntityProviderException {
     while (reader.hasNext() && !isFeedEndTag(reader)) {
+      ODataEntry entry = null;
       if (FormatXml.ATOM_ENTRY.equals(reader.getLocalName())) {
-        ODataEntry entry = xec.readEntry(reader, eia, entryReadProperties);
-        results.add(entry);
+        entry = xec.readEntry(reader, eia, entryReadProperties);
       } else if (FormatXml.M_COUNT.equals(reader.getLocalName())) {
         reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_M_2007_08, FormatXml.M_COUNT);
 
@@ -126,8 +145,11 @@ public class XmlFeedConsumer {
         reader.next();
       }
       readTillNextStartTag(reader);
+      if (entry != null) {
+        return entry;
+      }
     }
-    return new ODataFeedImpl(results, metadata);
+    return null;
   }
 
   private void readTillNextStartTag(final XMLStreamReader reader) throws XMLStreamException {
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.consumer;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.ep.EntityProviderReadProperties;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
+import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
+import com.sap.core.odata.core.ep.feed.FeedMetadataImpl;
+
+/**
+ * Atom/XML format reader for feeds which reads one entry at a time.
+ * @author SAP AG
+ */
+public class XmlFeedReader extends AbstractFeedReader {
+
+  private final XMLStreamReader reader;
+  private final EntityInfoAggregator eia;
+  private final XmlFeedConsumer feedConsumer = new XmlFeedConsumer();
+  private final XmlEntryConsumer entryConsumer = new XmlEntryConsumer();
+  private final FeedMetadataImpl metadata = new FeedMetadataImpl();
+  private final EntityProviderReadProperties entryReadProperties;
+
+  /**
+   * Reads the start of the feed.
+   * @param reader the reader for the content; it is closed with this feed reader
+   * @param eia
+   * @param readProperties
+   * @throws EntityProviderException
+   */
+  public XmlFeedReader(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
+    this.reader = reader;
+    this.eia = eia;
+    try {
+      entryReadProperties = feedConsumer.readFeedStart(reader, readProperties);
+    } catch (final XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  @Override
+  protected ODataEntry readNextEntry() throws EntityProviderException {
+    try {
+      return feedConsumer.readNextEntry(reader, eia, entryReadProperties, entryConsumer, metadata);
+    } catch (final XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  @Override
+  protected FeedMetadataImpl getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public void close() throws EntityProviderException {
+    try {
+      reader.close();
+    } catch (final XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+}
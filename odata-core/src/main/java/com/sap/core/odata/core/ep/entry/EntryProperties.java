@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.entry;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Property values of one entry, stored in a flat array by the positions of an
+ * {@link EntryPropertyIndex} instead of in a hash table per entry.
+ * <p>The class implements the complete {@link Map} interface; names unknown to
+ * the index are kept in a separate map which is only created when needed.
+ * Iteration returns the indexed properties in the order of the entity type,
+ * followed by the additional ones.</p>
+ * <p>Instances are <b>not thread safe</b>.</p>
+ * @author SAP AG
+ */
+public class EntryProperties extends AbstractMap<String, Object> {
+
+  /** Marks a slot holding the value <code>null</code>, to distinguish it from an empty slot. */
+  private static final Object NULL = new Object();
+
+  private final EntryPropertyIndex index;
+  private final Object[] values;
+  private int indexedSize;
+  private Map<String, Object> additional;
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  public EntryProperties(final EntryPropertyIndex index) {
+    this.index = index;
+    values = new Object[index.size()];
+  }
+
+  @Override
+  public int size() {
+    return indexedSize + (additional == null ? 0 : additional.size());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    final int position = index.indexOf(key);
+    if (position >= 0) {
+      return values[position] != null;
+    }
+    return additional != null && additional.containsKey(key);
+  }
+
+  @Override
+  public Object get(final Object key) {
+    final int position = index.indexOf(key);
+    if (position >= 0) {
+      return unmask(values[position]);
+    }
+    return additional == null ? null : additional.get(key);
+  }
+
+  @Override
+  public Object put(final String key, final Object value) {
+    final int position = index.indexOf(key);
+    if (position >= 0) {
+      final Object old = values[position];
+      if (old == null) {
+        indexedSize++;
+      }
+      values[position] = value == null ? NULL : value;
+      return unmask(old);
+    }
+    if (additional == null) {
+      additional = new HashMap<String, Object>();
+    }
+    return additional.put(key, value);
+  }
+
+  @Override
+  public Object remove(final Object key) {
+    final int position = index.indexOf(key);
+    if (position >= 0) {
+      return removeAt(position);
+    }
+    return additional == null ? null : additional.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = null;
+    }
+    indexedSize = 0;
+    additional = null;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return EntryProperties.this.size();
+        }
+
+        @Override
+        public void clear() {
+          EntryProperties.this.clear();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private Object removeAt(final int position) {
+    final Object old = values[position];
+    if (old != null) {
+      values[position] = null;
+      indexedSize--;
+    }
+    return unmask(old);
+  }
+
+  private static Object unmask(final Object value) {
+    return value == NULL ? null : value;
+  }
+
+  private int nextPosition(final int position) {
+    int next = position;
+    while (next < values.length && values[next] == null) {
+      next++;
+    }
+    return next;
+  }
+
+  private class IndexedEntry implements Map.Entry<String, Object> {
+
+    private final int position;
+
+    IndexedEntry(final int position) {
+      this.position = position;
+    }
+
+    @Override
+    public String getKey() {
+      return index.getName(position);
+    }
+
+    @Override
+    public Object getValue() {
+      return unmask(values[position]);
+    }
+
+    @Override
+    public Object setValue(final Object value) {
+      final Object old = values[position];
+      if (old == null) {
+        indexedSize++;
+      }
+      values[position] = value == null ? NULL : value;
+      return unmask(old);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+      if (!(object instanceof Map.Entry)) {
+        return false;
+      }
+      final Map.Entry<?, ?> other = (Map.Entry<?, ?>) object;
+      final Object value = getValue();
+      return getKey().equals(other.getKey())
+          && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      final Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+    private int next = nextPosition(0);
+    private int current = -1;
+    private Iterator<Map.Entry<String, Object>> additionalIterator;
+
+    @Override
+    public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (additionalIterator == null && additional != null) {
+        additionalIterator = additional.entrySet().iterator();
+      }
+      return additionalIterator != null && additionalIterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (next < values.length) {
+        current = next;
+        next = nextPosition(next + 1);
+        return new IndexedEntry(current);
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = -1;
+      return additionalIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (current >= 0) {
+        if (values[current] == null) {
+          throw new IllegalStateException();
+        }
+        removeAt(current);
+      } else if (additionalIterator != null) {
+        additionalIterator.remove();
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+}
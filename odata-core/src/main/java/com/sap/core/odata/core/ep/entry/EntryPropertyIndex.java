@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.entry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the property and navigation-property names of one entity type to
+ * consecutive positions, in the order of the entity type.
+ * <p>The index is built once per entity set and shared by all
+ * {@link EntryProperties} read for that entity set.</p>
+ * @author SAP AG
+ */
+public final class EntryPropertyIndex {
+
+  private final String[] names;
+  private final Map<String, Integer> positions;
+
+  /**
+   * @param propertyNames the names of the properties
+   * @param navigationPropertyNames the names of the navigation properties
+   */
+  public EntryPropertyIndex(final List<String> propertyNames, final List<String> navigationPropertyNames) {
+    names = new String[propertyNames.size() + navigationPropertyNames.size()];
+    positions = new HashMap<String, Integer>(names.length * 4 / 3 + 1);
+    int position = 0;
+    for (final String name : propertyNames) {
+      add(name, position++);
+    }
+    for (final String name : navigationPropertyNames) {
+      add(name, position++);
+    }
+  }
+
+  private void add(final String name, final int position) {
+    names[position] = name;
+    positions.put(name, Integer.valueOf(position));
+  }
+
+  /**
+   * @param name a property name
+   * @return the position of the property or <code>-1</code> if the entity type has no such property
+   */
+  public int indexOf(final Object name) {
+    final Integer position = positions.get(name);
+    return position == null ? -1 : position.intValue();
+  }
+
+  /**
+   * @param position a position between <code>0</code> and {@link #size()}<code> - 1</code>
+   * @return the name of the property at the given position
+   */
+  public String getName(final int position) {
+    return names[position];
+  }
+
+  /**
+   * @return the number of indexed properties
+   */
+  public int size() {
+    return names.length;
+  }
+}
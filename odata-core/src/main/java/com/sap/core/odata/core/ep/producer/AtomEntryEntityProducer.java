@@ -18,7 +18,6 @@ package com.sap.core.odata.core.ep.producer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -28,7 +27,6 @@ import javax.xml.stream.XMLStreamWriter;
 
 import com.sap.core.odata.api.ODataCallback;
 import com.sap.core.odata.api.edm.Edm;
-import com.sap.core.odata.api.edm.EdmCustomizableFeedMappings;
 import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmFacets;
@@ -38,7 +36,6 @@ import com.sap.core.odata.api.edm.EdmNavigationProperty;
 import com.sap.core.odata.api.edm.EdmSimpleType;
 import com.sap.core.odata.api.edm.EdmSimpleTypeException;
 import com.sap.core.odata.api.edm.EdmTargetPath;
-import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.callback.OnWriteEntryContent;
@@ -50,7 +47,6 @@ import com.sap.core.odata.api.ep.callback.WriteFeedCallbackResult;
 import com.sap.core.odata.api.exception.ODataApplicationException;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
 import com.sap.core.odata.core.commons.ContentType;
-import com.sap.core.odata.core.commons.Encoder;
 import com.sap.core.odata.core.edm.EdmDateTimeOffset;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
@@ -63,15 +59,20 @@ import com.sap.core.odata.core.ep.util.FormatXml;
  */
 public class AtomEntryEntityProducer {
 
-  private String etag;
-  private String location;
   private final EntityProviderWriteProperties properties;
+  private final XmlPropertyEntityProducer propertyProducer = new XmlPropertyEntityProducer();
+  private final EntryMetadata metadata;
+  private EntityWritePlan writePlan;
 
   public AtomEntryEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    metadata = new EntryMetadata(this.properties.getServiceRoot() == null ? null : this.properties.getServiceRoot().toASCIIString());
   }
 
   public void append(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data, final boolean isRootElement, final boolean isFeedPart) throws EntityProviderException {
+    writePlan = EntityWritePlan.get(eia, writePlan);
+    metadata.compute(writePlan, data);
+
     try {
       writer.writeStartElement(FormatXml.ATOM_ENTRY);
 
@@ -84,7 +85,7 @@ public class AtomEntryEntityProducer {
         writer.writeAttribute(Edm.PREFIX_XML, Edm.NAMESPACE_XML_1998, FormatXml.XML_BASE, properties.getServiceRoot().toASCIIString());
       }
 
-      etag = createETag(eia, data);
+      final String etag = metadata.getETag();
       if (etag != null) {
         writer.writeAttribute(Edm.NAMESPACE_M_2007_08, FormatXml.M_ETAG, etag);
       }
@@ -93,7 +94,7 @@ public class AtomEntryEntityProducer {
       appendAtomMandatoryParts(writer, eia, data);
       appendAtomOptionalParts(writer, eia, data);
 
-      if (eia.getEntityType().hasStream()) {
+      if (writePlan.hasStream()) {
         // write all links
         appendAtomEditLink(writer, eia, data);
         appendAtomContentLink(writer, eia, data, properties.getMediaResourceMimeType());
@@ -131,48 +132,23 @@ public class AtomEntryEntityProducer {
     for (String tpName : noneSyndicationTargetPaths) {
       EntityPropertyInfo info = eia.getTargetPathInfo(tpName);
       final String name = info.getName();
-      XmlPropertyEntityProducer aps = new XmlPropertyEntityProducer();
-      aps.appendCustomProperty(writer, name, info, data.get(name));
-    }
-  }
-
-  protected static String createETag(final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException {
-    try {
-      String etag = null;
-
-      Collection<EntityPropertyInfo> propertyInfos = eia.getETagPropertyInfos();
-      for (EntityPropertyInfo propertyInfo : propertyInfos) {
-        EdmType edmType = propertyInfo.getType();
-        if (edmType instanceof EdmSimpleType) {
-          EdmSimpleType edmSimpleType = (EdmSimpleType) edmType;
-          if (etag == null) {
-            etag = edmSimpleType.valueToString(data.get(propertyInfo.getName()), EdmLiteralKind.DEFAULT, propertyInfo.getFacets());
-          } else {
-            etag = etag + Edm.DELIMITER + edmSimpleType.valueToString(data.get(propertyInfo.getName()), EdmLiteralKind.DEFAULT, propertyInfo.getFacets());
-          }
-        }
-      }
-
-      if (etag != null) {
-        etag = "W/\"" + etag + "\"";
-      }
-
-      return etag;
-    } catch (EdmSimpleTypeException e) {
-      throw new EntityProviderException(EntityProviderException.COMMON, e);
+      propertyProducer.appendCustomProperty(writer, name, info, data.get(name));
     }
   }
 
   private void appendAtomNavigationLinks(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException, EdmException, URISyntaxException {
-    for (String name : eia.getSelectedNavigationPropertyNames()) {
-      NavigationPropertyInfo info = eia.getNavigationPropertyInfo(name);
+    final NavigationPropertyInfo[] navigationPropertyInfos = writePlan.getSelectedNavigationProperties();
+    final String[] encodedNames = writePlan.getEncodedSelectedNavigationPropertyNames();
+    final boolean[] expanded = writePlan.getSelectedNavigationPropertyExpanded();
+    for (int i = 0; i < navigationPropertyInfos.length; i++) {
+      NavigationPropertyInfo info = navigationPropertyInfos[i];
       boolean isFeed = (info.getMultiplicity() == EdmMultiplicity.MANY);
-      String self = createSelfLink(eia, data, info.getName());
-      appendAtomNavigationLink(writer, self, info.getName(), isFeed, eia, data);
+      String self = metadata.getSelfLink(encodedNames[i]);
+      appendAtomNavigationLink(writer, self, info.getName(), isFeed, expanded[i], eia, data);
     }
   }
 
-  private void appendAtomNavigationLink(final XMLStreamWriter writer, final String self, final String navigationPropertyName, final boolean isFeed, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException, EdmException, URISyntaxException {
+  private void appendAtomNavigationLink(final XMLStreamWriter writer, final String self, final String navigationPropertyName, final boolean isFeed, final boolean isExpanded, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException, EdmException, URISyntaxException {
     try {
       writer.writeStartElement(FormatXml.ATOM_LINK);
       writer.writeAttribute(FormatXml.ATOM_HREF, self);
@@ -180,10 +156,14 @@ public class AtomEntryEntityProducer {
       writer.writeAttribute(FormatXml.ATOM_TITLE, navigationPropertyName);
       if (isFeed) {
         writer.writeAttribute(FormatXml.ATOM_TYPE, ContentType.APPLICATION_ATOM_XML_FEED.toString());
-        appendInlineFeed(writer, navigationPropertyName, eia, data, self);
+        if (isExpanded) {
+          appendInlineFeed(writer, navigationPropertyName, eia, data, self);
+        }
       } else {
         writer.writeAttribute(FormatXml.ATOM_TYPE, ContentType.APPLICATION_ATOM_XML_ENTRY.toString());
-        appendInlineEntry(writer, navigationPropertyName, eia, data);
+        if (isExpanded) {
+          appendInlineEntry(writer, navigationPropertyName, eia, data);
+        }
       }
 
       writer.writeEndElement();
@@ -194,90 +174,83 @@ public class AtomEntryEntityProducer {
 
   private void appendInlineFeed(final XMLStreamWriter writer, final String navigationPropertyName, final EntityInfoAggregator eia, final Map<String, Object> data, final String self) throws EntityProviderException, XMLStreamException, EdmException, URISyntaxException {
 
-    if (eia.getExpandedNavigationPropertyNames().contains(navigationPropertyName)) {
-      if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
-        writer.writeStartElement(Edm.NAMESPACE_M_2007_08, FormatXml.M_INLINE);
-
-        EdmNavigationProperty navProp = (EdmNavigationProperty) eia.getEntityType().getProperty(navigationPropertyName);
-        WriteFeedCallbackContext context = new WriteFeedCallbackContext();
-        context.setSourceEntitySet(eia.getEntitySet());
-        context.setNavigationProperty(navProp);
-        context.setEntryData(data);
-        ExpandSelectTreeNode subNode = properties.getExpandSelectTree().getLinks().get(navigationPropertyName);
-        context.setCurrentExpandSelectTreeNode(subNode);
-        context.setSelfLink(new URI(self));
-
-        ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
-        if (callback == null) {
-          throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
-        }
-        WriteFeedCallbackResult result = null;
-        try {
-          result = ((OnWriteFeedContent) callback).retrieveFeedResult(context);
-        } catch (ODataApplicationException e) {
-          throw new EntityProviderException(EntityProviderException.COMMON, e);
-        }
-        List<Map<String, Object>> inlineData = result.getFeedData();
-        if (inlineData == null) {
-          inlineData = new ArrayList<Map<String, Object>>();
-        }
+    if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
+      writer.writeStartElement(Edm.NAMESPACE_M_2007_08, FormatXml.M_INLINE);
+
+      EdmNavigationProperty navProp = (EdmNavigationProperty) eia.getEntityType().getProperty(navigationPropertyName);
+      WriteFeedCallbackContext context = new WriteFeedCallbackContext();
+      context.setSourceEntitySet(eia.getEntitySet());
+      context.setNavigationProperty(navProp);
+      context.setEntryData(data);
+      ExpandSelectTreeNode subNode = properties.getExpandSelectTree().getLinks().get(navigationPropertyName);
+      context.setCurrentExpandSelectTreeNode(subNode);
+      context.setSelfLink(new URI(self));
+
+      ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
+      if (callback == null) {
+        throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
+      }
+      WriteFeedCallbackResult result = null;
+      try {
+        result = ((OnWriteFeedContent) callback).retrieveFeedResult(context);
+      } catch (ODataApplicationException e) {
+        throw new EntityProviderException(EntityProviderException.COMMON, e);
+      }
+      List<Map<String, Object>> inlineData = result.getFeedData();
+      if (inlineData == null) {
+        inlineData = new ArrayList<Map<String, Object>>();
+      }
 
-        EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
-        EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
-        AtomFeedProducer inlineFeedProducer = new AtomFeedProducer(inlineProperties);
-        EntityInfoAggregator inlineEia = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-        inlineFeedProducer.append(writer, inlineEia, inlineData, true);
+      EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
+      EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
+      AtomFeedProducer inlineFeedProducer = new AtomFeedProducer(inlineProperties);
+      EntityInfoAggregator inlineEia = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+      inlineFeedProducer.append(writer, inlineEia, inlineData, true);
 
-        writer.writeEndElement();
-      }
+      writer.writeEndElement();
     }
   }
 
   private void appendInlineEntry(final XMLStreamWriter writer, final String navigationPropertyName, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException, XMLStreamException, EdmException {
 
-    if (eia.getExpandedNavigationPropertyNames().contains(navigationPropertyName)) {
-      if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
-        writer.writeStartElement(Edm.NAMESPACE_M_2007_08, FormatXml.M_INLINE);
-
-        EdmNavigationProperty navProp = (EdmNavigationProperty) eia.getEntityType().getProperty(navigationPropertyName);
-        WriteEntryCallbackContext context = new WriteEntryCallbackContext();
-        context.setSourceEntitySet(eia.getEntitySet());
-        context.setNavigationProperty(navProp);
-        context.setEntryData(data);
-        ExpandSelectTreeNode subNode = properties.getExpandSelectTree().getLinks().get(navigationPropertyName);
-        context.setCurrentExpandSelectTreeNode(subNode);
-
-        ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
-        if (callback == null) {
-          throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
-        }
-        WriteEntryCallbackResult result = null;
-        try {
-          result = ((OnWriteEntryContent) callback).retrieveEntryResult(context);
-        } catch (ODataApplicationException e) {
-          throw new EntityProviderException(EntityProviderException.COMMON, e);
-        }
-        Map<String, Object> inlineData = result.getEntryData();
-        if (inlineData != null && !inlineData.isEmpty()) {
-          EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
-          EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
-          AtomEntryEntityProducer inlineProducer = new AtomEntryEntityProducer(inlineProperties);
-          EntityInfoAggregator inlineEia = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-          inlineProducer.append(writer, inlineEia, inlineData, false, false);
-        }
+    if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
+      writer.writeStartElement(Edm.NAMESPACE_M_2007_08, FormatXml.M_INLINE);
 
-        writer.writeEndElement();
+      EdmNavigationProperty navProp = (EdmNavigationProperty) eia.getEntityType().getProperty(navigationPropertyName);
+      WriteEntryCallbackContext context = new WriteEntryCallbackContext();
+      context.setSourceEntitySet(eia.getEntitySet());
+      context.setNavigationProperty(navProp);
+      context.setEntryData(data);
+      ExpandSelectTreeNode subNode = properties.getExpandSelectTree().getLinks().get(navigationPropertyName);
+      context.setCurrentExpandSelectTreeNode(subNode);
+
+      ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
+      if (callback == null) {
+        throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
+      }
+      WriteEntryCallbackResult result = null;
+      try {
+        result = ((OnWriteEntryContent) callback).retrieveEntryResult(context);
+      } catch (ODataApplicationException e) {
+        throw new EntityProviderException(EntityProviderException.COMMON, e);
+      }
+      Map<String, Object> inlineData = result.getEntryData();
+      if (inlineData != null && !inlineData.isEmpty()) {
+        EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
+        EdmEntitySet inlineEntitySet = eia.getEntitySet().getRelatedEntitySet(navProp);
+        AtomEntryEntityProducer inlineProducer = new AtomEntryEntityProducer(inlineProperties);
+        EntityInfoAggregator inlineEia = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+        inlineProducer.append(writer, inlineEia, inlineData, false, false);
       }
-    }
 
+      writer.writeEndElement();
+    }
   }
 
   private void appendAtomEditLink(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException {
     try {
-      String self = createSelfLink(eia, data, null);
-
       writer.writeStartElement(FormatXml.ATOM_LINK);
-      writer.writeAttribute(FormatXml.ATOM_HREF, self);
+      writer.writeAttribute(FormatXml.ATOM_HREF, metadata.getSelfLink());
       writer.writeAttribute(FormatXml.ATOM_REL, Edm.LINK_REL_EDIT);
       writer.writeAttribute(FormatXml.ATOM_TITLE, eia.getEntityType().getName());
       writer.writeEndElement();
@@ -290,7 +263,7 @@ public class AtomEntryEntityProducer {
 
   private void appendAtomContentLink(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data, String mediaResourceMimeType) throws EntityProviderException {
     try {
-      String self = createSelfLink(eia, data, "$value");
+      String self = metadata.getMediaLink();
 
       if (mediaResourceMimeType == null) {
         mediaResourceMimeType = ContentType.APPLICATION_OCTET_STREAM.toString();
@@ -308,7 +281,7 @@ public class AtomEntryEntityProducer {
 
   private void appendAtomContentPart(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data, String mediaResourceMimeType) throws EntityProviderException {
     try {
-      String self = createSelfLink(eia, data, "$value");
+      String self = metadata.getMediaLink();
 
       if (mediaResourceMimeType == null) {
         mediaResourceMimeType = ContentType.APPLICATION_OCTET_STREAM.toString();
@@ -326,8 +299,7 @@ public class AtomEntryEntityProducer {
   private void appendAtomMandatoryParts(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException {
     try {
       writer.writeStartElement(FormatXml.ATOM_ID);
-      location = properties.getServiceRoot().toASCIIString() + createSelfLink(eia, data, null);
-      writer.writeCharacters(location);
+      writer.writeCharacters(metadata.getLocation());
       writer.writeEndElement();
 
       writer.writeStartElement(FormatXml.ATOM_TITLE);
@@ -420,15 +392,12 @@ public class AtomEntryEntityProducer {
       String published = getTargetPathValue(eia, EdmTargetPath.SYNDICATION_PUBLISHED, data);
       appendAtomOptionalPart(writer, FormatXml.ATOM_PUBLISHED, published, false);
 
-      String term = eia.getEntityType().getNamespace() + Edm.DELIMITER + eia.getEntityType().getName();
       writer.writeStartElement(FormatXml.ATOM_CATEGORY);
-      writer.writeAttribute(FormatXml.ATOM_CATEGORY_TERM, term);
+      writer.writeAttribute(FormatXml.ATOM_CATEGORY_TERM, writePlan.getQualifiedTypeName());
       writer.writeAttribute(FormatXml.ATOM_CATEGORY_SCHEME, Edm.NAMESPACE_SCHEME_2007_08);
       writer.writeEndElement();
     } catch (XMLStreamException e) {
       throw new EntityProviderException(EntityProviderException.COMMON, e);
-    } catch (EdmException e) {
-      throw new EntityProviderException(EntityProviderException.COMMON, e);
     }
   }
 
@@ -448,55 +417,25 @@ public class AtomEntryEntityProducer {
   }
 
   static String createSelfLink(final EntityInfoAggregator eia, final Map<String, Object> data, final String extension) throws EntityProviderException {
-    StringBuilder sb = new StringBuilder();
-    if (!eia.isDefaultEntityContainer()) {
-      sb.append(Encoder.encode(eia.getEntityContainerName())).append(Edm.DELIMITER);
+    final String entitySetPath = eia.getEncodedEntitySetPath();
+    StringBuilder sb = new StringBuilder(entitySetPath.length() + 32);
+    sb.append(entitySetPath).append('(');
+    EntryMetadata.appendKey(sb, eia.getKeyProperties(), eia.getEncodedKeyNames(), data);
+    sb.append(')');
+    if (extension != null) {
+      sb.append('/').append(extension);
     }
-    sb.append(Encoder.encode(eia.getEntitySetName()));
-
-    sb.append("(").append(createEntryKey(eia, data)).append(")").append(extension == null ? "" : ("/" + extension));
     return sb.toString();
   }
 
-  private static String createEntryKey(final EntityInfoAggregator entityInfo, final Map<String, Object> data) throws EntityProviderException {
-    final List<EntityPropertyInfo> keyPropertyInfos = entityInfo.getKeyPropertyInfos();
-
-    StringBuilder keys = new StringBuilder();
-    for (final EntityPropertyInfo keyPropertyInfo : keyPropertyInfos) {
-      if (keys.length() > 0) {
-        keys.append(',');
-      }
-
-      final String name = keyPropertyInfo.getName();
-      if (keyPropertyInfos.size() > 1) {
-        keys.append(Encoder.encode(name)).append('=');
-      }
-
-      final EdmSimpleType type = (EdmSimpleType) keyPropertyInfo.getType();
-      try {
-        keys.append(Encoder.encode(type.valueToString(data.get(name), EdmLiteralKind.URI, keyPropertyInfo.getFacets())));
-      } catch (final EdmSimpleTypeException e) {
-        throw new EntityProviderException(EntityProviderException.COMMON, e);
-      }
-    }
-
-    return keys.toString();
-  }
-
   private void appendProperties(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> data) throws EntityProviderException {
     try {
-      List<String> propertyNames = eia.getSelectedPropertyNames();
-      if (!propertyNames.isEmpty()) {
+      if (writePlan.hasSelectedProperties()) {
         writer.writeStartElement(Edm.NAMESPACE_M_2007_08, FormatXml.M_PROPERTIES);
 
-        for (String propertyName : propertyNames) {
-          EntityPropertyInfo propertyInfo = eia.getPropertyInfo(propertyName);
-
-          if (isNotMappedViaCustomMapping(propertyInfo)) {
-            Object value = data.get(propertyName);
-            XmlPropertyEntityProducer aps = new XmlPropertyEntityProducer();
-            aps.append(writer, propertyInfo.getName(), propertyInfo, value);
-          }
+        for (final EntityPropertyInfo propertyInfo : writePlan.getContentProperties()) {
+          final String name = propertyInfo.getName();
+          propertyProducer.append(writer, name, propertyInfo, data.get(name));
         }
 
         writer.writeEndElement();
@@ -506,19 +445,11 @@ public class AtomEntryEntityProducer {
     }
   }
 
-  private boolean isNotMappedViaCustomMapping(final EntityPropertyInfo propertyInfo) {
-    EdmCustomizableFeedMappings customMapping = propertyInfo.getCustomMapping();
-    if (customMapping != null && customMapping.isFcKeepInContent() != null) {
-      return customMapping.isFcKeepInContent().booleanValue();
-    }
-    return true;
-  }
-
   public String getETag() {
-    return etag;
+    return metadata.getETag();
   }
 
   public String getLocation() {
-    return location;
+    return metadata.getLocation();
   }
 }
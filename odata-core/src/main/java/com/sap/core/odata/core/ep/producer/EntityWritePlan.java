@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.producer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmCustomizableFeedMappings;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmMapping;
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.core.commons.Encoder;
+import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
+import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
+import com.sap.core.odata.core.ep.aggregator.NavigationPropertyInfo;
+import com.sap.core.odata.core.ep.util.JsonStreamWriter;
+
+/**
+ * Write plan for the entries of one {@link EntityInfoAggregator}, i.e., for one
+ * entity set with one selection.
+ * <p>The plan is compiled once and then used for every entry, so that the
+ * producers neither look up the EDM nor scan the selection lists per entry.</p>
+ * @author SAP AG
+ */
+final class EntityWritePlan {
+
+  private final EntityInfoAggregator entityInfo;
+  private final String qualifiedTypeName;
+  private final boolean hasStream;
+  private final String mimeTypeMapping;
+  private final String entitySetPath;
+  private final EntityPropertyInfo[] keyProperties;
+  private final String[] encodedKeyNames;
+  private final EntityPropertyInfo[] eTagProperties;
+
+  private final EntityPropertyInfo[] properties;
+  private final String[] jsonPropertyNames;
+  private final boolean hasSelectedProperties;
+  private final EntityPropertyInfo[] contentProperties;
+
+  private final NavigationPropertyInfo[] navigationProperties;
+  private final String[] jsonNavigationPropertyNames;
+  private final String[] encodedNavigationPropertyNames;
+  private final boolean[] navigationPropertyExpanded;
+  private final NavigationPropertyInfo[] selectedNavigationProperties;
+  private final boolean[] selectedNavigationPropertyExpanded;
+  private final String[] encodedSelectedNavigationPropertyNames;
+
+  private EntityWritePlan(final EntityInfoAggregator entityInfo) throws EntityProviderException, EdmException {
+    this.entityInfo = entityInfo;
+    final EdmEntityType type = entityInfo.getEntityType();
+    qualifiedTypeName = type.getNamespace() + Edm.DELIMITER + type.getName();
+    hasStream = type.hasStream();
+    final EdmMapping mapping = hasStream ? type.getMapping() : null;
+    mimeTypeMapping = mapping == null ? null : mapping.getMimeType();
+
+    entitySetPath = entityInfo.getEncodedEntitySetPath();
+    keyProperties = entityInfo.getKeyProperties();
+    encodedKeyNames = entityInfo.getEncodedKeyNames();
+    List<EntityPropertyInfo> eTagPropertyInfos = new ArrayList<EntityPropertyInfo>();
+    for (final EntityPropertyInfo propertyInfo : entityInfo.getETagPropertyInfos()) {
+      if (propertyInfo.getType() instanceof EdmSimpleType) {
+        eTagPropertyInfos.add(propertyInfo);
+      }
+    }
+    eTagProperties = eTagPropertyInfos.toArray(new EntityPropertyInfo[eTagPropertyInfos.size()]);
+
+    final Set<String> selectedPropertyNames = new HashSet<String>(entityInfo.getSelectedPropertyNames());
+    List<EntityPropertyInfo> propertyInfos = new ArrayList<EntityPropertyInfo>();
+    for (final String propertyName : entityInfo.getPropertyNames()) {
+      if (selectedPropertyNames.contains(propertyName)) {
+        propertyInfos.add(entityInfo.getPropertyInfo(propertyName));
+      }
+    }
+    properties = propertyInfos.toArray(new EntityPropertyInfo[propertyInfos.size()]);
+    jsonPropertyNames = new String[properties.length];
+    for (int i = 0; i < properties.length; i++) {
+      jsonPropertyNames[i] = JsonStreamWriter.prepareName(properties[i].getName());
+    }
+
+    hasSelectedProperties = !entityInfo.getSelectedPropertyNames().isEmpty();
+    propertyInfos.clear();
+    for (final String propertyName : entityInfo.getSelectedPropertyNames()) {
+      final EntityPropertyInfo propertyInfo = entityInfo.getPropertyInfo(propertyName);
+      if (isKeptInContent(propertyInfo)) {
+        propertyInfos.add(propertyInfo);
+      }
+    }
+    contentProperties = propertyInfos.toArray(new EntityPropertyInfo[propertyInfos.size()]);
+
+    final Set<String> selectedNavigationPropertyNames = new HashSet<String>(entityInfo.getSelectedNavigationPropertyNames());
+    final Set<String> expandedNavigationPropertyNames = new HashSet<String>(entityInfo.getExpandedNavigationPropertyNames());
+    List<NavigationPropertyInfo> navigationInfos = new ArrayList<NavigationPropertyInfo>();
+    for (final String navigationPropertyName : entityInfo.getNavigationPropertyNames()) {
+      if (selectedNavigationPropertyNames.contains(navigationPropertyName)) {
+        navigationInfos.add(entityInfo.getNavigationPropertyInfo(navigationPropertyName));
+      }
+    }
+    navigationProperties = navigationInfos.toArray(new NavigationPropertyInfo[navigationInfos.size()]);
+    jsonNavigationPropertyNames = new String[navigationProperties.length];
+    encodedNavigationPropertyNames = new String[navigationProperties.length];
+    navigationPropertyExpanded = new boolean[navigationProperties.length];
+    for (int i = 0; i < navigationProperties.length; i++) {
+      final String name = navigationProperties[i].getName();
+      jsonNavigationPropertyNames[i] = JsonStreamWriter.prepareName(name);
+      encodedNavigationPropertyNames[i] = Encoder.encode(name);
+      navigationPropertyExpanded[i] = expandedNavigationPropertyNames.contains(name);
+    }
+
+    navigationInfos.clear();
+    for (final String navigationPropertyName : entityInfo.getSelectedNavigationPropertyNames()) {
+      navigationInfos.add(entityInfo.getNavigationPropertyInfo(navigationPropertyName));
+    }
+    selectedNavigationProperties = navigationInfos.toArray(new NavigationPropertyInfo[navigationInfos.size()]);
+    selectedNavigationPropertyExpanded = new boolean[selectedNavigationProperties.length];
+    encodedSelectedNavigationPropertyNames = new String[selectedNavigationProperties.length];
+    for (int i = 0; i < selectedNavigationProperties.length; i++) {
+      final String name = selectedNavigationProperties[i].getName();
+      selectedNavigationPropertyExpanded[i] = expandedNavigationPropertyNames.contains(name);
+      encodedSelectedNavigationPropertyNames[i] = Encoder.encode(name);
+    }
+  }
+
+  /**
+   * Returns the write plan for the given entity information, re-using the
+   * given plan if it has been compiled for the same entity information.
+   * @param entityInfo the entity information
+   * @param plan a previously compiled plan or <code>null</code>
+   * @return the write plan
+   * @throws EntityProviderException if the EDM could not be accessed
+   */
+  static EntityWritePlan get(final EntityInfoAggregator entityInfo, final EntityWritePlan plan) throws EntityProviderException {
+    if (plan != null && plan.entityInfo == entityInfo) {
+      return plan;
+    }
+    try {
+      return new EntityWritePlan(entityInfo);
+    } catch (final EdmException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+  }
+
+  private static boolean isKeptInContent(final EntityPropertyInfo propertyInfo) {
+    final EdmCustomizableFeedMappings customMapping = propertyInfo.getCustomMapping();
+    if (customMapping != null && customMapping.isFcKeepInContent() != null) {
+      return customMapping.isFcKeepInContent().booleanValue();
+    }
+    return true;
+  }
+
+  /**
+   * @return the qualified name of the entity type
+   */
+  String getQualifiedTypeName() {
+    return qualifiedTypeName;
+  }
+
+  boolean hasStream() {
+    return hasStream;
+  }
+
+  /**
+   * @return the name of the property mapped to the media-resource MIME type or <code>null</code>
+   */
+  String getMimeTypeMapping() {
+    return mimeTypeMapping;
+  }
+
+  /**
+   * @return the percent-encoded path of the entity set, including the entity-container name
+   *         if the container is not the default one
+   */
+  String getEntitySetPath() {
+    return entitySetPath;
+  }
+
+  EntityPropertyInfo[] getKeyProperties() {
+    return keyProperties;
+  }
+
+  /**
+   * @return the percent-encoded names of the {@link #getKeyProperties() key properties}
+   */
+  String[] getEncodedKeyNames() {
+    return encodedKeyNames;
+  }
+
+  /**
+   * @return the properties of simple type relevant for the entity tag
+   */
+  EntityPropertyInfo[] getETagProperties() {
+    return eTagProperties;
+  }
+
+  /**
+   * @return the selected properties in the order of the entity type
+   */
+  EntityPropertyInfo[] getProperties() {
+    return properties;
+  }
+
+  /**
+   * @return the prepared JSON names of the {@link #getProperties() selected properties}
+   */
+  String[] getJsonPropertyNames() {
+    return jsonPropertyNames;
+  }
+
+  boolean hasSelectedProperties() {
+    return hasSelectedProperties;
+  }
+
+  /**
+   * @return the selected properties in selection order which are not mapped
+   *         out of the content via customizable feed mappings
+   */
+  EntityPropertyInfo[] getContentProperties() {
+    return contentProperties;
+  }
+
+  /**
+   * @return the selected navigation properties in the order of the entity type
+   */
+  NavigationPropertyInfo[] getNavigationProperties() {
+    return navigationProperties;
+  }
+
+  /**
+   * @return the prepared JSON names of the {@link #getNavigationProperties() selected navigation properties}
+   */
+  String[] getJsonNavigationPropertyNames() {
+    return jsonNavigationPropertyNames;
+  }
+
+  /**
+   * @return the percent-encoded names of the {@link #getNavigationProperties() selected navigation properties}
+   */
+  String[] getEncodedNavigationPropertyNames() {
+    return encodedNavigationPropertyNames;
+  }
+
+  /**
+   * @return for each of the {@link #getNavigationProperties() selected navigation properties}
+   *         whether it is expanded
+   */
+  boolean[] getNavigationPropertyExpanded() {
+    return navigationPropertyExpanded;
+  }
+
+  /**
+   * @return the selected navigation properties in selection order
+   */
+  NavigationPropertyInfo[] getSelectedNavigationProperties() {
+    return selectedNavigationProperties;
+  }
+
+  /**
+   * @return for each of the {@link #getSelectedNavigationProperties() selected navigation properties
+   *         in selection order} whether it is expanded
+   */
+  boolean[] getSelectedNavigationPropertyExpanded() {
+    return selectedNavigationPropertyExpanded;
+  }
+
+  /**
+   * @return the percent-encoded names of the {@link #getSelectedNavigationProperties() selected navigation
+   *         properties in selection order}
+   */
+  String[] getEncodedSelectedNavigationPropertyNames() {
+    return encodedSelectedNavigationPropertyNames;
+  }
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.producer;
+
+import java.util.Map;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmLiteralKind;
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeException;
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.core.commons.Encoder;
+import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
+
+/**
+ * Metadata of the entry currently written: key, self link, location, and entity tag.
+ * <p>All values are formatted exactly once per entry with a re-used
+ * {@link StringBuilder}; links relative to the entry are built by appending
+ * to the cached self link or location.</p>
+ * @author SAP AG
+ */
+final class EntryMetadata {
+
+  private static final String VALUE_SEGMENT = "/$value";
+
+  private final String serviceRoot;
+  private final StringBuilder builder = new StringBuilder();
+  private String selfLink;
+  private String location;
+  private String eTag;
+
+  /**
+   * @param serviceRoot the service root as ASCII string or <code>null</code>
+   */
+  EntryMetadata(final String serviceRoot) {
+    this.serviceRoot = serviceRoot;
+  }
+
+  /**
+   * Computes all metadata of the given entry.
+   * @param plan the write plan for the entry
+   * @param data the entry data
+   * @throws EntityProviderException if a key or entity-tag value could not be formatted
+   */
+  void compute(final EntityWritePlan plan, final Map<String, Object> data) throws EntityProviderException {
+    builder.setLength(0);
+    builder.append(plan.getEntitySetPath()).append('(');
+    appendKey(builder, plan.getKeyProperties(), plan.getEncodedKeyNames(), data);
+    selfLink = builder.append(')').toString();
+    if (serviceRoot != null) {
+      builder.insert(0, serviceRoot);
+    }
+    location = builder.toString();
+    eTag = createETag(plan.getETagProperties(), data);
+  }
+
+  /**
+   * Appends the percent-encoded key of an entry, without surrounding parentheses.
+   * @param builder the builder to append to
+   * @param keyProperties the key properties
+   * @param encodedKeyNames the percent-encoded names of the key properties
+   * @param data the entry data
+   * @throws EntityProviderException if a key value could not be formatted
+   */
+  static void appendKey(final StringBuilder builder, final EntityPropertyInfo[] keyProperties, final String[] encodedKeyNames, final Map<String, Object> data) throws EntityProviderException {
+    for (int i = 0; i < keyProperties.length; i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      if (keyProperties.length > 1) {
+        builder.append(encodedKeyNames[i]).append('=');
+      }
+      final EntityPropertyInfo keyPropertyInfo = keyProperties[i];
+      final EdmSimpleType type = (EdmSimpleType) keyPropertyInfo.getType();
+      try {
+        Encoder.encode(type.valueToString(data.get(keyPropertyInfo.getName()), EdmLiteralKind.URI, keyPropertyInfo.getFacets()), builder);
+      } catch (final EdmSimpleTypeException e) {
+        throw new EntityProviderException(EntityProviderException.COMMON, e);
+      }
+    }
+  }
+
+  private String createETag(final EntityPropertyInfo[] eTagProperties, final Map<String, Object> data) throws EntityProviderException {
+    if (eTagProperties.length == 0) {
+      return null;
+    }
+
+    builder.setLength(0);
+    builder.append("W/\"");
+    boolean empty = true;
+    try {
+      for (final EntityPropertyInfo propertyInfo : eTagProperties) {
+        final String value = ((EdmSimpleType) propertyInfo.getType())
+            .valueToString(data.get(propertyInfo.getName()), EdmLiteralKind.DEFAULT, propertyInfo.getFacets());
+        if (!empty) {
+          builder.append(Edm.DELIMITER).append(value);
+        } else if (value != null) {
+          builder.append(value);
+          empty = false;
+        }
+      }
+    } catch (final EdmSimpleTypeException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+
+    return empty ? null : builder.append('"').toString();
+  }
+
+  /**
+   * @return the self link of the entry, relative to the service root
+   */
+  String getSelfLink() {
+    return selfLink;
+  }
+
+  /**
+   * @param encodedSegment an already percent-encoded path segment
+   * @return the self link of the entry, extended by the given segment
+   */
+  String getSelfLink(final String encodedSegment) {
+    builder.setLength(0);
+    return builder.append(selfLink).append('/').append(encodedSegment).toString();
+  }
+
+  /**
+   * @return the link to the media resource of the entry, relative to the service root
+   */
+  String getMediaLink() {
+    return selfLink + VALUE_SEGMENT;
+  }
+
+  /**
+   * @return the absolute location of the entry
+   */
+  String getLocation() {
+    return location;
+  }
+
+  /**
+   * @param encodedSegment an already percent-encoded path segment
+   * @return the absolute location of the entry, extended by the given segment
+   */
+  String getLocation(final String encodedSegment) {
+    builder.setLength(0);
+    return builder.append(location).append('/').append(encodedSegment).toString();
+  }
+
+  /**
+   * @return the absolute location of the media resource of the entry
+   */
+  String getMediaLocation() {
+    return location + VALUE_SEGMENT;
+  }
+
+  /**
+   * @return the entity tag of the entry or <code>null</code>
+   */
+  String getETag() {
+    return eTag;
+  }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.producer;
+
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.core.edm.EdmByte;
+import com.sap.core.odata.core.edm.EdmInt16;
+import com.sap.core.odata.core.edm.EdmInt32;
+import com.sap.core.odata.core.edm.EdmInt64;
+import com.sap.core.odata.core.edm.EdmSByte;
+
+/**
+ * Support for writing the values of integral properties directly,
+ * bypassing the String conversion of the EDM simple types.
+ * @author SAP AG
+ */
+final class IntegerValues {
+
+  private IntegerValues() {}
+
+  /**
+   * Checks whether the given value can be written directly as the digits of its
+   * {@link Number#longValue() long value}: the type must be an integral
+   * EDM simple type and the value an integral Java number in the range of that type.
+   * For all other cases the EDM simple type has to format the value
+   * (and report errors).
+   * @param type  the EDM simple type of the property
+   * @param value the value of the property
+   * @return whether the value can be written directly
+   */
+  static boolean isDirect(final EdmSimpleType type, final Object value) {
+    if (!(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)) {
+      return false;
+    }
+    final long longValue = ((Number) value).longValue();
+    if (type instanceof EdmInt32) {
+      return longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE;
+    } else if (type instanceof EdmInt64) {
+      return true;
+    } else if (type instanceof EdmInt16) {
+      return longValue >= Short.MIN_VALUE && longValue <= Short.MAX_VALUE;
+    } else if (type instanceof EdmByte) {
+      return longValue >= 0 && longValue <= 255;
+    } else if (type instanceof EdmSByte) {
+      return longValue >= Byte.MIN_VALUE && longValue <= Byte.MAX_VALUE;
+    } else {
+      return false;
+    }
+  }
+}
@@ -23,9 +23,7 @@ import java.util.Map;
 
 import com.sap.core.odata.api.ODataCallback;
 import com.sap.core.odata.api.commons.HttpContentType;
-import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmEntitySet;
-import com.sap.core.odata.api.edm.EdmEntityType;
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.edm.EdmNavigationProperty;
@@ -39,8 +37,9 @@ import com.sap.core.odata.api.ep.callback.WriteEntryCallbackResult;
 import com.sap.core.odata.api.ep.callback.WriteFeedCallbackContext;
 import com.sap.core.odata.api.ep.callback.WriteFeedCallbackResult;
 import com.sap.core.odata.api.exception.ODataApplicationException;
-import com.sap.core.odata.core.commons.Encoder;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
+import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
+import com.sap.core.odata.core.ep.aggregator.NavigationPropertyInfo;
 import com.sap.core.odata.core.ep.util.FormatJson;
 import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 
@@ -52,19 +51,23 @@ import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 public class JsonEntryEntityProducer {
 
   private final EntityProviderWriteProperties properties;
-  private String eTag;
-  private String location;
+  private final EntryMetadata metadata;
   private JsonStreamWriter jsonStreamWriter;
+  private EntityWritePlan writePlan;
 
   public JsonEntryEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
+    metadata = new EntryMetadata(this.properties.getServiceRoot() == null ? null : this.properties.getServiceRoot().toASCIIString());
   }
 
   public void append(final Writer writer, final EntityInfoAggregator entityInfo, final Map<String, Object> data, final boolean isRootElement) throws EntityProviderException {
-    final EdmEntityType type = entityInfo.getEntityType();
+    writePlan = EntityWritePlan.get(entityInfo, writePlan);
+    metadata.compute(writePlan, data);
 
     try {
-      jsonStreamWriter = new JsonStreamWriter(writer);
+      if (jsonStreamWriter == null || jsonStreamWriter.getWriter() != writer) {
+        jsonStreamWriter = new JsonStreamWriter(writer);
+      }
       if (isRootElement) {
         jsonStreamWriter.beginObject().name(FormatJson.D);
       }
@@ -73,90 +76,92 @@ public class JsonEntryEntityProducer {
 
       jsonStreamWriter.name(FormatJson.METADATA)
           .beginObject();
-      final String self = AtomEntryEntityProducer.createSelfLink(entityInfo, data, null);
-      location = (properties.getServiceRoot() == null ? "" : properties.getServiceRoot().toASCIIString()) + self;
+      final String location = metadata.getLocation();
       jsonStreamWriter.namedStringValue(FormatJson.ID, location).separator()
           .namedStringValue(FormatJson.URI, location).separator()
-          .namedStringValueRaw(FormatJson.TYPE,
-              type.getNamespace() + Edm.DELIMITER + type.getName());
-      eTag = AtomEntryEntityProducer.createETag(entityInfo, data);
+          .namedStringValueRaw(FormatJson.TYPE, writePlan.getQualifiedTypeName());
+      final String eTag = metadata.getETag();
       if (eTag != null) {
         jsonStreamWriter.separator()
             .namedStringValue(FormatJson.ETAG, eTag);
       }
-      if (type.hasStream()) {
+      if (writePlan.hasStream()) {
+        final String mimeTypeMapping = writePlan.getMimeTypeMapping();
         jsonStreamWriter.separator()
             .namedStringValueRaw(FormatJson.CONTENT_TYPE,
                 properties.getMediaResourceMimeType() == null ?
-                    type.getMapping() == null || type.getMapping().getMimeType() == null || data.get(type.getMapping().getMimeType()) == null ?
-                        HttpContentType.APPLICATION_OCTET_STREAM : data.get(type.getMapping().getMimeType()).toString() :
+                    mimeTypeMapping == null || data.get(mimeTypeMapping) == null ?
+                        HttpContentType.APPLICATION_OCTET_STREAM : data.get(mimeTypeMapping).toString() :
                     properties.getMediaResourceMimeType())
             .separator()
-            .namedStringValue(FormatJson.MEDIA_SRC, self + "/$value").separator()
-            .namedStringValue(FormatJson.EDIT_MEDIA, location + "/$value");
+            .namedStringValue(FormatJson.MEDIA_SRC, metadata.getMediaLink()).separator()
+            .namedStringValue(FormatJson.EDIT_MEDIA, metadata.getMediaLocation());
       }
       jsonStreamWriter.endObject();
 
-      for (final String propertyName : type.getPropertyNames()) {
-        if (entityInfo.getSelectedPropertyNames().contains(propertyName)) {
-          jsonStreamWriter.separator()
-              .name(propertyName);
-          JsonPropertyEntityProducer.appendPropertyValue(jsonStreamWriter, entityInfo.getPropertyInfo(propertyName), data.get(propertyName));
-        }
+      final EntityPropertyInfo[] propertyInfos = writePlan.getProperties();
+      final String[] propertyNames = writePlan.getJsonPropertyNames();
+      for (int i = 0; i < propertyInfos.length; i++) {
+        jsonStreamWriter.separator()
+            .preparedName(propertyNames[i]);
+        JsonPropertyEntityProducer.appendPropertyValue(jsonStreamWriter, propertyInfos[i], data.get(propertyInfos[i].getName()));
       }
 
-      for (final String navigationPropertyName : type.getNavigationPropertyNames()) {
-        if (entityInfo.getSelectedNavigationPropertyNames().contains(navigationPropertyName)) {
-          jsonStreamWriter.separator()
-              .name(navigationPropertyName);
-          if (entityInfo.getExpandedNavigationPropertyNames().contains(navigationPropertyName)) {
-            if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
-              final EdmNavigationProperty navigationProperty = (EdmNavigationProperty) type.getProperty(navigationPropertyName);
-              final boolean isFeed = navigationProperty.getMultiplicity() == EdmMultiplicity.MANY;
-              final EdmEntitySet entitySet = entityInfo.getEntitySet();
-              final EdmEntitySet inlineEntitySet = entitySet.getRelatedEntitySet(navigationProperty);
-
-              WriteCallbackContext context = isFeed ? new WriteFeedCallbackContext() : new WriteEntryCallbackContext();
-              context.setSourceEntitySet(entitySet);
-              context.setNavigationProperty(navigationProperty);
-              context.setEntryData(data);
-              context.setCurrentExpandSelectTreeNode(properties.getExpandSelectTree().getLinks().get(navigationPropertyName));
-
-              ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
-              if (callback == null) {
-                throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
-              }
-              try {
-                if (isFeed) {
-                  final WriteFeedCallbackResult result = ((OnWriteFeedContent) callback).retrieveFeedResult((WriteFeedCallbackContext) context);
-                  List<Map<String, Object>> inlineData = result.getFeedData();
-                  if (inlineData == null) {
-                    inlineData = new ArrayList<Map<String, Object>>();
-                  }
+      final NavigationPropertyInfo[] navigationPropertyInfos = writePlan.getNavigationProperties();
+      final String[] navigationPropertyNames = writePlan.getJsonNavigationPropertyNames();
+      final String[] encodedNavigationPropertyNames = writePlan.getEncodedNavigationPropertyNames();
+      final boolean[] expanded = writePlan.getNavigationPropertyExpanded();
+      for (int i = 0; i < navigationPropertyInfos.length; i++) {
+        final String navigationPropertyName = navigationPropertyInfos[i].getName();
+        jsonStreamWriter.separator()
+            .preparedName(navigationPropertyNames[i]);
+        if (expanded[i]) {
+          if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
+            final EdmNavigationProperty navigationProperty = (EdmNavigationProperty) entityInfo.getEntityType().getProperty(navigationPropertyName);
+            final boolean isFeed = navigationPropertyInfos[i].getMultiplicity() == EdmMultiplicity.MANY;
+            final EdmEntitySet entitySet = entityInfo.getEntitySet();
+            final EdmEntitySet inlineEntitySet = entitySet.getRelatedEntitySet(navigationProperty);
+
+            WriteCallbackContext context = isFeed ? new WriteFeedCallbackContext() : new WriteEntryCallbackContext();
+            context.setSourceEntitySet(entitySet);
+            context.setNavigationProperty(navigationProperty);
+            context.setEntryData(data);
+            context.setCurrentExpandSelectTreeNode(properties.getExpandSelectTree().getLinks().get(navigationPropertyName));
+
+            ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
+            if (callback == null) {
+              throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
+            }
+            try {
+              if (isFeed) {
+                final WriteFeedCallbackResult result = ((OnWriteFeedContent) callback).retrieveFeedResult((WriteFeedCallbackContext) context);
+                List<Map<String, Object>> inlineData = result.getFeedData();
+                if (inlineData == null) {
+                  inlineData = new ArrayList<Map<String, Object>>();
+                }
+                final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
+                final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+                new JsonFeedEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
+
+              } else {
+                final WriteEntryCallbackResult result = ((OnWriteEntryContent) callback).retrieveEntryResult((WriteEntryCallbackContext) context);
+                Map<String, Object> inlineData = result.getEntryData();
+                if (inlineData != null && !inlineData.isEmpty()) {
                   final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
                   final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-                  new JsonFeedEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
-
+                  new JsonEntryEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
                 } else {
-                  final WriteEntryCallbackResult result = ((OnWriteEntryContent) callback).retrieveEntryResult((WriteEntryCallbackContext) context);
-                  Map<String, Object> inlineData = result.getEntryData();
-                  if (inlineData != null && !inlineData.isEmpty()) {
-                    final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
-                    final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-                    new JsonEntryEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
-                  } else {
-                    jsonStreamWriter.unquotedValue("null");
-                  }
+                  jsonStreamWriter.unquotedValue("null");
                 }
-              } catch (final ODataApplicationException e) {
-                throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
               }
-            } else {
-              writeDeferredUri(navigationPropertyName);
+            } catch (final ODataApplicationException e) {
+              throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
             }
           } else {
-            writeDeferredUri(navigationPropertyName);
+            writeDeferredUri(encodedNavigationPropertyNames[i]);
           }
+        } else {
+          writeDeferredUri(encodedNavigationPropertyNames[i]);
         }
       }
 
@@ -166,8 +171,6 @@ public class JsonEntryEntityProducer {
         jsonStreamWriter.endObject();
       }
 
-      writer.flush();
-
     } catch (final IOException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     } catch (final EdmException e) {
@@ -175,18 +178,18 @@ public class JsonEntryEntityProducer {
     }
   }
 
-  private void writeDeferredUri(final String navigationPropertyName) throws IOException {
+  private void writeDeferredUri(final String encodedNavigationPropertyName) throws IOException {
     jsonStreamWriter.beginObject()
         .name(FormatJson.DEFERRED);
-    JsonLinkEntityProducer.appendUri(jsonStreamWriter, location + "/" + Encoder.encode(navigationPropertyName));
+    JsonLinkEntityProducer.appendUri(jsonStreamWriter, metadata.getLocation(encodedNavigationPropertyName));
     jsonStreamWriter.endObject();
   }
 
   public String getETag() {
-    return eTag;
+    return metadata.getETag();
   }
 
   public String getLocation() {
-    return location;
+    return metadata.getLocation();
   }
 }
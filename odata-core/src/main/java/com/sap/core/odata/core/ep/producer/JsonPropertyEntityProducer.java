@@ -26,6 +26,7 @@ import com.sap.core.odata.api.edm.EdmSimpleType;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.core.edm.EdmInt64;
 import com.sap.core.odata.core.ep.aggregator.EntityComplexPropertyInfo;
 import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
 import com.sap.core.odata.core.ep.util.FormatJson;
@@ -76,6 +77,15 @@ public class JsonPropertyEntityProducer {
     } else {
       final EdmSimpleType type = (EdmSimpleType) propertyInfo.getType();
       final Object contentValue = value instanceof Map ? ((Map<?, ?>) value).get(propertyInfo.getName()) : value;
+      if (IntegerValues.isDirect(type, contentValue)) {
+        // Int64 values are written as strings, all other integral values as numbers.
+        if (type instanceof EdmInt64) {
+          jsonStreamWriter.stringValueRaw(((Number) contentValue).longValue());
+        } else {
+          jsonStreamWriter.unquotedValue(((Number) contentValue).longValue());
+        }
+        return;
+      }
       final String valueAsString = type.valueToString(contentValue, EdmLiteralKind.JSON, propertyInfo.getFacets());
       switch (EdmSimpleTypeKind.valueOf(type.getName())) {
       case String:
@@ -30,6 +30,7 @@ import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.core.ep.aggregator.EntityComplexPropertyInfo;
 import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
 import com.sap.core.odata.core.ep.util.FormatXml;
+import com.sap.core.odata.core.ep.util.NumberChars;
 
 /**
  * Internal EntityProvider for simple and complex EDM properties which are pre-analyzed as {@link EntityPropertyInfo}.
@@ -37,6 +38,8 @@ import com.sap.core.odata.core.ep.util.FormatXml;
  */
 public class XmlPropertyEntityProducer {
 
+  private final char[] numberBuffer = new char[NumberChars.MAX_LENGTH];
+
   /**
    * Append {@link Object} <code>value</code> based on {@link EntityPropertyInfo} to {@link XMLStreamWriter}
    * in an already existing XML structure inside the d namespace.
@@ -179,6 +182,11 @@ public class XmlPropertyEntityProducer {
     }
 
     final EdmSimpleType type = (EdmSimpleType) prop.getType();
+    if (IntegerValues.isDirect(type, contentValue)) {
+      final int start = NumberChars.getChars(((Number) contentValue).longValue(), numberBuffer);
+      writer.writeCharacters(numberBuffer, start, NumberChars.MAX_LENGTH - start);
+      return;
+    }
     final String valueAsString = type.valueToString(contentValue, EdmLiteralKind.DEFAULT, prop.getFacets());
     if (valueAsString == null) {
       writer.writeAttribute(Edm.NAMESPACE_M_2007_08, FormatXml.ATOM_NULL, FormatXml.ATOM_VALUE_TRUE);
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Unsynchronized {@link Writer} which encodes characters directly as UTF-8
+ * into a byte buffer and hands the buffer to the underlying
+ * {@link OutputStream} only when it is full or on {@link #flush()}.
+ * <p>It replaces the combination of a {@link java.io.BufferedWriter} and an
+ * {@link java.io.OutputStreamWriter}, avoiding the intermediate character buffer,
+ * the charset encoder, and the lock per call. Unpaired surrogates are written
+ * as <code>'?'</code> like the standard UTF-8 encoder does.</p>
+ * <p>Instances are <b>not thread safe</b>.</p>
+ * @author SAP AG
+ */
+public class BufferedUtf8Writer extends Writer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  private final OutputStream out;
+  private final byte[] buffer;
+  private int position;
+  private char highSurrogate;
+
+  public BufferedUtf8Writer(final OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param out the stream the encoded bytes are written to
+   * @param bufferSize the size of the byte buffer; must be at least 4
+   */
+  public BufferedUtf8Writer(final OutputStream out, final int bufferSize) {
+    if (bufferSize < 4) {
+      throw new IllegalArgumentException("Buffer size must be at least 4.");
+    }
+    this.out = out;
+    buffer = new byte[bufferSize];
+  }
+
+  @Override
+  public void write(final int c) throws IOException {
+    if (c < 0x80 && highSurrogate == 0) {
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      buffer[position++] = (byte) c;
+    } else {
+      encode((char) c);
+    }
+  }
+
+  @Override
+  public void write(final char[] chars, final int offset, final int length) throws IOException {
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      // ASCII fast path without per-character bounds checks of the buffer
+      if (highSurrogate == 0) {
+        final int asciiEnd = Math.min(end, i + buffer.length - position);
+        while (i < asciiEnd && chars[i] < 0x80) {
+          buffer[position++] = (byte) chars[i++];
+        }
+        if (i == end) {
+          break;
+        }
+        if (position == buffer.length) {
+          flushBuffer();
+          continue;
+        }
+      }
+      encode(chars[i++]);
+    }
+  }
+
+  @Override
+  public void write(final String value, final int offset, final int length) throws IOException {
+    final int end = offset + length;
+    int i = offset;
+    while (i < end) {
+      if (highSurrogate == 0) {
+        final int asciiEnd = Math.min(end, i + buffer.length - position);
+        while (i < asciiEnd && value.charAt(i) < 0x80) {
+          buffer[position++] = (byte) value.charAt(i++);
+        }
+        if (i == end) {
+          break;
+        }
+        if (position == buffer.length) {
+          flushBuffer();
+          continue;
+        }
+      }
+      encode(value.charAt(i++));
+    }
+  }
+
+  @Override
+  public void write(final String value) throws IOException {
+    write(value, 0, value.length());
+  }
+
+  @Override
+  public Writer append(final char c) throws IOException {
+    write(c);
+    return this;
+  }
+
+  @Override
+  public Writer append(final CharSequence value) throws IOException {
+    if (value == null) {
+      write("null");
+    } else {
+      write(value.toString());
+    }
+    return this;
+  }
+
+  private void encode(final char c) throws IOException {
+    if (buffer.length - position < 4) {
+      flushBuffer();
+    }
+    if (highSurrogate != 0) {
+      final char high = highSurrogate;
+      highSurrogate = 0;
+      if (c >= '\uDC00' && c <= '\uDFFF') {
+        final int codePoint = ((high - 0xD800) << 10) + (c - 0xDC00) + 0x10000;
+        buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+        return;
+      }
+      buffer[position++] = '?';
+    }
+    if (c < 0x80) {
+      buffer[position++] = (byte) c;
+    } else if (c < 0x800) {
+      buffer[position++] = (byte) (0xC0 | c >> 6);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    } else if (c >= '\uD800' && c <= '\uDBFF') {
+      highSurrogate = c;
+    } else if (c >= '\uDC00' && c <= '\uDFFF') {
+      buffer[position++] = '?';
+    } else {
+      buffer[position++] = (byte) (0xE0 | c >> 12);
+      buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the underlying stream and flushes it.
+   * A pending high surrogate is kept until its low surrogate arrives.
+   */
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  /**
+   * Writes the buffered bytes, including <code>'?'</code> for a pending
+   * high surrogate, and closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      write('?');
+    }
+    flushBuffer();
+    out.close();
+  }
+}
@@ -16,19 +16,52 @@
 package com.sap.core.odata.core.ep.util;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 
+import com.sap.core.odata.core.exception.ODataRuntimeException;
+
 /**
  * Writes JSON output.
  * @author SAP AG
  */
 public class JsonStreamWriter {
+
+  /**
+   * Escape sequences indexed by character; <code>null</code> for characters
+   * written unchanged. RFC 4627 says: "All Unicode characters may be placed
+   * within the quotation marks except for the characters that must be escaped:
+   * quotation mark, reverse solidus, and the control characters (U+0000
+   * through U+001F)."
+   */
+  private static final String[] ESCAPES = new String['\\' + 1];
+  static {
+    for (char c = 0; c < 0x20; c++) {
+      ESCAPES[c] = "\\u00" + (c >= 0x10 ? '1' : '0') + (char) ((c % 0x10 > 9 ? 'A' : '0') + c % 0x10 % 10);
+    }
+    ESCAPES['\b'] = "\\b";
+    ESCAPES['\t'] = "\\t";
+    ESCAPES['\n'] = "\\n";
+    ESCAPES['\f'] = "\\f";
+    ESCAPES['\r'] = "\\r";
+    ESCAPES['"'] = "\\\"";
+    ESCAPES['\\'] = "\\\\";
+  }
+
   private final Writer writer;
+  private char[] numberBuffer;
 
   public JsonStreamWriter(final Writer writer) {
     this.writer = writer;
   }
 
+  /**
+   * @return the underlying writer
+   */
+  public Writer getWriter() {
+    return writer;
+  }
+
   public JsonStreamWriter beginObject() throws IOException {
     writer.append('{');
     return this;
@@ -54,6 +87,36 @@ public class JsonStreamWriter {
     return this;
   }
 
+  /**
+   * Writes a name previously prepared with {@link #prepareName(String)}.
+   * @param preparedName the quoted and escaped name including the trailing colon
+   * @return this writer
+   * @throws IOException if an I/O error occurs
+   */
+  public JsonStreamWriter preparedName(final String preparedName) throws IOException {
+    writer.append(preparedName);
+    return this;
+  }
+
+  /**
+   * Prepares a name for repeated output with {@link #preparedName(String)}:
+   * the name is escaped, quoted, and followed by the name separator.
+   * @param name the name
+   * @return the prepared name
+   */
+  public static String prepareName(final String name) {
+    StringWriter stringWriter = new StringWriter(name.length() + 3);
+    try {
+      stringWriter.append('"');
+      new JsonStreamWriter(stringWriter).escape(name);
+      stringWriter.append('"').append(':');
+    } catch (final IOException e) {
+      // A StringWriter does not throw IOExceptions.
+      throw new ODataRuntimeException(e);
+    }
+    return stringWriter.toString();
+  }
+
   public JsonStreamWriter unquotedValue(final String value) throws IOException {
     writer.append(value == null ? FormatJson.NULL : value);
     return this;
@@ -68,6 +131,38 @@ public class JsonStreamWriter {
     return this;
   }
 
+  /**
+   * Writes an integral number without creating a String for it.
+   * @param value the number
+   * @return this writer
+   * @throws IOException if an I/O error occurs
+   */
+  public JsonStreamWriter unquotedValue(final long value) throws IOException {
+    appendNumber(value);
+    return this;
+  }
+
+  /**
+   * Writes an integral number in quotation marks without creating a String for it.
+   * @param value the number
+   * @return this writer
+   * @throws IOException if an I/O error occurs
+   */
+  public JsonStreamWriter stringValueRaw(final long value) throws IOException {
+    writer.append('"');
+    appendNumber(value);
+    writer.append('"');
+    return this;
+  }
+
+  private void appendNumber(final long value) throws IOException {
+    if (numberBuffer == null) {
+      numberBuffer = new char[NumberChars.MAX_LENGTH];
+    }
+    final int start = NumberChars.getChars(value, numberBuffer);
+    writer.write(numberBuffer, start, NumberChars.MAX_LENGTH - start);
+  }
+
   public JsonStreamWriter stringValue(final String value) throws IOException {
     if (value == null) {
       writer.append(FormatJson.NULL);
@@ -98,75 +193,28 @@ public class JsonStreamWriter {
 
   /**
    * Writes the JSON-escaped form of a Java String value according to RFC 4627.
+   * <p>Runs of characters which need no escaping are written with one call
+   * each, so that a value without such characters is written as a whole.</p>
    * @param value the Java String
    * @throws IOException if an I/O error occurs
    */
   protected void escape(final String value) throws IOException {
-    // RFC 4627 says: "All Unicode characters may be placed within the
-    // quotation marks except for the characters that must be escaped:
-    // quotation mark, reverse solidus, and the control characters
-    // (U+0000 through U+001F)."
-    // All output here is done on character basis which should be faster
-    // than writing Strings.
-    for (int i = 0; i < value.length(); i++) {
+    final int length = value.length();
+    int start = 0;
+    for (int i = 0; i < length; i++) {
       final char c = value.charAt(i);
-      switch (c) {
-      case '\\':
-        writer.append('\\').append(c);
-        break;
-      case '"':
-        writer.append('\\').append(c);
-        break;
-      case '\b':
-        writer.append('\\').append('b');
-        break;
-      case '\t':
-        writer.append('\\').append('t');
-        break;
-      case '\n':
-        writer.append('\\').append('n');
-        break;
-      case '\f':
-        writer.append('\\').append('f');
-        break;
-      case '\r':
-        writer.append('\\').append('r');
-        break;
-      case '\u0000':
-      case '\u0001':
-      case '\u0002':
-      case '\u0003':
-      case '\u0004':
-      case '\u0005':
-      case '\u0006':
-      case '\u0007':
-      case '\u000B':
-      case '\u000E':
-      case '\u000F':
-      case '\u0010':
-      case '\u0011':
-      case '\u0012':
-      case '\u0013':
-      case '\u0014':
-      case '\u0015':
-      case '\u0016':
-      case '\u0017':
-      case '\u0018':
-      case '\u0019':
-      case '\u001A':
-      case '\u001B':
-      case '\u001C':
-      case '\u001D':
-      case '\u001E':
-      case '\u001F':
-        final int lastHexDigit = c % 0x10;
-        writer.append('\\').append('u').append('0').append('0')
-            .append(c >= '\u0010' ? '1' : '0')
-            .append((char) ((lastHexDigit > 9 ? 'A' : '0') + lastHexDigit % 10));
-        break;
-      default:
-        writer.append(c);
+      if (c < ESCAPES.length && ESCAPES[c] != null) {
+        if (i > start) {
+          writer.write(value, start, i - start);
+        }
+        writer.write(ESCAPES[c]);
+        start = i + 1;
       }
     }
+    if (start == 0) {
+      writer.write(value);
+    } else if (start < length) {
+      writer.write(value, start, length - start);
+    }
   }
 }
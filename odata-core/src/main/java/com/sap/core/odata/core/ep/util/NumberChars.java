@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+/**
+ * Formats integral numbers into character buffers, without creating Strings.
+ * @author SAP AG
+ */
+public final class NumberChars {
+
+  /** the maximum number of characters of a formatted long value, including the sign */
+  public static final int MAX_LENGTH = 20;
+
+  private NumberChars() {}
+
+  /**
+   * Writes the decimal representation of a number right-aligned into a buffer.
+   * The result is the same as from {@link Long#toString(long)}.
+   * @param value  the number
+   * @param buffer a buffer of at least {@link #MAX_LENGTH} characters
+   * @return the index of the first character; the last one is at index {@link #MAX_LENGTH} - 1
+   */
+  public static int getChars(final long value, final char[] buffer) {
+    int index = MAX_LENGTH;
+    // Work with negative numbers to cover Long.MIN_VALUE.
+    long remaining = value < 0 ? value : -value;
+    do {
+      final long quotient = remaining / 10;
+      buffer[--index] = (char) ('0' + (quotient * 10 - remaining));
+      remaining = quotient;
+    } while (remaining != 0);
+    if (value < 0) {
+      buffer[--index] = '-';
+    }
+    return index;
+  }
+}
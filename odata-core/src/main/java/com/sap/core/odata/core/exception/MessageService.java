@@ -15,17 +15,19 @@
  ******************************************************************************/
 package com.sap.core.odata.core.exception;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Formattable;
 import java.util.Formatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.MissingFormatArgumentException;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.exception.MessageReference;
 
@@ -34,11 +36,14 @@ import com.sap.core.odata.api.exception.MessageReference;
  */
 public class MessageService {
   private static final String BUNDLE_NAME = "i18n";
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
   private final ResourceBundle resourceBundle;
   private final Locale requestedLocale;
+  private final ConcurrentMap<String, CompiledMessage> compiledMessages = new ConcurrentHashMap<String, CompiledMessage>();
 
-  private static final Map<Locale, MessageService> LOCALE_2_MESSAGE_SERVICE = new HashMap<Locale, MessageService>();
+  private static final ConcurrentMap<Locale, MessageService> LOCALE_2_MESSAGE_SERVICE = new ConcurrentHashMap<Locale, MessageService>();
+  private static final MessageService NULL_LOCALE_MESSAGE_SERVICE = new MessageService(null);
 
   private MessageService(final Locale locale) {
     requestedLocale = locale;
@@ -116,10 +121,16 @@ public class MessageService {
   }
 
   public static MessageService getInstance(final Locale locale) {
+    if (locale == null) {
+      return NULL_LOCALE_MESSAGE_SERVICE;
+    }
     MessageService messagesInstance = LOCALE_2_MESSAGE_SERVICE.get(locale);
     if (messagesInstance == null) {
-      messagesInstance = new MessageService(locale);
-      LOCALE_2_MESSAGE_SERVICE.put(locale, messagesInstance);
+      final MessageService newInstance = new MessageService(locale);
+      messagesInstance = LOCALE_2_MESSAGE_SERVICE.putIfAbsent(locale, newInstance);
+      if (messagesInstance == null) {
+        messagesInstance = newInstance;
+      }
     }
     return messagesInstance;
   }
@@ -190,25 +201,144 @@ public class MessageService {
    * @return the message
    */
   private Message getMessage(final String key, final Object... replacements) {
-    String value = null;
-
-    try {
-      value = resourceBundle.getString(key);
-      StringBuilder builder = new StringBuilder();
-      Formatter f = new Formatter(builder, requestedLocale);
-      f.format(value, replacements);
-      f.close();
-
-      return new Message(getLocale(), builder.toString());
-
-    } catch (MissingResourceException e) {
+    final CompiledMessage compiledMessage = getCompiledMessage(key);
+    if (compiledMessage == null) {
       return new Message(Locale.ENGLISH, "Missing message for key '" + key + "'!");
+    }
+    try {
+      return new Message(getLocale(), compiledMessage.format(requestedLocale, replacements));
     } catch (MissingFormatArgumentException e) {
-      return new Message(Locale.ENGLISH, "Missing replacement for place holder in value '" + value +
+      return new Message(Locale.ENGLISH, "Missing replacement for place holder in value '" + compiledMessage.getPattern() +
           "' for following arguments '" + Arrays.toString(replacements) + "'!");
     }
   }
 
+  /**
+   * Returns the message for the given key, compiled once per key.
+   * @param key the key
+   * @return the compiled message or <code>null</code> if the bundle contains no message for the key
+   */
+  private CompiledMessage getCompiledMessage(final String key) {
+    CompiledMessage compiledMessage = compiledMessages.get(key);
+    if (compiledMessage == null) {
+      try {
+        compiledMessage = CompiledMessage.compile(resourceBundle.getString(key));
+      } catch (MissingResourceException e) {
+        compiledMessage = CompiledMessage.MISSING;
+      }
+      compiledMessages.putIfAbsent(key, compiledMessage);
+    }
+    return compiledMessage == CompiledMessage.MISSING ? null : compiledMessage;
+  }
+
+  /**
+   * Message pattern in the syntax of {@link Formatter}, split once into literal
+   * text and argument indexes so that formatting only concatenates strings.
+   * Patterns with conversions other than <code>%s</code>, <code>%n</code>, and
+   * <code>%%</code> are formatted with a {@link Formatter}.
+   */
+  private static final class CompiledMessage {
+    private static final CompiledMessage MISSING = new CompiledMessage(null, null, null);
+
+    private final String pattern;
+    private final String[] literals;
+    private final int[] argumentIndexes;
+
+    private CompiledMessage(final String pattern, final String[] literals, final int[] argumentIndexes) {
+      this.pattern = pattern;
+      this.literals = literals;
+      this.argumentIndexes = argumentIndexes;
+    }
+
+    private static CompiledMessage compile(final String pattern) {
+      List<String> literals = new ArrayList<String>();
+      List<Integer> argumentIndexes = new ArrayList<Integer>();
+      StringBuilder literal = new StringBuilder();
+      int nextOrdinaryIndex = 0;
+      int index = 0;
+      while (index < pattern.length()) {
+        final char c = pattern.charAt(index++);
+        if (c != '%') {
+          literal.append(c);
+          continue;
+        }
+        if (index == pattern.length()) {
+          return new CompiledMessage(pattern, null, null);
+        }
+        final char conversion = pattern.charAt(index);
+        if (conversion == '%') {
+          literal.append('%');
+          index++;
+        } else if (conversion == 'n') {
+          literal.append(LINE_SEPARATOR);
+          index++;
+        } else if (conversion == 's') {
+          literals.add(literal.toString());
+          literal.setLength(0);
+          argumentIndexes.add(nextOrdinaryIndex++);
+          index++;
+        } else {
+          int end = index;
+          while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+            end++;
+          }
+          if (end == index || end + 1 >= pattern.length()
+              || pattern.charAt(end) != '$' || pattern.charAt(end + 1) != 's') {
+            return new CompiledMessage(pattern, null, null);
+          }
+          literals.add(literal.toString());
+          literal.setLength(0);
+          argumentIndexes.add(Integer.parseInt(pattern.substring(index, end)) - 1);
+          index = end + 2;
+        }
+      }
+      literals.add(literal.toString());
+
+      int[] indexes = new int[argumentIndexes.size()];
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = argumentIndexes.get(i);
+      }
+      return new CompiledMessage(pattern, literals.toArray(new String[literals.size()]), indexes);
+    }
+
+    private String getPattern() {
+      return pattern;
+    }
+
+    private String format(final Locale locale, final Object... replacements) {
+      if (literals == null || containsFormattable(replacements)) {
+        StringBuilder builder = new StringBuilder();
+        Formatter formatter = new Formatter(builder, locale);
+        formatter.format(pattern, replacements);
+        formatter.close();
+        return builder.toString();
+      }
+
+      StringBuilder builder = new StringBuilder(pattern.length() + 16 * argumentIndexes.length);
+      for (int i = 0; i < argumentIndexes.length; i++) {
+        builder.append(literals[i]);
+        final int argumentIndex = argumentIndexes[i];
+        if (argumentIndex < 0 || replacements == null || argumentIndex >= replacements.length) {
+          throw new MissingFormatArgumentException("%" + (argumentIndex + 1) + "$s");
+        }
+        builder.append(String.valueOf(replacements[argumentIndex]));
+      }
+      builder.append(literals[argumentIndexes.length]);
+      return builder.toString();
+    }
+
+    private static boolean containsFormattable(final Object[] replacements) {
+      if (replacements != null) {
+        for (final Object replacement : replacements) {
+          if (replacement instanceof Formattable) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
   public Locale getLocale() {
     return resourceBundle.getLocale();
   }
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>Values are counted in buckets whose bounds are powers of two, so that
+ * recording a value costs a few atomic increments; percentiles are therefore
+ * approximated by the upper bound of the bucket they fall into.</p>
+ * @author SAP AG
+ */
+public final class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value; negative values are counted as zero.
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long positiveValue = value < 0 ? 0 : value;
+    // bucket i holds the values from 2^i to 2^(i+1)-1; zero is counted in bucket 0
+    buckets.incrementAndGet(positiveValue == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(positiveValue));
+    count.incrementAndGet();
+    sum.addAndGet(positiveValue);
+    long currentMax = max.get();
+    while (positiveValue > currentMax && !max.compareAndSet(currentMax, positiveValue)) {
+      currentMax = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getSum() {
+    return sum.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public long getMean() {
+    final long currentCount = count.get();
+    return currentCount == 0 ? 0 : sum.get() / currentCount;
+  }
+
+  /**
+   * Returns an upper bound for the given percentile of the recorded values.
+   * @param percentile the percentile between 0 and 100
+   * @return the upper bound of the bucket containing the percentile, but at most the maximum
+   */
+  public long getPercentile(final double percentile) {
+    long total = 0;
+    final long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return i == BUCKETS - 1 ? max.get() : Math.min((1L << (i + 1)) - 1, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Resets all counters. Values recorded concurrently may be partially lost.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+}
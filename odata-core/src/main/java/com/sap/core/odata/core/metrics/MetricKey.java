@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+/**
+ * Identifies one histogram of a {@link MetricsRegistry}: the measurement
+ * point together with the dimensions of the request.
+ * @author SAP AG
+ */
+public final class MetricKey {
+
+  private final String className;
+  private final String methodName;
+  private final String uriType;
+  private final String entitySetName;
+  private final int hashCode;
+
+  public MetricKey(final String className, final String methodName, final String uriType, final String entitySetName) {
+    this.className = className;
+    this.methodName = methodName;
+    this.uriType = uriType;
+    this.entitySetName = entitySetName;
+    int hash = hashCode(className);
+    hash = 31 * hash + hashCode(methodName);
+    hash = 31 * hash + hashCode(uriType);
+    hashCode = 31 * hash + hashCode(entitySetName);
+  }
+
+  private static int hashCode(final String value) {
+    return value == null ? 0 : value.hashCode();
+  }
+
+  private static boolean equals(final String value1, final String value2) {
+    return value1 == null ? value2 == null : value1.equals(value2);
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  public String getMethodName() {
+    return methodName;
+  }
+
+  /**
+   * @return the URI type or <code>null</code>
+   */
+  public String getUriType() {
+    return uriType;
+  }
+
+  /**
+   * @return the name of the target entity set or <code>null</code>
+   */
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(final Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof MetricKey)) {
+      return false;
+    }
+    final MetricKey other = (MetricKey) object;
+    return hashCode == other.hashCode
+        && equals(className, other.className) && equals(methodName, other.methodName)
+        && equals(uriType, other.uriType) && equals(entitySetName, other.entitySetName);
+  }
+
+  @Override
+  public String toString() {
+    return className + "." + methodName
+        + (uriType == null ? "" : " " + uriType)
+        + (entitySetName == null ? "" : " " + entitySetName);
+  }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the histograms of a {@link MetricsRegistry} via JMX.
+ * <p>The export is opt-in; a web application enables it for the default
+ * registry with the {@link com.sap.core.odata.core.rest.app.MetricsJmxListener}.</p>
+ * @author SAP AG
+ */
+public class MetricsJmxReporter implements MetricsMXBean {
+
+  public static final String OBJECT_NAME_PREFIX = "com.sap.core.odata:type=Metrics,context=";
+
+  private final MetricsRegistry registry;
+
+  public MetricsJmxReporter(final MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Returns the JMX name of the reporter for the given context.
+   * @param context the context, e.g., the path of the web application
+   * @return the object name
+   * @throws MalformedObjectNameException if the name cannot be built
+   */
+  public static ObjectName getObjectName(final String context) throws MalformedObjectNameException {
+    return new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(context == null ? "" : context));
+  }
+
+  /**
+   * Registers a reporter for the given registry at the platform MBean server.
+   * An existing registration for the same context is replaced.
+   * Failures, e.g., because of missing permissions, are ignored since the
+   * measurements are still recorded.
+   * @param registry the registry
+   * @param context the context, e.g., the path of the web application
+   * @return the name under which the reporter has been registered
+   * or <code>null</code> if the registration failed
+   */
+  public static ObjectName register(final MetricsRegistry registry, final String context) {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = getObjectName(context);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(new MetricsJmxReporter(registry), name);
+      return name;
+    } catch (final JMException e) {
+      // The metrics are not published but still available in the registry.
+    } catch (final SecurityException e) {
+      // The metrics are not published but still available in the registry.
+    }
+    return null;
+  }
+
+  /**
+   * Removes a reporter from the platform MBean server so that it does not
+   * keep its registry and the classes loading it alive.
+   * @param name the name returned by {@link #register(MetricsRegistry, String)};
+   * <code>null</code> is ignored
+   */
+  public static void unregister(final ObjectName name) {
+    if (name == null) {
+      return;
+    }
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (final JMException e) {
+      // The reporter has already been removed.
+    } catch (final SecurityException e) {
+      // The reporter cannot be removed without the permission.
+    }
+  }
+
+  @Override
+  public String[] getMetrics() {
+    List<String> lines = new ArrayList<String>();
+    for (final Map.Entry<MetricKey, Histogram> entry : registry.getHistograms().entrySet()) {
+      final MetricKey key = entry.getKey();
+      final Histogram histogram = entry.getValue();
+      lines.add(key.getClassName() + "." + key.getMethodName()
+          + " uriType=" + key.getUriType()
+          + " entitySet=" + key.getEntitySetName()
+          + " count=" + histogram.getCount()
+          + " mean=" + histogram.getMean() / 1000
+          + " p50=" + histogram.getPercentile(50) / 1000
+          + " p99=" + histogram.getPercentile(99) / 1000
+          + " max=" + histogram.getMax() / 1000);
+    }
+    Collections.sort(lines);
+    return lines.toArray(new String[lines.size()]);
+  }
+
+  @Override
+  public long getMeasurementCount() {
+    long count = 0;
+    for (final Histogram histogram : registry.getHistograms().values()) {
+      count += histogram.getCount();
+    }
+    return count;
+  }
+
+  @Override
+  public void reset() {
+    registry.reset();
+  }
+}
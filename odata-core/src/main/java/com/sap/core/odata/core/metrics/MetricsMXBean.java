@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+/**
+ * Management interface of the {@link MetricsJmxReporter}.
+ * @author SAP AG
+ */
+public interface MetricsMXBean {
+
+  /**
+   * @return one line per histogram with measurement point, URI type, entity set,
+   *         count, mean, 50th, 99th percentile, and maximum in microseconds
+   */
+  String[] getMetrics();
+
+  /**
+   * @return the number of measurements recorded since the last reset
+   */
+  long getMeasurementCount();
+
+  /**
+   * Removes all recorded measurements.
+   */
+  void reset();
+}
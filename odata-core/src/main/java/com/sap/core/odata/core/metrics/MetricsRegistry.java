@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sap.core.odata.api.ODataMetricsCallback;
+
+/**
+ * Aggregates runtime measurements in one {@link Histogram} per
+ * measurement point, URI type, and entity set.
+ * <p>The {@link #getDefault() default registry} is used if the service
+ * factory does not provide an {@link ODataMetricsCallback}; it can be published
+ * via JMX with a {@link MetricsJmxReporter}.</p>
+ * @author SAP AG
+ */
+public class MetricsRegistry implements ODataMetricsCallback {
+
+  private static volatile MetricsRegistry defaultRegistry;
+
+  private final ConcurrentMap<MetricKey, Histogram> histograms = new ConcurrentHashMap<MetricKey, Histogram>();
+
+  /**
+   * @return the registry shared by all services without own {@link ODataMetricsCallback}
+   */
+  public static MetricsRegistry getDefault() {
+    MetricsRegistry registry = defaultRegistry;
+    if (registry == null) {
+      synchronized (MetricsRegistry.class) {
+        registry = defaultRegistry;
+        if (registry == null) {
+          registry = new MetricsRegistry();
+          defaultRegistry = registry;
+        }
+      }
+    }
+    return registry;
+  }
+
+  @Override
+  public void recordMeasurement(final String className, final String methodName, final String uriType, final String entitySetName,
+      final long durationNanos) {
+    getHistogram(new MetricKey(className, methodName, uriType, entitySetName)).record(durationNanos);
+  }
+
+  /**
+   * Returns the histogram for the given key, creating it if necessary.
+   * @param key the key
+   * @return the histogram
+   */
+  public Histogram getHistogram(final MetricKey key) {
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      final Histogram newHistogram = new Histogram();
+      histogram = histograms.putIfAbsent(key, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * @return an unmodifiable live view of all histograms
+   */
+  public Map<MetricKey, Histogram> getHistograms() {
+    return Collections.unmodifiableMap(histograms);
+  }
+
+  /**
+   * Removes all histograms.
+   */
+  public void reset() {
+    histograms.clear();
+  }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes of a response body streamed to the client and reports
+ * them to the {@link SlowRequestSample} of the request when the stream has
+ * been read completely or is closed.
+ * @author SAP AG
+ */
+public class ResponseSizeInputStream extends FilterInputStream {
+
+  private final SlowRequestSample sample;
+  private long count;
+
+  public ResponseSizeInputStream(final InputStream in, final SlowRequestSample sample) {
+    super(in);
+    this.sample = sample;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int result = super.read();
+    if (result < 0) {
+      sample.setResponseSize(count);
+    } else {
+      count++;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+    final int result = super.read(buffer, offset, length);
+    if (result < 0) {
+      sample.setResponseSize(count);
+    } else {
+      count += result;
+    }
+    return result;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    final long skipped = super.skip(n);
+    count += skipped;
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    sample.setResponseSize(count);
+    super.close();
+  }
+}
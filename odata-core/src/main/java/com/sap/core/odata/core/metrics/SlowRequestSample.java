@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One request kept by the {@link SlowRequestSampler}.
+ * @author SAP AG
+ */
+public final class SlowRequestSample {
+
+  /**
+   * Summary of the runtime measurements of one phase, i.e., one
+   * combination of class and method, within the request.
+   */
+  public static final class Phase {
+    private final String className;
+    private final String methodName;
+    private final int count;
+    private final long durationNanos;
+
+    public Phase(final String className, final String methodName, final int count, final long durationNanos) {
+      this.className = className;
+      this.methodName = methodName;
+      this.count = count;
+      this.durationNanos = durationNanos;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public String getMethodName() {
+      return methodName;
+    }
+
+    /**
+     * @return the number of measurements combined in this phase
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * @return the sum of the durations of all measurements of this phase in nanoseconds
+     */
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+  }
+
+  private final long timestamp;
+  private final String method;
+  private final String uri;
+  private final String uriType;
+  private final String entitySetName;
+  private final long durationNanos;
+  private final int statusCode;
+  private final Integer rowCount;
+  private final List<Phase> phases;
+  private volatile long responseSize;
+
+  public SlowRequestSample(final long timestamp, final String method, final String uri, final String uriType, final String entitySetName,
+      final long durationNanos, final int statusCode, final long responseSize, final Integer rowCount, final List<Phase> phases) {
+    this.timestamp = timestamp;
+    this.method = method;
+    this.uri = uri;
+    this.uriType = uriType;
+    this.entitySetName = entitySetName;
+    this.durationNanos = durationNanos;
+    this.statusCode = statusCode;
+    this.responseSize = responseSize;
+    this.rowCount = rowCount;
+    this.phases = Collections.unmodifiableList(phases);
+  }
+
+  /**
+   * @return the time the request finished, in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  /**
+   * @return the URI type or <code>null</code> if the URI could not be parsed
+   */
+  public String getUriType() {
+    return uriType;
+  }
+
+  /**
+   * @return the name of the target entity set or <code>null</code>
+   */
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * @return the size of the response body in bytes, or -1 if not known (yet)
+   */
+  public long getResponseSize() {
+    return responseSize;
+  }
+
+  /**
+   * Sets the size of the response body once it is known, e.g., after
+   * the body has been streamed to the client.
+   * @param responseSize the size in bytes
+   */
+  public void setResponseSize(final long responseSize) {
+    this.responseSize = responseSize;
+  }
+
+  /**
+   * @return the number of entities in the response as reported by the processor,
+   *         or <code>null</code>
+   * @see com.sap.core.odata.api.processor.ODataContext#ROW_COUNT
+   */
+  public Integer getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return the phases in the order they have been started
+   */
+  public List<Phase> getPhases() {
+    return phases;
+  }
+}
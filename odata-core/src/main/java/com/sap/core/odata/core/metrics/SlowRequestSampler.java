@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sap.core.odata.core.ep.util.JsonStreamWriter;
+
+/**
+ * Keeps the slowest requests of the most recent time windows.
+ * <p>The sampler holds a ring buffer of windows; each window keeps at most a
+ * fixed number of requests, namely the slowest ones finished within it.
+ * Checking whether a request is a candidate is a comparison with a volatile
+ * threshold, so that only requests which are actually kept cost more; while
+ * a window is not yet full, only as many requests as there are free places
+ * in it are candidates.</p>
+ * <p>Each service factory class has {@link #getInstance(Class) its own sampler};
+ * its samples are available via the resource {@value #RESOURCE} of the
+ * services of that factory if the
+ * {@link com.sap.core.odata.api.ODataDebugCallback} allows debugging.</p>
+ * @author SAP AG
+ */
+public class SlowRequestSampler {
+
+  /** Name of the resource next to <code>$metadata</code> which shows the samples. */
+  public static final String RESOURCE = "$slowrequests";
+
+  public static final int DEFAULT_SAMPLES_PER_WINDOW = 10;
+  public static final int DEFAULT_WINDOWS = 10;
+  public static final long DEFAULT_WINDOW_LENGTH = 60 * 1000;
+
+  private static final Comparator<SlowRequestSample> BY_DURATION = new Comparator<SlowRequestSample>() {
+    @Override
+    public int compare(final SlowRequestSample sample1, final SlowRequestSample sample2) {
+      return sample1.getDurationNanos() < sample2.getDurationNanos() ? -1 :
+          sample1.getDurationNanos() > sample2.getDurationNanos() ? 1 : 0;
+    }
+  };
+
+  // Keyed by class because a new service factory is instantiated for every request;
+  // weak keys let the classes of undeployed applications be unloaded.
+  private static final Map<Class<?>, SlowRequestSampler> SAMPLERS = new WeakHashMap<Class<?>, SlowRequestSampler>();
+
+  private final int samplesPerWindow;
+  private final long windowLength;
+  private final long[] windowStarts;
+  private final List<PriorityQueue<SlowRequestSample>> windows;
+  private int currentWindow;
+  private volatile long currentWindowEnd;
+  private volatile long threshold = -1;
+  private final AtomicInteger freePlaces = new AtomicInteger();
+
+  /**
+   * @param samplesPerWindow the maximum number of samples per window
+   * @param windowCount the number of windows kept
+   * @param windowLength the length of a window in milliseconds
+   */
+  public SlowRequestSampler(final int samplesPerWindow, final int windowCount, final long windowLength) {
+    if (samplesPerWindow < 1 || windowCount < 1 || windowLength < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.samplesPerWindow = samplesPerWindow;
+    this.windowLength = windowLength;
+    windowStarts = new long[windowCount];
+    windows = new ArrayList<PriorityQueue<SlowRequestSample>>(windowCount);
+    for (int i = 0; i < windowCount; i++) {
+      windows.add(new PriorityQueue<SlowRequestSample>(samplesPerWindow, BY_DURATION));
+    }
+  }
+
+  /**
+   * Returns the sampler of the services created by service factories of the given class.
+   * @param serviceFactoryClass the class of the service factory
+   * @return the sampler, created with the default settings on first use
+   */
+  public static SlowRequestSampler getInstance(final Class<?> serviceFactoryClass) {
+    synchronized (SAMPLERS) {
+      SlowRequestSampler sampler = SAMPLERS.get(serviceFactoryClass);
+      if (sampler == null) {
+        sampler = new SlowRequestSampler(DEFAULT_SAMPLES_PER_WINDOW, DEFAULT_WINDOWS, DEFAULT_WINDOW_LENGTH);
+        SAMPLERS.put(serviceFactoryClass, sampler);
+      }
+      return sampler;
+    }
+  }
+
+  /**
+   * Determines whether a request with the given duration, finished now,
+   * would be kept.
+   * @param durationNanos the duration in nanoseconds
+   * @return <code>false</code> if the request is certainly not kept
+   */
+  public boolean isCandidate(final long durationNanos) {
+    final long currentThreshold = threshold;
+    if ((currentThreshold >= 0 && durationNanos > currentThreshold)
+        || System.currentTimeMillis() >= currentWindowEnd) {
+      return true;
+    }
+    // The window is not full yet; each free place is offered to one request only.
+    return currentThreshold < 0 && freePlaces.get() > 0 && freePlaces.getAndDecrement() > 0;
+  }
+
+  /**
+   * Adds a sample to the window of its timestamp if it is among the slowest
+   * requests of that window.
+   * @param sample the sample
+   * @return whether the sample has been kept
+   */
+  public synchronized boolean add(final SlowRequestSample sample) {
+    final long windowStart = sample.getTimestamp() - sample.getTimestamp() % windowLength;
+    if (windowStart > windowStarts[currentWindow]) {
+      currentWindow = (currentWindow + 1) % windowStarts.length;
+      windowStarts[currentWindow] = windowStart;
+      windows.get(currentWindow).clear();
+      currentWindowEnd = windowStart + windowLength;
+    } else if (windowStart < windowStarts[currentWindow]) {
+      // The request finished in an earlier window while another thread started a new one.
+      freePlaces.set(samplesPerWindow - windows.get(currentWindow).size());
+      return false;
+    }
+
+    final PriorityQueue<SlowRequestSample> window = windows.get(currentWindow);
+    if (window.size() < samplesPerWindow) {
+      window.add(sample);
+    } else if (sample.getDurationNanos() > window.peek().getDurationNanos()) {
+      window.poll();
+      window.add(sample);
+    } else {
+      return false;
+    }
+    threshold = window.size() < samplesPerWindow ? -1 : window.peek().getDurationNanos();
+    freePlaces.set(samplesPerWindow - window.size());
+    return true;
+  }
+
+  /**
+   * Returns the samples of all windows, the most recent window first and
+   * within a window the slowest request first.
+   * @return a list of windows, each a list of samples
+   */
+  public synchronized List<List<SlowRequestSample>> getSamples() {
+    List<List<SlowRequestSample>> result = new ArrayList<List<SlowRequestSample>>();
+    for (int i = 0; i < windowStarts.length; i++) {
+      final int index = (currentWindow - i + windowStarts.length) % windowStarts.length;
+      if (!windows.get(index).isEmpty()) {
+        List<SlowRequestSample> samples = new ArrayList<SlowRequestSample>(windows.get(index));
+        Collections.sort(samples, Collections.reverseOrder(BY_DURATION));
+        result.add(samples);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Removes all samples.
+   */
+  public synchronized void clear() {
+    for (int i = 0; i < windowStarts.length; i++) {
+      windowStarts[i] = 0;
+      windows.get(i).clear();
+    }
+    currentWindow = 0;
+    currentWindowEnd = 0;
+    threshold = -1;
+    freePlaces.set(0);
+  }
+
+  /**
+   * Writes the samples as JSON array of windows, each with its start time
+   * and the requests; durations are in microseconds.
+   * @param jsonStreamWriter the writer
+   * @throws IOException if writing fails
+   */
+  public void appendJson(final JsonStreamWriter jsonStreamWriter) throws IOException {
+    final List<List<SlowRequestSample>> samples = getSamples();
+    jsonStreamWriter.beginObject()
+        .name("windowLength").unquotedValue(windowLength).separator()
+        .name("windows").beginArray();
+    boolean firstWindow = true;
+    for (final List<SlowRequestSample> window : samples) {
+      if (!firstWindow) {
+        jsonStreamWriter.separator();
+      }
+      firstWindow = false;
+      final long windowStart = window.get(0).getTimestamp() - window.get(0).getTimestamp() % windowLength;
+      jsonStreamWriter.beginObject()
+          .name("start").unquotedValue(windowStart).separator()
+          .name("requests").beginArray();
+      boolean first = true;
+      for (final SlowRequestSample sample : window) {
+        if (!first) {
+          jsonStreamWriter.separator();
+        }
+        first = false;
+        appendJsonSample(jsonStreamWriter, sample);
+      }
+      jsonStreamWriter.endArray().endObject();
+    }
+    jsonStreamWriter.endArray().endObject();
+  }
+
+  private static void appendJsonSample(final JsonStreamWriter jsonStreamWriter, final SlowRequestSample sample) throws IOException {
+    jsonStreamWriter.beginObject()
+        .name("timestamp").unquotedValue(sample.getTimestamp()).separator()
+        .namedStringValueRaw("method", sample.getMethod()).separator()
+        .namedStringValue("uri", sample.getUri()).separator()
+        .namedStringValueRaw("uriType", sample.getUriType()).separator()
+        .namedStringValue("entitySet", sample.getEntitySetName()).separator()
+        .name("duration").unquotedValue(sample.getDurationNanos() / 1000).separator()
+        .name("status").unquotedValue(sample.getStatusCode()).separator()
+        .name("responseSize").unquotedValue(sample.getResponseSize() < 0 ? null : Long.toString(sample.getResponseSize())).separator()
+        .name("rowCount").unquotedValue(sample.getRowCount() == null ? null : sample.getRowCount().toString()).separator()
+        .name("phases").beginArray();
+    boolean first = true;
+    for (final SlowRequestSample.Phase phase : sample.getPhases()) {
+      if (!first) {
+        jsonStreamWriter.separator();
+      }
+      first = false;
+      jsonStreamWriter.beginObject()
+          .namedStringValueRaw("class", phase.getClassName()).separator()
+          .namedStringValueRaw("method", phase.getMethodName()).separator()
+          .name("count").unquotedValue(phase.getCount()).separator()
+          .name("duration").unquotedValue(phase.getDurationNanos() / 1000)
+          .endObject();
+    }
+    jsonStreamWriter.endArray().endObject();
+  }
+}
@@ -16,6 +16,8 @@
 package com.sap.core.odata.core.processor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.sap.core.odata.api.ODataService;
@@ -53,6 +55,30 @@ import com.sap.core.odata.api.rt.RuntimeDelegate;
  */
 public class ODataSingleProcessorService implements ODataService {
 
+  private static final List<String> WILDCARD = unmodifiableList(HttpContentType.WILDCARD);
+  private static final List<String> ENTRY = unmodifiableList(
+      HttpContentType.APPLICATION_ATOM_XML_ENTRY_UTF8,
+      HttpContentType.APPLICATION_ATOM_XML_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8_VERBOSE,
+      HttpContentType.APPLICATION_XML_UTF8);
+  private static final List<String> XML_AND_JSON = unmodifiableList(
+      HttpContentType.APPLICATION_XML_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8_VERBOSE);
+  private static final List<String> FEED = unmodifiableList(
+      HttpContentType.APPLICATION_ATOM_XML_FEED_UTF8,
+      HttpContentType.APPLICATION_ATOM_XML_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8_VERBOSE,
+      HttpContentType.APPLICATION_XML_UTF8);
+  private static final List<String> XML = unmodifiableList(HttpContentType.APPLICATION_XML_UTF8);
+  private static final List<String> SERVICE_DOCUMENT = unmodifiableList(
+      HttpContentType.APPLICATION_ATOM_SVC_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8,
+      HttpContentType.APPLICATION_JSON_UTF8_VERBOSE,
+      HttpContentType.APPLICATION_XML_UTF8);
+
   private final ODataSingleProcessor processor;
   private final Edm edm;
 
@@ -196,50 +222,50 @@ public class ODataSingleProcessorService implements ODataService {
 
   @Override
   public List<String> getSupportedContentTypes(final Class<? extends ODataProcessor> processorFeature) throws ODataException {
-    List<String> result = new ArrayList<String>();
-
+    final List<String> defaultContentTypes = getDefaultContentTypes(processorFeature);
     if (processor instanceof CustomContentType) {
-      result.addAll(((CustomContentType) processor).getCustomContentTypes(processorFeature));
+      List<String> result = new ArrayList<String>(((CustomContentType) processor).getCustomContentTypes(processorFeature));
+      result.addAll(defaultContentTypes);
+      return result;
     }
+    return defaultContentTypes;
+  }
 
+  /**
+   * Returns the content types the library supports for the given processor feature.
+   * The lists are constant and therefore created only once.
+   * @param processorFeature the processor feature
+   * @return an unmodifiable list of content types
+   * @throws ODataNotImplementedException if the processor feature is unknown
+   */
+  private static List<String> getDefaultContentTypes(final Class<? extends ODataProcessor> processorFeature) throws ODataNotImplementedException {
     if (processorFeature == BatchProcessor.class) {
       //set wildcard for now to ignore accept header completely, reasoning: there is only one representation for $batch
-      result.add(HttpContentType.WILDCARD);
+      return WILDCARD;
     } else if (processorFeature == EntityProcessor.class) {
-      result.add(HttpContentType.APPLICATION_ATOM_XML_ENTRY_UTF8);
-      result.add(HttpContentType.APPLICATION_ATOM_XML_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8_VERBOSE);
-      result.add(HttpContentType.APPLICATION_XML_UTF8);
+      return ENTRY;
     } else if (processorFeature == FunctionImportProcessor.class
         || processorFeature == EntityLinkProcessor.class
         || processorFeature == EntityLinksProcessor.class
         || processorFeature == EntitySimplePropertyProcessor.class
         || processorFeature == EntityComplexPropertyProcessor.class) {
-      result.add(HttpContentType.APPLICATION_XML_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8_VERBOSE);
+      return XML_AND_JSON;
     } else if (processorFeature == EntityMediaProcessor.class
         || processorFeature == EntitySimplePropertyValueProcessor.class
         || processorFeature == FunctionImportValueProcessor.class) {
-      result.add(HttpContentType.WILDCARD);
+      return WILDCARD;
     } else if (processorFeature == EntitySetProcessor.class) {
-      result.add(HttpContentType.APPLICATION_ATOM_XML_FEED_UTF8);
-      result.add(HttpContentType.APPLICATION_ATOM_XML_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8_VERBOSE);
-      result.add(HttpContentType.APPLICATION_XML_UTF8);
+      return FEED;
     } else if (processorFeature == MetadataProcessor.class) {
-      result.add(HttpContentType.APPLICATION_XML_UTF8);
+      return XML;
     } else if (processorFeature == ServiceDocumentProcessor.class) {
-      result.add(HttpContentType.APPLICATION_ATOM_SVC_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8);
-      result.add(HttpContentType.APPLICATION_JSON_UTF8_VERBOSE);
-      result.add(HttpContentType.APPLICATION_XML_UTF8);
+      return SERVICE_DOCUMENT;
     } else {
       throw new ODataNotImplementedException();
     }
+  }
 
-    return result;
+  private static List<String> unmodifiableList(final String... contentTypes) {
+    return Collections.unmodifiableList(Arrays.asList(contentTypes));
   }
 }
@@ -32,6 +32,7 @@ import com.sap.core.odata.api.exception.MessageReference;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotImplementedException;
 import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataRequest.ODataRequestBuilder;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.core.ODataContextImpl;
 import com.sap.core.odata.core.ODataExceptionWrapper;
@@ -43,7 +44,7 @@ import com.sap.core.odata.core.ODataRequestHandler;
 public final class ODataSubLocator {
 
   private ODataServiceFactory serviceFactory;
-  private ODataRequest request;
+  private ODataRequestBuilder requestBuilder;
 
   @GET
   public Response handleGet() throws ODataException {
@@ -104,11 +105,8 @@ public final class ODataSubLocator {
   private Response returnNotImplementedResponse(final MessageReference messageReference) {
     // RFC 2616, 5.1.1: "An origin server SHOULD return the status code [...]
     // 501 (Not Implemented) if the method is unrecognized [...] by the origin server."
+    final ODataRequest request = requestBuilder.build();
     ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
-    context.setRequest(request);
-    context.setAcceptableLanguages(request.getAcceptableLanguages());
-    context.setPathInfo(request.getPathInfo());
-    context.setServiceFactory(serviceFactory);
     ODataExceptionWrapper exceptionWrapper = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders());
     ODataResponse response = exceptionWrapper.wrapInExceptionResponse(new ODataNotImplementedException(messageReference));
     return RestUtil.convertResponse(response);
@@ -131,7 +129,9 @@ public final class ODataSubLocator {
   }
 
   private Response handle(final ODataHttpMethod method) throws ODataException {
-    request = ODataRequest.fromRequest(request).method(method).build();
+    // The sub-locator handles exactly one request, so the request is built only
+    // now that the method is known instead of being copied with the method set.
+    final ODataRequest request = requestBuilder.method(method).build();
 
     ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
     ODataService service = serviceFactory.createService(context);
@@ -150,14 +150,13 @@ public final class ODataSubLocator {
     ODataSubLocator subLocator = new ODataSubLocator();
 
     subLocator.serviceFactory = param.getServiceFactory();
-    subLocator.request = ODataRequest.acceptableLanguages(param.getHttpHeaders().getAcceptableLanguages())
+    subLocator.requestBuilder = ODataRequest.acceptableLanguages(param.getHttpHeaders().getAcceptableLanguages())
         .acceptHeaders(RestUtil.extractAcceptHeaders(param))
-        .body(RestUtil.contentAsStream(RestUtil.extractRequestContent(param)))
+        .body(RestUtil.decodeRequestContent(param, RestUtil.contentAsStream(RestUtil.extractRequestContent(param))))
         .pathInfo(RestUtil.buildODataPathInfo(param))
         .queryParameters(RestUtil.convertToSinglevaluedMap(param.getUriInfo().getQueryParameters()))
         .requestHeaders(param.getHttpHeaders().getRequestHeaders())
-        .contentType(RestUtil.extractRequestContentType(param).toContentTypeString())
-        .build();
+        .contentType(RestUtil.extractRequestContentType(param).toContentTypeString());
 
     return subLocator;
   }
@@ -18,14 +18,19 @@ package com.sap.core.odata.core.rest;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -33,6 +38,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -40,12 +46,16 @@ import com.sap.core.odata.api.commons.HttpHeaders;
 import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotFoundException;
+import com.sap.core.odata.api.exception.ODataUnsupportedMediaTypeException;
+import com.sap.core.odata.api.processor.FileEntity;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.PathSegment;
 import com.sap.core.odata.core.ODataPathSegmentImpl;
 import com.sap.core.odata.core.PathInfoImpl;
+import com.sap.core.odata.core.commons.ContentEncoding;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.commons.Decoder;
+import com.sap.core.odata.core.commons.FileTransfer;
 
 /**
  * @author SAP AG
@@ -53,11 +63,16 @@ import com.sap.core.odata.core.commons.Decoder;
 public class RestUtil {
   public static Response convertResponse(final ODataResponse odataResponse) {
     try {
-      ResponseBuilder responseBuilder = Response.noContent().status(odataResponse.getStatus().getStatusCode()).entity(odataResponse.getEntity());
+      final Object entity = odataResponse.getEntity();
+      ResponseBuilder responseBuilder = Response.noContent().status(odataResponse.getStatus().getStatusCode())
+          .entity(entity instanceof FileEntity ? new FileEntityOutput((FileEntity) entity) : entity);
 
       for (final String name : odataResponse.getHeaderNames()) {
         responseBuilder = responseBuilder.header(name, odataResponse.getHeader(name));
       }
+      if (entity instanceof FileEntity && !odataResponse.containsHeader(HttpHeaders.CONTENT_LENGTH)) {
+        responseBuilder = responseBuilder.header(HttpHeaders.CONTENT_LENGTH, String.valueOf(((FileEntity) entity).getCount()));
+      }
 
       return responseBuilder.build();
     } catch (RuntimeException e) {
@@ -103,6 +118,28 @@ public class RestUtil {
     }
   }
 
+  /**
+   * Decodes the request content according to the <code>Content-Encoding</code> header.
+   * @param param the sub-locator parameter with the request headers
+   * @param content the request content
+   * @return the decoded content
+   * @throws ODataException if the content coding is not supported or the content is not in the announced format
+   */
+  public static InputStream decodeRequestContent(final SubLocatorParameter param, final InputStream content) throws ODataException {
+    final List<String> contentEncodings = param.getHttpHeaders().getRequestHeader(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncodings == null || contentEncodings.isEmpty()) {
+      return content;
+    }
+    final String contentEncoding = contentEncodings.get(0);
+    try {
+      return ContentEncoding.decode(contentEncoding, content);
+    } catch (final IllegalArgumentException e) {
+      throw new ODataUnsupportedMediaTypeException(ODataUnsupportedMediaTypeException.NOT_SUPPORTED_CONTENT_ENCODING.addContent(contentEncoding), e);
+    } catch (final IOException e) {
+      throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
+    }
+  }
+
   public static <T> InputStream contentAsStream(final T content) throws ODataException {
     if (content == null) {
       throw new ODataBadRequestException(ODataBadRequestException.COMMON);
@@ -249,15 +286,91 @@ public class RestUtil {
     return converted;
   }
 
+  /**
+   * Returns a read-only view of the given map with the first value for each key.
+   * The map is not copied.
+   * @param multi the multi-valued map
+   * @return the single-valued view
+   */
   public static Map<String, String> convertToSinglevaluedMap(final MultivaluedMap<String, String> multi) {
-    final Map<String, String> single = new HashMap<String, String>();
+    return new SinglevaluedMapView(multi);
+  }
+
+  private static final class SinglevaluedMapView extends AbstractMap<String, String> {
+    private final MultivaluedMap<String, String> multi;
+
+    private SinglevaluedMapView(final MultivaluedMap<String, String> multi) {
+      this.multi = multi;
+    }
+
+    @Override
+    public String get(final Object key) {
+      final List<String> values = multi.get(key);
+      return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+      return multi.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return multi.size();
+    }
 
-    for (final String key : multi.keySet()) {
-      final String value = multi.getFirst(key);
-      single.put(key, value);
+    @Override
+    public boolean isEmpty() {
+      return multi.isEmpty();
     }
 
-    return single;
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return new AbstractSet<Entry<String, String>>() {
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+          final Iterator<String> keys = multi.keySet().iterator();
+          return new Iterator<Entry<String, String>>() {
+            @Override
+            public boolean hasNext() {
+              return keys.hasNext();
+            }
+
+            @Override
+            public Entry<String, String> next() {
+              final String key = keys.next();
+              return new SimpleImmutableEntry<String, String>(key, get(key));
+            }
+
+            @Override
+            public void remove() {
+              throw new UnsupportedOperationException();
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return multi.size();
+        }
+      };
+    }
   }
 
+  /**
+   * Writes a file entity with {@link FileTransfer#transferTo} so that the
+   * container does not have to copy it through an input stream.
+   */
+  private static class FileEntityOutput implements StreamingOutput {
+    private final FileEntity entity;
+
+    private FileEntityOutput(final FileEntity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      FileTransfer.transferTo(entity, output);
+    }
+  }
 }
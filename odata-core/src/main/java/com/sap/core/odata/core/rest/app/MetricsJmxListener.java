@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest.app;
+
+import javax.management.ObjectName;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import com.sap.core.odata.core.metrics.MetricsJmxReporter;
+import com.sap.core.odata.core.metrics.MetricsRegistry;
+
+/**
+ * Publishes the default {@link MetricsRegistry} via JMX while the web
+ * application is running. The reporter is registered under the context path
+ * of the web application and unregistered when the application is stopped.
+ * <p>Register it as <code>&lt;listener&gt;</code> in the <code>web.xml</code>
+ * to enable the export.</p>
+ * @author SAP AG
+ */
+public class MetricsJmxListener implements ServletContextListener {
+
+  private ObjectName name;
+
+  @Override
+  public void contextInitialized(final ServletContextEvent event) {
+    name = MetricsJmxReporter.register(MetricsRegistry.getDefault(), event.getServletContext().getContextPath());
+  }
+
+  @Override
+  public void contextDestroyed(final ServletContextEvent event) {
+    MetricsJmxReporter.unregister(name);
+    name = null;
+  }
+}
@@ -16,6 +16,9 @@
 package com.sap.core.odata.core.rt;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.batch.BatchResponsePart.BatchResponsePartBuilder;
@@ -27,6 +30,7 @@ import com.sap.core.odata.api.edm.EdmSimpleType;
 import com.sap.core.odata.api.edm.EdmSimpleTypeFacade;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.processor.ODataRequest.ODataRequestBuilder;
@@ -43,6 +47,8 @@ import com.sap.core.odata.core.batch.BatchResponsePartImpl;
 import com.sap.core.odata.core.edm.EdmSimpleTypeFacadeImpl;
 import com.sap.core.odata.core.edm.parser.EdmxProvider;
 import com.sap.core.odata.core.edm.provider.EdmImplProv;
+import com.sap.core.odata.core.edm.provider.EdmSnapshotProvider;
+import com.sap.core.odata.core.edm.provider.EdmSnapshotWriter;
 import com.sap.core.odata.core.ep.ProviderFacadeImpl;
 import com.sap.core.odata.core.processor.ODataSingleProcessorService;
 import com.sap.core.odata.core.uri.UriParserImpl;
@@ -93,6 +99,16 @@ public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
     return new EdmxProvider().parse(metadataXml, validate);
   }
 
+  @Override
+  protected EdmProvider createEdmProvider(final ByteBuffer snapshot) throws EntityProviderException {
+    return new EdmSnapshotProvider(snapshot);
+  }
+
+  @Override
+  protected void writeEdmSnapshot(final List<Schema> schemas, final OutputStream snapshot) throws EntityProviderException {
+    EdmSnapshotWriter.write(schemas, snapshot);
+  }
+
   @Override
   protected BatchResponsePartBuilder createBatchResponsePartBuilder() {
     BatchResponsePartImpl part = new BatchResponsePartImpl();
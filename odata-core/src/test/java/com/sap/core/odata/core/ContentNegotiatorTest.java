@@ -16,6 +16,7 @@
 package com.sap.core.odata.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,8 +25,10 @@ import java.util.List;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotAcceptableException;
+import com.sap.core.odata.core.commons.ContentEncoding;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.uri.UriInfoImpl;
 import com.sap.core.odata.core.uri.UriType;
@@ -149,6 +152,34 @@ public class ContentNegotiatorTest {
     negotiateContentTypeCharset("application/xml; charset=utf-8", "application/xml;charset=utf-8", true);
   }
 
+  @Test
+  public void contentNegotiationIsRemembered() throws Exception {
+    UriInfoImpl uriInfo = Mockito.mock(UriInfoImpl.class);
+    Mockito.when(uriInfo.getUriType()).thenReturn(UriType.URI1);
+    List<String> acceptedContentTypes = new ArrayList<String>(Arrays.asList("application/json"));
+    final List<String> supportedContentTypes = Arrays.asList("application/xml;charset=utf-8", "application/json;charset=utf-8");
+
+    ContentNegotiator negotiator = new ContentNegotiator();
+    assertEquals("application/json;charset=utf-8", negotiator.doContentNegotiation(uriInfo, acceptedContentTypes, supportedContentTypes));
+    assertEquals("application/json;charset=utf-8", negotiator.doContentNegotiation(uriInfo, acceptedContentTypes, supportedContentTypes));
+
+    // Changing the list afterwards must not change the remembered result.
+    acceptedContentTypes.set(0, "application/xml");
+    assertEquals("application/xml;charset=utf-8", negotiator.doContentNegotiation(uriInfo, acceptedContentTypes, supportedContentTypes));
+    assertEquals("application/json;charset=utf-8", negotiator.doContentNegotiation(uriInfo, Arrays.asList("application/json"), supportedContentTypes));
+
+    // The $format value takes precedence also for remembered negotiations.
+    Mockito.when(uriInfo.getFormat()).thenReturn("xml");
+    assertEquals("application/xml;charset=utf-8", negotiator.doContentNegotiation(uriInfo, Arrays.asList("application/json"), supportedContentTypes));
+    Mockito.when(uriInfo.isValue()).thenReturn(true);
+    try {
+      negotiator.doContentNegotiation(uriInfo, Arrays.asList("application/json"), supportedContentTypes);
+      fail("Expected ODataBadRequestException");
+    } catch (final ODataBadRequestException e) {
+      // expected
+    }
+  }
+
   private void negotiateContentTypeCharset(final String requestType, final String supportedType, final boolean asFormat) throws ODataException {
     UriInfoImpl uriInfo = Mockito.mock(UriInfoImpl.class);
     Mockito.when(uriInfo.getUriType()).thenReturn(UriType.URI1);
@@ -172,4 +203,27 @@ public class ContentNegotiatorTest {
     }
     return ctList;
   }
+
+  private static String negotiateContentEncoding(final String... acceptEncodingHeaderValues) {
+    return new ContentNegotiator().doContentEncodingNegotiation(
+        acceptEncodingHeaderValues == null ? null : Arrays.asList(acceptEncodingHeaderValues));
+  }
+
+  @Test
+  public void contentEncodingNegotiation() throws Exception {
+    assertEquals(null, negotiateContentEncoding((String[]) null));
+    assertEquals(null, negotiateContentEncoding(""));
+    assertEquals(null, negotiateContentEncoding("identity"));
+    assertEquals(ContentEncoding.GZIP, negotiateContentEncoding("gzip"));
+    assertEquals(ContentEncoding.GZIP, negotiateContentEncoding("x-gzip"));
+    assertEquals(ContentEncoding.GZIP, negotiateContentEncoding("GZIP, deflate"));
+    assertEquals(ContentEncoding.GZIP, negotiateContentEncoding("deflate", "gzip"));
+    assertEquals(ContentEncoding.GZIP, negotiateContentEncoding("*"));
+    assertEquals(ContentEncoding.DEFLATE, negotiateContentEncoding("deflate"));
+    assertEquals(ContentEncoding.DEFLATE, negotiateContentEncoding("gzip;q=0.5, deflate"));
+    assertEquals(ContentEncoding.DEFLATE, negotiateContentEncoding("*, gzip;q=0"));
+    assertEquals(null, negotiateContentEncoding("gzip;q=0"));
+    assertEquals(null, negotiateContentEncoding("*;q=0"));
+    assertEquals(ContentEncoding.DEFLATE, negotiateContentEncoding("gzip;q=x, deflate ; q=0.1"));
+  }
 }
@@ -20,16 +20,25 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sap.core.odata.api.ODataMetricsCallback;
 import com.sap.core.odata.api.ODataServiceFactory;
 import com.sap.core.odata.api.commons.ODataHttpMethod;
 import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataContext.ResourceMeasurement;
 import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.core.metrics.SlowRequestSample;
 
 /**
  * @author SAP AG
@@ -73,4 +82,57 @@ public class ODataContextImplTest {
     assertTrue(context.isInBatchMode());
     assertNotNull(context.getBatchParentContext());
   }
+
+  @Test
+  public void runtimeMeasurementsWithoutDebugMode() {
+    ODataMetricsCallback callback = mock(ODataMetricsCallback.class);
+    when(context.getServiceFactory().getCallback(ODataMetricsCallback.class)).thenReturn(callback);
+    context.setParameter(ODataContextImpl.METRICS_URI_TYPE, "URI1");
+    context.setParameter(ODataContextImpl.METRICS_ENTITY_SET, "Employees");
+
+    final int outerHandle = context.startRuntimeMeasurement("Outer", "handle");
+    for (int i = 0; i < 20; i++) {
+      context.stopRuntimeMeasurement(context.startRuntimeMeasurement("Inner", "work"));
+    }
+    context.stopRuntimeMeasurement(outerHandle);
+    context.stopRuntimeMeasurement(outerHandle);
+
+    verify(callback, times(20)).recordMeasurement(eq("Inner"), eq("work"), eq("URI1"), eq("Employees"), anyLong());
+    verify(callback, times(1)).recordMeasurement(eq("Outer"), eq("handle"), eq("URI1"), eq("Employees"), anyLong());
+    assertTrue(context.getRuntimeMeasurements().isEmpty());
+  }
+
+  @Test
+  public void measuredPhases() {
+    final int handle = context.startRuntimeMeasurement("Outer", "handle");
+    context.stopRuntimeMeasurement(context.startRuntimeMeasurement("Inner", "work"));
+    context.stopRuntimeMeasurement(context.startRuntimeMeasurement("Inner", "work"));
+    context.startRuntimeMeasurement("Inner", "unfinished");
+    assertEquals(-1, context.getMeasuredDuration(handle));
+    context.stopRuntimeMeasurement(handle);
+    assertTrue(context.getMeasuredDuration(handle) >= 0);
+
+    final List<SlowRequestSample.Phase> phases = context.getMeasuredPhases();
+    assertEquals(2, phases.size());
+    assertEquals("Outer", phases.get(0).getClassName());
+    assertEquals(1, phases.get(0).getCount());
+    assertEquals("work", phases.get(1).getMethodName());
+    assertEquals(2, phases.get(1).getCount());
+  }
+
+  @Test
+  public void runtimeMeasurementsInDebugMode() {
+    context.setDebugMode(true);
+    final int handle = context.startRuntimeMeasurement("Class", "method");
+    context.stopRuntimeMeasurement(handle);
+
+    assertEquals(1, context.getRuntimeMeasurements().size());
+    assertTrue(context.getRuntimeMeasurements().get(0) instanceof ResourceMeasurement);
+    final ResourceMeasurement measurement = (ResourceMeasurement) context.getRuntimeMeasurements().get(0);
+    assertEquals("Class", measurement.getClassName());
+    assertEquals("method", measurement.getMethodName());
+    assertTrue(measurement.getTimeStopped() >= measurement.getTimeStarted());
+    assertTrue(measurement.getCpuTimeStopped() >= measurement.getCpuTimeStarted());
+    assertTrue(measurement.getAllocatedBytesStopped() >= measurement.getAllocatedBytesStarted());
+  }
 }
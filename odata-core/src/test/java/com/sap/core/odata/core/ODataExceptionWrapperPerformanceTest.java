@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.ODataServiceFactory;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.exception.ODataBadRequestException;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.uri.UriNotMatchingException;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * Error-heavy traffic: many threads creating error documents for message exceptions.
+ * @author SAP AG
+ */
+public class ODataExceptionWrapperPerformanceTest extends BaseTest {
+
+  private static final int THREADS = 4;
+  private static final long TIMES = 250L; // increase for manual performance testing
+
+  @Test
+  public void errorDocuments() throws Exception {
+    List<ODataContextImpl> contexts = new ArrayList<ODataContextImpl>();
+    for (int i = 0; i < THREADS; i++) {
+      contexts.add(getMockedContext());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final long start = System.nanoTime();
+      List<Future<Long>> results = new ArrayList<Future<Long>>();
+      for (final ODataContextImpl context : contexts) {
+        results.add(executor.submit(new Callable<Long>() {
+          @Override
+          public Long call() throws Exception {
+            return writeErrorDocuments(context);
+          }
+        }));
+      }
+      long documents = 0;
+      for (final Future<Long> result : results) {
+        documents += result.get();
+      }
+      final long duration = System.nanoTime() - start;
+
+      assertEquals(2 * THREADS * TIMES, documents);
+      log.debug("Created " + documents + " error documents in " + (duration / 1000000) + " ms ("
+          + (duration / documents) + " ns per document).");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private long writeErrorDocuments(final ODataContextImpl context) throws Exception {
+    final Map<String, String> queryParameters = Collections.emptyMap();
+    final List<String> acceptContentTypes = Arrays.asList("application/xml");
+    long documents = 0;
+    for (long i = 0; i < TIMES; i++) {
+      ODataResponse response = new ODataExceptionWrapper(context, queryParameters, acceptContentTypes)
+          .wrapInExceptionResponse(new UriNotMatchingException(UriNotMatchingException.NOTFOUND.addContent("Set" + i)));
+      assertEquals(HttpStatusCodes.NOT_FOUND, response.getStatus());
+      assertTrue(StringHelper.inputStreamToString((InputStream) response.getEntity())
+          .contains("Could not find an entity set or function import for 'Set" + i + "'."));
+      documents++;
+
+      response = new ODataExceptionWrapper(context, queryParameters, acceptContentTypes)
+          .wrapInExceptionResponse(new ODataBadRequestException(ODataBadRequestException.INVALID_HEADER.addContent("Header", "value" + i)));
+      assertEquals(HttpStatusCodes.BAD_REQUEST, response.getStatus());
+      documents++;
+    }
+    return documents;
+  }
+
+  private ODataContextImpl getMockedContext() throws Exception {
+    ODataContextImpl context = mock(ODataContextImpl.class);
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setRequestUri(new URI("http://localhost:80/test/Unknown"));
+    pathInfo.setServiceRoot(new URI("http://localhost:80/test/"));
+    when(context.getPathInfo()).thenReturn(pathInfo);
+    when(context.getRequestHeaders()).thenReturn(new MultivaluedHashMap<String, String>());
+    when(context.getAcceptableLanguages()).thenReturn(Arrays.asList(Locale.GERMANY, Locale.ENGLISH));
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    when(context.getServiceFactory()).thenReturn(serviceFactory);
+    return context;
+  }
+}
@@ -17,11 +17,13 @@ package com.sap.core.odata.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -32,6 +34,8 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sap.core.odata.api.ODataCallback;
+import com.sap.core.odata.api.ODataDebugCallback;
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.ODataServiceFactory;
 import com.sap.core.odata.api.commons.HttpContentType;
@@ -67,9 +71,11 @@ import com.sap.core.odata.api.uri.PathSegment;
 import com.sap.core.odata.api.uri.UriParser;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.commons.ContentType.ODataFormat;
+import com.sap.core.odata.core.metrics.SlowRequestSampler;
 import com.sap.core.odata.core.uri.UriInfoImpl;
 import com.sap.core.odata.core.uri.UriType;
 import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 /**
@@ -676,4 +682,46 @@ public class ODataRequestHandlerValidationTest extends BaseTest {
     wrongRequestContentType(ODataHttpMethod.POST, UriType.URI1, ContentType.APPLICATION_OCTET_STREAM);
     wrongRequestContentType(ODataHttpMethod.POST, UriType.URI6B, ContentType.APPLICATION_ATOM_SVC);
   }
+
+  @Test
+  public void slowRequests() throws Exception {
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    final ODataService service = mockODataService(serviceFactory);
+    SlowRequestSampler.getInstance(serviceFactory.getClass()).clear();
+    final ODataRequest employeesRequest = mockODataRequest(ODataHttpMethod.GET, Arrays.asList("Employees"), null, null);
+    new ODataRequestHandler(serviceFactory, service, new ODataContextImpl(employeesRequest, serviceFactory)).handle(employeesRequest);
+
+    final ODataRequest request = mockODataRequest(ODataHttpMethod.GET, Arrays.asList(SlowRequestSampler.RESOURCE), null, null);
+    ODataResponse response = new ODataRequestHandler(serviceFactory, service, new ODataContextImpl(request, serviceFactory)).handle(request);
+    assertEquals(HttpStatusCodes.NOT_FOUND, response.getStatus());
+
+    final ODataDebugCallback debugCallback = mock(ODataDebugCallback.class);
+    when(debugCallback.isDebugEnabled()).thenReturn(true);
+    when(serviceFactory.getCallback(ODataDebugCallback.class)).thenReturn(debugCallback);
+    response = new ODataRequestHandler(serviceFactory, service, new ODataContextImpl(request, serviceFactory)).handle(request);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals(HttpContentType.APPLICATION_JSON, response.getContentHeader());
+    final String samples = StringHelper.inputStreamToString((InputStream) response.getEntity());
+    assertTrue(samples.contains("\"method\":\"GET\""));
+    assertTrue(samples.contains("\"uriType\":\"URI1\",\"entitySet\":\"Employees\""));
+    assertTrue(samples.contains("\"status\":402,"));
+    assertTrue(samples.contains("{\"class\":\"UriParserImpl\",\"method\":\"parse\",\"count\":1,"));
+
+    // The samples of services of other factories are not visible.
+    ODataServiceFactory otherServiceFactory = new ODataServiceFactory() {
+      @Override
+      public ODataService createService(final ODataContext ctx) throws ODataException {
+        return service;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T extends ODataCallback> T getCallback(final Class<? extends ODataCallback> callbackInterface) {
+        return callbackInterface == ODataDebugCallback.class ? (T) debugCallback : null;
+      }
+    };
+    response = new ODataRequestHandler(otherServiceFactory, service, new ODataContextImpl(request, otherServiceFactory)).handle(request);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals("{\"windowLength\":60000,\"windows\":[]}", StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
 }
@@ -27,6 +27,16 @@ import com.sap.core.odata.api.batch.BatchException;
 public class AcceptParserTest {
   private static final String TAB = "\t";
 
+  @Test
+  public void testAcceptHeaderResultIsCopy() throws BatchException {
+    List<String> acceptHeaders = AcceptParser.parseAcceptHeaders("application/xml;q=0.9, application/json");
+    assertEquals("application/json", acceptHeaders.get(0));
+    acceptHeaders.clear();
+    acceptHeaders = AcceptParser.parseAcceptHeaders("application/xml;q=0.9, application/json");
+    assertEquals(2, acceptHeaders.size());
+    assertEquals("application/json", acceptHeaders.get(0));
+  }
+
   @Test
   public void testAcceptHeader() throws BatchException {
     List<String> acceptHeaders = AcceptParser.parseAcceptHeaders("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * @author SAP AG
+ */
+public class ByteRangeTest extends BaseTest {
+
+  private static final String TEXT = "0123456789abcdefghij";
+
+  private static ODataResponse createResponse(final Object entity, final String eTag) {
+    return ODataResponse.status(HttpStatusCodes.OK).entity(entity)
+        .contentHeader(HttpContentType.APPLICATION_OCTET_STREAM).eTag(eTag).build();
+  }
+
+  /** Stream whose length cannot be determined in advance. */
+  private static InputStream createUnknownLengthStream() throws Exception {
+    return new FilterInputStream(new ByteArrayInputStream(TEXT.getBytes("UTF-8"))) {};
+  }
+
+  private static String read(final ODataResponse response) throws Exception {
+    return StringHelper.inputStreamToString((InputStream) response.getEntity());
+  }
+
+  @Test
+  public void parse() {
+    ByteRange range = ByteRange.parse("bytes=2-5", 20);
+    assertEquals(2, range.getFirst());
+    assertEquals(5, range.getLast());
+    range = ByteRange.parse(" Bytes=15- ", 20);
+    assertEquals(15, range.getFirst());
+    assertEquals(19, range.getLast());
+    range = ByteRange.parse("bytes=-5", 20);
+    assertEquals(15, range.getFirst());
+    assertEquals(19, range.getLast());
+    range = ByteRange.parse("bytes=-50", 20);
+    assertEquals(0, range.getFirst());
+    range = ByteRange.parse("bytes=10-100", 20);
+    assertEquals(19, range.getLast());
+    range = ByteRange.parse("bytes=10-100", -1);
+    assertEquals(100, range.getLast());
+
+    assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=20-", 20));
+    assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 20));
+
+    assertNull(ByteRange.parse(null, 20));
+    assertNull(ByteRange.parse("items=1-2", 20));
+    assertNull(ByteRange.parse("bytes=5-2", 20));
+    assertNull(ByteRange.parse("bytes=-", 20));
+    assertNull(ByteRange.parse("bytes=a-2", 20));
+    assertNull(ByteRange.parse("bytes=1-2,5-6", 20));
+    assertNull(ByteRange.parse("bytes=5-", -1));
+    assertNull(ByteRange.parse("bytes=-5", -1));
+  }
+
+  @Test
+  public void partialStream() throws Exception {
+    final ODataResponse response = ByteRange.apply(
+        createResponse(new ByteArrayInputStream(TEXT.getBytes("UTF-8")), null), "bytes=5-9", null, null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("bytes 5-9/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals(ByteRange.BYTES, response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    assertEquals(HttpContentType.APPLICATION_OCTET_STREAM, response.getContentHeader());
+    assertEquals("56789", read(response));
+  }
+
+  @Test
+  public void partialByteArray() throws Exception {
+    final ODataResponse response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), null), "bytes=-3", null, null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("bytes 17-19/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("hij", read(response));
+  }
+
+  @Test
+  public void partialStreamOfUnknownLength() throws Exception {
+    ODataResponse response = ByteRange.apply(createResponse(createUnknownLengthStream(), null), "bytes=18-25", null, null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("bytes 18-25/*", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertEquals("ij", read(response));
+
+    response = ByteRange.apply(createResponse(createUnknownLengthStream(), null), "bytes=-5", null, null);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals(TEXT, read(response));
+  }
+
+  @Test
+  public void unsatisfiable() throws Exception {
+    final ODataResponse response = ByteRange.apply(
+        createResponse(new ByteArrayInputStream(TEXT.getBytes("UTF-8")), null), "bytes=20-", null, null);
+    assertEquals(HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+    assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertNull(response.getEntity());
+    assertNull(response.getContentHeader());
+  }
+
+  @Test
+  public void unsatisfiableStreamOfUnknownLength() throws Exception {
+    ODataResponse response = ByteRange.apply(createResponse(createUnknownLengthStream(), null), "bytes=20-25", null, null);
+    assertEquals(HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+    assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+    assertNull(response.getEntity());
+
+    response = ByteRange.apply(createResponse(createUnknownLengthStream(), null), "bytes=19-25", null, null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("j", read(response));
+  }
+
+  @Test
+  public void ifRange() throws Exception {
+    ODataResponse response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "\"1\""), "bytes=0-0", "\"1\"", null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+    assertEquals("0", read(response));
+
+    response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "\"2\""), "bytes=0-0", "\"1\"", null);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals(ByteRange.BYTES, response.getHeader(HttpHeaders.ACCEPT_RANGES));
+
+    // Weak entity tags must not be used for sub-ranges.
+    response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "W/\"1\""), "bytes=0-0", "W/\"1\"", null);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+
+    response = ByteRange.apply(
+        ODataResponse.fromResponse(createResponse(TEXT.getBytes("UTF-8"), null))
+            .header(HttpHeaders.LAST_MODIFIED, "Sat, 29 Oct 1994 19:43:31 GMT").build(),
+        "bytes=0-0", "Sat, 29 Oct 1994 19:43:31 GMT", null);
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+  }
+
+  @Test
+  public void ifNoneMatch() throws Exception {
+    ODataResponse response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "W/\"1\""), null, null, "\"0\", \"1\"");
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+    assertNull(response.getEntity());
+    assertEquals("W/\"1\"", response.getETag());
+
+    response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "W/\"1\""), "bytes=0-0", null, "W/\"2\"");
+    assertEquals(HttpStatusCodes.PARTIAL_CONTENT, response.getStatus());
+
+    response = ByteRange.apply(createResponse(TEXT.getBytes("UTF-8"), "\"1\""), null, null, "*");
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+  }
+
+  @Test
+  public void otherResponsesUnchanged() throws Exception {
+    final ODataResponse response = ODataResponse.status(HttpStatusCodes.NO_CONTENT).build();
+    assertSame(response, ByteRange.apply(response, "bytes=0-0", null, null));
+  }
+}
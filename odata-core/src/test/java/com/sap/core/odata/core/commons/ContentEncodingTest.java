@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * @author SAP AG
+ */
+public class ContentEncodingTest extends BaseTest {
+
+  private static final String TEXT;
+  static {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("{\"Id\":\"").append(i).append("\",\"Name\":\"Employee ").append(i).append(" äöü\"},");
+    }
+    TEXT = builder.toString();
+  }
+
+  private static String readCompressed(final ODataResponse response) throws Exception {
+    return StringHelper.inputStreamToString(
+        ContentEncoding.decode(response.getHeader(HttpHeaders.CONTENT_ENCODING), (InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void compressStream() throws Exception {
+    for (final String contentEncoding : new String[] { ContentEncoding.GZIP, ContentEncoding.DEFLATE }) {
+      final ODataResponse response = ContentEncoding.compress(
+          ODataResponse.entity(new ByteArrayInputStream(TEXT.getBytes("UTF-8"))).contentHeader(HttpContentType.APPLICATION_JSON).build(),
+          contentEncoding, 1024, Deflater.BEST_SPEED);
+      assertEquals(contentEncoding, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+      assertEquals(HttpContentType.APPLICATION_JSON, response.getContentHeader());
+      assertEquals(TEXT, readCompressed(response));
+    }
+  }
+
+  @Test
+  public void compressStreamAboveBufferedThreshold() throws Exception {
+    final byte[] bytes = TEXT.getBytes("UTF-8");
+    for (final int threshold : new int[] { 1, 4096, 10000, bytes.length }) {
+      final ODataResponse response = ContentEncoding.compress(
+          ODataResponse.entity(new ByteArrayInputStream(bytes)).build(),
+          ContentEncoding.GZIP, threshold, Deflater.BEST_SPEED);
+      assertEquals(ContentEncoding.GZIP, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(TEXT, readCompressed(response));
+    }
+  }
+
+  @Test
+  public void compressString() throws Exception {
+    final ODataResponse response = ContentEncoding.compress(
+        ODataResponse.entity(TEXT).contentHeader(HttpContentType.TEXT_PLAIN_UTF8).build(),
+        ContentEncoding.GZIP, 0, Deflater.DEFAULT_COMPRESSION);
+    assertEquals(TEXT, readCompressed(response));
+  }
+
+  @Test
+  public void compressEmptyStream() throws Exception {
+    final ODataResponse response = ContentEncoding.compress(
+        ODataResponse.entity(new ByteArrayInputStream(new byte[0])).build(),
+        ContentEncoding.GZIP, 0, Deflater.DEFAULT_COMPRESSION);
+    assertEquals("", readCompressed(response));
+  }
+
+  @Test
+  public void belowThreshold() throws Exception {
+    ODataResponse original = ODataResponse.entity("small").contentHeader(HttpContentType.TEXT_PLAIN).build();
+    assertSame(original, ContentEncoding.compress(original, ContentEncoding.GZIP, 1024, Deflater.DEFAULT_COMPRESSION));
+
+    original = ODataResponse.entity(new ByteArrayInputStream(TEXT.getBytes("UTF-8"))).build();
+    final ODataResponse response = ContentEncoding.compress(original, ContentEncoding.GZIP, 100000, Deflater.DEFAULT_COMPRESSION);
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(TEXT, StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void notCompressed() throws Exception {
+    ODataResponse original = ODataResponse.entity(TEXT).contentHeader("image/jpeg").build();
+    assertSame(original, ContentEncoding.compress(original, ContentEncoding.GZIP, 0, Deflater.DEFAULT_COMPRESSION));
+    original = ODataResponse.entity(TEXT).header(HttpHeaders.CONTENT_ENCODING, ContentEncoding.DEFLATE).build();
+    assertSame(original, ContentEncoding.compress(original, ContentEncoding.GZIP, 0, Deflater.DEFAULT_COMPRESSION));
+    original = ODataResponse.entity(TEXT).build();
+    assertSame(original, ContentEncoding.compress(original, null, 0, Deflater.DEFAULT_COMPRESSION));
+    original = ODataResponse.status(HttpStatusCodes.NO_CONTENT).build();
+    assertSame(original, ContentEncoding.compress(original, ContentEncoding.GZIP, 0, Deflater.DEFAULT_COMPRESSION));
+  }
+
+  @Test
+  public void decode() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+    gzip.write(TEXT.getBytes("UTF-8"));
+    gzip.close();
+    assertEquals(TEXT, StringHelper.inputStreamToString(
+        ContentEncoding.decode("gzip", new ByteArrayInputStream(compressed.toByteArray()))));
+
+    final InputStream content = new ByteArrayInputStream(new byte[0]);
+    assertSame(content, ContentEncoding.decode(null, content));
+    assertSame(content, ContentEncoding.decode(" Identity ", content));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void decodeUnsupported() throws Exception {
+    ContentEncoding.decode("br", new ByteArrayInputStream(new byte[0]));
+  }
+}
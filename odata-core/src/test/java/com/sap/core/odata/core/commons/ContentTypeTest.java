@@ -913,6 +913,23 @@ public class ContentTypeTest extends BaseTest {
     assertTrue(ContentType.create("*/*").hasWildcard());
   }
 
+  @Test
+  public void testCreateReturnsSharedInstance() {
+    final ContentType contentType = ContentType.create("application/atom+xml;type=entry;charset=utf-8");
+    assertTrue(contentType == ContentType.create("application/atom+xml;type=entry;charset=utf-8"));
+    assertTrue(contentType == ContentType.parse("application/atom+xml;type=entry;charset=utf-8"));
+    assertEquals(ContentType.APPLICATION_ATOM_XML_ENTRY_CS_UTF_8, contentType);
+  }
+
+  @Test
+  public void testCreateKeepsCachingAfterManyFormats() {
+    for (int i = 0; i < 2500; i++) {
+      ContentType.create("application/xml;index=" + i);
+    }
+    final ContentType contentType = ContentType.create("application/json;odata=verbose");
+    assertTrue(contentType == ContentType.create("application/json;odata=verbose"));
+  }
+
   private Map<String, String> addParameters(final String... content) {
     Map<String, String> map = new HashMap<String, String>();
     for (int i = 0; i < content.length - 1; i += 2) {
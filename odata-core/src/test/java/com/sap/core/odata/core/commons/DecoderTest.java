@@ -17,6 +17,7 @@ package com.sap.core.odata.core.commons;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -33,6 +34,7 @@ public class DecoderTest extends BaseTest {
 
     String s = "azAZ019";
     assertEquals(s, Decoder.decode(s));
+    assertSame(s, Decoder.decode(s));
 
     s = "\"\\`{}|";
     assertEquals(s, Decoder.decode(s));
@@ -50,6 +52,11 @@ public class DecoderTest extends BaseTest {
     assertEquals(" !\"$'()*+,-.", Decoder.decode("%20%21%22%24%27%28%29%2A%2B%2C%2D%2E"));
   }
 
+  @Test
+  public void mixed() {
+    assertEquals("a b/c€", Decoder.decode("a%20b%2fc%E2%82%AC"));
+  }
+
   @Test
   public void unicodeCharacters() {
     assertEquals("€", Decoder.decode("%E2%82%AC"));
@@ -16,6 +16,7 @@
 package com.sap.core.odata.core.commons;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -40,6 +41,24 @@ public class EncoderTest extends BaseTest {
     final String s = "azAZ019";
     assertEquals(s, Encoder.encode(s));
     assertEquals(s, Encoder.encode(s));
+    assertSame(s, Encoder.encode(s));
+  }
+
+  @Test
+  public void appendToBuilder() {
+    StringBuilder builder = new StringBuilder("a");
+    assertSame(builder, Encoder.encode("b c€", builder));
+    assertEquals("ab%20c%E2%82%AC", builder.toString());
+  }
+
+  @Test
+  public void mixedCharacters() {
+    assertEquals("ab%2Fc%C3%A4%20%E2%82%AC'", Encoder.encode("ab/c\u00E4 €'"));
+  }
+
+  @Test
+  public void unpairedSurrogate() {
+    assertEquals("a%3Fb", Encoder.encode("a\uD83Db"));
   }
 
   @Test
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sap.core.odata.api.processor.FileEntity;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class FileTransferTest extends BaseTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private byte[] data;
+  private File file;
+
+  @Before
+  public void createFile() throws Exception {
+    data = new byte[20000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    file = folder.newFile("media.bin");
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(data);
+    } finally {
+      out.close();
+    }
+  }
+
+  @Test
+  public void transferWholeFile() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(data.length, FileTransfer.transferTo(new FileEntity(file), out));
+    assertTrue(Arrays.equals(data, out.toByteArray()));
+  }
+
+  @Test
+  public void transferRegion() throws Exception {
+    final FileEntity entity = new FileEntity(file).getRegion(100, 9000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(9000, FileTransfer.transferTo(entity, out));
+    assertTrue(Arrays.equals(Arrays.copyOfRange(data, 100, 9100), out.toByteArray()));
+  }
+
+  @Test
+  public void transferToFile() throws Exception {
+    final File target = folder.newFile("copy.bin");
+    FileOutputStream out = new FileOutputStream(target);
+    try {
+      assertEquals(500, FileTransfer.transferTo(new FileEntity(file, 19500, 500), out));
+    } finally {
+      out.close();
+    }
+    assertEquals(500, target.length());
+  }
+
+  @Test(expected = EOFException.class)
+  public void transferBeyondEndOfFile() throws Exception {
+    FileTransfer.transferTo(new FileEntity(file, 19000, 5000), new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void transferOfShrunkFile() throws Exception {
+    final FileEntity entity = new FileEntity(file);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.setLength(10000);
+    } finally {
+      randomAccessFile.close();
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      FileTransfer.transferTo(entity, out);
+      fail("Expected EOFException");
+    } catch (final EOFException e) {
+      // The announced content length cannot be kept.
+      assertEquals(10000, out.size());
+    }
+  }
+
+  @Test
+  public void openStream() throws Exception {
+    final InputStream stream = FileTransfer.openStream(new FileEntity(file, 10, 20));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      int b;
+      while ((b = stream.read()) != -1) {
+        out.write(b);
+      }
+    } finally {
+      stream.close();
+    }
+    assertTrue(Arrays.equals(Arrays.copyOfRange(data, 10, 30), out.toByteArray()));
+  }
+}
@@ -40,6 +40,7 @@ import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataMessageException;
 import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataContext.ResourceMeasurement;
 import com.sap.core.odata.api.processor.ODataContext.RuntimeMeasurement;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.NavigationPropertySegment;
@@ -86,19 +87,22 @@ public class ODataDebugResponseWrapperTest extends BaseTest {
     return response;
   }
 
-  private RuntimeMeasurement mockRuntimeMeasurement(final String method, final long startTime, final long stopTime, final long startMemory, final long stopMemory) {
-    RuntimeMeasurement measurement = mock(RuntimeMeasurement.class);
+  private RuntimeMeasurement mockRuntimeMeasurement(final String method, final long startTime, final long stopTime,
+      final long startAllocated, final long stopAllocated, final long startCpuTime, final long stopCpuTime) {
+    ResourceMeasurement measurement = mock(ResourceMeasurement.class);
     when(measurement.getClassName()).thenReturn("class");
     when(measurement.getMethodName()).thenReturn(method);
     when(measurement.getTimeStarted()).thenReturn(startTime);
     when(measurement.getTimeStopped()).thenReturn(stopTime);
-    when(measurement.getMemoryStarted()).thenReturn(startMemory);
-    when(measurement.getMemoryStopped()).thenReturn(stopMemory);
+    when(measurement.getAllocatedBytesStarted()).thenReturn(startAllocated);
+    when(measurement.getAllocatedBytesStopped()).thenReturn(stopAllocated);
+    when(measurement.getCpuTimeStarted()).thenReturn(startCpuTime);
+    when(measurement.getCpuTimeStopped()).thenReturn(stopCpuTime);
     return measurement;
   }
 
   private RuntimeMeasurement mockRuntimeMeasurement(final String method, final long start, final long stop) {
-    return mockRuntimeMeasurement(method, start, stop, 1000, 4000);
+    return mockRuntimeMeasurement(method, start, stop, 1000, 4000, 500, 2500);
   }
 
   @Test
@@ -115,6 +119,18 @@ public class ODataDebugResponseWrapperTest extends BaseTest {
         actualJson);
   }
 
+  @Test
+  public void contentEncoding() throws Exception {
+    final ODataContext context = mockContext(ODataHttpMethod.GET);
+    final ODataResponse wrappedResponse = mockResponse(HttpStatusCodes.OK, null, null);
+
+    final ODataResponse response = new ODataDebugResponseWrapper(context, wrappedResponse, mock(UriInfo.class), null, ODataDebugResponseWrapper.ODATA_DEBUG_JSON,
+        "gzip")
+        .wrapResponse();
+    String actualJson = StringHelper.inputStreamToString((InputStream) response.getEntity());
+    assertEquals(EXPECTED.replace("}}}", "},\"contentEncoding\":\"gzip\"}}"), actualJson);
+  }
+
   @Test
   public void body() throws Exception {
     final ODataContext context = mockContext(ODataHttpMethod.GET);
@@ -251,15 +267,52 @@ public class ODataDebugResponseWrapperTest extends BaseTest {
         .wrapResponse();
     String entity = StringHelper.inputStreamToString((InputStream) response.getEntity());
     assertEquals(EXPECTED.replace("}}}",
-        "}},\"runtime\":[{\"class\":\"class\",\"method\":\"method\",\"duration\":41,\"memory\":3,"
-            + "\"children\":[{\"class\":\"class\",\"method\":\"inner\",\"duration\":8,\"memory\":6,\"children\":[]},"
-            + "{\"class\":\"class\",\"method\":\"inner\",\"duration\":3,\"memory\":3,\"children\":["
-            + "{\"class\":\"class\",\"method\":\"inner2\",\"duration\":1,\"memory\":3,\"children\":[]}]},"
-            + "{\"class\":\"class\",\"method\":\"child\",\"duration\":4,\"memory\":3,\"children\":[]}]},"
-            + "{\"class\":\"class\",\"method\":\"second\",\"duration\":54,\"memory\":3,\"children\":[]}]}"),
+        "}},\"runtime\":[{\"class\":\"class\",\"method\":\"method\",\"duration\":41,\"cpuTime\":2,\"allocated\":3000,"
+            + "\"children\":[{\"class\":\"class\",\"method\":\"inner\",\"duration\":8,\"cpuTime\":4,\"allocated\":6000,\"children\":[]},"
+            + "{\"class\":\"class\",\"method\":\"inner\",\"duration\":3,\"cpuTime\":2,\"allocated\":3000,\"children\":["
+            + "{\"class\":\"class\",\"method\":\"inner2\",\"duration\":1,\"cpuTime\":2,\"allocated\":3000,\"children\":[]}]},"
+            + "{\"class\":\"class\",\"method\":\"child\",\"duration\":4,\"cpuTime\":2,\"allocated\":3000,\"children\":[]}]},"
+            + "{\"class\":\"class\",\"method\":\"second\",\"duration\":54,\"cpuTime\":2,\"allocated\":3000,\"children\":[]}],"
+            + "\"allocations\":[{\"class\":\"class\",\"method\":\"inner\",\"count\":3,\"allocated\":6000,\"cpuTime\":4},"
+            + "{\"class\":\"class\",\"method\":\"inner2\",\"count\":1,\"allocated\":3000,\"cpuTime\":2},"
+            + "{\"class\":\"class\",\"method\":\"child\",\"count\":1,\"allocated\":3000,\"cpuTime\":2},"
+            + "{\"class\":\"class\",\"method\":\"second\",\"count\":1,\"allocated\":3000,\"cpuTime\":2}]}"),
         entity);
   }
 
+  @Test
+  public void runtimeWithoutResourceUsage() throws Exception {
+    ODataContext context = mockContext(ODataHttpMethod.GET);
+    List<RuntimeMeasurement> runtimeMeasurements = new ArrayList<RuntimeMeasurement>();
+    runtimeMeasurements.add(mockRuntimeMeasurement("method", 1000, 42000, 0, 0, 0, 0));
+    when(context.getRuntimeMeasurements()).thenReturn(runtimeMeasurements);
+
+    ODataResponse response = new ODataDebugResponseWrapper(context, mockResponse(HttpStatusCodes.OK, null, null), mock(UriInfo.class), null,
+        ODataDebugResponseWrapper.ODATA_DEBUG_JSON).wrapResponse();
+    assertEquals(EXPECTED.replace("}}}",
+        "}},\"runtime\":[{\"class\":\"class\",\"method\":\"method\",\"duration\":41,\"cpuTime\":null,\"allocated\":null,"
+            + "\"children\":[]}]}"),
+        StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void runtimeWithPlainMeasurement() throws Exception {
+    ODataContext context = mockContext(ODataHttpMethod.GET);
+    RuntimeMeasurement measurement = mock(RuntimeMeasurement.class);
+    when(measurement.getClassName()).thenReturn("class");
+    when(measurement.getMethodName()).thenReturn("method");
+    when(measurement.getTimeStarted()).thenReturn(1000L);
+    when(measurement.getTimeStopped()).thenReturn(42000L);
+    when(context.getRuntimeMeasurements()).thenReturn(Arrays.asList(measurement));
+
+    ODataResponse response = new ODataDebugResponseWrapper(context, mockResponse(HttpStatusCodes.OK, null, null), mock(UriInfo.class), null,
+        ODataDebugResponseWrapper.ODATA_DEBUG_JSON).wrapResponse();
+    assertEquals(EXPECTED.replace("}}}",
+        "}},\"runtime\":[{\"class\":\"class\",\"method\":\"method\",\"duration\":41,\"cpuTime\":null,\"allocated\":null,"
+            + "\"children\":[]}]}"),
+        StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
   @Test
   public void exception() throws Exception {
     final ODataContext context = mockContext(ODataHttpMethod.GET);
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.debug;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class ThreadResourceMeterTest extends BaseTest {
+
+  @Test
+  public void allocatedBytes() {
+    final long allocatedBytesStarted = ThreadResourceMeter.getAllocatedBytes();
+    List<byte[]> arrays = new ArrayList<byte[]>();
+    for (int i = 0; i < 100; i++) {
+      arrays.add(new byte[1000]);
+    }
+    final long allocatedBytesStopped = ThreadResourceMeter.getAllocatedBytes();
+    assertTrue(arrays.size() == 100);
+    if (ThreadResourceMeter.isAllocatedBytesSupported()) {
+      assertTrue(allocatedBytesStopped - allocatedBytesStarted >= 100 * 1000);
+    } else {
+      assertTrue(allocatedBytesStarted == 0 && allocatedBytesStopped == 0);
+    }
+  }
+
+  @Test
+  public void cpuTime() {
+    final long cpuTimeStarted = ThreadResourceMeter.getCpuTime();
+    double value = 0;
+    for (int i = 0; i < 100000; i++) {
+      value += Math.sqrt(i);
+    }
+    assertTrue(value > 0);
+    assertTrue(ThreadResourceMeter.getCpuTime() >= cpuTimeStarted);
+  }
+}
@@ -1012,6 +1012,19 @@ public class EdmSimpleTypeTest extends BaseTest {
     assertEquals(dateTime, instance.valueOfString("/Date(1330477323000-0090)/", EdmLiteralKind.JSON, null, Calendar.class));
     assertEquals(dateTime, instance.valueOfString("datetimeoffset'2012-02-29T01:02:03-01:30'", EdmLiteralKind.URI, null, Calendar.class));
 
+    dateTime.clear();
+    dateTime.setTimeZone(TimeZone.getTimeZone("GMT-00:30"));
+    dateTime.set(2012, 1, 29, 1, 2, 3);
+    assertEquals(dateTime, instance.valueOfString("2012-02-29T01:02:03-00:30", EdmLiteralKind.DEFAULT, null, Calendar.class));
+    assertEquals(dateTime, instance.valueOfString("/Date(1330477323000-0030)/", EdmLiteralKind.JSON, null, Calendar.class));
+    assertEquals("2012-02-29T01:02:03-00:30", instance.valueToString(dateTime, EdmLiteralKind.DEFAULT, null));
+
+    dateTime.clear();
+    dateTime.setTimeZone(TimeZone.getTimeZone("GMT-00:30"));
+    dateTime.setTimeInMillis(1000 + 30 * 60 * 1000);
+    assertEquals(dateTime, instance.valueOfString("/Date(1000-0030)/", EdmLiteralKind.JSON, null, Calendar.class));
+    assertEquals("/Date(1000-0030)/", instance.valueToString(dateTime, EdmLiteralKind.JSON, null));
+
     dateTime.clear();
     dateTime.setTimeZone(TimeZone.getTimeZone("GMT+11:00"));
     dateTime.set(2012, 1, 29, 1, 2, 3);
@@ -1042,6 +1055,50 @@ public class EdmSimpleTypeTest extends BaseTest {
     expectTypeErrorInValueOfString(instance, "2012-02-29T01:02:03Z", EdmLiteralKind.DEFAULT);
   }
 
+  @Test
+  public void dateTimeRoundTrip() throws Exception {
+    final EdmSimpleType instance = EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance();
+    Calendar reference = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    // from the Julian calendar to the far future, in steps of a bit more than 97 days
+    for (long millis = -62135596800000L; millis < 253402300800000L; millis += 8432123456L) {
+      reference.clear();
+      reference.setTimeInMillis(millis);
+      final String expected = String.format("%04d-%02d-%02dT%02d:%02d:%02d.%03d",
+          reference.get(Calendar.YEAR), reference.get(Calendar.MONTH) + 1, reference.get(Calendar.DAY_OF_MONTH),
+          reference.get(Calendar.HOUR_OF_DAY), reference.get(Calendar.MINUTE), reference.get(Calendar.SECOND),
+          reference.get(Calendar.MILLISECOND)).replaceFirst("\\.?0*$", "");
+      assertEquals(expected, instance.valueToString(millis, EdmLiteralKind.DEFAULT, null));
+      assertEquals(Long.valueOf(millis), instance.valueOfString(expected, EdmLiteralKind.DEFAULT, null, Long.class));
+    }
+
+    assertEquals("1582-10-04T00:00:00", instance.valueToString(-12219379200000L, EdmLiteralKind.DEFAULT, null));
+    assertEquals(Long.valueOf(-12219292800000L), instance.valueOfString("1582-10-15T00:00", EdmLiteralKind.DEFAULT, null, Long.class));
+    assertEquals(Long.valueOf(-12219379200000L), instance.valueOfString("1582-10-04T00:00", EdmLiteralKind.DEFAULT, null, Long.class));
+    expectErrorInValueOfString(instance, "2000-02-30T00:00", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(instance, "2000-13-01T00:00", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(instance, "2000-01-01T00:60", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(instance, "2000-01-01T00:00:", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(instance, "2000-01-01T00:00:00.", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+  }
+
+  @Test
+  public void dateTimeOffsetTimeZones() throws Exception {
+    final EdmSimpleType instance = EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance();
+    Calendar dateTime = Calendar.getInstance(TimeZone.getTimeZone("GMT-00:30"));
+    dateTime.clear();
+    dateTime.setTimeInMillis(0);
+    assertEquals("1969-12-31T23:30:00-00:30", instance.valueToString(dateTime, EdmLiteralKind.DEFAULT, null));
+    assertEquals("/Date(-1800000-0030)/", instance.valueToString(dateTime, EdmLiteralKind.JSON, null));
+
+    final Calendar parsed = instance.valueOfString("2012-02-29T01:02:03+13:45", EdmLiteralKind.DEFAULT, null, Calendar.class);
+    assertEquals(TimeZone.getTimeZone("GMT+13:45"), parsed.getTimeZone());
+    assertEquals(13 * 60 * 60 * 1000 + 45 * 60 * 1000, parsed.get(Calendar.ZONE_OFFSET));
+    assertEquals(Long.valueOf(1330477323000L + 90 * 60 * 1000),
+        instance.valueOfString("2012-02-29T01:02:03-01:30", EdmLiteralKind.DEFAULT, null, Long.class));
+    expectErrorInValueOfString(instance, "2012-02-29T01:02:03+1:3", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+    expectErrorInValueOfString(instance, "2012-02-29T01:02:03+01:60", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
+  }
+
   @Test
   public void valueOfStringDecimal() throws Exception {
     final EdmSimpleType instance = EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance();
@@ -1066,6 +1123,14 @@ public class EdmSimpleTypeTest extends BaseTest {
     expectErrorInValueOfString(instance, "0.00390625", EdmLiteralKind.DEFAULT, getPrecisionScaleFacets(5, null), EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED);
     expectErrorInValueOfString(instance, "0.00390625", EdmLiteralKind.DEFAULT, getPrecisionScaleFacets(null, 7), EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED);
 
+    assertEquals(Long.valueOf(123), instance.valueOfString("+000123.000M", EdmLiteralKind.URI, null, Long.class));
+    assertEquals(Long.valueOf(Long.MIN_VALUE), instance.valueOfString("-9223372036854775808", EdmLiteralKind.DEFAULT, null, Long.class));
+    assertEquals(new BigDecimal("1.00"), instance.valueOfString("1.00", EdmLiteralKind.DEFAULT, null, Object.class));
+    expectUnconvertibleErrorInValueOfString(instance, "1.5", Integer.class);
+    expectUnconvertibleErrorInValueOfString(instance, "-129", Byte.class);
+    expectUnconvertibleErrorInValueOfString(instance, "12345678901234567890", Long.class);
+    expectErrorInValueOfString(instance, "1.0", EdmLiteralKind.DEFAULT, getPrecisionScaleFacets(null, 0), EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED);
+
     expectErrorInValueOfString(instance, "-1E2", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
     expectErrorInValueOfString(instance, "1.", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
     expectErrorInValueOfString(instance, ".1", EdmLiteralKind.DEFAULT, null, EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT);
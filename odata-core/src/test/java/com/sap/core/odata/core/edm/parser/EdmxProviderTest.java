@@ -17,7 +17,11 @@ package com.sap.core.odata.core.edm.parser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.List;
 
@@ -132,6 +136,112 @@ public class EdmxProviderTest {
     assertEquals(testContainer.isDefaultEntityContainer(), container.isDefaultEntityContainer());
   }
 
+  @Test
+  public void testEntitySetAndFunctionImport() throws EntityProviderException, ODataException, XMLStreamException {
+    Edm edm = createEdm();
+    EdmProvider provider = ((EdmImplProv) edm).getEdmProvider();
+
+    assertEquals("Employees", provider.getEntitySet("Container1", "Employees").getName());
+    assertSame(provider.getEntitySet("Container1", "Employees"), provider.getEntitySet(null, "Employees"));
+    assertEquals("EmployeeSearch", provider.getFunctionImport("Container1", "EmployeeSearch").getName());
+
+    FullQualifiedName fqNameAssociation = new FullQualifiedName("RefScenario", "ManagerEmployees");
+    assertSame(provider.getAssociationSet("Container1", fqNameAssociation, "Managers", "r_Manager"),
+        provider.getAssociationSet("Container1", fqNameAssociation, "Employees", "r_Employees"));
+  }
+
+  @Test
+  public void testUnknownElements() throws EntityProviderException, ODataException, XMLStreamException {
+    Edm edm = createEdm();
+    EdmProvider provider = ((EdmImplProv) edm).getEdmProvider();
+
+    assertNull(provider.getEntityType(new FullQualifiedName("RefScenario", "Unknown")));
+    assertNull(provider.getComplexType(new FullQualifiedName("Unknown", "c_Location")));
+    assertNull(provider.getAssociation(new FullQualifiedName("RefScenario", "Unknown")));
+    assertNull(provider.getEntityContainerInfo("Unknown"));
+    assertNull(provider.getEntitySet("Unknown", "Employees"));
+    assertNull(provider.getEntitySet("Container1", "Unknown"));
+    assertNull(provider.getFunctionImport("Container1", "Unknown"));
+    assertNull(provider.getAssociationSet("Container1", new FullQualifiedName("RefScenario", "ManagerEmployees"), "Managers", "r_Employees"));
+  }
+
+  @Test
+  public void lazyProvider() throws Exception {
+    final EdmProvider eager = new EdmxProvider().parse(getMetadata(), true);
+    final EdmProvider lazy = new EdmxProvider().parseLazily(getMetadata(), true);
+
+    final FullQualifiedName employee = new FullQualifiedName("RefScenario", "Employee");
+    assertEquals(eager.getEntityType(employee).getProperties().size(), lazy.getEntityType(employee).getProperties().size());
+    assertEquals(eager.getEntityType(employee).getKey().getKeys().size(), lazy.getEntityType(employee).getKey().getKeys().size());
+    assertSame(lazy.getEntityType(employee), lazy.getEntityType(employee));
+    final FullQualifiedName location = new FullQualifiedName("RefScenario", "c_Location");
+    assertEquals(eager.getComplexType(location).getProperties().size(), lazy.getComplexType(location).getProperties().size());
+    final FullQualifiedName association = new FullQualifiedName("RefScenario", "ManagerEmployees");
+    assertEquals(eager.getAssociation(association).getEnd1().getRole(), lazy.getAssociation(association).getEnd1().getRole());
+
+    assertEquals("Container1", lazy.getEntityContainerInfo(null).getName());
+    assertEquals(eager.getEntityContainerInfo("Container2").isDefaultEntityContainer(), lazy.getEntityContainerInfo("Container2").isDefaultEntityContainer());
+    assertEquals(employee, lazy.getEntitySet("Container1", "Employees").getEntityType());
+    assertSame(lazy.getEntitySet("Container1", "Employees"), lazy.getEntitySet(null, "Employees"));
+    assertEquals(eager.getFunctionImport("Container1", "EmployeeSearch").getReturnType().getTypeName(),
+        lazy.getFunctionImport("Container1", "EmployeeSearch").getReturnType().getTypeName());
+    assertSame(lazy.getAssociationSet("Container1", association, "Managers", "r_Manager"),
+        lazy.getAssociationSet("Container1", association, "Employees", "r_Employees"));
+
+    assertNull(lazy.getEntityType(new FullQualifiedName("RefScenario", "Unknown")));
+    assertNull(lazy.getEntityContainerInfo("Unknown"));
+    assertNull(lazy.getEntitySet("Container1", "Unknown"));
+    assertNull(lazy.getAssociationSet("Container1", association, "Managers", "r_Employees"));
+
+    final List<Schema> schemas = lazy.getSchemas();
+    final List<Schema> eagerSchemas = eager.getSchemas();
+    assertEquals(eagerSchemas.size(), schemas.size());
+    for (int i = 0; i < schemas.size(); i++) {
+      assertEquals(eagerSchemas.get(i).getNamespace(), schemas.get(i).getNamespace());
+      assertEquals(eagerSchemas.get(i).getEntityTypes().size(), schemas.get(i).getEntityTypes().size());
+      assertEquals(eagerSchemas.get(i).getComplexTypes().size(), schemas.get(i).getComplexTypes().size());
+      assertEquals(eagerSchemas.get(i).getAssociations().size(), schemas.get(i).getAssociations().size());
+      assertEquals(eagerSchemas.get(i).getEntityContainers().size(), schemas.get(i).getEntityContainers().size());
+    }
+    assertSame(lazy.getEntityType(employee), schemas.get(0).getEntityTypes().get(0));
+    assertEquals(eagerSchemas.get(0).getEntityContainers().get(0).getEntitySets().size(),
+        schemas.get(0).getEntityContainers().get(0).getEntitySets().size());
+  }
+
+  @Test
+  public void lazyProviderWithEdm() throws Exception {
+    final Edm edm = new EdmImplProv(new EdmxProvider().parseLazily(getMetadata(), true));
+    assertEquals("Employee", edm.getDefaultEntityContainer().getEntitySet("Employees").getEntityType().getName());
+    assertEquals("Manager", edm.getEntityType("RefScenario", "Employee").getProperty("ne_Manager").getType().getName());
+  }
+
+  @Test
+  public void lazyValidation() throws Exception {
+    final String xml = "<edmx:Edmx Version=\"1.0\" xmlns:edmx=\"" + Edm.NAMESPACE_EDMX_2007_06 + "\">"
+        + "<edmx:DataServices m:DataServiceVersion=\"2.0\" xmlns:m=\"" + Edm.NAMESPACE_M_2007_08 + "\">"
+        + "<Schema Namespace=\"RefScenario\" Alias=\"R\" xmlns=\"" + Edm.NAMESPACE_EDM_2008_09 + "\">"
+        + "<EntityType Name=\"Employee\"><Key><PropertyRef Name=\"Id\"/></Key>"
+        + "<Property Name=\"Id\" Type=\"Edm.String\" Nullable=\"false\"/></EntityType>"
+        + "<EntityType Name=\"Manager\" BaseType=\"R.Employee\"/>"
+        + "<EntityType Name=\"Room\"><Property Name=\"Id\" Type=\"Edm.String\"/></EntityType>"
+        + "</Schema></edmx:DataServices></edmx:Edmx>";
+    final EdmProvider provider = new EdmxProvider().parseLazily(new ByteArrayInputStream(xml.getBytes("UTF-8")), true);
+    assertEquals("Employee", provider.getEntityType(new FullQualifiedName("RefScenario", "Employee")).getName());
+    assertEquals(new FullQualifiedName("R", "Employee"), provider.getEntityType(new FullQualifiedName("RefScenario", "Manager")).getBaseType());
+    try {
+      provider.getEntityType(new FullQualifiedName("RefScenario", "Room"));
+      fail("Expected EntityProviderException");
+    } catch (final EntityProviderException e) {
+      assertEquals(EntityProviderException.ILLEGAL_ARGUMENT.getKey(), e.getMessageReference().getKey());
+    }
+    assertEquals("Room", new EdmxProvider().parseLazily(new ByteArrayInputStream(xml.getBytes("UTF-8")), false)
+        .getEntityType(new FullQualifiedName("RefScenario", "Room")).getName());
+  }
+
+  private InputStream getMetadata() throws ODataException {
+    return (InputStream) EntityProvider.writeMetadata(new EdmTestProvider().getSchemas(), null).getEntity();
+  }
+
   private Edm createEdm() throws EntityProviderException, ODataException {
     EdmProvider testProvider = new EdmTestProvider();
     ODataResponse response = EntityProvider.writeMetadata(testProvider.getSchemas(), null);
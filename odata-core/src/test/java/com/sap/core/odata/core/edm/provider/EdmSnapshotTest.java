@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sap.core.odata.api.edm.EdmAction;
+import com.sap.core.odata.api.edm.EdmConcurrencyMode;
+import com.sap.core.odata.api.edm.EdmContentKind;
+import com.sap.core.odata.api.edm.EdmMultiplicity;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.edm.EdmTargetPath;
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.edm.provider.AnnotationAttribute;
+import com.sap.core.odata.api.edm.provider.AnnotationElement;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationEnd;
+import com.sap.core.odata.api.edm.provider.AssociationSet;
+import com.sap.core.odata.api.edm.provider.AssociationSetEnd;
+import com.sap.core.odata.api.edm.provider.ComplexProperty;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.CustomizableFeedMappings;
+import com.sap.core.odata.api.edm.provider.Documentation;
+import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.edm.provider.EdmProviderFactory;
+import com.sap.core.odata.api.edm.provider.EntityContainer;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.edm.provider.Facets;
+import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.FunctionImportParameter;
+import com.sap.core.odata.api.edm.provider.Key;
+import com.sap.core.odata.api.edm.provider.Mapping;
+import com.sap.core.odata.api.edm.provider.NavigationProperty;
+import com.sap.core.odata.api.edm.provider.OnDelete;
+import com.sap.core.odata.api.edm.provider.Property;
+import com.sap.core.odata.api.edm.provider.PropertyRef;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraint;
+import com.sap.core.odata.api.edm.provider.ReferentialConstraintRole;
+import com.sap.core.odata.api.edm.provider.ReturnType;
+import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.edm.provider.SimpleProperty;
+import com.sap.core.odata.api.edm.provider.Using;
+import com.sap.core.odata.api.ep.EntityProvider;
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.testutil.helper.StringHelper;
+import com.sap.core.odata.testutil.mock.EdmTestProvider;
+
+/**
+ * @author SAP AG
+ */
+public class EdmSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void roundTrip() throws Exception {
+    final List<Schema> schemas = new EdmTestProvider().getSchemas();
+    final EdmProvider provider = new EdmSnapshotProvider(ByteBuffer.wrap(write(schemas)));
+    assertEquals(getMetadata(schemas), getMetadata(provider.getSchemas()));
+  }
+
+  @Test
+  public void roundTripAllElements() throws Exception {
+    final List<Schema> schemas = Arrays.asList(createSchema());
+    final EdmProvider provider = new EdmSnapshotProvider(ByteBuffer.wrap(write(schemas)));
+    assertEquals(getMetadata(schemas), getMetadata(provider.getSchemas()));
+
+    final Property property = provider.getEntityType(new FullQualifiedName("Snapshot", "Entity")).getProperties().get(0);
+    assertEquals("internal", property.getMapping().getInternalName());
+    assertEquals(EdmConcurrencyMode.Fixed, property.getFacets().getConcurrencyMode());
+    assertEquals(Integer.valueOf(12), property.getFacets().getMaxLength());
+    assertNull(property.getFacets().isFixedLength());
+    assertEquals(Boolean.FALSE, property.getFacets().isNullable());
+    assertEquals(Boolean.FALSE, property.getCustomizableFeedMappings().isFcKeepInContent());
+  }
+
+  @Test
+  public void lookups() throws Exception {
+    final EdmTestProvider testProvider = new EdmTestProvider();
+    final EdmProvider provider = new EdmSnapshotProvider(ByteBuffer.wrap(write(testProvider.getSchemas())));
+
+    final FullQualifiedName employee = new FullQualifiedName("RefScenario", "Employee");
+    assertEquals(testProvider.getEntityType(employee).getProperties().size(), provider.getEntityType(employee).getProperties().size());
+    assertSame(provider.getEntityType(employee), provider.getEntityType(employee));
+    final FullQualifiedName location = new FullQualifiedName("RefScenario", "c_Location");
+    assertEquals(location, ((ComplexProperty) provider.getEntityType(employee).getProperties().get(5)).getType());
+    assertEquals(testProvider.getComplexType(location).getProperties().size(), provider.getComplexType(location).getProperties().size());
+    final FullQualifiedName association = new FullQualifiedName("RefScenario", "ManagerEmployees");
+    assertEquals(testProvider.getAssociation(association).getEnd1().getRole(), provider.getAssociation(association).getEnd1().getRole());
+
+    assertEquals("Container1", provider.getEntityContainerInfo(null).getName());
+    assertFalse(provider.getEntityContainerInfo("Container2").isDefaultEntityContainer());
+    assertEquals(employee, provider.getEntitySet("Container1", "Employees").getEntityType());
+    assertSame(provider.getEntitySet("Container1", "Employees"), provider.getEntitySet(null, "Employees"));
+    assertEquals(employee, provider.getFunctionImport("Container1", "EmployeeSearch").getReturnType().getTypeName());
+    assertSame(provider.getAssociationSet("Container1", association, "Managers", "r_Manager"),
+        provider.getAssociationSet("Container1", association, "Employees", "r_Employees"));
+
+    assertNull(provider.getEntityType(new FullQualifiedName("RefScenario", "Unknown")));
+    assertNull(provider.getEntityContainerInfo("Unknown"));
+    assertNull(provider.getEntitySet("Container1", "Unknown"));
+    assertNull(provider.getFunctionImport("Container1", "Unknown"));
+    assertNull(provider.getAssociationSet("Container1", association, "Managers", "r_Employees"));
+
+    final List<Schema> schemas = provider.getSchemas();
+    assertSame(schemas, provider.getSchemas());
+    assertSame(provider.getEntityType(employee), schemas.get(0).getEntityTypes().get(0));
+  }
+
+  @Test
+  public void memoryMappedFile() throws Exception {
+    final List<Schema> schemas = new EdmTestProvider().getSchemas();
+    final File file = folder.newFile("metadata.edms");
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      EdmProviderFactory.writeSnapshot(schemas, out);
+    } finally {
+      out.close();
+    }
+    final EdmProvider provider = EdmProviderFactory.getEdmProvider(file);
+    assertEquals(getMetadata(schemas), getMetadata(provider.getSchemas()));
+  }
+
+  @Test
+  public void invalidSnapshot() throws Exception {
+    try {
+      new EdmSnapshotProvider(ByteBuffer.wrap("<edmx:Edmx Version=\"1.0\"/>".getBytes("UTF-8")));
+      fail("Expected EntityProviderException");
+    } catch (final EntityProviderException e) {
+      assertEquals(EntityProviderException.ILLEGAL_ARGUMENT.getKey(), e.getMessageReference().getKey());
+    }
+    try {
+      new EdmSnapshotProvider(ByteBuffer.wrap(new byte[] { 0x45, 0x44 }));
+      fail("Expected EntityProviderException");
+    } catch (final EntityProviderException e) {
+      assertEquals(EntityProviderException.ILLEGAL_ARGUMENT.getKey(), e.getMessageReference().getKey());
+    }
+  }
+
+  private static byte[] write(final List<Schema> schemas) throws EntityProviderException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EdmSnapshotWriter.write(schemas, out);
+    return out.toByteArray();
+  }
+
+  private static String getMetadata(final List<Schema> schemas) throws Exception {
+    return StringHelper.inputStreamToString((InputStream) EntityProvider.writeMetadata(schemas, null).getEntity());
+  }
+
+  private static Schema createSchema() {
+    final List<AnnotationAttribute> attributes = Arrays.asList(
+        new AnnotationAttribute().setName("attribute").setText("value").setPrefix("p").setNamespace("http://example.org/annotation"));
+    final List<AnnotationElement> elements = Arrays.asList(
+        new AnnotationElement().setName("element").setText("text").setPrefix("p").setNamespace("http://example.org/annotation")
+            .setAttributes(attributes)
+            .setChildElements(Arrays.asList(new AnnotationElement().setName("child").setNamespace("http://example.org/annotation"))));
+    final Documentation documentation = new Documentation().setSummary("Summary").setLongDescription("Long \u00fcmlaut description");
+
+    final Property id = new SimpleProperty().setType(EdmSimpleTypeKind.String).setName("Id")
+        .setFacets(new Facets().setNullable(false).setMaxLength(12).setConcurrencyMode(EdmConcurrencyMode.Fixed)
+            .setDefaultValue("none").setUnicode(true).setCollation("binary"))
+        .setCustomizableFeedMappings(new CustomizableFeedMappings().setFcKeepInContent(false)
+            .setFcContentKind(EdmContentKind.text).setFcTargetPath(EdmTargetPath.SYNDICATION_TITLE))
+        .setMimeType("text/plain")
+        .setMapping(new Mapping().setInternalName("internal"))
+        .setDocumentation(documentation)
+        .setAnnotationAttributes(attributes);
+    final Property amount = new SimpleProperty().setType(EdmSimpleTypeKind.Decimal).setName("Amount")
+        .setFacets(new Facets().setPrecision(10).setScale(2).setFixedLength(true));
+    final Property address = new ComplexProperty().setType(new FullQualifiedName("Snapshot", "Address")).setName("Address")
+        .setAnnotationElements(elements);
+
+    final EntityType entity = new EntityType().setName("Entity").setHasStream(true)
+        .setProperties(Arrays.asList(id, amount, address))
+        .setKey(new Key().setKeys(Arrays.asList(new PropertyRef().setName("Id").setAnnotationAttributes(attributes))))
+        .setNavigationProperties(Arrays.asList(new NavigationProperty().setName("Parts")
+            .setRelationship(new FullQualifiedName("Snapshot", "EntityParts")).setFromRole("r_Entity").setToRole("r_Parts")
+            .setDocumentation(documentation)))
+        .setCustomizableFeedMappings(new CustomizableFeedMappings().setFcNsPrefix("c").setFcNsUri("http://example.org/custom")
+            .setFcSourcePath("Id").setFcTargetPath("custom"))
+        .setDocumentation(documentation)
+        .setAnnotationAttributes(attributes);
+    final EntityType part = new EntityType().setName("Part").setBaseType(new FullQualifiedName("Snapshot", "Entity"))
+        .setAbstract(true).setProperties(Arrays.asList((Property) new SimpleProperty().setType(EdmSimpleTypeKind.Int32).setName("Number")));
+    final ComplexType addressType = new ComplexType().setName("Address")
+        .setProperties(Arrays.asList((Property) new SimpleProperty().setType(EdmSimpleTypeKind.String).setName("City")))
+        .setAnnotationElements(elements);
+
+    final Association entityParts = new Association().setName("EntityParts")
+        .setEnd1(new AssociationEnd().setType(new FullQualifiedName("Snapshot", "Entity")).setRole("r_Entity")
+            .setMultiplicity(EdmMultiplicity.ONE).setOnDelete(new OnDelete().setAction(EdmAction.Cascade).setDocumentation(documentation)))
+        .setEnd2(new AssociationEnd().setType(new FullQualifiedName("Snapshot", "Part")).setRole("r_Parts")
+            .setMultiplicity(EdmMultiplicity.MANY))
+        .setReferentialConstraint(new ReferentialConstraint()
+            .setPrincipal(new ReferentialConstraintRole().setRole("r_Entity").setPropertyRefs(Arrays.asList(new PropertyRef().setName("Id"))))
+            .setDependent(new ReferentialConstraintRole().setRole("r_Parts").setPropertyRefs(Arrays.asList(new PropertyRef().setName("Id"))))
+            .setDocumentation(documentation))
+        .setAnnotationAttributes(attributes);
+
+    EntityContainer container = new EntityContainer();
+    container.setName("Container").setDefaultEntityContainer(true).setDocumentation(documentation);
+    container.setEntitySets(Arrays.asList(
+        new EntitySet().setName("Entities").setEntityType(new FullQualifiedName("Snapshot", "Entity")).setAnnotationElements(elements),
+        new EntitySet().setName("Parts").setEntityType(new FullQualifiedName("Snapshot", "Part"))));
+    container.setAssociationSets(Arrays.asList(new AssociationSet().setName("EntitiesParts")
+        .setAssociation(new FullQualifiedName("Snapshot", "EntityParts"))
+        .setEnd1(new AssociationSetEnd().setRole("r_Entity").setEntitySet("Entities").setDocumentation(documentation))
+        .setEnd2(new AssociationSetEnd().setRole("r_Parts").setEntitySet("Parts"))));
+    container.setFunctionImports(Arrays.asList(new FunctionImport().setName("Find").setHttpMethod("GET").setEntitySet("Entities")
+        .setReturnType(new ReturnType().setTypeName(new FullQualifiedName("Snapshot", "Entity")).setMultiplicity(EdmMultiplicity.MANY))
+        .setParameters(Arrays.asList(new FunctionImportParameter().setName("q").setType(EdmSimpleTypeKind.String).setMode("In")
+            .setFacets(new Facets().setNullable(true).setMaxLength(20)).setDocumentation(documentation)))
+        .setDocumentation(documentation)));
+
+    return new Schema().setNamespace("Snapshot").setAlias("S")
+        .setUsings(Arrays.asList(new Using().setNamespace("Other").setAlias("O").setDocumentation(documentation)))
+        .setEntityTypes(Arrays.asList(entity, part))
+        .setComplexTypes(Arrays.asList(addressType))
+        .setAssociations(Arrays.asList(entityParts))
+        .setEntityContainers(Arrays.asList(container))
+        .setAnnotationAttributes(attributes)
+        .setAnnotationElements(elements);
+  }
+}
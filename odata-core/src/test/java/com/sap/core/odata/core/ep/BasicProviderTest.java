@@ -18,18 +18,23 @@ package com.sap.core.odata.core.ep;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.custommonkey.xmlunit.SimpleNamespaceContext;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Test;
 
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmTyped;
@@ -197,4 +202,22 @@ public class BasicProviderTest extends AbstractProviderTest {
     final byte[] bytes = new byte[] { 1, 2, 3, 4, -128 };
     assertTrue(Arrays.equals(bytes, provider.readBinary(new ByteArrayInputStream(bytes))));
   }
+
+  @Test
+  public void readBinaryIntoStream() throws Exception {
+    final byte[] bytes = new byte[100000];
+    new Random().nextBytes(bytes);
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    assertEquals(bytes.length, provider.readBinary(new ByteArrayInputStream(bytes), target));
+    assertTrue(Arrays.equals(bytes, target.toByteArray()));
+  }
+
+  @Test
+  public void writeBinaryStream() throws Exception {
+    final InputStream content = new ByteArrayInputStream(new byte[] { 49, 50, 51 });
+    final ODataResponse response = provider.writeBinaryStream(HttpContentType.APPLICATION_OCTET_STREAM, content);
+    assertSame(content, response.getEntity());
+    assertEquals(HttpContentType.APPLICATION_OCTET_STREAM, response.getContentHeader());
+    assertEquals(HttpStatusCodes.NO_CONTENT, provider.writeBinaryStream(HttpContentType.APPLICATION_OCTET_STREAM, null).getStatus());
+  }
 }
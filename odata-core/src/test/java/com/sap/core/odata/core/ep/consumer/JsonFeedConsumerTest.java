@@ -16,8 +16,10 @@
 package com.sap.core.odata.core.ep.consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.util.List;
@@ -31,6 +33,7 @@ import com.sap.core.odata.api.ep.entry.MediaMetadata;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 /**
@@ -83,6 +86,49 @@ public class JsonFeedConsumerTest extends AbstractConsumerTest {
     assertNull(feedMetadata.getNextLink());
   }
 
+  @Test
+  public void teamsFeedWithReader() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    for (final String fileName : new String[] { "JsonTeams", "JsonTeamsWithoutD", "JsonTeamsWithCount", "JsonTeamsWithCountWithoutD" }) {
+      final ODataFeed feed = prepareAndExecuteFeed(fileName, "Teams", DEFAULT_PROPERTIES);
+      ODataFeedReader feedReader = new JsonEntityConsumer().createFeedReader(entitySet, createContentAsStream(readFile(fileName)), DEFAULT_PROPERTIES);
+      try {
+        for (final ODataEntry expected : feed.getEntries()) {
+          assertTrue(feedReader.hasNext());
+          assertEquals(expected.getProperties(), feedReader.next().getProperties());
+        }
+        assertFalse(feedReader.hasNext());
+        assertEquals(feed.getFeedMetadata().getInlineCount(), feedReader.getFeedMetadata().getInlineCount());
+      } finally {
+        feedReader.close();
+      }
+    }
+  }
+
+  @Test
+  public void feedReaderWithMetadataAfterResults() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    ODataFeedReader feedReader = new JsonEntityConsumer().createFeedReader(entitySet,
+        createContentAsStream("{\"d\":{\"results\":[],\"__next\":\"http://next\",\"__count\":\"12\"}}"), DEFAULT_PROPERTIES);
+    assertNull(feedReader.getFeedMetadata().getNextLink());
+    assertFalse(feedReader.hasNext());
+    assertEquals("http://next", feedReader.getFeedMetadata().getNextLink());
+    assertEquals(Integer.valueOf(12), feedReader.getFeedMetadata().getInlineCount());
+    feedReader.close();
+  }
+
+  @Test(expected = EntityProviderException.class)
+  public void feedReaderWithoutResults() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    ODataFeedReader feedReader = new JsonEntityConsumer().createFeedReader(entitySet,
+        createContentAsStream("{\"d\":{\"__count\":\"1\"}}"), DEFAULT_PROPERTIES);
+    try {
+      feedReader.hasNext();
+    } finally {
+      feedReader.close();
+    }
+  }
+
   @Test
   public void teamsFeedWithoutD() throws Exception {
     ODataFeed feed = prepareAndExecuteFeed("JsonTeamsWithoutD", "Teams", DEFAULT_PROPERTIES);
@@ -16,9 +16,13 @@
 package com.sap.core.odata.core.ep.consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
+import java.util.NoSuchElementException;
 
 import junit.framework.Assert;
 
@@ -27,8 +31,10 @@ import org.junit.Test;
 import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 public class XmlFeedConsumerTest extends AbstractConsumerTest {
@@ -109,4 +115,82 @@ public class XmlFeedConsumerTest extends AbstractConsumerTest {
 
     Assert.fail("Exception expected");
   }
+
+  @Test
+  public void readEmployeesFeedWithReader() throws Exception {
+    final String content = readFile("feed_employees_full.xml");
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    EntityProviderReadProperties consumerProperties = EntityProviderReadProperties.init().mergeSemantic(false).build();
+    final ODataFeed feed = new XmlEntityConsumer().readFeed(entitySet, createContentAsStream(content), consumerProperties);
+
+    ODataFeedReader feedReader = new XmlEntityConsumer().createFeedReader(entitySet, createContentAsStream(content), consumerProperties);
+    try {
+      for (final ODataEntry expected : feed.getEntries()) {
+        assertTrue(feedReader.hasNext());
+        assertTrue(feedReader.hasNext());
+        final ODataEntry entry = feedReader.next();
+        assertEquals(expected.getProperties().get("EmployeeId"), entry.getProperties().get("EmployeeId"));
+        assertEquals(expected.getProperties().get("EmployeeName"), entry.getProperties().get("EmployeeName"));
+      }
+      assertFalse(feedReader.hasNext());
+      assertEquals(Integer.valueOf(6), feedReader.getFeedMetadata().getInlineCount());
+      assertEquals("http://thisisanextlink", feedReader.getFeedMetadata().getNextLink());
+    } finally {
+      feedReader.close();
+    }
+  }
+
+  @Test
+  public void feedReaderWithLinksAfterLastEntry() throws Exception {
+    final String content = readFile("feed_employees_full.xml")
+        .replace("<link href=\"http://thisisanextlink\" rel=\"next\"/>", "")
+        .replace("</feed>", "<link href=\"http://thisisanextlink\" rel=\"next\"/>"
+            + "<link href=\"http://thisisadeltalink\" rel=\"delta\"/></feed>");
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    ODataFeedReader feedReader = new XmlEntityConsumer().createFeedReader(entitySet, createContentAsStream(content),
+        EntityProviderReadProperties.init().mergeSemantic(false).build());
+    try {
+      int count = 0;
+      while (feedReader.hasNext()) {
+        assertNull(feedReader.getFeedMetadata().getNextLink());
+        assertNotNull(feedReader.next());
+        count++;
+      }
+      assertEquals(6, count);
+      assertEquals("http://thisisanextlink", feedReader.getFeedMetadata().getNextLink());
+      assertEquals("http://thisisadeltalink", feedReader.getFeedMetadata().getDeltaLink());
+    } finally {
+      feedReader.close();
+    }
+  }
+
+  @Test
+  public void feedReaderClosedEarly() throws Exception {
+    final String content = readFile("feed_employees_full.xml")
+        .replace("<link href=\"http://thisisanextlink\" rel=\"next\"/>", "")
+        .replace("</feed>", "<link href=\"http://thisisanextlink\" rel=\"next\"/></feed>");
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    ODataFeedReader feedReader = new XmlEntityConsumer().createFeedReader(entitySet, createContentAsStream(content),
+        EntityProviderReadProperties.init().mergeSemantic(false).build());
+    assertTrue(feedReader.hasNext());
+    assertEquals("1", feedReader.next().getProperties().get("EmployeeId"));
+    feedReader.close();
+    // The rest of the feed has not been read.
+    assertNull(feedReader.getFeedMetadata().getNextLink());
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void feedReaderAfterLastEntry() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    ODataFeedReader feedReader = new XmlEntityConsumer().createFeedReader(entitySet,
+        createContentAsStream(readFile("feed_employees_full.xml")), EntityProviderReadProperties.init().mergeSemantic(false).build());
+    try {
+      while (feedReader.hasNext()) {
+        feedReader.next();
+      }
+      feedReader.next();
+    } finally {
+      feedReader.close();
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class EntryPropertiesTest extends BaseTest {
+
+  private static final EntryPropertyIndex INDEX = new EntryPropertyIndex(
+      Arrays.asList("Id", "Name", "Age"), Arrays.asList("ne_Team"));
+
+  @Test
+  public void index() {
+    assertEquals(4, INDEX.size());
+    assertEquals(1, INDEX.indexOf("Name"));
+    assertEquals(3, INDEX.indexOf("ne_Team"));
+    assertEquals("Age", INDEX.getName(2));
+    assertEquals(-1, INDEX.indexOf("Unknown"));
+    assertEquals(-1, INDEX.indexOf(null));
+  }
+
+  @Test
+  public void behavesLikeHashMap() {
+    Map<String, Object> properties = new EntryProperties(INDEX);
+    Map<String, Object> expected = new HashMap<String, Object>();
+    assertTrue(properties.isEmpty());
+
+    for (final Map<String, Object> map : Arrays.asList(properties, expected)) {
+      assertNull(map.put("Age", 42));
+      assertNull(map.put("Id", "1"));
+      assertNull(map.put("Name", null));
+      assertNull(map.put("Extra", "x"));
+      assertEquals(42, map.put("Age", 43));
+    }
+    assertEquals(expected, properties);
+    assertEquals(properties, expected);
+    assertEquals(expected.hashCode(), properties.hashCode());
+    assertEquals(4, properties.size());
+    assertTrue(properties.containsKey("Name"));
+    assertNull(properties.get("Name"));
+    assertFalse(properties.containsKey("ne_Team"));
+    assertFalse(properties.containsKey("Unknown"));
+    assertTrue(properties.containsValue("x"));
+
+    assertNull(properties.remove("Name"));
+    assertFalse(properties.containsKey("Name"));
+    assertEquals("x", properties.remove("Extra"));
+    assertEquals(2, properties.size());
+
+    properties.clear();
+    assertTrue(properties.isEmpty());
+    assertNull(properties.get("Id"));
+  }
+
+  @Test
+  public void iterationInTypeOrder() {
+    Map<String, Object> properties = new EntryProperties(INDEX);
+    properties.put("Extra", "x");
+    properties.put("ne_Team", "t");
+    properties.put("Age", 1);
+    properties.put("Id", "1");
+
+    Iterator<String> iterator = properties.keySet().iterator();
+    assertEquals("Id", iterator.next());
+    assertEquals("Age", iterator.next());
+    assertEquals("ne_Team", iterator.next());
+    iterator.remove();
+    assertEquals("Extra", iterator.next());
+    iterator.remove();
+    assertFalse(iterator.hasNext());
+    assertEquals(2, properties.size());
+    assertFalse(properties.containsKey("ne_Team"));
+
+    for (Map.Entry<String, Object> entry : properties.entrySet()) {
+      entry.setValue(entry.getKey());
+    }
+    assertEquals("Age", properties.get("Age"));
+  }
+
+  @Test
+  public void setValueAfterRemove() {
+    Map<String, Object> properties = new EntryProperties(INDEX);
+    properties.put("Id", "1");
+    properties.put("Name", "Walter");
+    Iterator<Map.Entry<String, Object>> iterator = properties.entrySet().iterator();
+    final Map.Entry<String, Object> entry = iterator.next();
+    assertEquals("Id", entry.getKey());
+    iterator.remove();
+    assertEquals(1, properties.size());
+
+    assertNull(entry.setValue("2"));
+    assertEquals(2, properties.size());
+    assertFalse(properties.isEmpty());
+    int count = 0;
+    for (final Map.Entry<String, Object> property : properties.entrySet()) {
+      assertTrue(property.getValue() != null);
+      count++;
+    }
+    assertEquals(properties.size(), count);
+    assertEquals("2", properties.get("Id"));
+  }
+}
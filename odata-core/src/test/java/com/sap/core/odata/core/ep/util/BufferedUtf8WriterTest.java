@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class BufferedUtf8WriterTest extends BaseTest {
+
+  private static final String TEXT = "abc \u007F \u0080 ä ߿ ࠀ € ﷼ "
+      + String.valueOf(Character.toChars(0x1F603)) + " xyz";
+
+  @Test
+  public void encodeLikeStandardEncoder() throws Exception {
+    for (int bufferSize = 4; bufferSize < 12; bufferSize++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Writer writer = new BufferedUtf8Writer(out, bufferSize);
+      writer.write(TEXT);
+      writer.write(TEXT.toCharArray(), 2, TEXT.length() - 2);
+      for (int i = 0; i < TEXT.length(); i++) {
+        writer.write(TEXT.charAt(i));
+      }
+      writer.append(TEXT, 1, 5).append('!');
+      writer.flush();
+      assertArrayEquals((TEXT + TEXT.substring(2) + TEXT + TEXT.substring(1, 5) + "!").getBytes("UTF-8"),
+          out.toByteArray());
+    }
+  }
+
+  @Test
+  public void unpairedSurrogates() throws Exception {
+    final String text = "a\uD83Db\uDE03c\uD83D";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new BufferedUtf8Writer(out);
+    writer.write(text);
+    writer.close();
+    assertEquals("a?b?c?", new String(out.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void surrogatePairAcrossCalls() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new BufferedUtf8Writer(out);
+    writer.write('\uD83D');
+    writer.flush();
+    writer.write("\uDE03");
+    writer.flush();
+    assertArrayEquals("😃".getBytes("UTF-8"), out.toByteArray());
+  }
+
+  @Test
+  public void flushOnlyWhenFull() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new BufferedUtf8Writer(out, 8);
+    writer.write("1234567");
+    assertEquals(0, out.size());
+    writer.write("89");
+    assertEquals(8, out.size());
+    writer.flush();
+    assertEquals(9, out.size());
+  }
+}
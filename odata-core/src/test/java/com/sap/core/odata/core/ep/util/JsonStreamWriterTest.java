@@ -78,4 +78,29 @@ public class JsonStreamWriterTest extends BaseTest {
         + "\"escaped\":\"\\\"\\\\\"}",
         writer.toString());
   }
+
+  @Test
+  public void preparedName() throws Exception {
+    final String name = JsonStreamWriter.prepareName("a\"b");
+    assertEquals("\"a\\\"b\":", name);
+    StringWriter writer = new StringWriter();
+    new JsonStreamWriter(writer).beginObject()
+        .preparedName(name).stringValue("value")
+        .endObject();
+    writer.flush();
+    assertEquals("{\"a\\\"b\":\"value\"}", writer.toString());
+  }
+
+  @Test
+  public void numbers() throws Exception {
+    StringWriter writer = new StringWriter();
+    new JsonStreamWriter(writer).beginArray()
+        .unquotedValue(0).separator()
+        .unquotedValue(-42).separator()
+        .unquotedValue(Long.MIN_VALUE).separator()
+        .stringValueRaw(Long.MAX_VALUE)
+        .endArray();
+    writer.flush();
+    assertEquals("[0,-42," + Long.MIN_VALUE + ",\"" + Long.MAX_VALUE + "\"]", writer.toString());
+  }
 }
@@ -16,8 +16,15 @@
 package com.sap.core.odata.core.exception;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -107,4 +114,49 @@ public class MessageServiceTest extends BaseTest {
     assertEquals("First was [first] and second was [second]!", ms.getText());
   }
 
+  @Test
+  public void testMissingKey() throws Exception {
+    MessageReference context = MessageReference.create(ODataMessageException.class, "UNKNOWN");
+    Message ms = MessageService.getMessage(DEFAULT_LANGUAGE, context);
+
+    assertEquals("Missing message for key '" + context.getKey() + "'!", ms.getText());
+    assertEquals(Locale.ENGLISH, ms.getLocale());
+  }
+
+  @Test
+  public void testNoReplacements() throws Exception {
+    Message ms = MessageService.getMessage(DEFAULT_LANGUAGE, ODataMessageException.class.getName() + ".TWO_REPLACEMENTS");
+
+    assertEquals("Missing replacement for place holder in value 'First was [%1$s] and second was [%2$s]!' for following arguments '[]'!", ms.getText());
+  }
+
+  @Test
+  public void testInstanceIsCached() throws Exception {
+    assertSame(MessageService.getInstance(DEFAULT_LANGUAGE), MessageService.getInstance(DEFAULT_LANGUAGE));
+    assertSame(MessageService.getInstance((Locale) null), MessageService.getInstance((Locale) null));
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < 100; i++) {
+        final String replacement = "r" + i;
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            MessageReference context = MessageReference.create(ODataMessageException.class, "TWO_REPLACEMENTS")
+                .addContent(replacement, replacement);
+            return MessageService.getMessage(new Locale("test", "SAP"), context).getText();
+          }
+        }));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals("First was [r" + i + "] and second was [r" + i + "]!", results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
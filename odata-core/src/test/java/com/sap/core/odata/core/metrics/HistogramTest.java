@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class HistogramTest extends BaseTest {
+
+  @Test
+  public void empty() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getPercentile(99));
+  }
+
+  @Test
+  public void record() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000);
+    }
+    histogram.record(-5);
+    assertEquals(101, histogram.getCount());
+    assertEquals(5050000, histogram.getSum());
+    assertEquals(100000, histogram.getMax());
+    assertEquals(5050000 / 101, histogram.getMean());
+
+    // percentiles are upper bounds, at most twice the exact value
+    final long median = histogram.getPercentile(50);
+    assertTrue(median >= 50000 && median < 100000);
+    assertEquals(100000, histogram.getPercentile(100));
+    assertTrue(histogram.getPercentile(0) <= 1);
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  public void largeValues() {
+    Histogram histogram = new Histogram();
+    histogram.record(Long.MAX_VALUE);
+    histogram.record(1);
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+    assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    assertEquals(1, histogram.getPercentile(50));
+  }
+
+  @Test
+  public void concurrentRecording() throws Exception {
+    final Histogram histogram = new Histogram();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+          }
+        }
+      });
+    }
+    for (final Thread thread : threads) {
+      thread.start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(40000, histogram.getCount());
+    assertEquals(4L * 10000 * 10001 / 2, histogram.getSum());
+    assertEquals(10000, histogram.getMax());
+  }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class MetricsRegistryTest extends BaseTest {
+
+  @Test
+  public void recordMeasurement() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.recordMeasurement("Dispatcher", "dispatch", "URI1", "Employees", 1000);
+    registry.recordMeasurement("Dispatcher", "dispatch", "URI1", "Employees", 3000);
+    registry.recordMeasurement("Dispatcher", "dispatch", "URI2", "Employees", 2000);
+    registry.recordMeasurement("UriParserImpl", "parse", null, null, 500);
+
+    assertEquals(3, registry.getHistograms().size());
+    final Histogram histogram = registry.getHistogram(new MetricKey("Dispatcher", "dispatch", "URI1", "Employees"));
+    assertEquals(2, histogram.getCount());
+    assertEquals(2000, histogram.getMean());
+    assertEquals(1, registry.getHistogram(new MetricKey("UriParserImpl", "parse", null, null)).getCount());
+
+    registry.reset();
+    assertTrue(registry.getHistograms().isEmpty());
+  }
+
+  @Test
+  public void metricKey() {
+    final MetricKey key = new MetricKey("Class", "method", "URI1", null);
+    assertEquals(key, new MetricKey("Class", "method", "URI1", null));
+    assertEquals(key.hashCode(), new MetricKey("Class", "method", "URI1", null).hashCode());
+    assertFalse(key.equals(new MetricKey("Class", "method", "URI1", "Employees")));
+    assertFalse(key.equals(new MetricKey("Class", "method", null, null)));
+    assertEquals("Class.method URI1", key.toString());
+  }
+
+  @Test
+  public void jmx() throws Exception {
+    final MetricsRegistry registry = new MetricsRegistry();
+    final ObjectName name = MetricsJmxReporter.register(registry, "/jmx");
+    assertEquals(MetricsJmxReporter.getObjectName("/jmx"), name);
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(MetricsJmxReporter.getObjectName("/other")));
+
+    registry.recordMeasurement("MetricsRegistryTest", "jmx", "URI0", null, 42000);
+    final String[] metrics = (String[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Metrics");
+    assertNotNull(metrics);
+    boolean found = false;
+    for (final String line : metrics) {
+      found |= line.startsWith("MetricsRegistryTest.jmx uriType=URI0 entitySet=null count=1 ");
+    }
+    assertTrue(found);
+
+    MetricsJmxReporter.unregister(name);
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    MetricsJmxReporter.unregister(name);
+  }
+
+  @Test
+  public void defaultRegistry() {
+    assertSame(MetricsRegistry.getDefault(), MetricsRegistry.getDefault());
+  }
+}
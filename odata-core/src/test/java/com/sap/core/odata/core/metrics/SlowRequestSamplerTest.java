@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sap.core.odata.core.ep.util.JsonStreamWriter;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * @author SAP AG
+ */
+public class SlowRequestSamplerTest extends BaseTest {
+
+  private static final long WINDOW_LENGTH = 1000;
+
+  private static SlowRequestSample createSample(final long timestamp, final long duration) {
+    return new SlowRequestSample(timestamp, "GET", "http://localhost/Employees", "URI1", "Employees",
+        duration, 200, -1, null, Collections.<SlowRequestSample.Phase> emptyList());
+  }
+
+  @Test
+  public void keepsSlowestRequestsPerWindow() {
+    SlowRequestSampler sampler = new SlowRequestSampler(3, 2, WINDOW_LENGTH);
+    assertTrue(sampler.isCandidate(0));
+    for (final long duration : new long[] { 50, 10, 40, 30, 20, 60 }) {
+      sampler.add(createSample(10000 + duration, duration));
+    }
+    List<List<SlowRequestSample>> samples = sampler.getSamples();
+    assertEquals(1, samples.size());
+    assertEquals(3, samples.get(0).size());
+    assertEquals(60, samples.get(0).get(0).getDurationNanos());
+    assertEquals(50, samples.get(0).get(1).getDurationNanos());
+    assertEquals(40, samples.get(0).get(2).getDurationNanos());
+    assertFalse(sampler.add(createSample(10500, 40)));
+  }
+
+  @Test
+  public void candidatesWhileWindowNotFull() {
+    SlowRequestSampler sampler = new SlowRequestSampler(2, 2, 24L * 60 * 60 * 1000);
+    final long now = System.currentTimeMillis();
+    assertTrue(sampler.add(createSample(now, 10)));
+    // one place is left and is offered to one request only
+    assertTrue(sampler.isCandidate(5));
+    assertFalse(sampler.isCandidate(5));
+    assertTrue(sampler.add(createSample(now, 5)));
+    // the window is full now; only slower requests are candidates
+    assertFalse(sampler.isCandidate(5));
+    assertTrue(sampler.isCandidate(6));
+  }
+
+  @Test
+  public void instancePerServiceFactoryClass() {
+    assertSame(SlowRequestSampler.getInstance(String.class), SlowRequestSampler.getInstance(String.class));
+    assertNotSame(SlowRequestSampler.getInstance(String.class), SlowRequestSampler.getInstance(Integer.class));
+  }
+
+  @Test
+  public void ringOfWindows() {
+    SlowRequestSampler sampler = new SlowRequestSampler(2, 2, WINDOW_LENGTH);
+    sampler.add(createSample(10000, 1));
+    sampler.add(createSample(11000, 2));
+    sampler.add(createSample(12000, 3));
+    sampler.add(createSample(12100, 4));
+    // a request finished in an already passed window is ignored
+    assertFalse(sampler.add(createSample(11999, 100)));
+
+    List<List<SlowRequestSample>> samples = sampler.getSamples();
+    assertEquals(2, samples.size());
+    assertEquals(Arrays.asList(4L, 3L), Arrays.asList(samples.get(0).get(0).getDurationNanos(), samples.get(0).get(1).getDurationNanos()));
+    assertEquals(2, samples.get(1).get(0).getDurationNanos());
+
+    sampler.clear();
+    assertTrue(sampler.getSamples().isEmpty());
+  }
+
+  @Test
+  public void json() throws Exception {
+    SlowRequestSampler sampler = new SlowRequestSampler(2, 2, WINDOW_LENGTH);
+    SlowRequestSample sample = new SlowRequestSample(10042, "GET", "http://localhost/Employees('1')", "URI2", "Employees",
+        42000, 200, -1, 1, Arrays.asList(new SlowRequestSample.Phase("UriParserImpl", "parse", 1, 3000),
+            new SlowRequestSample.Phase("Dispatcher", "dispatch", 2, 30000)));
+    sampler.add(sample);
+
+    ResponseSizeInputStream stream = new ResponseSizeInputStream(new ByteArrayInputStream("12345".getBytes("UTF-8")), sample);
+    assertEquals("12345", StringHelper.inputStreamToString(stream));
+    assertEquals(5, sample.getResponseSize());
+
+    StringWriter writer = new StringWriter();
+    sampler.appendJson(new JsonStreamWriter(writer));
+    assertEquals("{\"windowLength\":1000,\"windows\":[{\"start\":10000,\"requests\":["
+        + "{\"timestamp\":10042,\"method\":\"GET\",\"uri\":\"http://localhost/Employees('1')\","
+        + "\"uriType\":\"URI2\",\"entitySet\":\"Employees\",\"duration\":42,\"status\":200,\"responseSize\":5,\"rowCount\":1,"
+        + "\"phases\":[{\"class\":\"UriParserImpl\",\"method\":\"parse\",\"count\":1,\"duration\":3},"
+        + "{\"class\":\"Dispatcher\",\"method\":\"dispatch\",\"count\":2,\"duration\":30}]}]}]}",
+        writer.toString());
+  }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class RestUtilTest extends BaseTest {
+
+  @Test
+  public void singlevaluedMap() {
+    MultivaluedMap<String, String> multi = new MultivaluedHashMap<String, String>();
+    multi.add("$top", "2");
+    multi.add("$top", "3");
+    multi.add("$skip", "1");
+    final Map<String, String> single = RestUtil.convertToSinglevaluedMap(multi);
+
+    assertEquals(2, single.size());
+    assertEquals("2", single.get("$top"));
+    assertEquals("1", single.get("$skip"));
+    assertNull(single.get("$filter"));
+    assertFalse(single.containsKey("$filter"));
+
+    Map<String, String> expected = new HashMap<String, String>();
+    expected.put("$top", "2");
+    expected.put("$skip", "1");
+    assertEquals(expected, single);
+
+    // a view, not a copy
+    multi.add("$filter", "true");
+    assertTrue(single.containsKey("$filter"));
+    assertEquals("true", single.get("$filter"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void singlevaluedMapIsReadOnly() {
+    RestUtil.convertToSinglevaluedMap(new MultivaluedHashMap<String, String>()).put("$top", "1");
+  }
+}
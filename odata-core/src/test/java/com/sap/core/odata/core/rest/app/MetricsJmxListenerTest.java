@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest.app;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+
+import org.junit.Test;
+
+import com.sap.core.odata.core.metrics.MetricsJmxReporter;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class MetricsJmxListenerTest extends BaseTest {
+
+  @Test
+  public void registerPerContext() throws Exception {
+    final ServletContextEvent first = mockEvent("/first");
+    final ServletContextEvent second = mockEvent("/second");
+    final ObjectName firstName = MetricsJmxReporter.getObjectName("/first");
+    final ObjectName secondName = MetricsJmxReporter.getObjectName("/second");
+
+    final MetricsJmxListener firstListener = new MetricsJmxListener();
+    final MetricsJmxListener secondListener = new MetricsJmxListener();
+    firstListener.contextInitialized(first);
+    secondListener.contextInitialized(second);
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(firstName));
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(secondName));
+
+    firstListener.contextDestroyed(first);
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(firstName));
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(secondName));
+
+    secondListener.contextDestroyed(second);
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(secondName));
+  }
+
+  private ServletContextEvent mockEvent(final String contextPath) {
+    final ServletContext servletContext = mock(ServletContext.class);
+    when(servletContext.getContextPath()).thenReturn(contextPath);
+    return new ServletContextEvent(servletContext);
+  }
+}
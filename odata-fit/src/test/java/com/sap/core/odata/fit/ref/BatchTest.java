@@ -49,6 +49,14 @@ public class BatchTest extends AbstractRefTest {
     assertTrue(responseBody.contains("Frederic Fall MODIFIED"));
   }
 
+  @Test
+  public void testChangeSetRollback() throws Exception {
+    String responseBody = execute("/changesetRollback.batch");
+    assertTrue(responseBody.contains("HTTP/1.1 404 Not Found"));
+    assertTrue(responseBody.contains("Frederic Fall"));
+    assertFalse(responseBody.contains("MODIFIED"));
+  }
+
   @Test
   public void testContentIdReferencing() throws Exception {
     String responseBody = execute("/batchWithContentId.batch");
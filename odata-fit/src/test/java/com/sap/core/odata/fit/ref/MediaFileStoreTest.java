@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.fit.ref;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.http.HttpResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.processor.ODataSingleProcessor;
+import com.sap.core.odata.core.processor.ODataSingleProcessorService;
+import com.sap.core.odata.ref.edm.ScenarioEdmProvider;
+import com.sap.core.odata.ref.model.DataContainer;
+import com.sap.core.odata.ref.processor.FileMediaStore;
+import com.sap.core.odata.ref.processor.ListsProcessor;
+import com.sap.core.odata.ref.processor.ScenarioDataSource;
+
+/**
+ * Tests employing the reference scenario with media resources stored in files
+ * @author SAP AG
+ */
+public class MediaFileStoreTest extends AbstractRefTest {
+
+  private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected ODataSingleProcessorService createService() {
+    DataContainer dataContainer = new DataContainer();
+    dataContainer.reset();
+    ODataSingleProcessor processor = new ListsProcessor(
+        new ScenarioDataSource(dataContainer, new FileMediaStore(folder.getRoot())));
+    EdmProvider provider = new ScenarioEdmProvider();
+
+    return new ODataSingleProcessorService(provider, processor) {};
+  }
+
+  @Test
+  public void mediaResourceFromFile() throws Exception {
+    putUri("Employees('2')/$value", CONTENT, IMAGE_GIF, HttpStatusCodes.NO_CONTENT);
+    final File file = new File(folder.getRoot(), "Employee_2");
+    assertEquals(CONTENT.length(), file.length());
+
+    HttpResponse response = callUri("Employees('2')/$value");
+    checkMediaType(response, IMAGE_GIF);
+    assertEquals(String.valueOf(CONTENT.length()), response.getFirstHeader(HttpHeaders.CONTENT_LENGTH).getValue());
+    assertEquals(CONTENT, getBody(response));
+
+    response = callUri("Employees('2')/$value", HttpHeaders.RANGE, "bytes=10-19", HttpStatusCodes.PARTIAL_CONTENT);
+    assertEquals("bytes 10-19/" + CONTENT.length(), response.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue());
+    assertEquals(CONTENT.substring(10, 20), getBody(response));
+
+    deleteUriOk("Employees('2')/$value");
+    assertFalse(file.exists());
+  }
+
+  @Test
+  public void mediaResourceInMemory() throws Exception {
+    assertTrue(getBody(callUri("Employees('1')/$value")).length() > 0);
+    assertEquals(0, folder.getRoot().list().length);
+  }
+}
@@ -17,7 +17,13 @@ package com.sap.core.odata.fit.ref;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.zip.GZIPOutputStream;
+
 import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.junit.Test;
 
 import com.sap.core.odata.api.commons.HttpContentType;
@@ -110,4 +116,28 @@ public class MiscChangeTest extends AbstractRefTest {
     putUri("Employees('2')/Age/$value", "42a", HttpContentType.TEXT_PLAIN, HttpStatusCodes.BAD_REQUEST);
     putUri(url, "2000-13-78T42:19:18z", HttpContentType.TEXT_PLAIN, HttpStatusCodes.BAD_REQUEST);
   }
+
+  @Test
+  public void compressedRequest() throws Exception {
+    final String content = "{\"Id\":\"1\",\"Name\":\"Room 104\",\"Seats\":4,\"Version\":2}";
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+    gzip.write(content.getBytes("UTF-8"));
+    gzip.close();
+
+    HttpPost post = new HttpPost(URI.create(getEndpoint() + "Rooms"));
+    post.setHeader(HttpHeaders.CONTENT_TYPE, HttpContentType.APPLICATION_JSON);
+    post.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    post.setEntity(new ByteArrayEntity(compressed.toByteArray()));
+    HttpResponse response = getHttpClient().execute(post);
+    assertEquals(HttpStatusCodes.CREATED.getStatusCode(), response.getStatusLine().getStatusCode());
+    getBody(response);
+    assertEquals("Room 104", getBody(callUri("Rooms('104')/Name/$value")));
+
+    post.setHeader(HttpHeaders.CONTENT_ENCODING, "unknown");
+    post.setEntity(new ByteArrayEntity(content.getBytes("UTF-8")));
+    response = getHttpClient().execute(post);
+    assertEquals(HttpStatusCodes.UNSUPPORTED_MEDIA_TYPE.getStatusCode(), response.getStatusLine().getStatusCode());
+    getBody(response);
+  }
 }
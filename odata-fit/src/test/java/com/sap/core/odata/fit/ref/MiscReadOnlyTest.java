@@ -18,11 +18,23 @@ package com.sap.core.odata.fit.ref;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
 import org.junit.Test;
 
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.core.metrics.SlowRequestSampler;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
 /**
  * Read-only tests employing the reference scenario that use neither XML nor JSON
  * @author SAP AG
@@ -68,6 +80,27 @@ public class MiscReadOnlyTest extends AbstractRefTest {
     notFound("Managers('3')/nm_Employees('1')/$count");
   }
 
+  @Test
+  public void compressedResponse() throws Exception {
+    final String body = getBody(callUri("Rooms()?$format=json"));
+    HttpResponse response = callUri("Rooms()?$format=json", HttpHeaders.ACCEPT_ENCODING, "gzip");
+    assertEquals("gzip", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+    assertEquals(body, StringHelper.inputStreamToString(new GZIPInputStream(response.getEntity().getContent())));
+
+    response = callUri("Rooms()?$format=json", HttpHeaders.ACCEPT_ENCODING, "deflate");
+    assertEquals("deflate", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+    assertEquals(body, StringHelper.inputStreamToString(new InflaterInputStream(response.getEntity().getContent())));
+
+    response = callUri("Rooms()/$count", HttpHeaders.ACCEPT_ENCODING, "gzip");
+    assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("103", getBody(response));
+  }
+
+  @Test
+  public void slowRequestsNeedDebugging() throws Exception {
+    notFound(SlowRequestSampler.RESOURCE);
+  }
+
   @Test
   public void mediaResource() throws Exception {
     HttpResponse response = callUri("Employees('3')/$value");
@@ -93,4 +126,44 @@ public class MiscReadOnlyTest extends AbstractRefTest {
     notFound("Employees('99')/$value");
     badRequest("Teams('3')/$value");
   }
+
+  @Test
+  public void mediaResourceRange() throws Exception {
+    final byte[] image = EntityUtils.toByteArray(callUri("Managers('1')/$value").getEntity());
+
+    HttpResponse response = callUri("Managers('1')/$value", HttpHeaders.RANGE, "bytes=10-19", HttpStatusCodes.PARTIAL_CONTENT);
+    checkMediaType(response, IMAGE_JPEG);
+    assertEquals("bytes 10-19/" + image.length, response.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue());
+    assertTrue(Arrays.equals(Arrays.copyOfRange(image, 10, 20), EntityUtils.toByteArray(response.getEntity())));
+
+    response = callUri("Managers('1')/$value", HttpHeaders.RANGE, "bytes=-5", HttpStatusCodes.PARTIAL_CONTENT);
+    assertTrue(Arrays.equals(Arrays.copyOfRange(image, image.length - 5, image.length), EntityUtils.toByteArray(response.getEntity())));
+
+    response = callUri("Managers('1')/$value", HttpHeaders.RANGE, "bytes=" + image.length + "-", HttpStatusCodes.REQUESTED_RANGE_NOT_SATISFIABLE);
+    assertEquals("bytes */" + image.length, response.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue());
+    EntityUtils.consume(response.getEntity());
+
+    response = callUri("Managers('1')/$value");
+    assertEquals("bytes", response.getFirstHeader(HttpHeaders.ACCEPT_RANGES).getValue());
+    EntityUtils.consume(response.getEntity());
+  }
+
+  @Test
+  public void mediaResourceConditional() throws Exception {
+    final String uri = "Container2.Photos(Id=1,Type='image%2Fpng')/$value";
+    HttpResponse response = callUri(uri, HttpHeaders.IF_NONE_MATCH, "W/\"1\"", HttpStatusCodes.NOT_MODIFIED);
+    checkEtag(response, "W/\"1\"");
+    assertNull(response.getEntity());
+
+    response = callUri(uri, HttpHeaders.IF_NONE_MATCH, "W/\"2\"");
+    assertNotNull(getBody(response));
+
+    // The weak entity tag does not allow a partial response.
+    HttpGet request = new HttpGet(URI.create(getEndpoint() + uri));
+    request.addHeader(HttpHeaders.RANGE, "bytes=0-0");
+    request.addHeader(HttpHeaders.IF_RANGE, "W/\"1\"");
+    response = getHttpClient().execute(request);
+    assertEquals(HttpStatusCodes.OK.getStatusCode(), response.getStatusLine().getStatusCode());
+    assertNotNull(getBody(response));
+  }
 }
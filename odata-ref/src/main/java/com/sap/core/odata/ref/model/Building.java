@@ -15,9 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.model;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author SAP AG
@@ -26,13 +26,23 @@ public class Building {
   private final int id;
   private String name;
   private byte[] image;
-  private List<Room> rooms = new ArrayList<Room>();
+  private List<Room> rooms = new CopyOnWriteArrayList<Room>();
 
   public Building(final int id, final String name) {
     this.id = id;
     setName(name);
   }
 
+  /**
+   * Copies the own values of the given building; relations are not copied.
+   * @param building the building to copy
+   */
+  Building(final Building building) {
+    id = building.id;
+    name = building.name;
+    image = building.image;
+  }
+
   public String getId() {
     return Integer.toString(id);
   }
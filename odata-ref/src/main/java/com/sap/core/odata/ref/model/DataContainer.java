@@ -15,32 +15,81 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.model;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Calendar;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Container and initialization code for the data objects of the reference scenario.
+ * <p>The data objects are held in a committed version that is replaced as a
+ * whole by {@link #reset()} and by committing a {@link #beginTransaction() transaction},
+ * so that readers see either the old or the new state without any locking.
+ * Changes made directly to the committed data are enclosed in
+ * {@link #beginWrite()} and {@link #endWrite()}, so that they are not lost
+ * by committing a transaction started before them.</p>
+ * <p>The data objects of each entity set are kept in a concurrent map ordered by
+ * entity key; the lists returned by the getters are views on these maps that
+ * can be modified and iterated concurrently. Relations between data objects are
+ * changed under the {@link #getRelationLock(Object) relation lock} of the
+ * data object holding the to-one end of the relation; data objects are removed
+ * under {@link #lockAllRelations() all relation locks}.</p>
  * @author SAP AG
  */
 public class DataContainer {
 
   private static final String IMAGE_JPEG = "image/jpeg";
+  private static final int LOCK_STRIPES = 32;
+
+  private final AtomicReference<Version> version;
+  private final DataContainer parent;
+  private final Version base;
+  private final long baseWriteCount;
+  private final ThreadLocal<Version> writtenVersion = new ThreadLocal<Version>();
+  private final Lock[] relationLocks = new Lock[LOCK_STRIPES];
+
+  public DataContainer() {
+    version = new AtomicReference<Version>(new Version());
+    parent = null;
+    base = null;
+    baseWriteCount = 0;
+    initLocks();
+  }
+
+  private DataContainer(final DataContainer parent) {
+    base = parent.version.get();
+    // read before copying, so that a change still in progress is detected on commit
+    baseWriteCount = base.getWriteCount();
+    version = new AtomicReference<Version>(base.copy());
+    this.parent = parent;
+    initLocks();
+  }
 
-  private List<Employee> employees = new ArrayList<Employee>();
-  private List<Team> teams = new ArrayList<Team>();
-  private List<Room> rooms = new ArrayList<Room>();
-  private List<Manager> managers = new ArrayList<Manager>();
-  private List<Building> buildings = new ArrayList<Building>();
-  private List<Photo> photos = new ArrayList<Photo>();
-  private int employeeId = 0;
-  private int teamId = 0;
-  private int roomId = 0;
-  private int buildingId = 0;
-  private int photoId = 0;
+  private void initLocks() {
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      relationLocks[i] = new ReentrantLock();
+    }
+  }
 
   public void init() {
+    final Version data = version.get();
+    final List<Employee> employees = data.employees;
+    final List<Team> teams = data.teams;
+    final List<Room> rooms = data.rooms;
+    final List<Manager> managers = data.managers;
+    final List<Building> buildings = data.buildings;
+    final List<Photo> photos = data.photos;
+
     // ------------- Teams ---------------
     Team team1 = createTeam();
     team1.setScrumTeam(false);
@@ -220,67 +269,470 @@ public class DataContainer {
   }
 
   public Employee createEmployee() {
-    return new Employee(++employeeId, "Employee " + employeeId);
+    final int id = version.get().employeeId.incrementAndGet();
+    return new Employee(id, "Employee " + id);
   }
 
   public Team createTeam() {
-    return new Team(++teamId, "Team " + teamId);
+    final int id = version.get().teamId.incrementAndGet();
+    return new Team(id, "Team " + id);
   }
 
   public Room createRoom() {
-    return new Room(++roomId, "Room " + roomId);
+    final int id = version.get().roomId.incrementAndGet();
+    return new Room(id, "Room " + id);
   }
 
   public Manager createManager() {
-    return new Manager(++employeeId, "Employee " + employeeId);
+    final int id = version.get().employeeId.incrementAndGet();
+    return new Manager(id, "Employee " + id);
   }
 
   public Building createBuilding() {
-    return new Building(++buildingId, "Building " + buildingId);
+    final int id = version.get().buildingId.incrementAndGet();
+    return new Building(id, "Building " + id);
   }
 
   public Photo createPhoto(final String type) {
-    return new Photo(++photoId, "Photo " + photoId, type);
+    final int id = version.get().photoId.incrementAndGet();
+    return new Photo(id, "Photo " + id, type);
   }
 
   public List<Employee> getEmployees() {
-    return employees;
+    return version.get().employees;
   }
 
   public List<Team> getTeams() {
-    return teams;
+    return version.get().teams;
   }
 
   public List<Room> getRooms() {
-    return rooms;
+    return version.get().rooms;
   }
 
   public List<Manager> getManagers() {
-    return managers;
+    return version.get().managers;
   }
 
   public List<Building> getBuildings() {
-    return buildings;
+    return version.get().buildings;
   }
 
   public List<Photo> getPhotos() {
-    return photos;
+    return version.get().photos;
+  }
+
+  /**
+   * @param id the key of the employee
+   * @return the employee or <code>null</code> if there is no employee with this key
+   */
+  public Employee getEmployee(final Object id) {
+    return version.get().employees.getEntity(id);
+  }
+
+  public Team getTeam(final Object id) {
+    return version.get().teams.getEntity(id);
+  }
+
+  public Room getRoom(final Object id) {
+    return version.get().rooms.getEntity(id);
+  }
+
+  public Manager getManager(final Object id) {
+    return version.get().managers.getEntity(id);
+  }
+
+  public Building getBuilding(final Object id) {
+    return version.get().buildings.getEntity(id);
+  }
+
+  public Photo getPhoto(final int id) {
+    return version.get().photos.getEntity(Integer.valueOf(id));
+  }
+
+  /**
+   * Returns the lock that must be held while changing the relations of the given
+   * data object; the locks are striped, so the lock may be shared with other
+   * data objects.
+   * @param data the data object holding the to-one end of the relation
+   * @return the lock
+   */
+  public Lock getRelationLock(final Object data) {
+    return relationLocks[(data.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
   }
 
+  /**
+   * Acquires all relation locks in a fixed order. They have to be held while a
+   * data object is removed together with its relations, so that no relation to
+   * the removed data object can be created concurrently.
+   */
+  public void lockAllRelations() {
+    for (final Lock lock : relationLocks) {
+      lock.lock();
+    }
+  }
+
+  /**
+   * Releases the locks acquired by {@link #lockAllRelations()}.
+   */
+  public void unlockAllRelations() {
+    for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+      relationLocks[i].unlock();
+    }
+  }
+
+  /**
+   * <p>Starts a change made directly to the data of this container, i.e., not
+   * within a transaction started on this container.</p>
+   * <p>The data objects to be changed have to be read after this call. Until the
+   * corresponding {@link #endWrite()} of the current thread, no transaction can be
+   * committed; a transaction started before the end of the change fails to commit.</p>
+   */
+  public void beginWrite() {
+    Version data;
+    do {
+      data = version.get();
+    } while (!data.beginWrite());
+    writtenVersion.set(data);
+  }
+
+  /**
+   * Ends the change started by {@link #beginWrite()} in the current thread.
+   */
+  public void endWrite() {
+    final Version data = writtenVersion.get();
+    if (data != null) {
+      writtenVersion.remove();
+      data.endWrite();
+    }
+  }
+
+  /**
+   * Replaces the data with freshly initialized data.
+   */
   public void reset() {
-    employees.clear();
-    teams.clear();
-    rooms.clear();
-    managers.clear();
-    buildings.clear();
-    photos.clear();
-
-    employeeId = 0;
-    teamId = 0;
-    roomId = 0;
-    buildingId = 0;
-    photoId = 0;
-
-    init();
+    DataContainer initial = new DataContainer();
+    initial.init();
+    version.set(initial.version.get());
+  }
+
+  /**
+   * <p>Starts a transaction on the currently committed data.</p>
+   * <p>The returned container holds a private copy of all data objects and their
+   * relations; changes made to it are not visible in this container until the
+   * transaction is {@link #commit() committed}. A transaction is rolled back by
+   * simply discarding the returned container.</p>
+   * @return the container of the transaction
+   */
+  public DataContainer beginTransaction() {
+    return new DataContainer(this);
+  }
+
+  /**
+   * Publishes the data of this transaction as the committed data of the
+   * container the transaction has been started on.
+   * @throws IllegalStateException if this container is not a transaction
+   * @throws ConcurrentModificationException if the data have been replaced or
+   *                                          changed directly since the start of
+   *                                          the transaction or are being changed
+   */
+  public void commit() {
+    if (parent == null) {
+      throw new IllegalStateException("No transaction");
+    }
+    if (!base.replace(baseWriteCount) || !parent.version.compareAndSet(base, version.get())) {
+      throw new ConcurrentModificationException("The data have been changed by a concurrent transaction.");
+    }
+  }
+
+  /**
+   * One consistent state of all data objects, together with the counters for new keys.
+   */
+  private static final class Version {
+    private final EntityList<Employee> employees = new EntityList<Employee>(Employee.class) {
+      @Override
+      protected int getKey(final Employee employee) {
+        return Integer.parseInt(employee.getId());
+      }
+    };
+    private final EntityList<Team> teams = new EntityList<Team>(Team.class) {
+      @Override
+      protected int getKey(final Team team) {
+        return Integer.parseInt(team.getId());
+      }
+    };
+    private final EntityList<Room> rooms = new EntityList<Room>(Room.class) {
+      @Override
+      protected int getKey(final Room room) {
+        return Integer.parseInt(room.getId());
+      }
+    };
+    private final EntityList<Manager> managers = new EntityList<Manager>(Manager.class) {
+      @Override
+      protected int getKey(final Manager manager) {
+        return Integer.parseInt(manager.getId());
+      }
+    };
+    private final EntityList<Building> buildings = new EntityList<Building>(Building.class) {
+      @Override
+      protected int getKey(final Building building) {
+        return Integer.parseInt(building.getId());
+      }
+    };
+    private final EntityList<Photo> photos = new EntityList<Photo>(Photo.class) {
+      @Override
+      protected int getKey(final Photo photo) {
+        return photo.getId();
+      }
+    };
+    private final AtomicInteger employeeId = new AtomicInteger();
+    private final AtomicInteger teamId = new AtomicInteger();
+    private final AtomicInteger roomId = new AtomicInteger();
+    private final AtomicInteger buildingId = new AtomicInteger();
+    private final AtomicInteger photoId = new AtomicInteger();
+    // changes made directly to this version, guarded by the version itself
+    private long writeCount;
+    private int activeWrites;
+    private boolean replaced;
+
+    /**
+     * @return <code>false</code> if this version has already been replaced by a transaction
+     */
+    private synchronized boolean beginWrite() {
+      if (replaced) {
+        return false;
+      }
+      writeCount++;
+      activeWrites++;
+      return true;
+    }
+
+    private synchronized void endWrite() {
+      writeCount++;
+      activeWrites--;
+    }
+
+    private synchronized long getWriteCount() {
+      return writeCount;
+    }
+
+    /**
+     * Marks this version as replaced if it has not been changed directly
+     * since the given write count has been read.
+     * @return <code>true</code> if the version may be replaced
+     */
+    private synchronized boolean replace(final long expectedWriteCount) {
+      if (replaced || activeWrites > 0 || writeCount != expectedWriteCount) {
+        return false;
+      }
+      replaced = true;
+      return true;
+    }
+
+    /**
+     * Copies all data objects and re-wires their relations to the copies.
+     * Data objects not contained in any list but referenced by a relation are
+     * copied as well; shared {@link Location} objects stay shared in the copy.
+     */
+    private Version copy() {
+      final Copier copier = new Copier();
+      Version copy = new Version();
+      for (final Employee employee : employees) {
+        copy.employees.add(copier.copy(employee));
+      }
+      for (final Manager manager : managers) {
+        copy.managers.add((Manager) copier.copy(manager));
+      }
+      for (final Team team : teams) {
+        copy.teams.add(copier.copy(team));
+      }
+      for (final Room room : rooms) {
+        copy.rooms.add(copier.copy(room));
+      }
+      for (final Building building : buildings) {
+        copy.buildings.add(copier.copy(building));
+      }
+      for (final Photo photo : photos) {
+        copy.photos.add(new Photo(photo));
+      }
+      copy.employeeId.set(employeeId.get());
+      copy.teamId.set(teamId.get());
+      copy.roomId.set(roomId.get());
+      copy.buildingId.set(buildingId.get());
+      copy.photoId.set(photoId.get());
+      return copy;
+    }
+  }
+
+  /**
+   * <p>List view on the data objects of one entity set, held in a concurrent map
+   * ordered by entity key.</p>
+   * <p>Adding a data object replaces a data object with the same key; iterators
+   * are weakly consistent, i.e., they never throw a
+   * {@link ConcurrentModificationException} and do not block writers.
+   * Positional access has to walk the map and should be avoided.</p>
+   */
+  private abstract static class EntityList<T> extends AbstractList<T> {
+    private final ConcurrentNavigableMap<Integer, T> entities = new ConcurrentSkipListMap<Integer, T>();
+    private final Class<T> type;
+
+    private EntityList(final Class<T> type) {
+      this.type = type;
+    }
+
+    protected abstract int getKey(T entity);
+
+    private T getEntity(final Object id) {
+      if (id instanceof Integer) {
+        return entities.get(id);
+      } else if (id instanceof String) {
+        try {
+          final Integer key = Integer.valueOf((String) id);
+          return key.toString().equals(id) ? entities.get(key) : null;
+        } catch (final NumberFormatException e) {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean add(final T entity) {
+      entities.put(getKey(entity), entity);
+      return true;
+    }
+
+    @Override
+    public boolean remove(final Object object) {
+      return type.isInstance(object) && entities.remove(getKey(type.cast(object)), object);
+    }
+
+    @Override
+    public T remove(final int index) {
+      final T entity = get(index);
+      remove(entity);
+      return entity;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+      return type.isInstance(object) && object.equals(entities.get(getKey(type.cast(object))));
+    }
+
+    @Override
+    public T get(final int index) {
+      if (index >= 0) {
+        int position = 0;
+        for (final T entity : entities.values()) {
+          if (position++ == index) {
+            return entity;
+          }
+        }
+      }
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return entities.values().iterator();
+    }
+
+    @Override
+    public int size() {
+      return entities.size();
+    }
+
+    @Override
+    public void clear() {
+      entities.clear();
+    }
+  }
+
+  /**
+   * Copies an object graph, keeping track of already copied objects by identity.
+   */
+  private static final class Copier {
+    private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+    private Employee copy(final Employee employee) {
+      if (employee == null) {
+        return null;
+      }
+      Employee copy = (Employee) copies.get(employee);
+      if (copy == null) {
+        copy = employee instanceof Manager ? new Manager((Manager) employee) : new Employee(employee);
+        copies.put(employee, copy);
+        copy.setManager((Manager) copy(employee.getManager()));
+        copy.setTeam(copy(employee.getTeam()));
+        copy.setRoom(copy(employee.getRoom()));
+        copy.setLocation(copy(employee.getLocation()));
+        if (employee instanceof Manager) {
+          for (final Employee managedEmployee : ((Manager) employee).getEmployees()) {
+            ((Manager) copy).getEmployees().add(copy(managedEmployee));
+          }
+        }
+      }
+      return copy;
+    }
+
+    private Team copy(final Team team) {
+      if (team == null) {
+        return null;
+      }
+      Team copy = (Team) copies.get(team);
+      if (copy == null) {
+        copy = new Team(team);
+        copies.put(team, copy);
+        for (final Employee employee : team.getEmployees()) {
+          copy.getEmployees().add(copy(employee));
+        }
+      }
+      return copy;
+    }
+
+    private Room copy(final Room room) {
+      if (room == null) {
+        return null;
+      }
+      Room copy = (Room) copies.get(room);
+      if (copy == null) {
+        copy = new Room(room);
+        copies.put(room, copy);
+        copy.setBuilding(copy(room.getBuilding()));
+        for (final Employee employee : room.getEmployees()) {
+          copy.getEmployees().add(copy(employee));
+        }
+      }
+      return copy;
+    }
+
+    private Building copy(final Building building) {
+      if (building == null) {
+        return null;
+      }
+      Building copy = (Building) copies.get(building);
+      if (copy == null) {
+        copy = new Building(building);
+        copies.put(building, copy);
+        for (final Room room : building.getRooms()) {
+          copy.getRooms().add(copy(room));
+        }
+      }
+      return copy;
+    }
+
+    private Location copy(final Location location) {
+      if (location == null) {
+        return null;
+      }
+      Location copy = (Location) copies.get(location);
+      if (copy == null) {
+        copy = new Location(location.getCountry(), null, null);
+        final City city = location.getCity();
+        copy.setCity(city == null ? null : new City(city.getPostalCode(), city.getCityName()));
+        copies.put(location, copy);
+      }
+      return copy;
+    }
   }
 }
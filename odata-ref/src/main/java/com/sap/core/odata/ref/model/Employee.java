@@ -42,6 +42,20 @@ public class Employee {
     setEmployeeName(name);
   }
 
+  /**
+   * Copies the own values of the given employee; relations are not copied.
+   * @param employee the employee to copy
+   */
+  Employee(final Employee employee) {
+    employeeId = employee.employeeId;
+    employeeName = employee.employeeName;
+    age = employee.age;
+    imageType = employee.imageType;
+    image = employee.image;
+    imageUrl = employee.imageUrl;
+    entryDate = employee.entryDate == null ? null : (Calendar) employee.entryDate.clone();
+  }
+
   public String getId() {
     return Integer.toString(employeeId);
   }
@@ -15,20 +15,28 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.model;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author SAP AG
  */
 public class Manager extends Employee {
 
-  private List<Employee> employees = new ArrayList<Employee>();
+  private List<Employee> employees = new CopyOnWriteArrayList<Employee>();
 
   public Manager(final int id, final String name) {
     super(id, name);
   }
 
+  /**
+   * Copies the own values of the given manager; relations are not copied.
+   * @param manager the manager to copy
+   */
+  Manager(final Manager manager) {
+    super(manager);
+  }
+
   public List<Employee> getEmployees() {
     return employees;
   }
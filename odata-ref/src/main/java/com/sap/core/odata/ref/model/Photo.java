@@ -42,6 +42,21 @@ public class Photo {
     setType(type);
   }
 
+  /**
+   * Copies the values of the given photo.
+   * @param photo the photo to copy
+   */
+  Photo(final Photo photo) {
+    id = photo.id;
+    name = photo.name;
+    type = photo.type;
+    imageUrl = photo.imageUrl;
+    image = photo.image;
+    imageType = photo.imageType;
+    binaryData = photo.binaryData;
+    content = photo.content;
+  }
+
   static {
     try {
       InputStream instream = Photo.class.getResourceAsStream(RESOURCE);
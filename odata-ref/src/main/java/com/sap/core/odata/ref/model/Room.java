@@ -15,8 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.model;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
 * @author SAP AG
@@ -27,13 +27,24 @@ public class Room {
   private Integer seats;
   private Integer version;
   private Building building;
-  private List<Employee> employees = new ArrayList<Employee>();
+  private List<Employee> employees = new CopyOnWriteArrayList<Employee>();
 
   public Room(final int id, final String name) {
     this.id = id;
     setName(name);
   }
 
+  /**
+   * Copies the own values of the given room; relations are not copied.
+   * @param room the room to copy
+   */
+  Room(final Room room) {
+    id = room.id;
+    name = room.name;
+    seats = room.seats;
+    version = room.version;
+  }
+
   public String getId() {
     return Integer.toString(id);
   }
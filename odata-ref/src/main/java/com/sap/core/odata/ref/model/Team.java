@@ -15,8 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.model;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
 * @author SAP AG
@@ -25,13 +25,23 @@ public class Team {
   private final int id;
   private String name;
   private Boolean isScrumTeam;
-  private List<Employee> employees = new ArrayList<Employee>();
+  private List<Employee> employees = new CopyOnWriteArrayList<Employee>();
 
   public Team(final int id, final String name) {
     this.id = id;
     setName(name);
   }
 
+  /**
+   * Copies the own values of the given team; relations are not copied.
+   * @param team the team to copy
+   */
+  Team(final Team team) {
+    id = team.id;
+    name = team.name;
+    isScrumTeam = team.isScrumTeam;
+  }
+
   public String getId() {
     return Integer.toString(id);
   }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * <p>Disk-backed store for media resources, as alternative to keeping them
+ * as byte arrays in the data objects.</p>
+ * <p>Content is written through memory-mapped files; it is read by the
+ * {@link ListsProcessor} as {@link com.sap.core.odata.api.processor.FileEntity file entity}
+ * so that it is transferred from the file without being loaded into the heap.</p>
+ * @author SAP AG
+ */
+public class FileMediaStore {
+
+  private final File directory;
+
+  /**
+   * @param directory the directory for the media files; it is created if it does not exist
+   */
+  public FileMediaStore(final File directory) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("Directory " + directory + " could not be created.");
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the file with the media resource of the given name.
+   * @param name the name of the media resource, unique within the store
+   * @return the file or <code>null</code> if nothing has been stored under this name
+   */
+  public File get(final String name) {
+    final File file = new File(directory, name);
+    return file.isFile() ? file : null;
+  }
+
+  /**
+   * Stores a media resource, replacing previous content of the same name.
+   * @param name the name of the media resource, unique within the store
+   * @param data the content
+   * @return the file with the content
+   * @throws IOException if the file could not be written
+   */
+  public File write(final String name, final byte[] data) throws IOException {
+    final File file = new File(directory, name);
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.setLength(data.length);
+      if (data.length > 0) {
+        MappedByteBuffer buffer = randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0, data.length);
+        buffer.put(data);
+        buffer.force();
+      }
+    } finally {
+      randomAccessFile.close();
+    }
+    return file;
+  }
+
+  /**
+   * Removes a media resource.
+   * @param name the name of the media resource
+   */
+  public void delete(final String name) {
+    final File file = new File(directory, name);
+    if (file.isFile() && !file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+}
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.processor;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -156,28 +157,84 @@ public interface ListsDataSource {
   void writeRelation(EdmEntitySet sourceEntitySet, Object sourceData, EdmEntitySet targetEntitySet, Map<String, Object> targetKeys) throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException;
 
   /**
-   * Container to store binary data (as byte array) and the associated MIME type.
+   * <p>Starts a transaction for the current thread.</p>
+   * <p>Until the transaction is committed or rolled back, all calls of the
+   * current thread work on a private snapshot of the data, while all other
+   * threads see the last committed state.</p>
+   */
+  void beginTransaction() throws ODataApplicationException;
+
+  /**
+   * Atomically publishes all changes of the transaction of the current thread.
+   * If the data have been changed concurrently since the start of the
+   * transaction, no change is published and an exception is thrown.
+   */
+  void commitTransaction() throws ODataApplicationException;
+
+  /**
+   * Discards all changes of the transaction of the current thread.
+   */
+  void rollbackTransaction();
+
+  /**
+   * Starts a change of the data by the current thread. Outside of a transaction,
+   * the changed data have to be read after this call, and no transaction can be
+   * committed until the change is ended.
+   */
+  void beginWrite();
+
+  /**
+   * Ends the change of the data started by the current thread.
+   */
+  void endWrite();
+
+  /**
+   * Container to store binary data (as byte array or as file) and the associated MIME type.
    */
   public class BinaryData {
     private final byte[] data;
+    private final File file;
     private final String mimeType;
 
     public BinaryData(final byte[] data, final String mimeType) {
       this.data = data;
+      file = null;
       this.mimeType = mimeType;
     }
 
+    /**
+     * Creates a container for binary data stored in a file;
+     * the data is not read into memory.
+     * @param file  the file with the binary data
+     * @param mimeType  the MIME type
+     */
+    public BinaryData(final File file, final String mimeType) {
+      data = null;
+      this.file = file;
+      this.mimeType = mimeType;
+    }
+
+    /**
+     * @return the binary data or <code>null</code> if the data is stored in a {@link #getFile() file}
+     */
     public byte[] getData() {
       return data;
     }
 
+    /**
+     * @return the file with the binary data or <code>null</code> if the data is held in memory
+     */
+    public File getFile() {
+      return file;
+    }
+
     public String getMimeType() {
       return mimeType;
     }
 
     @Override
     public String toString() {
-      return "data=" + Arrays.toString(data) + ", mimeType=" + mimeType;
+      return (file == null ? "data=" + Arrays.toString(data) : "file=" + file) + ", mimeType=" + mimeType;
     }
   }
 }
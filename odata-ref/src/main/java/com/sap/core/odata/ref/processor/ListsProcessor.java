@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.processor;
 
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -73,7 +75,9 @@ import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataHttpException;
 import com.sap.core.odata.api.exception.ODataNotFoundException;
 import com.sap.core.odata.api.exception.ODataNotImplementedException;
+import com.sap.core.odata.api.processor.FileEntity;
 import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataErrorContext;
 import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataSingleProcessor;
@@ -200,6 +204,7 @@ public class ListsProcessor extends ODataSingleProcessor {
         .nextLink(nextLink)
         .build();
 
+    context.setParameter(ODataContext.ROW_COUNT, data.size());
     final int timingHandle = context.startRuntimeMeasurement("EntityProvider", "writeFeed");
     final ODataResponse response = EntityProvider.writeFeed(contentType, entitySet, values, feedProperties);
 
@@ -324,83 +329,98 @@ public class ListsProcessor extends ODataSingleProcessor {
 
   @Override
   public ODataResponse deleteEntity(final DeleteUriInfo uriInfo, final String contentType) throws ODataException {
-    dataSource.deleteData(
-        uriInfo.getStartEntitySet(),
-        mapKey(uriInfo.getKeyPredicates()));
-    return ODataResponse.newBuilder().build();
+    dataSource.beginWrite();
+    try {
+      dataSource.deleteData(
+          uriInfo.getStartEntitySet(),
+          mapKey(uriInfo.getKeyPredicates()));
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse createEntity(final PostUriInfo uriInfo, final InputStream content, final String requestContentType, final String contentType) throws ODataException {
-    final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
-    final EdmEntityType entityType = entitySet.getEntityType();
+    dataSource.beginWrite();
+    try {
+      final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
+      final EdmEntityType entityType = entitySet.getEntityType();
 
-    Object data = dataSource.newDataObject(entitySet);
-    ExpandSelectTreeNode expandSelectTree = null;
+      Object data = dataSource.newDataObject(entitySet);
+      ExpandSelectTreeNode expandSelectTree = null;
 
-    if (entityType.hasStream()) {
-      dataSource.createData(entitySet, data);
-      dataSource.writeBinaryData(entitySet, data,
-          new BinaryData(EntityProvider.readBinary(content), requestContentType));
+      if (entityType.hasStream()) {
+        dataSource.createData(entitySet, data);
+        dataSource.writeBinaryData(entitySet, data,
+            new BinaryData(EntityProvider.readBinary(content), requestContentType));
 
-    } else {
-      final EntityProviderReadProperties properties = EntityProviderReadProperties.init()
-          .mergeSemantic(false)
-          .addTypeMappings(getStructuralTypeTypeMap(data, entityType))
-          .build();
-      final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
+      } else {
+        final EntityProviderReadProperties properties = EntityProviderReadProperties.init()
+            .mergeSemantic(false)
+            .addTypeMappings(getStructuralTypeTypeMap(data, entityType))
+            .build();
+        final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
 
-      setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), false);
+        setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), false);
 
-      dataSource.createData(entitySet, data);
+        dataSource.createData(entitySet, data);
 
-      createInlinedEntities(entitySet, data, entryValues);
+        createInlinedEntities(entitySet, data, entryValues);
 
-      expandSelectTree = entryValues.getExpandSelectTree();
-    }
+        expandSelectTree = entryValues.getExpandSelectTree();
+      }
 
-    // Link back to the entity the target entity set is related to, if any.
-    final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
-    if (!navigationSegments.isEmpty()) {
-      final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
-      final Object sourceData = retrieveData(
-          uriInfo.getStartEntitySet(),
-          uriInfo.getKeyPredicates(),
-          uriInfo.getFunctionImport(),
-          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          previousSegments);
-      final EdmEntitySet previousEntitySet = previousSegments.isEmpty() ?
-          uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
-      dataSource.writeRelation(previousEntitySet, sourceData, entitySet, getStructuralTypeValueMap(data, entityType));
-    }
+      // Link back to the entity the target entity set is related to, if any.
+      final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
+      if (!navigationSegments.isEmpty()) {
+        final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
+        final Object sourceData = retrieveData(
+            uriInfo.getStartEntitySet(),
+            uriInfo.getKeyPredicates(),
+            uriInfo.getFunctionImport(),
+            mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+            previousSegments);
+        final EdmEntitySet previousEntitySet = previousSegments.isEmpty() ?
+            uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
+        dataSource.writeRelation(previousEntitySet, sourceData, entitySet, getStructuralTypeValueMap(data, entityType));
+      }
 
-    return ODataResponse.fromResponse(writeEntry(uriInfo.getTargetEntitySet(), expandSelectTree, data, contentType)).eTag(constructETag(entitySet, data)).build();
+      return ODataResponse.fromResponse(writeEntry(uriInfo.getTargetEntitySet(), expandSelectTree, data, contentType)).eTag(constructETag(entitySet, data)).build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse updateEntity(final PutMergePatchUriInfo uriInfo, final InputStream content, final String requestContentType, final boolean merge, final String contentType) throws ODataException {
-    Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (!appliesFilter(data, uriInfo.getFilter())) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
-    final EdmEntityType entityType = entitySet.getEntityType();
-    final EntityProviderReadProperties properties = EntityProviderReadProperties.init()
-        .mergeSemantic(merge)
-        .addTypeMappings(getStructuralTypeTypeMap(data, entityType))
-        .build();
-    final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
+      final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
+      final EdmEntityType entityType = entitySet.getEntityType();
+      final EntityProviderReadProperties properties = EntityProviderReadProperties.init()
+          .mergeSemantic(merge)
+          .addTypeMappings(getStructuralTypeTypeMap(data, entityType))
+          .build();
+      final ODataEntry entryValues = parseEntry(entitySet, content, requestContentType, properties);
 
-    setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), merge);
+      setStructuralTypeValuesFromMap(data, entityType, entryValues.getProperties(), merge);
 
-    return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
+      return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
@@ -445,86 +465,101 @@ public class ListsProcessor extends ODataSingleProcessor {
 
   @Override
   public ODataResponse deleteEntityLink(final DeleteUriInfo uriInfo, final String contentType) throws ODataException {
-    final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
-    final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
+    dataSource.beginWrite();
+    try {
+      final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
+      final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
 
-    final Object sourceData = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        previousSegments);
+      final Object sourceData = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          previousSegments);
 
-    final EdmEntitySet entitySet = previousSegments.isEmpty() ?
-        uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
-    final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
-    final Map<String, Object> keys = mapKey(uriInfo.getTargetKeyPredicates());
+      final EdmEntitySet entitySet = previousSegments.isEmpty() ?
+          uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
+      final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
+      final Map<String, Object> keys = mapKey(uriInfo.getTargetKeyPredicates());
 
-    final Object targetData = dataSource.readRelatedData(entitySet, sourceData, targetEntitySet, keys);
+      final Object targetData = dataSource.readRelatedData(entitySet, sourceData, targetEntitySet, keys);
 
-    // if (!appliesFilter(targetData, uriInfo.getFilter()))
-    if (targetData == null) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      // if (!appliesFilter(targetData, uriInfo.getFilter()))
+      if (targetData == null) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    dataSource.deleteRelation(entitySet, sourceData, targetEntitySet, keys);
+      dataSource.deleteRelation(entitySet, sourceData, targetEntitySet, keys);
 
-    return ODataResponse.newBuilder().build();
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse createEntityLink(final PostUriInfo uriInfo, final InputStream content, final String requestContentType, final String contentType) throws ODataException {
-    final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
-    final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
+    dataSource.beginWrite();
+    try {
+      final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
+      final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
 
-    final Object sourceData = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        previousSegments);
+      final Object sourceData = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          previousSegments);
 
-    final EdmEntitySet entitySet = previousSegments.isEmpty() ?
-        uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
-    final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
+      final EdmEntitySet entitySet = previousSegments.isEmpty() ?
+          uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
+      final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
 
-    final Map<String, Object> targetKeys = parseLink(targetEntitySet, content, requestContentType);
+      final Map<String, Object> targetKeys = parseLink(targetEntitySet, content, requestContentType);
 
-    dataSource.writeRelation(entitySet, sourceData, targetEntitySet, targetKeys);
+      dataSource.writeRelation(entitySet, sourceData, targetEntitySet, targetKeys);
 
-    return ODataResponse.newBuilder().build();
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse updateEntityLink(final PutMergePatchUriInfo uriInfo, final InputStream content, final String requestContentType, final String contentType) throws ODataException {
-    final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
-    final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
+    dataSource.beginWrite();
+    try {
+      final List<NavigationSegment> navigationSegments = uriInfo.getNavigationSegments();
+      final List<NavigationSegment> previousSegments = navigationSegments.subList(0, navigationSegments.size() - 1);
 
-    final Object sourceData = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        previousSegments);
+      final Object sourceData = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          previousSegments);
 
-    final EdmEntitySet entitySet = previousSegments.isEmpty() ?
-        uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
-    final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
-    final Map<String, Object> keys = mapKey(uriInfo.getTargetKeyPredicates());
+      final EdmEntitySet entitySet = previousSegments.isEmpty() ?
+          uriInfo.getStartEntitySet() : previousSegments.get(previousSegments.size() - 1).getEntitySet();
+      final EdmEntitySet targetEntitySet = uriInfo.getTargetEntitySet();
+      final Map<String, Object> keys = mapKey(uriInfo.getTargetKeyPredicates());
 
-    final Object targetData = dataSource.readRelatedData(entitySet, sourceData, targetEntitySet, keys);
+      final Object targetData = dataSource.readRelatedData(entitySet, sourceData, targetEntitySet, keys);
 
-    if (!appliesFilter(targetData, uriInfo.getFilter())) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (!appliesFilter(targetData, uriInfo.getFilter())) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    dataSource.deleteRelation(entitySet, sourceData, targetEntitySet, keys);
+      dataSource.deleteRelation(entitySet, sourceData, targetEntitySet, keys);
 
-    final Map<String, Object> newKeys = parseLink(targetEntitySet, content, requestContentType);
+      final Map<String, Object> newKeys = parseLink(targetEntitySet, content, requestContentType);
 
-    dataSource.writeRelation(entitySet, sourceData, targetEntitySet, newKeys);
+      dataSource.writeRelation(entitySet, sourceData, targetEntitySet, newKeys);
 
-    return ODataResponse.newBuilder().build();
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
@@ -587,69 +622,79 @@ public class ListsProcessor extends ODataSingleProcessor {
 
   @Override
   public ODataResponse deleteEntitySimplePropertyValue(final DeleteUriInfo uriInfo, final String contentType) throws ODataException {
-    Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (data == null) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (data == null) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
-    final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
+      final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
+      final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
-    setPropertyValue(data, property, null);
-    if (property.getMapping() != null && property.getMapping().getMimeType() != null) {
-      setValue(data, getSetterMethodName(property.getMapping().getMimeType()), null);
-    }
+      data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+      setPropertyValue(data, property, null);
+      if (property.getMapping() != null && property.getMapping().getMimeType() != null) {
+        setValue(data, getSetterMethodName(property.getMapping().getMimeType()), null);
+      }
 
-    return ODataResponse.newBuilder().build();
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse updateEntityComplexProperty(final PutMergePatchUriInfo uriInfo, final InputStream content, final String requestContentType, final boolean merge, final String contentType) throws ODataException {
-    Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (!appliesFilter(data, uriInfo.getFilter())) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
-    final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
+      final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
+      final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+      data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
 
-    ODataContext context = getContext();
-    int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readProperty");
+      ODataContext context = getContext();
+      int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readProperty");
 
-    Map<String, Object> values;
-    try {
-      values = EntityProvider.readProperty(requestContentType, property, content, EntityProviderReadProperties.init().mergeSemantic(merge).build());
-    } catch (final EntityProviderException e) {
-      throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
-    }
+      Map<String, Object> values;
+      try {
+        values = EntityProvider.readProperty(requestContentType, property, content, EntityProviderReadProperties.init().mergeSemantic(merge).build());
+      } catch (final EntityProviderException e) {
+        throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
+      }
 
-    context.stopRuntimeMeasurement(timingHandle);
+      context.stopRuntimeMeasurement(timingHandle);
 
-    final Object value = values.get(property.getName());
-    if (property.isSimple()) {
-      setPropertyValue(data, property, value);
-    } else {
-      @SuppressWarnings("unchecked")
-      final Map<String, Object> propertyValue = (Map<String, Object>) value;
-      setStructuralTypeValuesFromMap(getPropertyValue(data, property), (EdmStructuralType) property.getType(), propertyValue, merge);
-    }
+      final Object value = values.get(property.getName());
+      if (property.isSimple()) {
+        setPropertyValue(data, property, value);
+      } else {
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> propertyValue = (Map<String, Object>) value;
+        setStructuralTypeValuesFromMap(getPropertyValue(data, property), (EdmStructuralType) property.getType(), propertyValue, merge);
+      }
 
-    return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
+      return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
@@ -659,40 +704,45 @@ public class ListsProcessor extends ODataSingleProcessor {
 
   @Override
   public ODataResponse updateEntitySimplePropertyValue(final PutMergePatchUriInfo uriInfo, final InputStream content, final String requestContentType, final String contentType) throws ODataException {
-    Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (!appliesFilter(data, uriInfo.getFilter())) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
-    final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
+      final List<EdmProperty> propertyPath = uriInfo.getPropertyPath();
+      final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
 
-    data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
+      data = getPropertyValue(data, propertyPath.subList(0, propertyPath.size() - 1));
 
-    ODataContext context = getContext();
-    int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readPropertyValue");
+      ODataContext context = getContext();
+      int timingHandle = context.startRuntimeMeasurement("EntityConsumer", "readPropertyValue");
 
-    Object value;
-    try {
-      value = EntityProvider.readPropertyValue(property, content);
-    } catch (final EntityProviderException e) {
-      throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
-    }
+      Object value;
+      try {
+        value = EntityProvider.readPropertyValue(property, content);
+      } catch (final EntityProviderException e) {
+        throw new ODataBadRequestException(ODataBadRequestException.BODY, e);
+      }
 
-    context.stopRuntimeMeasurement(timingHandle);
+      context.stopRuntimeMeasurement(timingHandle);
 
-    setPropertyValue(data, property, value);
-    if (property.getMapping() != null && property.getMapping().getMimeType() != null) {
-      setValue(data, getSetterMethodName(property.getMapping().getMimeType()), requestContentType);
-    }
+      setPropertyValue(data, property, value);
+      if (property.getMapping() != null && property.getMapping().getMimeType() != null) {
+        setValue(data, getSetterMethodName(property.getMapping().getMimeType()), requestContentType);
+      }
 
-    return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
+      return ODataResponse.newBuilder().eTag(constructETag(uriInfo.getTargetEntitySet(), data)).build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
@@ -717,51 +767,61 @@ public class ListsProcessor extends ODataSingleProcessor {
     final String mimeType = binaryData.getMimeType() == null ?
         HttpContentType.APPLICATION_OCTET_STREAM : binaryData.getMimeType();
 
-    return ODataResponse.fromResponse(EntityProvider.writeBinary(mimeType, binaryData.getData())).eTag(constructETag(entitySet, data)).build();
+    return ODataResponse.fromResponse(writeBinary(mimeType, binaryData)).eTag(constructETag(entitySet, data)).build();
   }
 
   @Override
   public ODataResponse deleteEntityMedia(final DeleteUriInfo uriInfo, final String contentType) throws ODataException {
-    final Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      final Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (data == null) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (data == null) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    dataSource.writeBinaryData(uriInfo.getTargetEntitySet(), data, new BinaryData(null, null));
+      dataSource.writeBinaryData(uriInfo.getTargetEntitySet(), data, new BinaryData((byte[]) null, null));
 
-    return ODataResponse.newBuilder().build();
+      return ODataResponse.newBuilder().build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
   public ODataResponse updateEntityMedia(final PutMergePatchUriInfo uriInfo, final InputStream content, final String requestContentType, final String contentType) throws ODataException {
-    final Object data = retrieveData(
-        uriInfo.getStartEntitySet(),
-        uriInfo.getKeyPredicates(),
-        uriInfo.getFunctionImport(),
-        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-        uriInfo.getNavigationSegments());
+    dataSource.beginWrite();
+    try {
+      final Object data = retrieveData(
+          uriInfo.getStartEntitySet(),
+          uriInfo.getKeyPredicates(),
+          uriInfo.getFunctionImport(),
+          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+          uriInfo.getNavigationSegments());
 
-    if (!appliesFilter(data, uriInfo.getFilter())) {
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-    }
+      if (!appliesFilter(data, uriInfo.getFilter())) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
 
-    ODataContext context = getContext();
-    final int timingHandle = context.startRuntimeMeasurement("EntityProvider", "readBinary");
+      ODataContext context = getContext();
+      final int timingHandle = context.startRuntimeMeasurement("EntityProvider", "readBinary");
 
-    final byte[] value = EntityProvider.readBinary(content);
+      final byte[] value = EntityProvider.readBinary(content);
 
-    context.stopRuntimeMeasurement(timingHandle);
+      context.stopRuntimeMeasurement(timingHandle);
 
-    final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
-    dataSource.writeBinaryData(entitySet, data, new BinaryData(value, requestContentType));
+      final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
+      dataSource.writeBinaryData(entitySet, data, new BinaryData(value, requestContentType));
 
-    return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
+      return ODataResponse.newBuilder().eTag(constructETag(entitySet, data)).build();
+    } finally {
+      dataSource.endWrite();
+    }
   }
 
   @Override
@@ -781,7 +841,7 @@ public class ListsProcessor extends ODataSingleProcessor {
     Object value;
     if (type.getKind() == EdmTypeKind.SIMPLE) {
       value = type == EdmSimpleTypeKind.Binary.getEdmSimpleTypeInstance() ?
-          ((BinaryData) data).getData() : data;
+          readBinary((BinaryData) data) : data;
     } else if (functionImport.getReturnType().getMultiplicity() == EdmMultiplicity.MANY) {
       List<Map<String, Object>> values = new ArrayList<Map<String, Object>>();
       for (final Object typeData : (List<?>) data) {
@@ -821,7 +881,7 @@ public class ListsProcessor extends ODataSingleProcessor {
 
     ODataResponse response;
     if (type == EdmSimpleTypeKind.Binary.getEdmSimpleTypeInstance()) {
-      response = EntityProvider.writeBinary(((BinaryData) data).getMimeType(), ((BinaryData) data).getData());
+      response = writeBinary(((BinaryData) data).getMimeType(), (BinaryData) data);
     } else {
       final String value = type.valueToString(data, EdmLiteralKind.DEFAULT, null);
       response = EntityProvider.writeText(value == null ? "" : value);
@@ -829,6 +889,26 @@ public class ListsProcessor extends ODataSingleProcessor {
     return ODataResponse.fromResponse(response).build();
   }
 
+  /**
+   * Writes binary data; data stored in a file is transferred directly from the file.
+   */
+  private static ODataResponse writeBinary(final String mimeType, final BinaryData binaryData) throws EntityProviderException {
+    return binaryData.getFile() == null ?
+        EntityProvider.writeBinary(mimeType, binaryData.getData()) :
+        ODataResponse.entity(new FileEntity(binaryData.getFile())).contentHeader(mimeType).build();
+  }
+
+  private static byte[] readBinary(final BinaryData binaryData) throws ODataException {
+    if (binaryData.getFile() == null) {
+      return binaryData.getData();
+    }
+    try {
+      return EntityProvider.readBinary(new FileInputStream(binaryData.getFile()));
+    } catch (final FileNotFoundException e) {
+      throw new ODataNotFoundException(ODataNotFoundException.ENTITY, e);
+    }
+  }
+
   private static Map<String, Object> mapKey(final List<KeyPredicate> keys) throws EdmException {
     Map<String, Object> keyMap = new HashMap<String, Object>();
     for (final KeyPredicate key : keys) {
@@ -1664,15 +1744,37 @@ public class ListsProcessor extends ODataSingleProcessor {
   @Override
   public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests) throws ODataException {
     List<ODataResponse> responses = new ArrayList<ODataResponse>();
-    for (ODataRequest request : requests) {
-      ODataResponse response = handler.handleRequest(request);
-      if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
-        // Rollback
-        List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
-        errorResponses.add(response);
-        return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+    boolean commit = false;
+    dataSource.beginTransaction();
+    try {
+      for (ODataRequest request : requests) {
+        ODataResponse response = handler.handleRequest(request);
+        if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
+          List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+          errorResponses.add(response);
+          return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+        }
+        responses.add(response);
+      }
+      commit = true;
+    } finally {
+      if (!commit) {
+        dataSource.rollbackTransaction();
       }
-      responses.add(response);
+    }
+
+    try {
+      dataSource.commitTransaction();
+    } catch (final ODataApplicationException e) {
+      ODataErrorContext errorContext = new ODataErrorContext();
+      errorContext.setContentType(HttpContentType.APPLICATION_XML);
+      errorContext.setHttpStatus(e.getHttpStatus());
+      errorContext.setException(e);
+      errorContext.setMessage(e.getMessage());
+      errorContext.setLocale(e.getLocale());
+      List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+      errorResponses.add(EntityProvider.writeErrorDocument(errorContext));
+      return BatchResponsePart.responses(errorResponses).changeSet(false).build();
     }
     return BatchResponsePart.responses(responses).changeSet(true).build();
   }
@@ -15,16 +15,21 @@
  ******************************************************************************/
 package com.sap.core.odata.ref.processor;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.ConcurrentModificationException;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.locks.Lock;
 
 import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmFunctionImport;
@@ -54,25 +59,87 @@ public class ScenarioDataSource implements ListsDataSource {
   private static final String ENTITYSET_2_1 = "Photos";
 
   private final DataContainer dataContainer;
+  private final FileMediaStore mediaStore;
+  private final ThreadLocal<DataContainer> transaction = new ThreadLocal<DataContainer>();
 
   public ScenarioDataSource(final DataContainer dataContainer) {
+    this(dataContainer, null);
+  }
+
+  /**
+   * @param dataContainer  the data
+   * @param mediaStore  the store for written media resources;
+   *                    if <code>null</code>, they are kept in the data objects
+   */
+  public ScenarioDataSource(final DataContainer dataContainer, final FileMediaStore mediaStore) {
     this.dataContainer = dataContainer;
+    this.mediaStore = mediaStore;
+  }
+
+  /**
+   * @return the data of the transaction of the current thread if there is one,
+   *         the committed data otherwise
+   */
+  private DataContainer getDataContainer() {
+    final DataContainer transactionData = transaction.get();
+    return transactionData == null ? dataContainer : transactionData;
+  }
+
+  @Override
+  public void beginTransaction() throws ODataApplicationException {
+    if (transaction.get() != null) {
+      throw new ODataApplicationException("A transaction is already active.", Locale.ROOT, HttpStatusCodes.INTERNAL_SERVER_ERROR);
+    }
+    transaction.set(dataContainer.beginTransaction());
+  }
+
+  @Override
+  public void commitTransaction() throws ODataApplicationException {
+    final DataContainer transactionData = transaction.get();
+    if (transactionData == null) {
+      throw new ODataApplicationException("No transaction is active.", Locale.ROOT, HttpStatusCodes.INTERNAL_SERVER_ERROR);
+    }
+    transaction.remove();
+    try {
+      transactionData.commit();
+    } catch (final ConcurrentModificationException e) {
+      throw new ODataApplicationException(e.getLocalizedMessage(), Locale.ROOT, HttpStatusCodes.CONFLICT, e);
+    }
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    transaction.remove();
+  }
+
+  @Override
+  public void beginWrite() {
+    if (transaction.get() == null) {
+      dataContainer.beginWrite();
+    }
+  }
+
+  @Override
+  public void endWrite() {
+    if (transaction.get() == null) {
+      dataContainer.endWrite();
+    }
   }
 
   @Override
   public List<?> readData(final EdmEntitySet entitySet) throws ODataNotImplementedException, ODataNotFoundException, EdmException {
     if (ENTITYSET_1_1.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getEmployees().toArray());
+      return Arrays.asList(getDataContainer().getEmployees().toArray());
     } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getTeams().toArray());
+      return Arrays.asList(getDataContainer().getTeams().toArray());
     } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getRooms().toArray());
+      return Arrays.asList(getDataContainer().getRooms().toArray());
     } else if (ENTITYSET_1_4.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getManagers().toArray());
+      return Arrays.asList(getDataContainer().getManagers().toArray());
     } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getBuildings().toArray());
+      return Arrays.asList(getDataContainer().getBuildings().toArray());
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      return Arrays.asList(dataContainer.getPhotos().toArray());
+      return Arrays.asList(getDataContainer().getPhotos().toArray());
     } else {
       throw new ODataNotImplementedException();
     }
@@ -80,57 +147,28 @@ public class ScenarioDataSource implements ListsDataSource {
 
   @Override
   public Object readData(final EdmEntitySet entitySet, final Map<String, Object> keys) throws ODataNotImplementedException, ODataNotFoundException, EdmException {
+    Object data;
     if (ENTITYSET_1_1.equals(entitySet.getName())) {
-      for (final Employee employee : dataContainer.getEmployees()) {
-        if (employee.getId().equals(keys.get("EmployeeId"))) {
-          return employee;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = getDataContainer().getEmployee(keys.get("EmployeeId"));
     } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      for (final Team team : dataContainer.getTeams()) {
-        if (team.getId().equals(keys.get("Id"))) {
-          return team;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = getDataContainer().getTeam(keys.get("Id"));
     } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      for (final Room room : dataContainer.getRooms()) {
-        if (room.getId().equals(keys.get("Id"))) {
-          return room;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = getDataContainer().getRoom(keys.get("Id"));
     } else if (ENTITYSET_1_4.equals(entitySet.getName())) {
-      for (final Manager manager : dataContainer.getManagers()) {
-        if (manager.getId().equals(keys.get("EmployeeId"))) {
-          return manager;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = getDataContainer().getManager(keys.get("EmployeeId"));
     } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      for (final Building building : dataContainer.getBuildings()) {
-        if (building.getId().equals(keys.get("Id"))) {
-          return building;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = getDataContainer().getBuilding(keys.get("Id"));
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      for (final Photo photo : dataContainer.getPhotos()) {
-        if (photo.getId() == (Integer) keys.get("Id")
-            && photo.getType().equals(keys.get("Type"))) {
-          return photo;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      final Photo photo = getDataContainer().getPhoto((Integer) keys.get("Id"));
+      data = photo != null && photo.getType().equals(keys.get("Type")) ? photo : null;
+    } else {
+      throw new ODataNotImplementedException();
     }
 
-    throw new ODataNotImplementedException();
+    if (data == null) {
+      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+    }
+    return data;
   }
 
   @Override
@@ -234,7 +272,7 @@ public class ScenarioDataSource implements ListsDataSource {
 
     } else if (function.getName().equals("AllUsedRoomIds")) {
       List<String> data = new ArrayList<String>();
-      for (final Room room : dataContainer.getRooms()) {
+      for (final Room room : getDataContainer().getRooms()) {
         if (!room.getEmployees().isEmpty()) {
           data.add(room.getId());
         }
@@ -255,9 +293,12 @@ public class ScenarioDataSource implements ListsDataSource {
       if (parameters.get("Id") == null) {
         throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
       }
-      for (final Manager manager : dataContainer.getManagers()) {
+      for (final Manager manager : getDataContainer().getManagers()) {
         if (manager.getId().equals(parameters.get("Id"))) {
-          return new BinaryData(manager.getImage(), manager.getImageType());
+          final File file = getStoredMedia(manager);
+          return file == null ?
+              new BinaryData(manager.getImage(), manager.getImageType()) :
+              new BinaryData(file, manager.getImageType());
         }
       }
       throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
@@ -272,7 +313,7 @@ public class ScenarioDataSource implements ListsDataSource {
 
   private List<Employee> searchEmployees(final String search) {
     List<Employee> employees = new ArrayList<Employee>();
-    for (final Employee employee : dataContainer.getEmployees()) {
+    for (final Employee employee : getDataContainer().getEmployees()) {
       if (employee.getEmployeeName().contains(search)
           || employee.getLocation() != null
           && (employee.getLocation().getCity().getCityName().contains(search)
@@ -286,7 +327,7 @@ public class ScenarioDataSource implements ListsDataSource {
 
   private Map<Location, Integer> getLocations() throws ODataNotFoundException {
     Map<Location, Integer> locations = new LinkedHashMap<Location, Integer>();
-    for (Employee employee : dataContainer.getEmployees()) {
+    for (Employee employee : getDataContainer().getEmployees()) {
       if (employee.getLocation() != null && employee.getLocation().getCity() != null) {
         boolean found = false;
         for (final Location location : locations.keySet()) {
@@ -323,7 +364,7 @@ public class ScenarioDataSource implements ListsDataSource {
 
   private Employee getOldestEmployee() {
     Employee oldestEmployee = null;
-    for (final Employee employee : dataContainer.getEmployees()) {
+    for (final Employee employee : getDataContainer().getEmployees()) {
       if (oldestEmployee == null || employee.getAge() > oldestEmployee.getAge()) {
         oldestEmployee = employee;
       }
@@ -339,13 +380,20 @@ public class ScenarioDataSource implements ListsDataSource {
 
     if (ENTITYSET_1_1.equals(entitySet.getName()) || ENTITYSET_1_4.equals(entitySet.getName())) {
       final Employee employee = (Employee) mediaLinkEntryData;
+      final File file = getStoredMedia(employee);
+      if (file != null) {
+        return new BinaryData(file, employee.getImageType());
+      }
       if (employee.getImage() == null) {
         throw new ODataNotFoundException(null);
       }
       return new BinaryData(employee.getImage(), employee.getImageType());
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
       final Photo photo = (Photo) mediaLinkEntryData;
-      return new BinaryData(photo.getImage(), photo.getImageType());
+      final File file = getStoredMedia(photo);
+      return file == null ?
+          new BinaryData(photo.getImage(), photo.getImageType()) :
+          new BinaryData(file, photo.getImageType());
     } else {
       throw new ODataNotImplementedException();
     }
@@ -359,40 +407,70 @@ public class ScenarioDataSource implements ListsDataSource {
 
     if (ENTITYSET_1_1.equals(entitySet.getName()) || ENTITYSET_1_4.equals(entitySet.getName())) {
       final Employee employee = (Employee) mediaLinkEntryData;
-      employee.setImage(binaryData.getData());
+      employee.setImage(storeMedia(getMediaName(employee), binaryData));
       employee.setImageType(binaryData.getMimeType());
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
       final Photo photo = (Photo) mediaLinkEntryData;
-      photo.setImage(binaryData.getData());
+      photo.setImage(storeMedia(getMediaName(photo), binaryData));
       photo.setImageType(binaryData.getMimeType());
     } else {
       throw new ODataNotImplementedException();
     }
   }
 
+  /**
+   * Stores the binary data in the media store, if there is one.
+   * @return the binary data to be kept in the data object
+   */
+  private byte[] storeMedia(final String name, final BinaryData binaryData) throws ODataApplicationException {
+    if (mediaStore == null) {
+      return binaryData.getData();
+    }
+    if (binaryData.getData() == null) {
+      mediaStore.delete(name);
+    } else {
+      try {
+        mediaStore.write(name, binaryData.getData());
+      } catch (final IOException e) {
+        throw new ODataApplicationException(e.getLocalizedMessage(), Locale.ROOT, e);
+      }
+    }
+    return null;
+  }
+
+  private File getStoredMedia(final Object data) {
+    return mediaStore == null ? null : mediaStore.get(getMediaName(data));
+  }
+
+  private static String getMediaName(final Object data) {
+    return data instanceof Photo ?
+        "Photo_" + ((Photo) data).getId() :
+        "Employee_" + ((Employee) data).getId();
+  }
+
   @Override
   public Object newDataObject(final EdmEntitySet entitySet) throws ODataNotImplementedException, EdmException {
     if (ENTITYSET_1_1.equals(entitySet.getName())) {
-      Employee employee = dataContainer.createEmployee();
+      Employee employee = getDataContainer().createEmployee();
       employee.setAge(0);
       employee.setLocation(new Location(null, null, null));
       return employee;
     } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      return dataContainer.createTeam();
+      return getDataContainer().createTeam();
     } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      Room room = dataContainer.createRoom();
+      Room room = getDataContainer().createRoom();
       room.setSeats(0);
       room.setVersion(0);
       return room;
     } else if (ENTITYSET_1_4.equals(entitySet.getName())) {
-      Manager manager = dataContainer.createManager();
+      Manager manager = getDataContainer().createManager();
       manager.setAge(0);
       manager.setLocation(new Location(null, null, null));
       return manager;
     } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      return dataContainer.createBuilding();
+      return getDataContainer().createBuilding();
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      return dataContainer.createPhoto(HttpContentType.APPLICATION_OCTET_STREAM);
+      return getDataContainer().createPhoto(HttpContentType.APPLICATION_OCTET_STREAM);
     } else {
       throw new ODataNotImplementedException();
     }
@@ -400,72 +478,70 @@ public class ScenarioDataSource implements ListsDataSource {
 
   @Override
   public void deleteData(final EdmEntitySet entitySet, final Map<String, Object> keys) throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
-    final Object data = readData(entitySet, keys);
+    final DataContainer container = getDataContainer();
+    container.lockAllRelations();
+    try {
+      final Object data = readData(entitySet, keys);
+
+      if (ENTITYSET_1_1.equals(entitySet.getName()) || ENTITYSET_1_4.equals(entitySet.getName())) {
+        final Employee employee = (Employee) data;
+        if (data instanceof Manager) {
+          container.getManagers().remove(data);
+        }
+        container.getEmployees().remove(data);
+        if (data instanceof Manager) {
+          for (Employee managedEmployee : ((Manager) data).getEmployees()) {
+            unlinkManager(managedEmployee, (Manager) data);
+          }
+        }
+        setManager(employee, null);
+        setTeam(employee, null);
+        setRoom(employee, null);
+
+      } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
+        container.getTeams().remove(data);
+        for (Employee employee : ((Team) data).getEmployees()) {
+          unlinkTeam(employee, (Team) data);
+        }
 
-    if (ENTITYSET_1_1.equals(entitySet.getName()) || ENTITYSET_1_4.equals(entitySet.getName())) {
-      if (data instanceof Manager) {
-        for (Employee employee : ((Manager) data).getEmployees()) {
-          employee.setManager(null);
+      } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
+        container.getRooms().remove(data);
+        for (Employee employee : ((Room) data).getEmployees()) {
+          unlinkRoom(employee, (Room) data);
         }
-      }
-      final Employee employee = (Employee) data;
-      if (employee.getManager() != null) {
-        employee.getManager().getEmployees().remove(employee);
-      }
-      if (employee.getTeam() != null) {
-        employee.getTeam().getEmployees().remove(employee);
-      }
-      if (employee.getRoom() != null) {
-        employee.getRoom().getEmployees().remove(employee);
-      }
-      if (data instanceof Manager) {
-        dataContainer.getManagers().remove(data);
-      }
-      dataContainer.getEmployees().remove(data);
+        setBuilding((Room) data, null);
 
-    } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      for (Employee employee : ((Team) data).getEmployees()) {
-        employee.setTeam(null);
-      }
-      dataContainer.getTeams().remove(data);
+      } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
+        container.getBuildings().remove(data);
+        for (Room room : ((Building) data).getRooms()) {
+          unlinkBuilding(room, (Building) data);
+        }
 
-    } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      for (Employee employee : ((Room) data).getEmployees()) {
-        employee.setRoom(null);
-      }
-      if (((Room) data).getBuilding() != null) {
-        ((Room) data).getBuilding().getRooms().remove(data);
-      }
-      dataContainer.getRooms().remove(data);
+      } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
+        container.getPhotos().remove(data);
 
-    } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      for (Room room : ((Building) data).getRooms()) {
-        room.setBuilding(null);
+      } else {
+        throw new ODataNotImplementedException();
       }
-      dataContainer.getBuildings().remove(data);
-
-    } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      dataContainer.getPhotos().remove(data);
-
-    } else {
-      throw new ODataNotImplementedException();
+    } finally {
+      container.unlockAllRelations();
     }
   }
 
   @Override
   public void createData(final EdmEntitySet entitySet, final Object data) throws ODataNotImplementedException, EdmException, ODataApplicationException {
     if (ENTITYSET_1_1.equals(entitySet.getName())) {
-      dataContainer.getEmployees().add((Employee) data);
+      getDataContainer().getEmployees().add((Employee) data);
     } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      dataContainer.getTeams().add((Team) data);
+      getDataContainer().getTeams().add((Team) data);
     } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      dataContainer.getRooms().add((Room) data);
+      getDataContainer().getRooms().add((Room) data);
     } else if (ENTITYSET_1_4.equals(entitySet.getName())) {
-      dataContainer.getManagers().add((Manager) data);
+      getDataContainer().getManagers().add((Manager) data);
     } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      dataContainer.getBuildings().add((Building) data);
+      getDataContainer().getBuildings().add((Building) data);
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      dataContainer.getPhotos().add((Photo) data);
+      getDataContainer().getPhotos().add((Photo) data);
     } else {
       throw new ODataNotImplementedException();
     }
@@ -474,57 +550,45 @@ public class ScenarioDataSource implements ListsDataSource {
   @Override
   public void deleteRelation(final EdmEntitySet sourceEntitySet, final Object sourceData, final EdmEntitySet targetEntitySet, final Map<String, Object> targetKeys) throws ODataNotImplementedException, ODataNotFoundException, EdmException, ODataApplicationException {
     if (ENTITYSET_1_1.equals(targetEntitySet.getName())) {
+      List<Employee> employees = Collections.emptyList();
       if (ENTITYSET_1_2.equals(sourceEntitySet.getName())) {
-        for (Iterator<Employee> iterator = ((Team) sourceData).getEmployees().iterator(); iterator.hasNext();) {
-          final Employee employee = iterator.next();
-          if (employee.getId().equals(targetKeys.get("EmployeeId"))) {
-            employee.setTeam(null);
-            iterator.remove();
-          }
-        }
+        employees = ((Team) sourceData).getEmployees();
       } else if (ENTITYSET_1_3.equals(sourceEntitySet.getName())) {
-        for (Iterator<Employee> iterator = ((Room) sourceData).getEmployees().iterator(); iterator.hasNext();) {
-          final Employee employee = iterator.next();
-          if (employee.getId().equals(targetKeys.get("EmployeeId"))) {
-            employee.setRoom(null);
-            iterator.remove();
-          }
-        }
+        employees = ((Room) sourceData).getEmployees();
       } else if (ENTITYSET_1_4.equals(sourceEntitySet.getName())) {
-        for (Iterator<Employee> iterator = ((Manager) sourceData).getEmployees().iterator(); iterator.hasNext();) {
-          final Employee employee = iterator.next();
-          if (employee.getId().equals(targetKeys.get("EmployeeId"))) {
-            employee.setManager(null);
-            iterator.remove();
+        employees = ((Manager) sourceData).getEmployees();
+      }
+      for (final Employee employee : employees) {
+        if (employee.getId().equals(targetKeys.get("EmployeeId"))) {
+          if (ENTITYSET_1_2.equals(sourceEntitySet.getName())) {
+            unlinkTeam(employee, (Team) sourceData);
+          } else if (ENTITYSET_1_3.equals(sourceEntitySet.getName())) {
+            unlinkRoom(employee, (Room) sourceData);
+          } else {
+            unlinkManager(employee, (Manager) sourceData);
           }
         }
       }
 
     } else if (ENTITYSET_1_2.equals(targetEntitySet.getName())) {
-      ((Employee) sourceData).getTeam().getEmployees().remove(sourceData);
-      ((Employee) sourceData).setTeam(null);
+      setTeam((Employee) sourceData, null);
 
     } else if (ENTITYSET_1_3.equals(targetEntitySet.getName())) {
       if (ENTITYSET_1_1.equals(sourceEntitySet.getName())) {
-        ((Employee) sourceData).getRoom().getEmployees().remove(sourceData);
-        ((Employee) sourceData).setRoom(null);
+        setRoom((Employee) sourceData, null);
       } else if (ENTITYSET_1_5.equals(sourceEntitySet.getName())) {
-        for (Iterator<Room> iterator = ((Building) sourceData).getRooms().iterator(); iterator.hasNext();) {
-          final Room room = iterator.next();
+        for (final Room room : ((Building) sourceData).getRooms()) {
           if (room.getId().equals(targetKeys.get("Id"))) {
-            room.setBuilding(null);
-            iterator.remove();
+            unlinkBuilding(room, (Building) sourceData);
           }
         }
       }
 
     } else if (ENTITYSET_1_4.equals(targetEntitySet.getName())) {
-      ((Employee) sourceData).getManager().getEmployees().remove(sourceData);
-      ((Employee) sourceData).setManager(null);
+      setManager((Employee) sourceData, null);
 
     } else if (ENTITYSET_1_5.equals(targetEntitySet.getName())) {
-      ((Room) sourceData).getBuilding().getRooms().remove(sourceData);
-      ((Room) sourceData).setBuilding(null);
+      setBuilding((Room) sourceData, null);
 
     } else {
       throw new ODataNotImplementedException();
@@ -536,67 +600,189 @@ public class ScenarioDataSource implements ListsDataSource {
     if (ENTITYSET_1_1.equals(targetEntitySet.getName())) {
       final Employee employee = (Employee) readData(targetEntitySet, targetKeys);
       if (ENTITYSET_1_2.equals(sourceEntitySet.getName())) {
-        if (employee.getTeam() != null) {
-          employee.getTeam().getEmployees().remove(employee);
-        }
-        employee.setTeam((Team) sourceData);
-        ((Team) sourceData).getEmployees().add(employee);
+        setTeam(employee, (Team) sourceData);
       } else if (ENTITYSET_1_3.equals(sourceEntitySet.getName())) {
-        if (employee.getRoom() != null) {
-          employee.getRoom().getEmployees().remove(employee);
-        }
-        employee.setRoom((Room) sourceData);
-        ((Room) sourceData).getEmployees().add(employee);
+        setRoom(employee, (Room) sourceData);
       } else if (ENTITYSET_1_4.equals(sourceEntitySet.getName())) {
-        if (employee.getManager() != null) {
-          employee.getManager().getEmployees().remove(employee);
-        }
-        employee.setManager((Manager) sourceData);
-        ((Manager) sourceData).getEmployees().add(employee);
+        setManager(employee, (Manager) sourceData);
       }
 
     } else if (ENTITYSET_1_2.equals(targetEntitySet.getName())) {
-      final Team team = (Team) readData(targetEntitySet, targetKeys);
-      if (((Employee) sourceData).getTeam() != null) {
-        ((Employee) sourceData).getTeam().getEmployees().remove(sourceData);
-      }
-      ((Employee) sourceData).setTeam(team);
-      team.getEmployees().add((Employee) sourceData);
+      setTeam((Employee) sourceData, (Team) readData(targetEntitySet, targetKeys));
 
     } else if (ENTITYSET_1_3.equals(targetEntitySet.getName())) {
       final Room room = (Room) readData(targetEntitySet, targetKeys);
       if (ENTITYSET_1_1.equals(sourceEntitySet.getName())) {
-        if (((Employee) sourceData).getRoom() != null) {
-          ((Employee) sourceData).getRoom().getEmployees().remove(sourceData);
-        }
-        ((Employee) sourceData).setRoom(room);
-        room.getEmployees().add((Employee) sourceData);
+        setRoom((Employee) sourceData, room);
       } else if (ENTITYSET_1_5.equals(sourceEntitySet.getName())) {
-        if (room.getBuilding() != null) {
-          room.getBuilding().getRooms().remove(room);
-        }
-        room.setBuilding((Building) sourceData);
-        ((Building) sourceData).getRooms().add(room);
+        setBuilding(room, (Building) sourceData);
       }
 
     } else if (ENTITYSET_1_4.equals(targetEntitySet.getName())) {
-      final Manager manager = (Manager) readData(targetEntitySet, targetKeys);
-      if (((Employee) sourceData).getManager() != null) {
-        ((Employee) sourceData).getManager().getEmployees().remove(sourceData);
-      }
-      ((Employee) sourceData).setManager(manager);
-      manager.getEmployees().add((Employee) sourceData);
+      setManager((Employee) sourceData, (Manager) readData(targetEntitySet, targetKeys));
 
     } else if (ENTITYSET_1_5.equals(targetEntitySet.getName())) {
-      final Building building = (Building) readData(targetEntitySet, targetKeys);
-      if (((Room) sourceData).getBuilding() != null) {
-        ((Room) sourceData).getBuilding().getRooms().remove(sourceData);
-      }
-      ((Room) sourceData).setBuilding(building);
-      building.getRooms().add((Room) sourceData);
+      setBuilding((Room) sourceData, (Building) readData(targetEntitySet, targetKeys));
 
     } else {
       throw new ODataNotImplementedException();
     }
   }
+
+  /*
+   * The relation helpers below change both ends of a relation while holding the
+   * relation lock of the data object with the to-one end, so that concurrent
+   * changes of the same relation cannot leave a data object in the lists of
+   * two related objects. The lists themselves tolerate concurrent modification.
+   * Data objects are deleted while holding all relation locks, so a new relation
+   * is only created between data objects still contained in the data.
+   */
+
+  private void checkContained(final Object data) throws ODataNotFoundException {
+    final DataContainer container = getDataContainer();
+    final boolean contained = data instanceof Manager && container.getManagers().contains(data)
+        || data instanceof Employee && container.getEmployees().contains(data)
+        || data instanceof Team && container.getTeams().contains(data)
+        || data instanceof Room && container.getRooms().contains(data)
+        || data instanceof Building && container.getBuildings().contains(data);
+    if (!contained) {
+      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+    }
+  }
+
+  private void setTeam(final Employee employee, final Team team) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (team != null) {
+        checkContained(employee);
+        checkContained(team);
+      }
+      if (employee.getTeam() != null) {
+        employee.getTeam().getEmployees().remove(employee);
+      }
+      employee.setTeam(team);
+      if (team != null) {
+        team.getEmployees().add(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void unlinkTeam(final Employee employee, final Team team) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (employee.getTeam() == team) {
+        setTeam(employee, null);
+      } else {
+        team.getEmployees().remove(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void setRoom(final Employee employee, final Room room) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (room != null) {
+        checkContained(employee);
+        checkContained(room);
+      }
+      if (employee.getRoom() != null) {
+        employee.getRoom().getEmployees().remove(employee);
+      }
+      employee.setRoom(room);
+      if (room != null) {
+        room.getEmployees().add(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void unlinkRoom(final Employee employee, final Room room) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (employee.getRoom() == room) {
+        setRoom(employee, null);
+      } else {
+        room.getEmployees().remove(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void setManager(final Employee employee, final Manager manager) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (manager != null) {
+        checkContained(employee);
+        checkContained(manager);
+      }
+      if (employee.getManager() != null) {
+        employee.getManager().getEmployees().remove(employee);
+      }
+      employee.setManager(manager);
+      if (manager != null) {
+        manager.getEmployees().add(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void unlinkManager(final Employee employee, final Manager manager) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(employee);
+    lock.lock();
+    try {
+      if (employee.getManager() == manager) {
+        setManager(employee, null);
+      } else {
+        manager.getEmployees().remove(employee);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void setBuilding(final Room room, final Building building) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(room);
+    lock.lock();
+    try {
+      if (building != null) {
+        checkContained(room);
+        checkContained(building);
+      }
+      if (room.getBuilding() != null) {
+        room.getBuilding().getRooms().remove(room);
+      }
+      room.setBuilding(building);
+      if (building != null) {
+        building.getRooms().add(room);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void unlinkBuilding(final Room room, final Building building) throws ODataNotFoundException {
+    final Lock lock = getDataContainer().getRelationLock(room);
+    lock.lock();
+    try {
+      if (room.getBuilding() == building) {
+        setBuilding(room, null);
+      } else {
+        building.getRooms().remove(room);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
 }
@@ -18,8 +18,11 @@ package com.sap.core.odata.ref.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ConcurrentModificationException;
 import java.util.List;
 
 import org.junit.Test;
@@ -79,4 +82,102 @@ public class DataContainerTest extends BaseTest {
     assertFalse(dataContainer.getPhotos().isEmpty());
   }
 
+  @Test
+  public void transactionCommit() {
+    dataContainer.init();
+    final List<Team> committedTeams = dataContainer.getTeams();
+    DataContainer transaction = dataContainer.beginTransaction();
+    Team team = transaction.getTeams().get(1);
+    assertNotSame(committedTeams.get(1), team);
+    team.setName(NAME);
+    Team newTeam = transaction.createTeam();
+    transaction.getTeams().add(newTeam);
+    assertEquals("Team 2", dataContainer.getTeams().get(1).getName());
+    assertEquals(3, dataContainer.getTeams().size());
+
+    transaction.commit();
+    assertEquals(NAME, dataContainer.getTeams().get(1).getName());
+    assertEquals(4, dataContainer.getTeams().size());
+    assertEquals("Team 2", committedTeams.get(1).getName());
+    assertEquals("5", dataContainer.createTeam().getId());
+  }
+
+  @Test
+  public void transactionRollback() {
+    dataContainer.init();
+    DataContainer transaction = dataContainer.beginTransaction();
+    transaction.getEmployees().remove(0);
+    transaction.getTeams().get(0).setName(NAME);
+    assertEquals(6, dataContainer.getEmployees().size());
+    assertEquals("Team 1", dataContainer.getTeams().get(0).getName());
+  }
+
+  @Test
+  public void transactionCopiesRelations() {
+    dataContainer.init();
+    DataContainer transaction = dataContainer.beginTransaction();
+    final Employee employee = transaction.getEmployees().get(1);
+    assertSame(transaction.getManagers().get(0), employee.getManager());
+    assertSame(transaction.getTeams().get(0), employee.getTeam());
+    assertTrue(employee.getRoom().getEmployees().contains(employee));
+    assertSame(transaction.getRooms().get(1), employee.getRoom());
+    assertSame(transaction.getBuildings().get(1), employee.getRoom().getBuilding());
+    assertSame(employee.getLocation(), transaction.getEmployees().get(2).getLocation());
+    assertNotSame(dataContainer.getEmployees().get(1).getLocation(), employee.getLocation());
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void concurrentTransactions() {
+    dataContainer.init();
+    DataContainer transaction1 = dataContainer.beginTransaction();
+    DataContainer transaction2 = dataContainer.beginTransaction();
+    transaction1.commit();
+    transaction2.commit();
+  }
+
+  @Test
+  public void writeDuringTransaction() {
+    dataContainer.init();
+    DataContainer transaction = dataContainer.beginTransaction();
+    transaction.getTeams().get(1).setName(NAME);
+    dataContainer.beginWrite();
+    dataContainer.getTeams().get(0).setName(NAME);
+    dataContainer.endWrite();
+    try {
+      transaction.commit();
+      fail("Expected ConcurrentModificationException");
+    } catch (final ConcurrentModificationException e) {
+      assertEquals(NAME, dataContainer.getTeams().get(0).getName());
+      assertEquals("Team 2", dataContainer.getTeams().get(1).getName());
+    }
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void commitDuringWrite() {
+    dataContainer.init();
+    dataContainer.beginWrite();
+    try {
+      dataContainer.beginTransaction().commit();
+    } finally {
+      dataContainer.endWrite();
+    }
+  }
+
+  @Test
+  public void writeAfterCommit() {
+    dataContainer.init();
+    dataContainer.beginWrite();
+    dataContainer.getTeams().get(0).setName(NAME);
+    dataContainer.endWrite();
+    DataContainer transaction = dataContainer.beginTransaction();
+    transaction.getTeams().get(1).setName(NAME);
+    transaction.commit();
+    dataContainer.beginWrite();
+    dataContainer.getTeams().get(2).setName(NAME);
+    dataContainer.endWrite();
+    for (final Team team : dataContainer.getTeams()) {
+      assertEquals(NAME, team.getName());
+    }
+  }
+
 }
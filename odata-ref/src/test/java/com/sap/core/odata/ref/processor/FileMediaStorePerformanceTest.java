@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sap.core.odata.api.ep.EntityProvider;
+import com.sap.core.odata.api.processor.FileEntity;
+import com.sap.core.odata.core.commons.FileTransfer;
+import com.sap.core.odata.ref.processor.ListsDataSource.BinaryData;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * Compares storing and serving the same media resource through the
+ * {@link FileMediaStore} with keeping it in memory as {@link BinaryData}.
+ * @author SAP AG
+ */
+public class FileMediaStorePerformanceTest extends BaseTest {
+
+  private static final int SIZE = 1024 * 1024;
+  private static final int WARM_UP = 5;
+  private static final int TIMES = 20; // increase for manual performance testing
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private byte[] payload;
+  private FileMediaStore mediaStore;
+
+  /** Counts the written bytes without keeping them, like a socket does. */
+  private static class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(final int b) throws IOException {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      count += len;
+    }
+  }
+
+  @Before
+  public void prepare() throws Exception {
+    payload = new byte[SIZE];
+    new Random().nextBytes(payload);
+    mediaStore = new FileMediaStore(folder.newFolder("media"));
+  }
+
+  @Test
+  public void fileAndMemory() throws Exception {
+    for (int i = 0; i < WARM_UP; i++) {
+      viaFile();
+      viaMemory();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      viaFile();
+    }
+    final long fileDuration = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      viaMemory();
+    }
+    final long memoryDuration = System.nanoTime() - start;
+
+    log.debug("Wrote and read " + TIMES + " times " + SIZE + " bytes: via file in " + (fileDuration / 1000000) + " ms, "
+        + "in memory in " + (memoryDuration / 1000000) + " ms.");
+  }
+
+  private void viaFile() throws Exception {
+    final File file = mediaStore.write("payload", EntityProvider.readBinary(new ByteArrayInputStream(payload)));
+    CountingOutputStream out = new CountingOutputStream();
+    FileTransfer.transferTo(new FileEntity(file), out);
+    assertEquals(SIZE, out.count);
+  }
+
+  private void viaMemory() throws Exception {
+    final BinaryData binaryData = new BinaryData(EntityProvider.readBinary(new ByteArrayInputStream(payload)), "application/octet-stream");
+    CountingOutputStream out = new CountingOutputStream();
+    out.write(binaryData.getData());
+    assertEquals(SIZE, out.count);
+  }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.ODataService;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.uri.PathSegment;
+import com.sap.core.odata.core.ODataContextImpl;
+import com.sap.core.odata.core.ODataPathSegmentImpl;
+import com.sap.core.odata.core.ODataRequestHandler;
+import com.sap.core.odata.core.PathInfoImpl;
+import com.sap.core.odata.core.debug.ThreadResourceMeter;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * Benchmark for the memory allocated while handling one request,
+ * from building the request to the written response.
+ * @author SAP AG
+ */
+public class RequestAllocationTest extends BaseTest {
+
+  private static final int WARM_UP = 200;
+  private static final int TIMES = 500; // increase for manual performance testing
+
+  private final ScenarioServiceFactory serviceFactory = new ScenarioServiceFactory();
+
+  @Test
+  public void allocationPerRequest() throws Exception {
+    // The service, i.e., metadata and data, is created once like in a productive service.
+    final ODataService service = serviceFactory.createService(null);
+
+    for (int i = 0; i < WARM_UP; i++) {
+      handleRequest(service, "Employees('" + (i % 6 + 1) + "')");
+    }
+
+    final long allocatedBefore = ThreadResourceMeter.getAllocatedBytes();
+    final long start = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      handleRequest(service, "Employees('" + (i % 6 + 1) + "')");
+    }
+    final long duration = System.nanoTime() - start;
+    final long allocated = ThreadResourceMeter.getAllocatedBytes() - allocatedBefore;
+
+    log.debug("Handled " + TIMES + " requests in " + (duration / 1000000) + " ms ("
+        + (duration / TIMES) + " ns per request"
+        + (ThreadResourceMeter.isAllocatedBytesSupported() ? ", " + allocated / TIMES + " bytes per request" : "")
+        + ").");
+  }
+
+  private void handleRequest(final ODataService service, final String path) throws Exception {
+    final List<String> acceptHeaders = Arrays.asList("application/json");
+    final List<Locale> acceptableLanguages = Collections.emptyList();
+    final Map<String, List<String>> requestHeaders = Collections.emptyMap();
+    final Map<String, String> queryParameters = Collections.emptyMap();
+    final ODataRequest request = ODataRequest.method(ODataHttpMethod.GET)
+        .pathInfo(createPathInfo(path))
+        .acceptHeaders(acceptHeaders)
+        .acceptableLanguages(acceptableLanguages)
+        .requestHeaders(requestHeaders)
+        .queryParameters(queryParameters)
+        .build();
+
+    final ODataResponse response = handle(service, request);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    StringHelper.inputStreamToString((InputStream) response.getEntity());
+  }
+
+  private ODataResponse handle(final ODataService service, final ODataRequest request) throws ODataException {
+    ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
+    context.setService(service);
+    service.getProcessor().setContext(context);
+    return new ODataRequestHandler(serviceFactory, service, context).handle(request);
+  }
+
+  private static PathInfoImpl createPathInfo(final String path) throws Exception {
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI("http://localhost/service/"));
+    pathInfo.setRequestUri(new URI("http://localhost/service/" + path));
+    pathInfo.setPrecedingPathSegment(Collections.<PathSegment> emptyList());
+    pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(new ODataPathSegmentImpl(path, null)));
+    return pathInfo;
+  }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.EdmEntityContainer;
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.exception.ODataNotFoundException;
+import com.sap.core.odata.core.edm.provider.EdmImplProv;
+import com.sap.core.odata.ref.edm.ScenarioEdmProvider;
+import com.sap.core.odata.ref.model.DataContainer;
+import com.sap.core.odata.ref.model.Employee;
+import com.sap.core.odata.ref.model.Room;
+import com.sap.core.odata.ref.model.Team;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * Stress test for concurrent reads and writes on the data of the reference scenario.
+ * @author SAP AG
+ */
+public class ScenarioDataSourceConcurrencyTest extends BaseTest {
+
+  private static final int THREADS = 8;
+  private static final int OPERATIONS = 2000; // increase for manual stress testing
+
+  private final DataContainer dataContainer = new DataContainer();
+  private final ScenarioDataSource dataSource = new ScenarioDataSource(dataContainer);
+  private EdmEntitySet employees;
+  private EdmEntitySet teams;
+  private EdmEntitySet rooms;
+
+  @Test
+  public void concurrentReadsAndWrites() throws Exception {
+    dataContainer.reset();
+    final EdmEntityContainer entityContainer = new EdmImplProv(new ScenarioEdmProvider()).getDefaultEntityContainer();
+    employees = entityContainer.getEntitySet("Employees");
+    teams = entityContainer.getEntitySet("Teams");
+    rooms = entityContainer.getEntitySet("Rooms");
+
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<Void>> results = new ArrayList<Future<Void>>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      final long seed = thread;
+      results.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          start.await();
+          work(new Random(seed));
+          return null;
+        }
+      }));
+    }
+    start.countDown();
+    for (final Future<Void> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    checkConsistency();
+  }
+
+  /**
+   * Creates, moves, reads, and deletes employees and teams shared by all threads.
+   * Operations on data deleted concurrently are rejected as not found.
+   */
+  private void work(final Random random) throws Exception {
+    for (int i = 0; i < OPERATIONS; i++) {
+      try {
+        switch (random.nextInt(6)) {
+        case 0:
+          Employee employee = (Employee) dataSource.newDataObject(employees);
+          dataSource.createData(employees, employee);
+          dataSource.writeRelation(teams, readRandom(teams, random), employees, getKey(employee));
+          break;
+        case 1:
+          dataSource.deleteData(employees, getKey((Employee) readRandom(employees, random)));
+          break;
+        case 2:
+          final Employee moved = (Employee) readRandom(employees, random);
+          if (random.nextBoolean()) {
+            dataSource.writeRelation(employees, moved, teams, getKey((Team) readRandom(teams, random)));
+          } else {
+            dataSource.writeRelation(rooms, readRandom(rooms, random), employees, getKey(moved));
+          }
+          break;
+        case 3:
+          if (random.nextBoolean()) {
+            dataSource.createData(teams, dataSource.newDataObject(teams));
+          } else {
+            dataSource.deleteData(teams, getKey((Team) readRandom(teams, random)));
+          }
+          break;
+        case 4:
+          for (final Object data : dataSource.readData(employees)) {
+            assertNotNull(((Employee) data).getEmployeeName());
+          }
+          break;
+        default:
+          final Object team = readRandom(teams, random);
+          for (final Employee member : ((Team) team).getEmployees()) {
+            assertNotNull(member.getId());
+          }
+          break;
+        }
+      } catch (final ODataNotFoundException e) {
+        // The data have been deleted by another thread.
+      }
+    }
+  }
+
+  private Object readRandom(final EdmEntitySet entitySet, final Random random) throws Exception {
+    final List<?> data = dataSource.readData(entitySet);
+    if (!data.isEmpty()) {
+      final int index = random.nextInt(data.size());
+      int position = 0;
+      for (final Object entity : data) {
+        if (position++ == index) {
+          return entity;
+        }
+      }
+    }
+    throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+  }
+
+  private static Map<String, Object> getKey(final Employee employee) {
+    return Collections.<String, Object> singletonMap("EmployeeId", employee.getId());
+  }
+
+  private static Map<String, Object> getKey(final Team team) {
+    return Collections.<String, Object> singletonMap("Id", team.getId());
+  }
+
+  private void checkConsistency() {
+    Set<Employee> allEmployees = new HashSet<Employee>(dataContainer.getEmployees());
+    Set<Team> allTeams = new HashSet<Team>(dataContainer.getTeams());
+    int teamMembers = 0;
+    for (final Team team : dataContainer.getTeams()) {
+      assertEquals(new HashSet<Employee>(team.getEmployees()).size(), team.getEmployees().size());
+      for (final Employee employee : team.getEmployees()) {
+        assertTrue(allEmployees.contains(employee));
+        assertSame(team, employee.getTeam());
+        teamMembers++;
+      }
+    }
+    int roomOccupants = 0;
+    for (final Room room : dataContainer.getRooms()) {
+      for (final Employee employee : room.getEmployees()) {
+        assertTrue(allEmployees.contains(employee));
+        assertSame(room, employee.getRoom());
+        roomOccupants++;
+      }
+    }
+    int withTeam = 0;
+    int withRoom = 0;
+    for (final Employee employee : allEmployees) {
+      if (employee.getTeam() != null) {
+        assertTrue(allTeams.contains(employee.getTeam()));
+        assertTrue(employee.getTeam().getEmployees().contains(employee));
+        withTeam++;
+      }
+      if (employee.getRoom() != null) {
+        assertTrue(employee.getRoom().getEmployees().contains(employee));
+        withRoom++;
+      }
+    }
+    assertEquals(withTeam, teamMembers);
+    assertEquals(withRoom, roomOccupants);
+  }
+}